@@ -13,6 +13,7 @@ import io.cognis.core.agent.AgentPool;
 import io.cognis.core.agent.Task;
 import io.cognis.core.agent.TaskQueue;
 import io.cognis.core.agent.ZombieReaper;
+import io.cognis.core.agent.PostTurnQueue;
 import io.cognis.core.bus.MessageBus;
 import io.cognis.core.bus.TopicMessageBus;
 import io.cognis.core.memory.SharedMemoryStore;
@@ -42,12 +43,23 @@ import io.cognis.core.channel.MetaWebhookHandler;
 import io.cognis.core.channel.NoopReplySender;
 import io.cognis.core.channel.TwilioWhatsAppSender;
 import io.cognis.core.config.model.WhatsAppConfig;
+import io.cognis.core.contact.ContactStore;
 import io.cognis.core.contact.FileContactStore;
+import io.cognis.core.contact.SqliteContactStore;
 import io.cognis.core.memory.FileMemoryStore;
 import io.cognis.core.memory.MemoryStore;
+import io.cognis.core.memory.MemoryConsolidationJob;
+import io.cognis.core.memory.MemoryRetentionPolicy;
+import io.cognis.core.memory.OnnxEmbeddingProvider;
+import io.cognis.core.memory.PartitionedMemoryStore;
 import io.cognis.core.usage.FileUsageStore;
 import io.cognis.core.usage.UsageService;
+import io.cognis.core.memory.CachingEmbeddingProvider;
+import io.cognis.core.memory.EmbeddingProvider;
+import io.cognis.core.memory.HashEmbeddingProvider;
+import io.cognis.core.memory.HeuristicMemoryExtractor;
 import io.cognis.core.memory.OpenAiCompatEmbeddingProvider;
+import io.cognis.core.memory.VectorIndexType;
 import io.cognis.core.sandbox.VerticalPolicy;
 import io.cognis.core.tool.PolicyEnforcedToolRegistry;
 import io.cognis.core.observability.FileAuditStore;
@@ -55,7 +67,10 @@ import io.cognis.core.observability.ObservabilityService;
 import io.cognis.core.payment.FilePaymentStore;
 import io.cognis.core.payment.PaymentLedgerService;
 import io.cognis.core.profile.FileProfileStore;
+import io.cognis.core.session.ConversationPage;
+import io.cognis.core.session.ConversationSession;
 import io.cognis.core.session.ConversationStore;
+import io.cognis.core.session.ConversationTurn;
 import io.cognis.core.session.FileConversationStore;
 import io.cognis.core.session.FileSessionSummaryManager;
 import io.cognis.core.session.SqliteConversationStore;
@@ -88,10 +103,12 @@ import io.cognis.core.voice.NoopTranscriber;
 import io.cognis.core.voice.OpenAiTranscriber;
 import io.cognis.core.voice.Transcriber;
 import io.cognis.core.workflow.WorkflowService;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
@@ -190,15 +207,14 @@ public final class CognisApplication {
 
         // Tier 1d — memory store: StratusOS VFS (with built-in vector search) when available,
         //           else file-backed JSON store as before.
+        EmbeddingProvider embeddingProvider = stratusEnabled ? null : buildEmbeddingProvider(config, workspacePath);
         MemoryStore memoryStore = stratusEnabled
-            ? new StratusVfsMemoryStore(stratusClient,
-                System.getenv().getOrDefault("COGNIS_VERTICAL", "default"))
-            : buildMemoryStore(config, workspacePath);
+            ? buildStratusMemoryStore(stratusClient)
+            : buildMemoryStore(workspacePath, embeddingProvider);
+        CachingEmbeddingProvider embeddingCache = embeddingProvider instanceof CachingEmbeddingProvider caching
+            ? caching : null;
         FileProfileStore profileStore = new FileProfileStore(workspacePath.resolve("profile.json"));
-        FileSessionSummaryManager sessionSummaryManager = new FileSessionSummaryManager(
-            workspacePath.resolve("memory/session-summary.txt"),
-            2_000
-        );
+        FileSessionSummaryManager sessionSummaryManager = buildSessionSummaryManager(workspacePath);
         ConversationStore conversationStore = buildConversationStore(workspacePath);
         ObservabilityService observabilityService = new ObservabilityService(
             new FileAuditStore(workspacePath.resolve(".cognis/observability/audit-events.json")),
@@ -266,7 +282,9 @@ public final class CognisApplication {
                 + "When users define contact aliases (for example wife/husband), persist them in profile or memory and reuse them in follow-up actions.",
             config.agents().defaults().provider(),
             config.agents().defaults().model(),
-            config.agents().defaults().maxToolIterations()
+            config.agents().defaults().maxToolIterations(),
+            Integer.parseInt(System.getenv().getOrDefault(
+                "COGNIS_MAX_PARALLEL_TOOLS", String.valueOf(AgentSettings.DEFAULT_MAX_PARALLEL_TOOLS)).trim())
         );
 
         AgentStore agentStore = new FileAgentStore(workspacePath.resolve(".cognis/agents/agents.json"));
@@ -288,11 +306,15 @@ public final class CognisApplication {
 
         // CoordinatorTool: planner uses cheapest available model (haiku)
         String plannerModel = "anthropic/claude-haiku-4-5-20251001";
+        PostTurnQueue postTurnQueue = buildPostTurnQueue();
+        registerShutdownSequence(postTurnQueue, memoryStore, sessionSummaryManager, conversationStore);
         AgentOrchestrator orchestrator = new AgentOrchestrator(
             providerRouter,
             toolRegistry,
             toolServices,
-            conversationStore
+            conversationStore,
+            new HeuristicMemoryExtractor(),
+            postTurnQueue
         );
         ToolContext coordinatorContext = new ToolContext(workspacePath, toolServices);
         TaskQueue taskQueue = new TaskQueue(agentTool, coordinatorContext);
@@ -315,7 +337,11 @@ public final class CognisApplication {
                 paymentLedgerService,
                 observabilityService,
                 toolRegistry,
-                subagentRegistry
+                subagentRegistry,
+                memoryStore,
+                conversationStore,
+                postTurnQueue,
+                embeddingCache
             )
         );
 
@@ -487,13 +513,35 @@ public final class CognisApplication {
                 throw new IllegalStateException("Failed to initialize SQLite conversation store at " + sqlitePath, e);
             }
         }
-        return new FileConversationStore(workspacePath.resolve("memory/history.json"));
+        int maxTurns = Integer.parseInt(System.getenv().getOrDefault("COGNIS_CONVERSATION_FILE_MAX_TURNS", "0").trim());
+        return new FileConversationStore(workspacePath.resolve("memory/history.json"), maxTurns);
+    }
+
+    private static ContactStore buildContactStore(Path workspacePath) {
+        Path legacy = workspacePath.resolve(".cognis/contacts.json");
+        String backend = System.getenv().getOrDefault("COGNIS_CONTACT_STORE", "sqlite").trim().toLowerCase();
+        if (!"sqlite".equals(backend)) {
+            return new FileContactStore(legacy);
+        }
+        Path sqlitePath = resolveSqlitePath("COGNIS_CONTACT_SQLITE_PATH", workspacePath.resolve(".cognis/contacts.db"));
+        try {
+            SqliteContactStore store = new SqliteContactStore(sqlitePath);
+            store.importFile(legacy);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "contact-store-shutdown"));
+            return store;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize SQLite contact store at " + sqlitePath, e);
+        }
     }
 
     private static Path resolveConversationSqlitePath(Path workspacePath) {
-        String raw = System.getenv("COGNIS_CONVERSATION_SQLITE_PATH");
+        return resolveSqlitePath("COGNIS_CONVERSATION_SQLITE_PATH", workspacePath.resolve(".cognis/conversations.db"));
+    }
+
+    private static Path resolveSqlitePath(String envName, Path defaultPath) {
+        String raw = System.getenv(envName);
         if (raw == null || raw.isBlank()) {
-            return workspacePath.resolve(".cognis/conversations.db");
+            return defaultPath;
         }
         if (raw.startsWith("~/")) {
             return Path.of(System.getProperty("user.home")).resolve(raw.substring(2));
@@ -514,7 +562,11 @@ public final class CognisApplication {
         PaymentLedgerService paymentLedgerService,
         ObservabilityService observabilityService,
         ToolRegistry toolRegistry,
-        SubagentRegistry subagentRegistry
+        SubagentRegistry subagentRegistry,
+        MemoryStore memoryStore,
+        ConversationStore conversationStore,
+        PostTurnQueue postTurnQueue,
+        CachingEmbeddingProvider embeddingCache
     ) throws Exception {
         CognisConfig config = configService.load(configPath);
         Path workspace = workspaceOverride != null
@@ -536,7 +588,7 @@ public final class CognisApplication {
             paymentLedgerService,
             observabilityService
         )) {
-            FileContactStore contactStore = new FileContactStore(workspace.resolve(".cognis/contacts.json"));
+            ContactStore contactStore = buildContactStore(workspace);
             FileUsageStore usageStore = new FileUsageStore(workspace.resolve(".cognis/usage.jsonl"));
             UsageService usageService = new UsageService(usageStore);
             WhatsAppConfig waCfg = config.whatsappOrDefaults();
@@ -570,6 +622,9 @@ public final class CognisApplication {
                 "usageService",      usageService
             ));
             HeartbeatScheduler heartbeatScheduler = new HeartbeatScheduler(verticalContext);
+            if (memoryStore instanceof FileMemoryStore || memoryStore instanceof PartitionedMemoryStore) {
+                heartbeatScheduler.register(buildMemoryConsolidationJob(memoryStore));
+            }
             ServiceLoader.load(CognisVertical.class).forEach(vertical -> {
                 try {
                     vertical.initialize(verticalContext);
@@ -610,6 +665,65 @@ public final class CognisApplication {
                 exchange.getResponseSender().send(json);
             });
 
+            // Session listings and turn pages read only what they return; see ConversationStore.
+            server.registerRoute("GET", "/conversations", (HttpHandler) (HttpServerExchange exchange) -> {
+                ConversationPage<ConversationSession> page = conversationStore.sessions(
+                    queryParam(exchange, "cursor"), queryLimit(exchange, 50));
+                List<Map<String, Object>> sessions = page.items().stream()
+                    .map(session -> Map.<String, Object>of(
+                        "id", session.id(),
+                        "turns", session.turns(),
+                        "last_updated", session.lastUpdated().toString()))
+                    .toList();
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("sessions", sessions);
+                payload.put("next_cursor", page.nextCursor());
+                sendJson(exchange, 200, payload);
+            });
+            server.registerRoute("GET", "/conversations/turns", (HttpHandler) (HttpServerExchange exchange) -> {
+                String session = queryParam(exchange, "session");
+                ConversationPage<ConversationTurn> page;
+                try {
+                    page = conversationStore.turns(
+                        session == null ? ConversationStore.DEFAULT_SESSION : session,
+                        queryParam(exchange, "cursor"),
+                        queryLimit(exchange, 20));
+                } catch (IllegalArgumentException e) {
+                    sendJson(exchange, 400, Map.of("error", "invalid_cursor"));
+                    return;
+                }
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("turns", page.items());
+                payload.put("next_cursor", page.nextCursor());
+                sendJson(exchange, 200, payload);
+            });
+
+            if (postTurnQueue != null) {
+                server.registerRoute("GET", "/metrics/post-turn", (HttpHandler) (HttpServerExchange exchange) -> {
+                    Map<String, Object> metrics = new LinkedHashMap<>();
+                    metrics.put("pending", postTurnQueue.pending());
+                    metrics.put("completed", postTurnQueue.completed());
+                    metrics.put("last_lag_ms", postTurnQueue.lastLag().toMillis());
+                    metrics.put("max_lag_ms", postTurnQueue.maxLag().toMillis());
+                    exchange.getResponseHeaders().put(io.undertow.util.Headers.CONTENT_TYPE, "application/json");
+                    exchange.setStatusCode(200);
+                    exchange.getResponseSender().send(new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(metrics));
+                });
+            }
+
+            if (embeddingCache != null) {
+                server.registerRoute("GET", "/metrics/embedding-cache", (HttpHandler) (HttpServerExchange exchange) -> {
+                    Map<String, Object> metrics = new LinkedHashMap<>();
+                    metrics.put("memory_hits", embeddingCache.memoryHits());
+                    metrics.put("disk_hits", embeddingCache.diskHits());
+                    metrics.put("misses", embeddingCache.misses());
+                    metrics.put("hit_rate", embeddingCache.hitRate());
+                    exchange.getResponseHeaders().put(io.undertow.util.Headers.CONTENT_TYPE, "application/json");
+                    exchange.setStatusCode(200);
+                    exchange.getResponseSender().send(new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(metrics));
+                });
+            }
+
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 shutdown.countDown();
                 heartbeatScheduler.close();
@@ -636,6 +750,30 @@ public final class CognisApplication {
         return 0;
     }
 
+    private static String queryParam(HttpServerExchange exchange, String name) {
+        var values = exchange.getQueryParameters().get(name);
+        return values == null || values.isEmpty() || values.getFirst().isBlank() ? null : values.getFirst();
+    }
+
+    private static int queryLimit(HttpServerExchange exchange, int defaultLimit) {
+        String raw = queryParam(exchange, "limit");
+        try {
+            return raw == null ? defaultLimit : Math.clamp(Integer.parseInt(raw), 1, 200);
+        } catch (NumberFormatException e) {
+            return defaultLimit;
+        }
+    }
+
+    private static void sendJson(HttpServerExchange exchange, int status, Object payload) throws IOException {
+        String json = new com.fasterxml.jackson.databind.ObjectMapper()
+            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule())
+            .disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .writeValueAsString(payload);
+        exchange.getResponseHeaders().put(io.undertow.util.Headers.CONTENT_TYPE, "application/json");
+        exchange.setStatusCode(status);
+        exchange.getResponseSender().send(json);
+    }
+
     private static void dispatchDueJobs(CronService cronService, MessageBus messageBus, WorkflowService workflowService) {
         try {
             cronService.runDue(job -> {
@@ -688,24 +826,135 @@ public final class CognisApplication {
         return "";
     }
 
-    private static FileMemoryStore buildMemoryStore(CognisConfig config, Path workspacePath) {
-        Path memoriesPath = workspacePath.resolve("memory/memories.json");
-        // Upgrade to real LLM embeddings when OpenRouter is configured
-        if (config.providers().openrouter() != null && config.providers().openrouter().configured()) {
+    private static EmbeddingProvider buildEmbeddingProvider(CognisConfig config, Path workspacePath) {
+        // A local ONNX model wins; otherwise upgrade to real LLM embeddings when OpenRouter is configured
+        EmbeddingProvider embeddingProvider = buildLocalEmbeddingProvider(workspacePath);
+        if (embeddingProvider == null
+            && config.providers().openrouter() != null && config.providers().openrouter().configured()) {
             String base = config.providers().openrouter().apiBase() == null
                 || config.providers().openrouter().apiBase().isBlank()
                 ? "https://openrouter.ai/api/v1"
                 : config.providers().openrouter().apiBase();
-            return new FileMemoryStore(
-                memoriesPath,
+            embeddingProvider = new CachingEmbeddingProvider(
                 new OpenAiCompatEmbeddingProvider(
                     base + "/embeddings",
                     config.providers().openrouter().apiKey(),
                     "openai/text-embedding-3-small"
-                )
+                ),
+                workspacePath.resolve("memory/embedding-cache.bin")
             );
         }
-        return new FileMemoryStore(memoriesPath);
+        if (embeddingProvider == null) {
+            boolean charTrigrams = Boolean.parseBoolean(
+                System.getenv().getOrDefault("COGNIS_MEMORY_HASH_TRIGRAMS", "false"));
+            embeddingProvider = new HashEmbeddingProvider(charTrigrams);
+        }
+        return embeddingProvider;
+    }
+
+    private static MemoryStore buildMemoryStore(Path workspacePath, EmbeddingProvider embeddingProvider) {
+        Path memoriesPath = workspacePath.resolve("memory/memories.json");
+        VectorIndexType vectorIndex = VectorIndexType.parse(
+            System.getenv().getOrDefault("COGNIS_MEMORY_VECTOR_INDEX", "hnsw"));
+        // Opt-in: vertical traffic gets one store per <vertical>/<client>, opened on demand. Memories
+        // stored before record no client, so they cannot be moved and stay in the workspace store.
+        boolean partitioned = Boolean.parseBoolean(
+            System.getenv().getOrDefault("COGNIS_MEMORY_PARTITIONS", "false").trim());
+        int maxOpenPartitions = Integer.parseInt(System.getenv().getOrDefault(
+            "COGNIS_MEMORY_OPEN_PARTITIONS", String.valueOf(PartitionedMemoryStore.DEFAULT_MAX_OPEN)).trim());
+        if (!partitioned || maxOpenPartitions <= 0) {
+            return new FileMemoryStore(memoriesPath, embeddingProvider, vectorIndex);
+        }
+        return new PartitionedMemoryStore(
+            memoriesPath,
+            path -> new FileMemoryStore(path, embeddingProvider, vectorIndex),
+            maxOpenPartitions
+        );
+    }
+
+    private static EmbeddingProvider buildLocalEmbeddingProvider(Path workspacePath) {
+        String modelDir = System.getenv("COGNIS_EMBEDDING_ONNX_MODEL");
+        if (modelDir == null || modelDir.isBlank()) {
+            return null;
+        }
+        try {
+            int threads = Integer.parseInt(System.getenv().getOrDefault(
+                "COGNIS_EMBEDDING_ONNX_THREADS", String.valueOf(Runtime.getRuntime().availableProcessors())).trim());
+            OnnxEmbeddingProvider onnx = new OnnxEmbeddingProvider(
+                Path.of(modelDir.trim()), threads, OnnxEmbeddingProvider.DEFAULT_MAX_TOKENS);
+            System.out.println("Memory embeddings: local ONNX model " + onnx.model() + " (" + threads + " threads)");
+            return new CachingEmbeddingProvider(onnx, workspacePath.resolve("memory/embedding-cache.bin"));
+        } catch (IOException | RuntimeException | LinkageError e) {
+            System.err.println("Local ONNX embedding model unavailable, falling back: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static StratusVfsMemoryStore buildStratusMemoryStore(StratusClient stratusClient) {
+        // Write-behind by default; strict mode writes every memory through before returning.
+        boolean strict = Boolean.parseBoolean(System.getenv().getOrDefault("COGNIS_STRATUS_MEMORY_STRICT", "false"));
+        return new StratusVfsMemoryStore(
+            stratusClient,
+            System.getenv().getOrDefault("COGNIS_VERTICAL", "default"),
+            strict,
+            Duration.ofSeconds(2)
+        );
+    }
+
+    private static FileSessionSummaryManager buildSessionSummaryManager(Path workspacePath) {
+        // Summaries are cached and written behind; the shutdown sequence writes the last window.
+        return new FileSessionSummaryManager(
+            workspacePath.resolve("memory/session-summary.txt"),
+            2_000,
+            FileSessionSummaryManager.DEFAULT_FLUSH_DELAY,
+            FileSessionSummaryManager.DEFAULT_CACHED_SESSIONS
+        );
+    }
+
+    private static PostTurnQueue buildPostTurnQueue() {
+        // Post-turn work (persistence, memory extraction, summary) runs after the reply is sent;
+        // a capacity of 0 keeps it inline.
+        int capacity = Integer.parseInt(System.getenv().getOrDefault(
+            "COGNIS_POST_TURN_QUEUE_CAPACITY", String.valueOf(PostTurnQueue.DEFAULT_CAPACITY)).trim());
+        if (capacity <= 0) {
+            return null;
+        }
+        return new PostTurnQueue(capacity);
+    }
+
+    /**
+     * Registers one shutdown hook that drains the post-turn queue and then closes the stores that
+     * drained work writes to, in order. Separate hooks would run concurrently, letting a drained
+     * turn write to a store that had already been closed.
+     */
+    private static void registerShutdownSequence(PostTurnQueue postTurnQueue, Object... stores) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (postTurnQueue != null) {
+                postTurnQueue.close();
+            }
+            for (Object store : stores) {
+                if (store instanceof AutoCloseable closeable) {
+                    try {
+                        closeable.close();
+                    } catch (Exception e) {
+                        // best-effort; every store recovers its own state on the next start
+                        System.err.println("Failed to close " + store.getClass().getSimpleName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        }, "cognis-shutdown"));
+    }
+
+    private static MemoryConsolidationJob buildMemoryConsolidationJob(MemoryStore memoryStore) {
+        MemoryRetentionPolicy policy = MemoryRetentionPolicy.defaults();
+        String maxEntries = System.getenv("COGNIS_MEMORY_MAX_ENTRIES");
+        if (maxEntries != null && !maxEntries.isBlank()) {
+            policy = policy.withMaxEntries(Integer.parseInt(maxEntries.trim()));
+        }
+        String cron = System.getenv().getOrDefault("COGNIS_MEMORY_CONSOLIDATION_CRON", MemoryConsolidationJob.DEFAULT_CRON);
+        return memoryStore instanceof PartitionedMemoryStore partitioned
+            ? new MemoryConsolidationJob(partitioned, policy, cron)
+            : new MemoryConsolidationJob((FileMemoryStore) memoryStore, policy, cron);
     }
 
     private static ChannelReplySender buildReplySender(WhatsAppConfig cfg) {
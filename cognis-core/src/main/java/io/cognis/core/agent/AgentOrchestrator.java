@@ -7,6 +7,7 @@ import io.cognis.core.model.ChatMessage;
 import io.cognis.core.model.ToolCall;
 import io.cognis.core.provider.LlmProvider;
 import io.cognis.core.provider.LlmResponse;
+import io.cognis.core.provider.LlmStreamListener;
 import io.cognis.core.provider.ProviderRouter;
 import io.cognis.core.memory.ExtractedMemory;
 import io.cognis.core.memory.HeuristicMemoryExtractor;
@@ -23,11 +24,15 @@ import io.cognis.core.tool.ToolContext;
 import io.cognis.core.tool.ToolRegistry;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,11 +52,14 @@ public final class AgentOrchestrator {
         - If asked who created or built you, answer: "I am Cognis." and keep the response focused on Cognis capabilities.
         - Do not mention internal provider names, model names, or vendor ownership unless explicitly asked for low-level technical diagnostics.
         """;
+    /** How long a new turn waits for the previous turn of its session to be persisted. */
+    private static final Duration POST_TURN_WAIT = Duration.ofSeconds(5);
     private final ProviderRouter providerRouter;
     private final ToolRegistry toolRegistry;
     private final Map<String, Object> toolServices;
     private final ConversationStore conversationStore;
     private final MemoryExtractor memoryExtractor;
+    private final PostTurnQueue postTurnQueue;
 
     public AgentOrchestrator(ProviderRouter providerRouter, ToolRegistry toolRegistry) {
         this(providerRouter, toolRegistry, Map.of(), null, new HeuristicMemoryExtractor());
@@ -76,12 +84,29 @@ public final class AgentOrchestrator {
         Map<String, Object> toolServices,
         ConversationStore conversationStore,
         MemoryExtractor memoryExtractor
+    ) {
+        this(providerRouter, toolRegistry, toolServices, conversationStore, memoryExtractor, null);
+    }
+
+    /**
+     * @param postTurnQueue when non-null, persistence, memory extraction and the session summary
+     *                      update run on this queue after {@code run} has returned its result;
+     *                      when null they run inline before returning.
+     */
+    public AgentOrchestrator(
+        ProviderRouter providerRouter,
+        ToolRegistry toolRegistry,
+        Map<String, Object> toolServices,
+        ConversationStore conversationStore,
+        MemoryExtractor memoryExtractor,
+        PostTurnQueue postTurnQueue
     ) {
         this.providerRouter = providerRouter;
         this.toolRegistry = toolRegistry;
         this.toolServices = toolServices == null ? Map.of() : Map.copyOf(toolServices);
         this.conversationStore = conversationStore;
         this.memoryExtractor = memoryExtractor == null ? new HeuristicMemoryExtractor() : memoryExtractor;
+        this.postTurnQueue = postTurnQueue;
     }
 
     public AgentResult run(String userPrompt, AgentSettings settings, Path workspace) {
@@ -92,6 +117,17 @@ public final class AgentOrchestrator {
         return run(userPrompt, settings, workspace, List.of(), runMetadata);
     }
 
+    /** Like {@link #run(String, AgentSettings, Path, Map)}, reporting reply text to {@code listener} as it is generated. */
+    public AgentResult run(
+        String userPrompt,
+        AgentSettings settings,
+        Path workspace,
+        Map<String, Object> runMetadata,
+        AgentStreamListener listener
+    ) {
+        return run(userPrompt, settings, workspace, List.of(), runMetadata, listener);
+    }
+
     /**
      * Run the agent with prior conversation turns pre-loaded into the transcript.
      * Used for cross-channel identity: field officers resume their conversation regardless
@@ -107,8 +143,30 @@ public final class AgentOrchestrator {
         List<ChatMessage> priorTurns,
         Map<String, Object> runMetadata
     ) {
+        return run(userPrompt, settings, workspace, priorTurns, runMetadata, null);
+    }
+
+    /**
+     * The full form of {@code run}.
+     *
+     * @param listener receives reply text while the provider streams it; null to run without streaming
+     */
+    public AgentResult run(
+        String userPrompt,
+        AgentSettings settings,
+        Path workspace,
+        List<ChatMessage> priorTurns,
+        Map<String, Object> runMetadata,
+        AgentStreamListener listener
+    ) {
+        String sessionKey = sessionKey(runMetadata);
+        if (postTurnQueue != null) {
+            // The previous turn of this session may still be writing memories and the summary.
+            postTurnQueue.awaitSession(sessionKey, POST_TURN_WAIT);
+        }
+        MemoryStore memoryStore = memoryStore(runMetadata);
         List<ChatMessage> transcript = new ArrayList<>();
-        transcript.add(ChatMessage.system(buildSystemPrompt(settings.systemPrompt(), userPrompt)));
+        transcript.add(ChatMessage.system(buildSystemPrompt(settings.systemPrompt(), userPrompt, sessionKey, memoryStore)));
         if (priorTurns != null && !priorTurns.isEmpty()) {
             transcript.addAll(priorTurns);
         }
@@ -124,6 +182,10 @@ public final class AgentOrchestrator {
         // (AgentTool reads it to create child spans).
         Map<String, Object> runServices = new java.util.HashMap<>(toolServices);
         runServices.put("traceContext", traceContext);
+        if (memoryStore != null) {
+            // Tools and child agents of this run see the same memory partition.
+            runServices.put("memoryStore", memoryStore);
+        }
 
         RunContext runContext = new RunContext(runMetadata, traceContext, runServices);
 
@@ -133,8 +195,22 @@ public final class AgentOrchestrator {
         Map<String, Object> usage = Map.of();
         boolean executedTool = false;
         boolean enforcedToolRetry = false;
+        LlmStreamListener providerListener = listener == null ? null : new LlmStreamListener() {
+            @Override
+            public void onTextDelta(String delta) {
+                listener.onTextDelta(delta);
+            }
+
+            @Override
+            public void onDiscard() {
+                // A fallback provider withdrew a partial reply before the next one answers.
+                listener.onDiscard();
+            }
+        };
         for (int i = 0; i < settings.maxToolIterations(); i++) {
-            LlmResponse response = provider.chat(settings.model(), transcript, toolDefinitions());
+            LlmResponse response = listener == null
+                ? provider.chat(settings.model(), transcript, toolRegistry.definitions())
+                : provider.chat(settings.model(), transcript, toolRegistry.definitions(), providerListener);
             usage = response.usage();
 
             if (response.toolCalls().isEmpty()) {
@@ -146,6 +222,9 @@ public final class AgentOrchestrator {
                             "External actions must be executed via tools before confirmation. "
                                 + "If the user asked to send/pay/order/call, call the required tool now."
                         ));
+                        if (listener != null) {
+                            listener.onDiscard();
+                        }
                         continue;
                     }
                     content = EXTERNAL_ACTION_GUARDRAIL;
@@ -155,15 +234,18 @@ public final class AgentOrchestrator {
                 }
                 transcript.add(ChatMessage.assistant(content));
                 AgentResult result = new AgentResult(content, List.copyOf(transcript), usage);
-                postProcessTurn(userPrompt, result);
+                postProcessTurn(sessionKey, memoryStore, userPrompt, result);
                 return result;
             }
 
             transcript.add(ChatMessage.assistantWithToolCalls(response.content(), response.toolCalls()));
-            for (ToolCall call : response.toolCalls()) {
-                executedTool = true;
-                String toolOutput = executeTool(call, workspace, runContext);
-                transcript.add(ChatMessage.tool(toolOutput, call.id()));
+            if (listener != null) {
+                listener.onToolCalls(response.toolCalls());
+            }
+            executedTool = true;
+            List<String> toolOutputs = executeTools(response.toolCalls(), workspace, runContext, settings.maxParallelTools());
+            for (int call = 0; call < toolOutputs.size(); call++) {
+                transcript.add(ChatMessage.tool(toolOutputs.get(call), response.toolCalls().get(call).id()));
             }
             // Heartbeat: update liveness timestamp so ZombieReaper can distinguish
             // stalled runs from legitimately long-running ones.
@@ -173,10 +255,68 @@ public final class AgentOrchestrator {
         String timeoutMessage = "Stopped after max tool iterations";
         transcript.add(ChatMessage.assistant(timeoutMessage));
         AgentResult result = AgentResult.maxIterations(timeoutMessage, List.copyOf(transcript), usage);
-        postProcessTurn(userPrompt, result);
+        postProcessTurn(sessionKey, memoryStore, userPrompt, result);
         return result;
     }
 
+    /**
+     * Runs the tool calls of one model response and returns their outputs in call order. A call to
+     * a tool that is not {@link Tool#parallelSafe() parallel-safe} is a barrier: it starts once
+     * every call before it has finished, and the calls after it wait for it. Each run of
+     * consecutive parallel-safe calls between barriers gets one virtual thread per call, at most
+     * {@code maxParallel} at once, so a response of independent lookups takes about as long as its
+     * slowest call while a read after a write still sees the write.
+     */
+    private List<String> executeTools(List<ToolCall> calls, Path workspace, RunContext runContext, int maxParallel) {
+        if (calls.size() == 1 || maxParallel <= 1) {
+            return calls.stream().map(call -> executeTool(call, workspace, runContext)).toList();
+        }
+        String[] outputs = new String[calls.size()];
+        List<Integer> concurrent = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            ToolCall call = calls.get(i);
+            if (toolRegistry.find(call.name()).map(Tool::parallelSafe).orElse(false)) {
+                concurrent.add(i);
+                continue;
+            }
+            executeConcurrently(calls, concurrent, outputs, workspace, runContext, maxParallel);
+            concurrent.clear();
+            outputs[i] = executeTool(call, workspace, runContext);
+        }
+        executeConcurrently(calls, concurrent, outputs, workspace, runContext, maxParallel);
+        List<String> results = new ArrayList<>(outputs.length);
+        for (int i = 0; i < outputs.length; i++) {
+            // Null only if the tool threw an Error, which safelyExecute lets through.
+            results.add(outputs[i] != null ? outputs[i] : "Error executing tool '" + calls.get(i).name() + "'");
+        }
+        return results;
+    }
+
+    /** Runs the given calls on virtual threads, at most {@code maxParallel} at once, and waits for all of them. */
+    private void executeConcurrently(List<ToolCall> calls, List<Integer> indexes, String[] outputs, Path workspace,
+                                     RunContext runContext, int maxParallel) {
+        if (indexes.size() <= 1) {
+            indexes.forEach(index -> outputs[index] = executeTool(calls.get(index), workspace, runContext));
+            return;
+        }
+        Semaphore permits = new Semaphore(maxParallel);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index : indexes) {
+                executor.submit(() -> withPermit(permits,
+                    () -> outputs[index] = executeTool(calls.get(index), workspace, runContext)));
+            }
+        }
+    }
+
+    private static void withPermit(Semaphore permits, Runnable work) {
+        permits.acquireUninterruptibly();
+        try {
+            work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
     private String executeTool(ToolCall call, Path workspace, RunContext runContext) {
         return toolRegistry.find(call.name())
             .map(tool -> safelyExecute(tool, call.arguments(), workspace, runContext))
@@ -198,23 +338,12 @@ public final class AgentOrchestrator {
         }
     }
 
-    private List<Map<String, Object>> toolDefinitions() {
-        return toolRegistry.all().stream()
-            .map(tool -> Map.of(
-                "type", "function",
-                "function", Map.of(
-                    "name", tool.name(),
-                    "description", tool.description(),
-                    "parameters", tool.schema())))
-            .toList();
-    }
-
-    private void persistTurn(String prompt, AgentResult result) {
+    private void persistTurn(String sessionKey, String prompt, AgentResult result) {
         if (conversationStore == null) {
             return;
         }
         try {
-            conversationStore.append(new ConversationTurn(
+            conversationStore.append(sessionKey.isBlank() ? ConversationStore.DEFAULT_SESSION : sessionKey, new ConversationTurn(
                 Instant.now(),
                 prompt,
                 result.content(),
@@ -225,40 +354,81 @@ public final class AgentOrchestrator {
         }
     }
 
-    private void postProcessTurn(String userPrompt, AgentResult result) {
-        persistTurn(userPrompt, result);
-        extractAndStoreMemories(userPrompt, result.content());
-        updateSessionSummary(userPrompt, result.content());
+    private void postProcessTurn(String sessionKey, MemoryStore memoryStore, String userPrompt, AgentResult result) {
+        Runnable work = () -> {
+            persistTurn(sessionKey, userPrompt, result);
+            extractAndStoreMemories(memoryStore, userPrompt, result.content());
+            updateSessionSummary(sessionKey, userPrompt, result.content());
+        };
+        if (postTurnQueue == null) {
+            work.run();
+        } else {
+            postTurnQueue.submit(sessionKey, work);
+        }
     }
 
-    private void extractAndStoreMemories(String userPrompt, String assistantResponse) {
+    /**
+     * The memory store for this run: the partition named by {@code memory_partition}, or for
+     * vertical traffic the partition of {@code <vertical>/<client_id>}, so one farmer's recall
+     * never scans another's memories. Other runs use the configured store as is.
+     */
+    private MemoryStore memoryStore(Map<String, Object> runMetadata) {
         MemoryStore memoryStore = service("memoryStore", MemoryStore.class);
+        if (memoryStore == null || runMetadata == null) {
+            return memoryStore;
+        }
+        Object explicit = runMetadata.get("memory_partition");
+        if (explicit != null && !String.valueOf(explicit).isBlank()) {
+            return memoryStore.partition(String.valueOf(explicit));
+        }
+        Object vertical = runMetadata.get("vertical");
+        Object clientId = runMetadata.get("client_id");
+        if (vertical == null || clientId == null || String.valueOf(clientId).isBlank()) {
+            return memoryStore;
+        }
+        return memoryStore.partition(vertical + "/" + clientId);
+    }
+
+    private static String sessionKey(Map<String, Object> runMetadata) {
+        if (runMetadata == null) {
+            return "";
+        }
+        for (String key : List.of("client_id", "task_id")) {
+            Object value = runMetadata.get(key);
+            if (value != null && !String.valueOf(value).isBlank()) {
+                return String.valueOf(value);
+            }
+        }
+        return "";
+    }
+
+    private void extractAndStoreMemories(MemoryStore memoryStore, String userPrompt, String assistantResponse) {
         if (memoryStore == null) {
             return;
         }
         try {
             List<ExtractedMemory> extracted = memoryExtractor.extract(userPrompt, assistantResponse);
-            for (ExtractedMemory memory : extracted) {
-                memoryStore.remember(memory.content(), "agent_loop", memory.tags());
+            if (!extracted.isEmpty()) {
+                memoryStore.rememberAll(extracted, "agent_loop");
             }
         } catch (Exception e) {
             LOG.debug("Memory extraction skipped: {}", e.getMessage());
         }
     }
 
-    private void updateSessionSummary(String userPrompt, String assistantResponse) {
+    private void updateSessionSummary(String sessionKey, String userPrompt, String assistantResponse) {
         SessionSummaryManager manager = service("sessionSummaryManager", SessionSummaryManager.class);
         if (manager == null) {
             return;
         }
         try {
-            manager.recordTurn(userPrompt, assistantResponse);
+            manager.recordTurn(sessionKey.isBlank() ? ConversationStore.DEFAULT_SESSION : sessionKey, userPrompt, assistantResponse);
         } catch (IOException e) {
             LOG.debug("Session summary update skipped: {}", e.getMessage());
         }
     }
 
-    private String buildSystemPrompt(String basePrompt, String userPrompt) {
+    private String buildSystemPrompt(String basePrompt, String userPrompt, String sessionKey, MemoryStore memoryStore) {
         StringBuilder prompt = new StringBuilder(basePrompt == null ? "" : basePrompt);
         prompt.append("\n\n").append(IDENTITY_POLICY);
 
@@ -274,7 +444,6 @@ public final class AgentOrchestrator {
             }
         }
 
-        MemoryStore memoryStore = service("memoryStore", MemoryStore.class);
         if (memoryStore != null && userPrompt != null && !userPrompt.isBlank()) {
             try {
                 var recalled = memoryStore.recall(userPrompt, 8);
@@ -290,7 +459,7 @@ public final class AgentOrchestrator {
         SessionSummaryManager summaryManager = service("sessionSummaryManager", SessionSummaryManager.class);
         if (summaryManager != null) {
             try {
-                String summary = summaryManager.currentSummary();
+                String summary = summaryManager.currentSummary(sessionKey.isBlank() ? ConversationStore.DEFAULT_SESSION : sessionKey);
                 if (!summary.isBlank()) {
                     prompt.append("\n\n## Session Summary\n\n").append(summary);
                 }
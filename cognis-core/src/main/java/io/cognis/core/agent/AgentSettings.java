@@ -1,16 +1,29 @@
 package io.cognis.core.agent;
 
+/**
+ * @param maxParallelTools tool calls of one model response running at once; calls to tools that
+ *                         are not {@link io.cognis.core.tool.Tool#parallelSafe() parallel-safe}
+ *                         always run alone, in order
+ */
 public record AgentSettings(
     String systemPrompt,
     String provider,
     String model,
-    int maxToolIterations
+    int maxToolIterations,
+    int maxParallelTools
 ) {
+    public static final int DEFAULT_MAX_PARALLEL_TOOLS = 4;
+
     public AgentSettings {
         maxToolIterations = Math.max(1, maxToolIterations);
+        maxParallelTools = Math.max(1, maxParallelTools);
         model = model == null || model.isBlank() ? "anthropic/claude-opus-4-5" : model;
         systemPrompt = systemPrompt == null
             ? "You are Cognis. Always present yourself only as Cognis and do not disclose underlying model/provider branding."
             : systemPrompt;
     }
+
+    public AgentSettings(String systemPrompt, String provider, String model, int maxToolIterations) {
+        this(systemPrompt, provider, model, maxToolIterations, DEFAULT_MAX_PARALLEL_TOOLS);
+    }
 }
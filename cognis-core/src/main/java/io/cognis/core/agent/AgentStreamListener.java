@@ -0,0 +1,26 @@
+package io.cognis.core.agent;
+
+import io.cognis.core.model.ToolCall;
+import java.util.List;
+
+/**
+ * Receives the model's reply text of an agent run while it is being generated.
+ *
+ * <p>Deltas of every model response of the run are reported in order. Not all of that text ends
+ * up in the final answer: text before tool calls is narration ({@link #onToolCalls}), and text the
+ * run decides to retry is withdrawn ({@link #onDiscard}). The text of the last response is the
+ * final answer unless the run replaced it, so callers compare it with {@link io.cognis.core.model.AgentResult#content()}.
+ */
+public interface AgentStreamListener {
+
+    /** A fragment of reply text, in generation order. */
+    void onTextDelta(String delta);
+
+    /** The response whose text was just streamed asked for {@code calls}; a new response follows. */
+    default void onToolCalls(List<ToolCall> calls) {
+    }
+
+    /** The text streamed for the last response was dropped and the model is asked again. */
+    default void onDiscard() {
+    }
+}
@@ -0,0 +1,163 @@
+package io.cognis.core.agent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded queue for the work {@link AgentOrchestrator} does after a turn has been answered:
+ * persisting the conversation, extracting memories and updating the session summary.
+ *
+ * <p>Tasks of one session run strictly in submission order, one at a time; different sessions
+ * proceed in parallel on virtual threads. At most {@code capacity} tasks may be queued or
+ * running; {@link #submit} blocks once that limit is reached, so a burst slows callers down
+ * instead of growing memory without bound. After {@link #close} new tasks run inline on the
+ * caller's thread and the queued ones are drained.
+ *
+ * <p>Queue lag — the time between submission and the start of a task — is tracked as the
+ * latest and the maximum value observed.
+ */
+public final class PostTurnQueue implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PostTurnQueue.class);
+    public static final int DEFAULT_CAPACITY = 1_024;
+
+    private final int capacity;
+    private final Semaphore slots;
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+    /** Last task submitted per session; the next one of that session chains onto it. */
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public PostTurnQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PostTurnQueue(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.slots = new Semaphore(this.capacity);
+    }
+
+    /**
+     * Queues {@code task} behind earlier tasks of {@code sessionKey}. Blocks while the queue is
+     * full; runs the task inline if the queue has been closed or the caller is interrupted.
+     */
+    public void submit(String sessionKey, Runnable task) {
+        if (closed.get()) {
+            runQuietly(task);
+            return;
+        }
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runQuietly(task);
+            return;
+        }
+        long submittedAt = System.nanoTime();
+        String key = sessionKey == null ? "" : sessionKey;
+        // A failed stage must not skip later tasks of the session (and leak their slots).
+        CompletableFuture<Void> next = tails.compute(key, (ignored, tail) ->
+            (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail.exceptionally(error -> null))
+                .thenRunAsync(() -> {
+                    recordLag(System.nanoTime() - submittedAt);
+                    try {
+                        runQuietly(task);
+                    } finally {
+                        completed.incrementAndGet();
+                        slots.release();
+                    }
+                }, executor));
+        // Forget the session once its last task is done, unless another was chained meanwhile.
+        next.whenComplete((result, error) -> tails.remove(key, next));
+    }
+
+    /**
+     * Waits until every task already submitted for {@code sessionKey} has finished, or until
+     * {@code timeout} elapses. Used before a new turn of the same session reads its history.
+     */
+    public void awaitSession(String sessionKey, Duration timeout) {
+        CompletableFuture<Void> tail = tails.get(sessionKey == null ? "" : sessionKey);
+        if (tail == null) {
+            return;
+        }
+        try {
+            tail.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.debug("Post-turn work for session {} not finished: {}", sessionKey, e.toString());
+        }
+    }
+
+    /** Tasks queued or running. */
+    public int pending() {
+        return capacity - slots.availablePermits();
+    }
+
+    /** Tasks finished since start. */
+    public long completed() {
+        return completed.get();
+    }
+
+    /** Queue lag of the most recently started task. */
+    public Duration lastLag() {
+        return Duration.ofNanos(lastLagNanos.get());
+    }
+
+    /** Largest queue lag observed since start. */
+    public Duration maxLag() {
+        return Duration.ofNanos(maxLagNanos.get());
+    }
+
+    /** Stops accepting work and waits up to {@code timeout} for queued tasks to finish. */
+    public void close(Duration timeout) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (slots.tryAcquire(capacity, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                // Drained. Hand the slots back so a submit that raced with close() cannot block.
+                slots.release(capacity);
+            } else {
+                LOG.warn("Post-turn queue closed with {} tasks still pending", pending());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Drains for up to 30 seconds. */
+    @Override
+    public void close() {
+        close(Duration.ofSeconds(30));
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos.set(lagNanos);
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    /** Errors too (e.g. a LinkageError from native embedding code): one task must not stop the queue. */
+    private static void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            LOG.warn("Post-turn task failed", e);
+        }
+    }
+}
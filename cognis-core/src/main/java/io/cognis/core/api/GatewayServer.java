@@ -6,8 +6,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.cognis.core.agent.AgentOrchestrator;
 import io.cognis.core.agent.AgentSettings;
+import io.cognis.core.agent.AgentStreamListener;
 import io.cognis.core.bus.MessageBus;
 import io.cognis.core.model.AgentResult;
+import io.cognis.core.model.ToolCall;
 import io.cognis.core.observability.ObservabilityService;
 import io.cognis.core.payment.PaymentLedgerService;
 import io.cognis.core.payment.PaymentPolicy;
@@ -56,7 +58,6 @@ import org.slf4j.LoggerFactory;
 public final class GatewayServer implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(GatewayServer.class);
     private static final Duration POLL_INTERVAL = Duration.ofMillis(250);
-    private static final int STREAM_CHUNK_SIZE = 80;
     private static final HttpString CORS_ALLOW_ORIGIN = new HttpString("Access-Control-Allow-Origin");
     private static final HttpString CORS_ALLOW_METHODS = new HttpString("Access-Control-Allow-Methods");
     private static final HttpString CORS_ALLOW_HEADERS = new HttpString("Access-Control-Allow-Headers");
@@ -589,22 +590,13 @@ public final class GatewayServer implements AutoCloseable {
                     ));
                     sendWs(channel, new WsOutboundMessage("typing", null, clientId, null, null, null, true));
                     try {
+                        WsStreamListener stream = new WsStreamListener(channel, clientId);
                         AgentResult result = orchestrator.run(content, agentSettings, workspace, Map.of(
                             "client_id", clientId,
                             "task_id", taskId
-                        ));
+                        ), stream);
                         String responseText = result.content() == null ? "" : result.content();
-                        String responseId = UUID.randomUUID().toString();
-                        boolean streamed = false;
-                        if (!responseText.isBlank()) {
-                            for (String chunk : chunkText(responseText, STREAM_CHUNK_SIZE)) {
-                                sendWs(channel, new WsOutboundMessage("text_delta", chunk, clientId, null, null, responseId, null));
-                                streamed = true;
-                            }
-                        }
-                        if (!streamed) {
-                            sendWs(channel, new WsOutboundMessage("message", responseText, clientId, null, responseId, null, null));
-                        }
+                        stream.finish(responseText);
                         sendWs(channel, new WsOutboundMessage("typing", null, clientId, null, null, null, false));
                         drainMessageBusToClient(channel, clientId);
                         Map<String, Object> taskCompleted = new LinkedHashMap<>();
@@ -683,16 +675,55 @@ public final class GatewayServer implements AutoCloseable {
         }
     }
 
-    private List<String> chunkText(String input, int chunkSize) {
-        if (input == null || input.isBlank()) {
-            return List.of();
+    /**
+     * Forwards an agent run's reply text to a WebSocket client as {@code text_delta} frames. Each
+     * model response streams under its own message id. A {@code message} frame with the same id
+     * replaces what was streamed under it: the run sends one when it withdraws the text, and at
+     * the end when the final answer differs from the streamed text (or nothing was streamed).
+     */
+    private final class WsStreamListener implements AgentStreamListener {
+        private final WebSocketChannel channel;
+        private final String clientId;
+        private final StringBuilder streamed = new StringBuilder();
+        private String messageId = UUID.randomUUID().toString();
+
+        WsStreamListener(WebSocketChannel channel, String clientId) {
+            this.channel = channel;
+            this.clientId = clientId;
         }
-        int safeChunk = Math.max(1, chunkSize);
-        List<String> chunks = new java.util.ArrayList<>();
-        for (int i = 0; i < input.length(); i += safeChunk) {
-            chunks.add(input.substring(i, Math.min(input.length(), i + safeChunk)));
+
+        @Override
+        public void onTextDelta(String delta) {
+            streamed.append(delta);
+            sendWs(channel, new WsOutboundMessage("text_delta", delta, clientId, null, null, messageId, null));
+        }
+
+        @Override
+        public void onToolCalls(List<ToolCall> calls) {
+            // Narration before tool calls stays as its own message.
+            nextMessage();
+        }
+
+        @Override
+        public void onDiscard() {
+            if (!streamed.isEmpty()) {
+                sendWs(channel, new WsOutboundMessage("message", "", clientId, null, messageId, null, null));
+            }
+            nextMessage();
+        }
+
+        void finish(String responseText) {
+            if (streamed.isEmpty() || !streamed.toString().equals(responseText)) {
+                sendWs(channel, new WsOutboundMessage("message", responseText, clientId, null, messageId, null, null));
+            }
+        }
+
+        private void nextMessage() {
+            if (!streamed.isEmpty()) {
+                streamed.setLength(0);
+                messageId = UUID.randomUUID().toString();
+            }
         }
-        return chunks;
     }
 
     private UploadPayload readUploadPayload(HttpServerExchange exchange, String field, String fallbackName) throws Exception {
@@ -0,0 +1,281 @@
+package io.cognis.core.contact;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.cognis.core.model.ChatMessage;
+import io.cognis.core.sqlite.GroupCommitWriter;
+import io.cognis.core.sqlite.SqliteReaderPool;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SQLite-backed {@link ContactStore}.
+ *
+ * <p>Contacts are rows of {@code contacts}, keyed by phone. Their history is kept in
+ * {@code contact_turns}, one row per user/assistant pair, as a ring buffer: every contact counts
+ * its turns in {@code next_seq}, and turn {@code seq} goes to slot {@code seq % maxHistory},
+ * replacing the oldest turn in place once the contact has {@code maxHistory} of them. A contact's
+ * history therefore never grows past the cap and appending never rewrites other turns or other
+ * contacts. Loading history is a single query on the {@code (phone, slot)} primary key.
+ *
+ * <p>Writes go through a {@link GroupCommitWriter}, so the turns of concurrent conversations are
+ * committed together; reads use a {@link SqliteReaderPool} and never wait for the writer.
+ */
+public final class SqliteContactStore implements ContactStore, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SqliteContactStore.class);
+    private static final TypeReference<Map<String, Contact>> MAP_TYPE = new TypeReference<>() {};
+    private static final String SELECT_CONTACT =
+        "SELECT alias, preferred_channel, last_seen FROM contacts WHERE phone = ?";
+    private static final String SELECT_TURNS = """
+        SELECT user_message, assistant_message
+        FROM contact_turns
+        WHERE phone = ?
+        ORDER BY seq DESC
+        LIMIT ?
+        """;
+    private static final String TOUCH_CONTACT = """
+        INSERT INTO contacts (phone, last_seen, next_seq) VALUES (?, ?, 1)
+        ON CONFLICT (phone) DO UPDATE SET last_seen = excluded.last_seen, next_seq = next_seq + 1
+        """;
+    private static final String SELECT_SEQ = "SELECT next_seq - 1 FROM contacts WHERE phone = ?";
+    private static final String PUT_TURN = """
+        INSERT OR REPLACE INTO contact_turns (phone, slot, seq, user_message, assistant_message)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+    private static final String TRIM_TURNS = "DELETE FROM contact_turns WHERE phone = ? AND seq <= ?";
+    private static final String UPDATE_ALIAS = """
+        INSERT INTO contacts (phone, alias, preferred_channel, last_seen) VALUES (?, ?, ?, ?)
+        ON CONFLICT (phone) DO UPDATE SET
+            alias = excluded.alias, preferred_channel = excluded.preferred_channel, last_seen = excluded.last_seen
+        """;
+    private static final String IMPORT_CONTACT = """
+        INSERT OR IGNORE INTO contacts (phone, alias, preferred_channel, last_seen, next_seq) VALUES (?, ?, ?, ?, ?)
+        """;
+
+    private final ObjectMapper mapper;
+    private final GroupCommitWriter writer;
+    private final SqliteReaderPool readers;
+
+    public SqliteContactStore(Path dbPath) throws IOException {
+        this(dbPath, SqliteReaderPool.DEFAULT_READERS);
+    }
+
+    /**
+     * @param dbPath  database file, created with its parent directories if missing
+     * @param readers read-only connections kept for concurrent history loads
+     */
+    public SqliteContactStore(Path dbPath, int readers) throws IOException {
+        if (dbPath == null) {
+            throw new IllegalArgumentException("dbPath must not be null");
+        }
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new JavaTimeModule());
+        this.writer = new GroupCommitWriter(dbPath);
+        this.readers = new SqliteReaderPool(dbPath, readers);
+        try {
+            init();
+        } catch (IOException | RuntimeException e) {
+            this.readers.close();
+            writer.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Contact findOrCreate(String phone) throws IOException {
+        try {
+            return readers.read(reader -> {
+                PreparedStatement contact = reader.prepare(SELECT_CONTACT);
+                contact.setString(1, phone);
+                try (ResultSet resultSet = contact.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return Contact.create(phone);
+                    }
+                    return new Contact(
+                        phone,
+                        resultSet.getString(1),
+                        resultSet.getString(2),
+                        Instant.parse(resultSet.getString(3)),
+                        history(reader, phone, Integer.MAX_VALUE)
+                    );
+                }
+            });
+        } catch (SQLException e) {
+            throw new IOException("Failed to load contact " + phone, e);
+        }
+    }
+
+    @Override
+    public void appendTurn(String phone, ChatMessage user, ChatMessage assistant, int maxHistory) throws IOException {
+        int cap = Math.max(1, maxHistory);
+        String userJson = mapper.writeValueAsString(user);
+        String assistantJson = mapper.writeValueAsString(assistant);
+        String now = Instant.now().toString();
+        writer.execute(transaction -> {
+            PreparedStatement touch = transaction.prepare(TOUCH_CONTACT);
+            touch.setString(1, phone);
+            touch.setString(2, now);
+            touch.executeUpdate();
+            PreparedStatement select = transaction.prepare(SELECT_SEQ);
+            select.setString(1, phone);
+            long seq;
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                seq = resultSet.getLong(1);
+            }
+            // With a fixed cap the slot holds the oldest turn. If the cap changed, slots left over
+            // from the old cap may be replaced early; the trim below drops anything past the new cap.
+            PreparedStatement put = transaction.prepare(PUT_TURN);
+            put.setString(1, phone);
+            put.setLong(2, seq % cap);
+            put.setLong(3, seq);
+            put.setString(4, userJson);
+            put.setString(5, assistantJson);
+            put.executeUpdate();
+            if (seq >= cap) {
+                PreparedStatement trim = transaction.prepare(TRIM_TURNS);
+                trim.setString(1, phone);
+                trim.setLong(2, seq - cap);
+                trim.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<ChatMessage> recentHistory(String phone, int maxTurns) throws IOException {
+        if (maxTurns <= 0) {
+            return List.of();
+        }
+        try {
+            return readers.read(reader -> history(reader, phone, maxTurns));
+        } catch (SQLException e) {
+            throw new IOException("Failed to load history of contact " + phone, e);
+        }
+    }
+
+    @Override
+    public void updateAlias(String phone, String alias, String channel) throws IOException {
+        String now = Instant.now().toString();
+        writer.execute(transaction -> {
+            PreparedStatement statement = transaction.prepare(UPDATE_ALIAS);
+            statement.setString(1, phone);
+            statement.setString(2, alias == null ? "" : alias);
+            statement.setString(3, channel == null ? "sms" : channel);
+            statement.setString(4, now);
+            return statement.executeUpdate();
+        });
+    }
+
+    /**
+     * Imports the contacts of a {@link FileContactStore} file and renames it to
+     * {@code <name>.migrated}. Contacts already in the database are left as they are.
+     *
+     * @return contacts imported; 0 if the file does not exist
+     */
+    public int importFile(Path contactsJson) throws IOException {
+        if (!Files.exists(contactsJson)) {
+            return 0;
+        }
+        Map<String, Contact> contacts = mapper.readValue(Files.readString(contactsJson), MAP_TYPE);
+        int imported = writer.execute(transaction -> {
+            PreparedStatement insert = transaction.prepare(IMPORT_CONTACT);
+            PreparedStatement put = transaction.prepare(PUT_TURN);
+            int count = 0;
+            for (Contact contact : contacts.values()) {
+                List<ChatMessage> history = contact.history() == null ? List.of() : contact.history();
+                int turns = history.size() / 2;
+                insert.setString(1, contact.phone());
+                insert.setString(2, contact.alias() == null ? "" : contact.alias());
+                insert.setString(3, contact.preferredChannel() == null ? "sms" : contact.preferredChannel());
+                insert.setString(4, (contact.lastSeen() == null ? Instant.now() : contact.lastSeen()).toString());
+                insert.setLong(5, turns);
+                if (insert.executeUpdate() == 0) {
+                    continue;
+                }
+                count++;
+                // Slot = seq, as for any cap of at least this many turns; the next append applies
+                // the caller's cap, replacing exactly the slots that fall out of its window.
+                for (int seq = 0; seq < turns; seq++) {
+                    put.setString(1, contact.phone());
+                    put.setLong(2, seq);
+                    put.setLong(3, seq);
+                    put.setString(4, mapper.writeValueAsString(history.get(seq * 2)));
+                    put.setString(5, mapper.writeValueAsString(history.get(seq * 2 + 1)));
+                    put.executeUpdate();
+                }
+            }
+            return count;
+        });
+        Files.move(contactsJson, contactsJson.resolveSibling(contactsJson.getFileName() + ".migrated"),
+            StandardCopyOption.REPLACE_EXISTING);
+        LOG.info("Imported {} contacts from {}", imported, contactsJson);
+        return imported;
+    }
+
+    /** Commits pending writes and closes the database. */
+    @Override
+    public void close() {
+        writer.close();
+        readers.close();
+    }
+
+    private List<ChatMessage> history(SqliteReaderPool.Reader reader, String phone, int maxTurns)
+        throws SQLException, IOException {
+        PreparedStatement statement = reader.prepare(SELECT_TURNS);
+        statement.setString(1, phone);
+        statement.setInt(2, maxTurns);
+        List<ChatMessage> newestFirst = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                // Reversed below, so the assistant message goes in before its user message.
+                newestFirst.add(mapper.readValue(resultSet.getString(2), ChatMessage.class));
+                newestFirst.add(mapper.readValue(resultSet.getString(1), ChatMessage.class));
+            }
+        }
+        return List.copyOf(newestFirst.reversed());
+    }
+
+    private void init() throws IOException {
+        String contacts = """
+            CREATE TABLE IF NOT EXISTS contacts (
+                phone TEXT PRIMARY KEY,
+                alias TEXT NOT NULL DEFAULT '',
+                preferred_channel TEXT NOT NULL DEFAULT 'sms',
+                last_seen TEXT NOT NULL,
+                next_seq INTEGER NOT NULL DEFAULT 0
+            ) WITHOUT ROWID
+            """;
+        String turns = """
+            CREATE TABLE IF NOT EXISTS contact_turns (
+                phone TEXT NOT NULL,
+                slot INTEGER NOT NULL,
+                seq INTEGER NOT NULL,
+                user_message TEXT NOT NULL,
+                assistant_message TEXT NOT NULL,
+                PRIMARY KEY (phone, slot)
+            ) WITHOUT ROWID
+            """;
+        writer.execute(transaction -> {
+            try (Statement statement = transaction.connection().createStatement()) {
+                statement.execute(contacts);
+                statement.execute(turns);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed cache in front of any {@link EmbeddingProvider}.
+ *
+ * <p>Entries are keyed by the SHA-256 of {@link EmbeddingProvider#model()} plus the normalised
+ * text (Unicode NFC, whitespace collapsed, trimmed), so a model change never serves stale
+ * vectors. Lookups go through a bounded in-memory LRU tier and then an append-only disk tier in
+ * the workspace; only misses reach the delegate. {@link #embedBatch} forwards all misses of a
+ * batch to the delegate in a single call.
+ *
+ * <p>Only vectors of the delegate's normal {@link EmbeddingProvider#dimension()} are cached, so a
+ * degraded fallback embedding (e.g. after a network error) is recomputed next time. Nothing is
+ * cached while the delegate does not know its dimension yet: a remote provider learns it from its
+ * first successful answer, which is then cached, while a failed first call returns a fallback.
+ *
+ * <h2>Example</h2>
+ * <pre>{@code
+ * EmbeddingProvider embeddings = new CachingEmbeddingProvider(
+ *     new OpenAiCompatEmbeddingProvider(endpoint, apiKey, "openai/text-embedding-3-small"),
+ *     workspace.resolve("memory/embedding-cache.bin")
+ * );
+ * }</pre>
+ */
+public final class CachingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingEmbeddingProvider.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int DEFAULT_MEMORY_ENTRIES = 10_000;
+    private static final int DEFAULT_DISK_ENTRIES = 500_000;
+
+    private final EmbeddingProvider delegate;
+    private final EmbeddingDiskCache disk;
+    private final Map<EmbeddingDiskCache.Key, float[]> memory;
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingEmbeddingProvider(EmbeddingProvider delegate, Path cacheFile) {
+        this(delegate, cacheFile, DEFAULT_MEMORY_ENTRIES, DEFAULT_DISK_ENTRIES);
+    }
+
+    /**
+     * @param cacheFile        disk tier file, or {@code null} for a memory-only cache
+     * @param memoryEntries    capacity of the in-memory LRU tier
+     * @param diskEntries      entry count at which the disk tier drops its oldest entries
+     */
+    public CachingEmbeddingProvider(EmbeddingProvider delegate, Path cacheFile, int memoryEntries, int diskEntries) {
+        this.delegate = delegate;
+        this.disk = cacheFile == null ? null : new EmbeddingDiskCache(cacheFile, diskEntries);
+        int capacity = Math.max(1, memoryEntries);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EmbeddingDiskCache.Key, float[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public float[] embed(String text) throws IOException {
+        EmbeddingDiskCache.Key key = key(text);
+        float[] cached = lookup(key);
+        if (cached != null) {
+            return cached.clone();
+        }
+        misses.incrementAndGet();
+        float[] vector = delegate.embed(text);
+        store(key, vector);
+        return vector;
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) throws IOException {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        List<EmbeddingDiskCache.Key> missKeys = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        List<Integer> missPositions = new ArrayList<>();
+        for (String text : texts) {
+            EmbeddingDiskCache.Key key = key(text);
+            float[] cached = lookup(key);
+            if (cached == null) {
+                missKeys.add(key);
+                missTexts.add(text);
+                missPositions.add(vectors.size());
+            }
+            vectors.add(cached == null ? null : cached.clone());
+        }
+        if (!missTexts.isEmpty()) {
+            misses.addAndGet(missTexts.size());
+            List<float[]> computed = delegate.embedBatch(missTexts);
+            for (int i = 0; i < missTexts.size(); i++) {
+                store(missKeys.get(i), computed.get(i));
+                vectors.set(missPositions.get(i), computed.get(i));
+            }
+        }
+        return vectors;
+    }
+
+    @Override
+    public String model() {
+        return delegate.model();
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    /** Lookups answered by the in-memory tier. */
+    public long memoryHits() {
+        return memoryHits.get();
+    }
+
+    /** Lookups answered by the disk tier. */
+    public long diskHits() {
+        return diskHits.get();
+    }
+
+    /** Lookups that went to the delegate provider. */
+    public long misses() {
+        return misses.get();
+    }
+
+    /** Fraction of lookups served from either tier, or 0 before the first lookup. */
+    public double hitRate() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private float[] lookup(EmbeddingDiskCache.Key key) {
+        synchronized (memory) {
+            float[] cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+        if (disk == null) {
+            return null;
+        }
+        try {
+            float[] stored = disk.get(key);
+            if (stored != null) {
+                diskHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(key, stored);
+                }
+            }
+            return stored;
+        } catch (IOException e) {
+            LOG.warn("Embedding cache read failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(EmbeddingDiskCache.Key key, float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return;
+        }
+        int expected = delegate.dimension();
+        if (expected <= 0 || vector.length != expected) {
+            return;
+        }
+        float[] copy = vector.clone();
+        synchronized (memory) {
+            memory.put(key, copy);
+        }
+        if (disk != null) {
+            try {
+                disk.put(key, copy);
+            } catch (IOException e) {
+                LOG.warn("Embedding cache write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private EmbeddingDiskCache.Key key(String text) {
+        return EmbeddingDiskCache.Key.of(sha256(delegate.model() + "\n" + normalize(text)));
+    }
+
+    static String normalize(String text) {
+        String nfc = Normalizer.normalize(text == null ? "" : text, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(nfc).replaceAll(" ").trim();
+    }
+
+    private static byte[] sha256(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
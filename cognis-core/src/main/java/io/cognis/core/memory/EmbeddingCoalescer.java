@@ -0,0 +1,115 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Merges concurrent single-text embedding calls into batch calls.
+ *
+ * <p>The first caller to arrive while nothing is pending becomes the leader: it waits up to the
+ * coalescing window (or until {@code maxBatch} texts are pending), takes everything queued so far
+ * and embeds it in one batch; every other caller in that window just waits for its own result.
+ * Under bursty load many sessions' recall queries become one HTTP round trip; a lone caller pays
+ * at most one window of extra latency.
+ *
+ * <p>Uses {@link ReentrantLock} rather than monitors so waiting virtual threads do not pin their
+ * carrier thread.
+ */
+final class EmbeddingCoalescer {
+
+    @FunctionalInterface
+    interface BatchEmbedder {
+        List<float[]> embedBatch(List<String> texts) throws IOException;
+    }
+
+    private record Pending(String text, CompletableFuture<float[]> result) {
+    }
+
+    private final BatchEmbedder embedder;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    private List<Pending> pending = new ArrayList<>();
+
+    EmbeddingCoalescer(BatchEmbedder embedder, long window, TimeUnit unit, int maxBatch) {
+        this.embedder = embedder;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    float[] embed(String text) throws IOException {
+        if (windowNanos <= 0 || maxBatch == 1) {
+            return embedder.embedBatch(List.of(text)).getFirst();
+        }
+        Pending request = new Pending(text, new CompletableFuture<>());
+        boolean leader;
+        lock.lock();
+        try {
+            pending.add(request);
+            leader = pending.size() == 1;
+            if (pending.size() >= maxBatch) {
+                batchFull.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (leader) {
+            flush(collect());
+        }
+        try {
+            return request.result().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Embedding batch failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for embedding", e);
+        }
+    }
+
+    private List<Pending> collect() {
+        lock.lock();
+        try {
+            long remaining = windowNanos;
+            while (pending.size() < maxBatch && remaining > 0) {
+                remaining = batchFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // Flush what we have; the waiting callers must not be stranded.
+            Thread.currentThread().interrupt();
+        }
+        try {
+            List<Pending> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending request : batch) {
+            texts.add(request.text());
+        }
+        try {
+            List<float[]> vectors = embedder.embedBatch(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(vectors.get(i));
+            }
+        } catch (Throwable e) {
+            for (Pending request : batch) {
+                request.result().completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk tier of {@link CachingEmbeddingProvider}: an append-only file of immutable
+ * {@code key → vector} records with an in-memory offset index.
+ *
+ * <p>Layout (little-endian): {@code int magic, int version}, then one record per entry:
+ * {@code byte[32] key, int dimension, float[dimension] vector}. Keys are SHA-256 digests of the
+ * content, so a value never changes and records are never rewritten in place. A torn trailing
+ * record from a crash is truncated on open; a file of another format is started afresh.
+ *
+ * <p>Records are kept in write order. Once {@code maxEntries} is reached the oldest quarter is
+ * dropped by copying the rest to a new file, so recently cached vectors survive the cap.
+ */
+final class EmbeddingDiskCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddingDiskCache.class);
+    private static final int MAGIC = 0x43454743; // "CGEC" read as little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_DIMENSION = 1 << 16;
+
+    /** A 32-byte content digest, held as four longs so the index does not keep a string per entry. */
+    record Key(long h0, long h1, long h2, long h3) {
+
+        static final int BYTES = 32;
+
+        static Key of(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest).order(ByteOrder.LITTLE_ENDIAN);
+            return read(buffer);
+        }
+
+        private static Key read(ByteBuffer buffer) {
+            return new Key(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+
+        private void write(ByteBuffer buffer) {
+            buffer.putLong(h0).putLong(h1).putLong(h2).putLong(h3);
+        }
+    }
+
+    private final Path path;
+    private final int maxEntries;
+    /** Key → file offset of the record's dimension field, oldest record first. */
+    private final Map<Key, Long> offsets = new LinkedHashMap<>();
+    private FileChannel channel;
+
+    EmbeddingDiskCache(Path path, int maxEntries) {
+        this.path = path;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    synchronized float[] get(Key key) throws IOException {
+        open();
+        Long offset = offsets.get(key);
+        return offset == null ? null : readVector(channel, offset);
+    }
+
+    synchronized void put(Key key, float[] vector) throws IOException {
+        open();
+        if (offsets.containsKey(key)) {
+            return;
+        }
+        if (offsets.size() >= maxEntries) {
+            evictOldest(Math.max(1, maxEntries / 4));
+        }
+        long position = channel.size();
+        write(channel, position, key, vector);
+        offsets.put(key, position + Key.BYTES);
+    }
+
+    synchronized int size() throws IOException {
+        open();
+        return offsets.size();
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            offsets.clear();
+        }
+    }
+
+    /** Rewrites the file without its {@code count} oldest records. */
+    private void evictOldest(int count) throws IOException {
+        LOG.info("Embedding cache {} reached {} entries; dropping the oldest {}", path, maxEntries, count);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<Key, Long> kept = new LinkedHashMap<>();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            long position = HEADER_BYTES;
+            Iterator<Map.Entry<Key, Long>> entries = offsets.entrySet().iterator();
+            for (int skipped = 0; skipped < count && entries.hasNext(); skipped++) {
+                entries.next();
+            }
+            while (entries.hasNext()) {
+                Map.Entry<Key, Long> entry = entries.next();
+                kept.put(entry.getKey(), position + Key.BYTES);
+                position = write(out, position, entry.getKey(), readVector(channel, entry.getValue()));
+            }
+        }
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsets.clear();
+        offsets.putAll(kept);
+    }
+
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Files.createDirectories(path.getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (size >= HEADER_BYTES) {
+            readFully(channel, header, 0);
+        }
+        if (size < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            if (size > 0) {
+                LOG.info("Embedding cache {} has an older format; starting afresh", path);
+            }
+            channel.truncate(0);
+            writeHeader(channel);
+            return;
+        }
+        long position = HEADER_BYTES;
+        ByteBuffer head = ByteBuffer.allocate(Key.BYTES + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + head.capacity() <= size) {
+            head.clear();
+            readFully(channel, head, position);
+            head.flip();
+            Key key = Key.read(head);
+            int dim = head.getInt();
+            long end = position + head.capacity() + (long) dim * Float.BYTES;
+            if (dim < 0 || dim > MAX_DIMENSION || end > size) {
+                break;
+            }
+            offsets.put(key, position + Key.BYTES);
+            position = end;
+        }
+        if (position < size) {
+            LOG.warn("Truncating torn tail of embedding cache {} at byte {}", path, position);
+            channel.truncate(position);
+        }
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(target, header, 0);
+    }
+
+    /** Appends one record at {@code position}; returns the position after it. */
+    private static long write(FileChannel target, long position, Key key, float[] vector) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(Key.BYTES + Integer.BYTES + vector.length * Float.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        key.write(record);
+        record.putInt(vector.length);
+        for (float value : vector) {
+            record.putFloat(value);
+        }
+        record.flip();
+        writeFully(target, record, position);
+        return position + record.limit();
+    }
+
+    private float[] readVector(FileChannel source, long offset) throws IOException {
+        ByteBuffer dimension = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(source, dimension, offset);
+        float[] vector = new float[dimension.getInt(0)];
+        ByteBuffer body = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(source, body, offset + Integer.BYTES);
+        body.flip();
+        body.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of embedding cache " + path);
+            }
+        }
+    }
+}
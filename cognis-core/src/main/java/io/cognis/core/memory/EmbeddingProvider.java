@@ -1,6 +1,7 @@
 package io.cognis.core.memory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,8 +23,38 @@ public interface EmbeddingProvider {
      * Produce a normalised embedding vector for {@code text}.
      *
      * @param text non-null, non-blank input
-     * @return unit-length vector of floats; same dimension for all calls
+     * @return unit-length float32 vector; same dimension for all calls
      * @throws IOException if the provider cannot produce an embedding (network error, etc.)
      */
-    List<Double> embed(String text) throws IOException;
+    float[] embed(String text) throws IOException;
+
+    /**
+     * Identifies the embedding model, so that vectors from different models are never mixed
+     * (e.g. in {@link CachingEmbeddingProvider}).
+     */
+    default String model() {
+        return getClass().getName();
+    }
+
+    /**
+     * Dimension of the vectors this provider returns when working normally, or 0 if not yet
+     * known. Vectors of any other length are degraded fallbacks and must not be cached.
+     */
+    default int dimension() {
+        return 0;
+    }
+
+    /**
+     * Embeds several texts at once. Remote providers override this to use a single request;
+     * the default simply calls {@link #embed} for each text.
+     *
+     * @return one vector per input, in input order
+     */
+    default List<float[]> embedBatch(List<String> texts) throws IOException {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
 }
@@ -0,0 +1,146 @@
+package io.cognis.core.memory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Brute-force {@link VectorIndex}: scores every live slot against the query.
+ *
+ * <p>Vectors are read straight from the memory-mapped {@link VectorFile}: each one is bulk-copied
+ * into a small per-task scratch row and scored there by {@link VectorMath}, so the SIMD kernel
+ * applies without keeping a heap copy of the store. Stores larger than
+ * {@value #PARALLEL_THRESHOLD} slots are split across the common fork-join pool; each task keeps
+ * its own bounded top-k heap and the heaps are merged, so nothing is ever sorted beyond {@code k}
+ * entries. The tasks only read the mapping, which the store does not write to while it searches.
+ * Nothing is persisted.
+ */
+final class ExactVectorIndex implements VectorIndex {
+
+    static final int BLOCK_SLOTS = 4_096;
+    static final int PARALLEL_THRESHOLD = 16_384;
+
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingDouble(Match::score);
+
+    private final VectorFile vectors;
+    private final BitSet live = new BitSet();
+
+    ExactVectorIndex(VectorFile vectors) {
+        this.vectors = vectors;
+    }
+
+    @Override
+    public long open(BitSet liveSlots, long[] generations) {
+        clear();
+        live.or(liveSlots);
+        return 0;
+    }
+
+    @Override
+    public void add(int slot, long generation) {
+        live.set(slot);
+    }
+
+    @Override
+    public void remove(int slot) {
+        live.clear(slot);
+    }
+
+    @Override
+    public List<Match> search(float[] query, int k) {
+        if (live.isEmpty() || k <= 0 || vectors.dimension() == 0) {
+            return List.of();
+        }
+        int length = Math.min(vectors.dimension(), query.length);
+        int end = Math.min(live.length(), vectors.capacity());
+        PriorityQueue<Match> heap = live.cardinality() < PARALLEL_THRESHOLD
+            ? scan(vectors, live, query, length, k, 0, end)
+            : ForkJoinPool.commonPool().invoke(new ScanTask(vectors, live, query, length, k, 0, end));
+        List<Match> ranked = new ArrayList<>(heap);
+        ranked.sort(WORST_FIRST.reversed());
+        return ranked;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        // Nothing to persist; the live set is rebuilt from the store's records on open.
+        return () -> { };
+    }
+
+    @Override
+    public void clear() {
+        live.clear();
+    }
+
+    private static PriorityQueue<Match> scan(
+        VectorFile vectors,
+        BitSet live,
+        float[] query,
+        int length,
+        int k,
+        int from,
+        int to
+    ) {
+        PriorityQueue<Match> heap = new PriorityQueue<>(k + 1, WORST_FIRST);
+        float[] row = new float[vectors.dimension()];
+        for (int slot = live.nextSetBit(from); slot >= 0 && slot < to; slot = live.nextSetBit(slot + 1)) {
+            vectors.read(slot, row, 0);
+            double score = VectorMath.dot(row, 0, query, length);
+            if (heap.size() < k) {
+                heap.offer(new Match(slot, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.offer(new Match(slot, score));
+            }
+        }
+        return heap;
+    }
+
+    /** Splits a slot range in halves down to one block, then merges the per-range top-k heaps. */
+    private static final class ScanTask extends RecursiveTask<PriorityQueue<Match>> {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized; fork-join tasks only need Serializable for the inherited contract.
+        private final transient VectorFile vectors;
+        private final transient BitSet live;
+        private final float[] query;
+        private final int length;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        ScanTask(VectorFile vectors, BitSet live, float[] query, int length, int k, int from, int to) {
+            this.vectors = vectors;
+            this.live = live;
+            this.query = query;
+            this.length = length;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PriorityQueue<Match> compute() {
+            if (to - from <= BLOCK_SLOTS) {
+                return scan(vectors, live, query, length, k, from, to);
+            }
+            int mid = from + (to - from) / 2;
+            ScanTask left = new ScanTask(vectors, live, query, length, k, from, mid);
+            left.fork();
+            PriorityQueue<Match> merged = new ScanTask(vectors, live, query, length, k, mid, to).compute();
+            for (Match match : left.join()) {
+                if (merged.size() < k) {
+                    merged.offer(match);
+                } else if (match.score() > merged.peek().score()) {
+                    merged.poll();
+                    merged.offer(match);
+                }
+            }
+            return merged;
+        }
+    }
+}
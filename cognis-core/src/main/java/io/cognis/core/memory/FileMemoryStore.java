@@ -1,121 +1,283 @@
 package io.cognis.core.memory;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public final class FileMemoryStore implements MemoryStore {
+/**
+ * File-backed {@link MemoryStore} with a resident in-memory index.
+ *
+ * <p>All entries are loaded once, on first use, from a snapshot plus an append-only log
+ * (see {@link MemoryLog}). {@link #remember} and {@link #forget} append a single record to the
+ * log instead of rewriting the whole store; reads are served from memory. Once the log has
+ * grown past the size of the live set, it is folded into a new snapshot on a background
+ * virtual thread, so compaction cost is amortised over the writes that caused it.
+ *
+ * <p>Keyword recall is answered from an incrementally maintained {@link InvertedIndex}
+ * (BM25, tag-boosted) and blended with embedding cosine similarity. Embeddings are kept out
+ * of the JSON metadata, as packed float32 vectors in a memory-mapped {@link VectorFile}
+ * ({@code <path>.vec}) addressed by the slot recorded in each entry's log record. Semantic
+ * candidates come from a {@link VectorIndex}: by default an HNSW graph persisted as
+ * {@code <path>.hnsw}, an exact scan, or an int8-quantized scan over {@code <path>.q8} with
+ * float re-ranking (see {@link VectorIndexType}).
+ *
+ * <p>Query recalls are counted on each returned entry ({@link MemoryEntry#recallCount()}), and
+ * {@link #consolidate} applies a {@link MemoryRetentionPolicy} (TTL expiry, near-duplicate
+ * merging, a size cap) — normally from the heartbeat {@link MemoryConsolidationJob}.
+ *
+ * <p>Existing whole-file {@code memories.json} stores load unchanged; inline embeddings are
+ * moved into the vector file on first load.
+ *
+ * <p>{@link #close} stops all background work and writes a final snapshot; only then may another
+ * instance open the same files.
+ */
+public final class FileMemoryStore implements MemoryStore, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileMemoryStore.class);
+    private static final int COMPACTION_MIN_RECORDS = 512;
+    private static final double VECTOR_WEIGHT = 3.0;
+    private static final int MIN_VECTOR_CANDIDATES = 32;
+    private static final int MERGE_CANDIDATES = 8;
+    private static final String SHARED_TAG_PREFIX = "shared:";
+    private static final int BACKFILL_BATCH = 64;
+    private static final Duration BACKFILL_RETRY = Duration.ofMinutes(1);
+    private static final Duration BACKFILL_MAX_RETRY = Duration.ofHours(6);
 
-    private final Path path;
     private final ObjectMapper mapper;
     private final EmbeddingProvider embeddingProvider;
+    private final MemoryLog log;
+    private final VectorFile vectors;
+    private final VectorIndex vectorIndex;
+    private final Map<String, MemoryEntry> entries = new LinkedHashMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<Integer, String> idsBySlot = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    /** Generation of the vector in each slot; see {@link MemoryLog}. */
+    private final Map<Integer, Long> generationsBySlot = new HashMap<>();
+    private final Map<String, String> idsByDedupeKey = new HashMap<>();
+    private final InvertedIndex lexicalIndex = new InvertedIndex();
+    private final Object compactionLock = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final AtomicBoolean backfillScheduled = new AtomicBoolean();
+    /** Entries whose vector could not be produced, and when to try again. */
+    private final Map<String, Backoff> backfillBackoff = new HashMap<>();
+    private int nextSlot;
+    private long lastGeneration;
+    private boolean loaded;
+    private boolean closed;
+    /** Last background compaction started, for {@link #close}. Guarded by {@code this}. */
+    private Thread compactionThread;
 
     /** Uses the built-in {@link HashEmbeddingProvider} — no external calls. */
     public FileMemoryStore(Path path) {
         this(path, new HashEmbeddingProvider());
     }
 
+    public FileMemoryStore(Path path, EmbeddingProvider embeddingProvider) {
+        this(path, embeddingProvider, VectorIndexType.HNSW);
+    }
+
     /**
-     * @param path              JSON file where memories are persisted
+     * @param path              JSON snapshot file; the append log, vector file and vector index
+     *                          live next to it as {@code <path>.log}, {@code <path>.vec} and
+     *                          {@code <path>.hnsw} (or {@code <path>.q8} when quantized)
      * @param embeddingProvider embedding strategy for storing and querying memories
+     * @param vectorIndexType   approximate (HNSW), exact or quantized vector search
      */
-    public FileMemoryStore(Path path, EmbeddingProvider embeddingProvider) {
-        this.path = path;
+    public FileMemoryStore(Path path, EmbeddingProvider embeddingProvider, VectorIndexType vectorIndexType) {
         this.embeddingProvider = embeddingProvider;
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
+        this.log = new MemoryLog(path, mapper);
+        this.vectors = new VectorFile(path.resolveSibling(path.getFileName() + ".vec"));
+        this.vectorIndex = switch (vectorIndexType) {
+            case EXACT -> new ExactVectorIndex(vectors);
+            case QUANTIZED -> new QuantizedVectorIndex(vectors, path.resolveSibling(path.getFileName() + ".q8"));
+            case HNSW -> new HnswIndex(vectors, path.resolveSibling(path.getFileName() + ".hnsw"));
+        };
     }
 
     @Override
-    public synchronized MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
-        String normalized = content == null ? "" : content.trim();
-        if (normalized.isBlank()) {
-            throw new IllegalArgumentException("content must not be blank");
+    public MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
+        return rememberAll(List.of(new ExtractedMemory(content, tags)), source).getFirst();
+    }
+
+    /** Embeds every new memory of the batch in a single {@link EmbeddingProvider#embedBatch} call. */
+    @Override
+    public List<MemoryEntry> rememberAll(List<ExtractedMemory> memories, String source) throws IOException {
+        List<String> contents = new ArrayList<>(memories.size());
+        for (ExtractedMemory memory : memories) {
+            String normalized = memory.content() == null ? "" : memory.content().trim();
+            if (normalized.isBlank()) {
+                throw new IllegalArgumentException("content must not be blank");
+            }
+            contents.add(normalized);
         }
 
-        List<MemoryEntry> entries = new ArrayList<>(listInternal());
-        String dedupeKey = normalized.toLowerCase(Locale.ROOT);
-        for (MemoryEntry existing : entries) {
-            if (existing.content() != null && existing.content().trim().toLowerCase(Locale.ROOT).equals(dedupeKey)) {
-                return existing;
+        MemoryEntry[] stored = new MemoryEntry[memories.size()];
+        List<Integer> fresh = new ArrayList<>();
+        synchronized (this) {
+            ensureLoaded();
+            for (int i = 0; i < contents.size(); i++) {
+                stored[i] = findByDedupeKey(dedupeKey(contents.get(i)));
+                if (stored[i] == null) {
+                    fresh.add(i);
+                }
             }
         }
+        if (fresh.isEmpty()) {
+            return List.of(stored);
+        }
 
-        List<String> safeTags = tags == null ? List.of() : List.copyOf(tags);
+        // Embedding may be a network call; keep it outside the store lock.
+        List<List<String>> tags = new ArrayList<>(fresh.size());
+        List<String> texts = new ArrayList<>(fresh.size());
+        for (int i : fresh) {
+            List<String> safeTags = memories.get(i).tags() == null ? List.of() : List.copyOf(memories.get(i).tags());
+            tags.add(safeTags);
+            texts.add(embeddingText(contents.get(i), safeTags));
+        }
+        List<float[]> embeddings = embedAll(texts);
+        resetVectorsIfDimensionChanged();
         Instant now = Instant.now();
-        MemoryEntry entry = new MemoryEntry(
-            UUID.randomUUID().toString(),
-            normalized,
-            safeTags,
-            embed(normalized, safeTags),
-            source == null ? "agent" : source,
-            now,
-            now
-        );
-        entries.add(entry);
-        save(entries);
-        return entry;
+        boolean missingVectors = false;
+
+        synchronized (this) {
+            ensureOpen();
+            for (int k = 0; k < fresh.size(); k++) {
+                int i = fresh.get(k);
+                // Re-check: a concurrent writer, or an earlier item of this batch, may have stored it.
+                MemoryEntry existing = findByDedupeKey(dedupeKey(contents.get(i)));
+                if (existing != null) {
+                    stored[i] = existing;
+                    continue;
+                }
+                MemoryEntry entry = new MemoryEntry(
+                    UUID.randomUUID().toString(),
+                    contents.get(i),
+                    tags.get(k),
+                    null,
+                    source == null ? "agent" : source,
+                    now,
+                    now
+                );
+                // Vector first, so the log never references a slot that was not written.
+                int slot = storeVector(embeddings.get(k));
+                log.appendPut(entry, slot < 0 ? null : slot, generation(slot));
+                index(entry, slot);
+                stored[i] = entry;
+                missingVectors |= slot < 0;
+            }
+            maybeScheduleCompaction();
+        }
+        if (missingVectors) {
+            scheduleBackfill();
+        }
+        return List.of(stored);
     }
 
     @Override
     public synchronized boolean forget(String id) throws IOException {
-        List<MemoryEntry> entries = new ArrayList<>(listInternal());
-        boolean removed = entries.removeIf(entry -> entry.id().equals(id));
-        if (removed) {
-            save(entries);
+        ensureOpen();
+        ensureLoaded();
+        if (!delete(id)) {
+            return false;
         }
-        return removed;
+        maybeScheduleCompaction();
+        return true;
     }
 
     @Override
-    public synchronized List<MemoryEntry> recall(String query, int maxResults) throws IOException {
-        List<MemoryEntry> entries = listInternal();
-        if (entries.isEmpty()) {
-            return List.of();
-        }
-
+    public List<MemoryEntry> recall(String query, int maxResults) throws IOException {
         int limit = Math.max(1, maxResults);
-        if (query == null || query.isBlank()) {
-            return entries.stream()
-                .sorted(Comparator.comparing(MemoryEntry::createdAt).reversed())
-                .limit(limit)
-                .toList();
+        synchronized (this) {
+            ensureLoaded();
+            if (entries.isEmpty()) {
+                return List.of();
+            }
+            if (query == null || query.isBlank()) {
+                return entries.values().stream()
+                    .sorted(Comparator.comparing(MemoryEntry::createdAt).reversed())
+                    .limit(limit)
+                    .toList();
+            }
         }
 
         List<String> terms = tokenize(query);
-        List<Double> queryEmbedding = embed(query, List.of());
-        return entries.stream()
-            .map(entry -> Map.entry(entry, score(entry, terms, queryEmbedding)))
-            .filter(pair -> pair.getValue() > 0)
-            .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-            .limit(limit)
-            .map(Map.Entry::getKey)
-            .toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        // Embedding may be a network call; keep it outside the store lock, as rememberAll does.
+        float[] queryEmbedding = embed(query, List.of());
+
+        synchronized (this) {
+            // Lexical part: BM25 over the postings of the query terms only.
+            Map<String, Double> scores = lexicalIndex.score(terms);
+
+            // Vector part of the hybrid score: nearest neighbours from the vector index, plus the
+            // exact cosine of every lexical hit the index did not return, so keyword matches are
+            // always ranked on both signals.
+            if (queryEmbedding.length > 0
+                && (vectors.dimension() == 0 || vectors.dimension() == queryEmbedding.length)) {
+                List<String> lexicalHits = new ArrayList<>(scores.keySet());
+                Set<String> scored = new HashSet<>();
+                for (VectorIndex.Match match : vectorIndex.search(queryEmbedding, Math.max(MIN_VECTOR_CANDIDATES, limit * 4))) {
+                    String id = idsBySlot.get(match.slot());
+                    if (id != null && scored.add(id) && match.score() > 0) {
+                        scores.merge(id, VECTOR_WEIGHT * match.score(), Double::sum);
+                    }
+                }
+                for (String id : lexicalHits) {
+                    Integer slot = slotsById.get(id);
+                    if (slot != null && !scored.contains(id)) {
+                        double cosine = vectors.dot(slot, queryEmbedding);
+                        if (cosine > 0) {
+                            scores.merge(id, VECTOR_WEIGHT * cosine, Double::sum);
+                        }
+                    }
+                }
+            }
+            if (slotsById.size() < entries.size()) {
+                scheduleBackfill();
+            }
+            return recordRecalls(topK(scores, limit));
+        }
     }
 
     @Override
     public synchronized List<MemoryEntry> list() throws IOException {
-        return listInternal().stream()
+        ensureLoaded();
+        return entries.values().stream()
             .sorted(Comparator.comparing(MemoryEntry::createdAt).reversed())
             .toList();
     }
 
     @Override
     public synchronized int count() throws IOException {
-        return listInternal().size();
+        ensureLoaded();
+        return entries.size();
     }
 
     @Override
@@ -132,89 +294,630 @@ public final class FileMemoryStore implements MemoryStore {
             .collect(Collectors.joining("\n"));
     }
 
-    private List<MemoryEntry> listInternal() throws IOException {
-        if (!Files.exists(path)) {
-            return List.of();
+    /**
+     * Folds the append log into a fresh snapshot and saves the vector index. Writers are only
+     * blocked while the log is rotated and the live set and index are copied; both files are
+     * written outside the lock. Runs automatically in the background; exposed for shutdown hooks
+     * and tests.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            List<MemoryLog.Record> snapshot;
+            VectorIndex.Snapshot index;
+            synchronized (this) {
+                ensureLoaded();
+                log.rotate();
+                snapshot = snapshotRecords();
+                index = vectorIndex.snapshot();
+            }
+            log.writeSnapshot(snapshot);
+            // Derived from the vector file; a stale copy is reconciled on the next load.
+            index.write();
         }
-        try {
-            return mapper.readValue(Files.readString(path), new TypeReference<List<MemoryEntry>>() {
-            });
-        } catch (Exception e) {
-            return List.of();
+    }
+
+    /**
+     * Stops background work and writes a final snapshot. A running compaction is waited for; a
+     * running vector backfill is not interrupted (it may be inside a shared embedding cache) but
+     * is cancelled, so it writes nothing once this returns. Later writes fail; reads still work.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread compaction;
+        boolean wasLoaded;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            compaction = compactionThread;
+            wasLoaded = loaded;
+        }
+        if (compaction != null) {
+            try {
+                compaction.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for memory compaction to finish", e);
+            }
+        }
+        if (wasLoaded) {
+            compact();
         }
     }
 
-    private void save(List<MemoryEntry> entries) throws IOException {
-        Files.createDirectories(path.getParent());
-        String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(entries);
-        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
-        Files.writeString(tmp, json + System.lineSeparator());
-        Files.move(tmp, path, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+    /** Outcome of one {@link #consolidate} pass. */
+    public record ConsolidationResult(int expired, int merged, int evicted, int remaining) {
     }
 
-    private List<String> tokenize(String text) {
-        String[] raw = text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
-        List<String> out = new ArrayList<>();
-        for (String token : raw) {
-            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
-                out.add(token);
+    /**
+     * Applies {@code policy} to the store: drops entries whose TTL has lapsed, folds
+     * near-duplicate entries into the most recently updated one of each group, then evicts the
+     * least recently used entries beyond the size cap. Entries with a pinned tag and
+     * {@link SharedMemoryStore} entries are left alone. Duplicate detection takes the store lock
+     * once per entry, so concurrent turns are only briefly delayed; the result is compacted
+     * into a fresh snapshot, which also persists recall statistics.
+     */
+    public ConsolidationResult consolidate(MemoryRetentionPolicy policy, Instant now) throws IOException {
+        int expired;
+        List<String> ids;
+        synchronized (this) {
+            ensureOpen();
+            ensureLoaded();
+            expired = expire(policy, now);
+            ids = new ArrayList<>(entries.keySet());
+        }
+        int merged = 0;
+        if (policy.mergeThreshold() <= 1.0) {
+            float[] vector = null;
+            for (String id : ids) {
+                synchronized (this) {
+                    ensureOpen();
+                    if (vector == null || vector.length != vectors.dimension()) {
+                        vector = new float[vectors.dimension()];
+                    }
+                    merged += mergeNearDuplicates(id, policy, vector);
+                }
             }
         }
-        return out;
+        int evicted;
+        int remaining;
+        synchronized (this) {
+            ensureOpen();
+            evicted = evictOverCap(policy);
+            remaining = entries.size();
+        }
+        compact();
+        return new ConsolidationResult(expired, merged, evicted, remaining);
     }
 
-    private double score(MemoryEntry entry, List<String> terms, List<Double> queryEmbedding) {
-        if (terms.isEmpty()) {
+    private int expire(MemoryRetentionPolicy policy, Instant now) throws IOException {
+        if (policy.ttlByTag().isEmpty()) {
             return 0;
         }
-        Map<String, Integer> contentTf = tf(tokenize(entry.content()));
-        Map<String, Integer> tagTf = tf(tokenize(String.join(" ", entry.tags())));
+        List<String> lapsed = new ArrayList<>();
+        for (MemoryEntry entry : entries.values()) {
+            Duration ttl = ttl(entry, policy);
+            if (ttl != null && !retained(entry, policy) && entry.lastUsedAt().plus(ttl).isBefore(now)) {
+                lapsed.add(entry.id());
+            }
+        }
+        for (String id : lapsed) {
+            delete(id);
+        }
+        return lapsed.size();
+    }
 
-        double score = 0;
-        for (String term : terms) {
-            score += Math.log1p(contentTf.getOrDefault(term, 0));
-            score += 2 * Math.log1p(tagTf.getOrDefault(term, 0));
+    /** Longest TTL among the entry's tags, or {@code null} if none of them carries one. */
+    private static Duration ttl(MemoryEntry entry, MemoryRetentionPolicy policy) {
+        Duration longest = null;
+        for (String tag : entry.tags() == null ? List.<String>of() : entry.tags()) {
+            Duration ttl = policy.ttlByTag().get(tag.toLowerCase(Locale.ROOT));
+            if (ttl != null && (longest == null || ttl.compareTo(longest) > 0)) {
+                longest = ttl;
+            }
         }
-        double cosine = cosine(queryEmbedding, safeEmbedding(entry));
-        return score + (3.0 * cosine);
+        return longest;
     }
 
-    private Map<String, Integer> tf(List<String> tokens) {
-        Map<String, Integer> counts = new HashMap<>();
-        for (String token : tokens) {
-            counts.merge(token, 1, Integer::sum);
+    /** Pinned and shared-namespace entries are exempt from every retention rule. */
+    private static boolean retained(MemoryEntry entry, MemoryRetentionPolicy policy) {
+        for (String tag : entry.tags() == null ? List.<String>of() : entry.tags()) {
+            if (tag.startsWith(SHARED_TAG_PREFIX) || policy.pinnedTags().contains(tag.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
         }
-        return counts;
+        return false;
     }
 
-    private List<Double> safeEmbedding(MemoryEntry entry) {
-        if (entry.embedding() == null || entry.embedding().isEmpty()) {
-            return embed(entry.content(), entry.tags());
+    /**
+     * Folds the vector neighbours of {@code id} that are at least {@code mergeThreshold} similar
+     * into a single entry: the most recently updated content, the union of tags, summed recall
+     * counts and the earliest creation time. Returns the number of entries folded away.
+     */
+    private int mergeNearDuplicates(String id, MemoryRetentionPolicy policy, float[] vector) throws IOException {
+        MemoryEntry entry = entries.get(id);
+        Integer slot = slotsById.get(id);
+        if (entry == null || slot == null || retained(entry, policy)) {
+            return 0;
+        }
+        vectors.read(slot, vector, 0);
+        List<MemoryEntry> group = new ArrayList<>();
+        group.add(entry);
+        for (VectorIndex.Match match : vectorIndex.search(vector, MERGE_CANDIDATES)) {
+            String otherId = idsBySlot.get(match.slot());
+            MemoryEntry other = otherId == null ? null : entries.get(otherId);
+            if (other != null && !otherId.equals(id) && match.score() >= policy.mergeThreshold()
+                && !retained(other, policy)) {
+                group.add(other);
+            }
+        }
+        if (group.size() == 1) {
+            return 0;
+        }
+
+        MemoryEntry survivor = Collections.max(group, Comparator
+            .comparing((MemoryEntry e) -> e.updatedAt() == null ? Instant.EPOCH : e.updatedAt())
+            .thenComparing(e -> e.createdAt() == null ? Instant.EPOCH : e.createdAt()));
+        Set<String> tags = new LinkedHashSet<>(survivor.tags() == null ? List.of() : survivor.tags());
+        int recallCount = 0;
+        Instant createdAt = survivor.createdAt();
+        Instant lastRecalledAt = null;
+        for (MemoryEntry member : group) {
+            if (member.tags() != null) {
+                tags.addAll(member.tags());
+            }
+            recallCount += member.recallCount();
+            if (member.createdAt() != null && (createdAt == null || member.createdAt().isBefore(createdAt))) {
+                createdAt = member.createdAt();
+            }
+            if (member.lastRecalledAt() != null
+                && (lastRecalledAt == null || member.lastRecalledAt().isAfter(lastRecalledAt))) {
+                lastRecalledAt = member.lastRecalledAt();
+            }
         }
-        return entry.embedding();
+        MemoryEntry merged = new MemoryEntry(survivor.id(), survivor.content(), List.copyOf(tags), null,
+            survivor.source(), createdAt, survivor.updatedAt(), recallCount, lastRecalledAt);
+
+        for (MemoryEntry member : group) {
+            if (member != survivor) {
+                delete(member.id());
+            }
+        }
+        int survivorSlot = slotsById.getOrDefault(survivor.id(), -1);
+        log.appendPut(merged, survivorSlot < 0 ? null : survivorSlot, generation(survivorSlot));
+        unindex(survivor);
+        index(merged, survivorSlot);
+        return group.size() - 1;
     }
 
-    private List<Double> embed(String content, List<String> tags) {
-        String joined = (content == null ? "" : content)
-            + " " + String.join(" ", tags == null ? List.of() : tags);
+    private int evictOverCap(MemoryRetentionPolicy policy) throws IOException {
+        int excess = policy.maxEntries() <= 0 ? 0 : entries.size() - policy.maxEntries();
+        if (excess <= 0) {
+            return 0;
+        }
+        List<MemoryEntry> candidates = new ArrayList<>();
+        for (MemoryEntry entry : entries.values()) {
+            if (!retained(entry, policy)) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparing(MemoryEntry::lastUsedAt).thenComparingInt(MemoryEntry::recallCount));
+        int evicted = Math.min(excess, candidates.size());
+        for (int i = 0; i < evicted; i++) {
+            delete(candidates.get(i).id());
+        }
+        return evicted;
+    }
+
+    private List<MemoryLog.Record> snapshotRecords() {
+        List<MemoryLog.Record> records = new ArrayList<>(entries.size());
+        for (MemoryEntry entry : entries.values()) {
+            Integer slot = slotsById.get(entry.id());
+            records.add(MemoryLog.Record.put(entry, slot, slot == null ? null : generationsBySlot.get(slot)));
+        }
+        return records;
+    }
+
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        vectors.open();
+        boolean vectorsReset = resetVectorsIfModelChanged();
+        Map<String, MemoryLog.Record> records = log.load();
+        List<MemoryLog.Record> inline = new ArrayList<>();
+        for (MemoryLog.Record record : records.values()) {
+            Integer slot = record.slot();
+            if (slot != null && vectors.contains(slot)) {
+                index(record.entry().withoutEmbedding(), slot);
+                // Records from before generations were kept count as generation 0.
+                long generation = record.generation() == null ? 0 : record.generation();
+                generationsBySlot.put(slot, generation);
+                lastGeneration = Math.max(lastGeneration, generation);
+            } else {
+                index(record.entry().withoutEmbedding(), -1);
+                if (record.entry().embedding() != null && record.entry().embedding().length > 0) {
+                    inline.add(record);
+                }
+            }
+        }
+        BitSet used = new BitSet(nextSlot);
+        slotsById.values().forEach(used::set);
+        for (int slot = used.nextClearBit(0); slot < nextSlot; slot = used.nextClearBit(slot + 1)) {
+            freeSlots.add(slot);
+        }
+        long[] generations = new long[nextSlot];
+        generationsBySlot.forEach((slot, generation) -> generations[slot] = generation);
+        // The index may hold generations of vectors deleted since; never hand those out again.
+        lastGeneration = Math.max(lastGeneration, vectorIndex.open(used, generations));
+        // Older stores kept embeddings inline in the JSON; move them into the vector file.
+        for (MemoryLog.Record record : inline) {
+            assignSlot(record.id(), storeVector(record.entry().embedding()));
+        }
+        loaded = true;
+        if (vectorsReset) {
+            // Drop the slot references before any slot is reused by a new vector.
+            log.rotate();
+            log.writeSnapshot(snapshotRecords());
+        }
+        if (!inline.isEmpty() || log.hasPendingRotation()) {
+            // Persist migrated slots, or finish a compaction that was interrupted.
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * Drops the stored vectors on load when the vector file header records another embedding
+     * model, or a dimension other than the one the provider reports. Files without a recorded
+     * model are adopted by the current one.
+     */
+    private boolean resetVectorsIfModelChanged() throws IOException {
+        int expected = embeddingProvider.dimension();
+        boolean modelChanged = vectors.model() != 0 && vectors.model() != modelFingerprint();
+        boolean dimensionChanged = expected > 0 && vectors.dimension() != 0 && vectors.dimension() != expected;
+        if (!modelChanged && !dimensionChanged) {
+            return false;
+        }
+        LOG.info("Embedding model of memory vectors changed ({} -> {} dimensions); rebuilding them",
+            vectors.dimension(), expected);
+        vectors.reset();
+        return true;
+    }
+
+    /**
+     * The provider now reports a dimension other than the one the vector file was started with
+     * (possible when the first vectors were written before the provider knew its dimension).
+     * Stored vectors are not comparable with new ones, so they are dropped and backfilled. The
+     * snapshot is rewritten without slot references <em>before</em> the vector file is reset so
+     * that no persisted record ever points at a reused slot.
+     *
+     * <p>Individual vectors of the wrong length (a provider's degraded fallback) never get here:
+     * {@link #storeVector} just leaves those entries without a vector.
+     */
+    private void resetVectorsIfDimensionChanged() throws IOException {
+        int dimension = embeddingProvider.dimension();
+        if (dimension <= 0) {
+            return;
+        }
+        synchronized (compactionLock) {
+            synchronized (this) {
+                if (closed || vectors.dimension() == 0 || vectors.dimension() == dimension) {
+                    return;
+                }
+                LOG.info("Embedding dimension changed from {} to {}; rebuilding memory vectors",
+                    vectors.dimension(), dimension);
+                slotsById.clear();
+                idsBySlot.clear();
+                freeSlots.clear();
+                generationsBySlot.clear();
+                nextSlot = 0;
+                log.rotate();
+                log.writeSnapshot(snapshotRecords());
+                vectorIndex.clear();
+                vectors.reset();
+                backfillBackoff.clear();
+                scheduleBackfill();
+            }
+        }
+    }
+
+    /**
+     * Writes {@code embedding} to a free slot; returns -1 if it is not storable. A vector is only
+     * stored if it has the dimension the provider reports for its normal output, so a degraded
+     * fallback vector leaves the entry vector-less for a later backfill instead of mixing in.
+     * Providers that report no dimension are held to the dimension of the vectors already stored.
+     */
+    private int storeVector(float[] embedding) throws IOException {
+        int expected = embeddingProvider.dimension();
+        if (embedding == null || embedding.length == 0
+            || (expected > 0 && embedding.length != expected)
+            || (vectors.dimension() != 0 && embedding.length != vectors.dimension())) {
+            return -1;
+        }
+        Integer free = freeSlots.poll();
+        int slot = free != null ? free : nextSlot++;
+        vectors.write(slot, embedding);
+        if (vectors.model() != modelFingerprint()) {
+            vectors.model(modelFingerprint());
+        }
+        long generation = ++lastGeneration;
+        generationsBySlot.put(slot, generation);
+        vectorIndex.add(slot, generation);
+        return slot;
+    }
+
+    /** Generation of the vector in {@code slot}, or null if there is none. */
+    private Long generation(int slot) {
+        return slot < 0 ? null : generationsBySlot.get(slot);
+    }
+
+    private int modelFingerprint() {
+        int fingerprint = embeddingProvider.model().hashCode();
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    /**
+     * Embeds entries that have no stored vector (the provider failed, or the model changed) and
+     * records their slot. Runs outside the store lock, {@value #BACKFILL_BATCH} entries per
+     * embedding call. An entry that still gets no storable vector is retried with exponential
+     * backoff, so a persistently failing entry costs one attempt per backoff period rather than
+     * one per recall. Runs in the background after recalls and writes; exposed for tests.
+     *
+     * @return number of entries that received a vector
+     */
+    int backfillVectors() throws IOException {
+        int filled = 0;
+        while (true) {
+            List<MemoryEntry> pending = new ArrayList<>(BACKFILL_BATCH);
+            synchronized (this) {
+                if (closed) {
+                    return filled;
+                }
+                ensureLoaded();
+                long now = System.nanoTime();
+                for (MemoryEntry entry : entries.values()) {
+                    if (pending.size() == BACKFILL_BATCH) {
+                        break;
+                    }
+                    Backoff backoff = backfillBackoff.get(entry.id());
+                    if (!slotsById.containsKey(entry.id()) && (backoff == null || now - backoff.notBefore() >= 0)) {
+                        pending.add(entry);
+                    }
+                }
+            }
+            if (pending.isEmpty()) {
+                return filled;
+            }
+            List<String> texts = new ArrayList<>(pending.size());
+            pending.forEach(entry -> texts.add(embeddingText(entry.content(), entry.tags())));
+            List<float[]> embeddings = embedAll(texts);
+            resetVectorsIfDimensionChanged();
+            boolean failures = false;
+            synchronized (this) {
+                if (closed) {
+                    // Cancelled by close(); the entries are backfilled by the next instance.
+                    return filled;
+                }
+                long now = System.nanoTime();
+                for (int i = 0; i < pending.size(); i++) {
+                    MemoryEntry entry = pending.get(i);
+                    // Forgotten, replaced or already filled while we were embedding.
+                    if (entries.get(entry.id()) == null || slotsById.containsKey(entry.id())) {
+                        continue;
+                    }
+                    int slot = storeVector(embeddings.get(i));
+                    if (slot < 0) {
+                        failures = true;
+                        Backoff previous = backfillBackoff.get(entry.id());
+                        backfillBackoff.put(entry.id(), Backoff.after(previous, now));
+                        continue;
+                    }
+                    log.appendPut(entries.get(entry.id()), slot, generation(slot));
+                    assignSlot(entry.id(), slot);
+                    backfillBackoff.remove(entry.id());
+                    filled++;
+                }
+                maybeScheduleCompaction();
+            }
+            if (failures) {
+                // The provider is degraded; leave the rest for a later attempt.
+                return filled;
+            }
+        }
+    }
+
+    private synchronized void scheduleBackfill() {
+        if (closed || !backfillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("memory-vector-backfill").start(() -> {
+            try {
+                backfillVectors();
+            } catch (IOException e) {
+                LOG.warn("Memory vector backfill failed; will retry on a later recall", e);
+            } finally {
+                backfillScheduled.set(false);
+            }
+        });
+    }
+
+    /** Retry state of an entry that could not be embedded. */
+    private record Backoff(int attempts, long notBefore) {
+        static Backoff after(Backoff previous, long now) {
+            int attempts = previous == null ? 1 : previous.attempts() + 1;
+            long delay = Math.min(BACKFILL_MAX_RETRY.toNanos(),
+                BACKFILL_RETRY.toNanos() << Math.min(attempts - 1, 16));
+            return new Backoff(attempts, now + delay);
+        }
+    }
+
+    /** Logs a tombstone for {@code id} and drops it from every index; false if it is not stored. */
+    private boolean delete(String id) throws IOException {
+        MemoryEntry removed = entries.get(id);
+        if (removed == null) {
+            return false;
+        }
+        log.appendDelete(id);
+        unindex(removed);
+        backfillBackoff.remove(id);
+        // Only reusable once the tombstone is in the log.
+        Integer slot = slotsById.remove(id);
+        if (slot != null) {
+            idsBySlot.remove(slot);
+            generationsBySlot.remove(slot);
+            vectorIndex.remove(slot);
+            freeSlots.add(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Counts a recall hit on each returned entry. The statistics are kept in memory and reach disk
+     * with the next snapshot (compaction or consolidation) rather than costing a log write per
+     * query; a crash in between only loses recent counts.
+     */
+    private List<MemoryEntry> recordRecalls(List<MemoryEntry> ranked) {
+        Instant now = Instant.now();
+        List<MemoryEntry> recalled = new ArrayList<>(ranked.size());
+        for (MemoryEntry entry : ranked) {
+            MemoryEntry hit = entry.recalledAt(now);
+            entries.put(hit.id(), hit);
+            recalled.add(hit);
+        }
+        return recalled;
+    }
+
+    private void index(MemoryEntry entry, int slot) {
+        assignSlot(entry.id(), slot);
+        entries.put(entry.id(), entry);
+        lexicalIndex.add(entry.id(), contentTokens(entry), tagTokens(entry));
+        if (entry.content() != null) {
+            idsByDedupeKey.putIfAbsent(dedupeKey(entry.content()), entry.id());
+        }
+    }
+
+    private void assignSlot(String id, int slot) {
+        if (slot >= 0) {
+            slotsById.put(id, slot);
+            idsBySlot.put(slot, id);
+            nextSlot = Math.max(nextSlot, slot + 1);
+        }
+    }
+
+    private void unindex(MemoryEntry entry) {
+        entries.remove(entry.id());
+        lexicalIndex.remove(entry.id(), contentTokens(entry), tagTokens(entry));
+        if (entry.content() != null) {
+            idsByDedupeKey.remove(dedupeKey(entry.content()), entry.id());
+        }
+    }
+
+    private List<String> contentTokens(MemoryEntry entry) {
+        return entry.content() == null ? List.of() : tokenize(entry.content());
+    }
+
+    private List<String> tagTokens(MemoryEntry entry) {
+        return entry.tags() == null ? List.of() : tokenize(String.join(" ", entry.tags()));
+    }
+
+    private MemoryEntry findByDedupeKey(String dedupeKey) {
+        String id = idsByDedupeKey.get(dedupeKey);
+        return id == null ? null : entries.get(id);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Memory store is closed");
+        }
+    }
+
+    private static String dedupeKey(String content) {
+        return content.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void maybeScheduleCompaction() {
+        if (log.records() >= Math.max(COMPACTION_MIN_RECORDS, entries.size())) {
+            scheduleCompaction();
+        }
+    }
+
+    private synchronized void scheduleCompaction() {
+        if (closed || !compactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        compactionThread = Thread.ofVirtual().name("memory-compaction").start(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                LOG.warn("Memory log compaction failed; will retry on a later write", e);
+            } finally {
+                compactionScheduled.set(false);
+            }
+        });
+    }
+
+    private List<String> tokenize(String text) {
+        String[] raw = text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
+        List<String> out = new ArrayList<>();
+        for (String token : raw) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                out.add(token);
+            }
+        }
+        return out;
+    }
+
+    /** Highest-scoring entries, best first, using a bounded min-heap instead of a full sort. */
+    private List<MemoryEntry> topK(Map<String, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            if (score.getValue() <= 0) {
+                continue;
+            }
+            heap.offer(score);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<MemoryEntry> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(entries.get(heap.poll().getKey()));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    private float[] embed(String content, List<String> tags) {
         try {
-            return embeddingProvider.embed(joined.trim());
+            float[] embedding = embeddingProvider.embed(embeddingText(content, tags));
+            return embedding == null ? new float[0] : embedding;
         } catch (Exception e) {
             // EmbeddingProvider already falls back internally; this is a last-resort guard.
-            return List.of();
+            return new float[0];
         }
     }
 
-    private double cosine(List<Double> a, List<Double> b) {
-        if (a == null || b == null || a.isEmpty() || b.isEmpty()) {
-            return 0;
-        }
-        int dim = Math.min(a.size(), b.size());
-        double dot = 0.0;
-        for (int i = 0; i < dim; i++) {
-            dot += a.get(i) * b.get(i);
+    private List<float[]> embedAll(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        try {
+            List<float[]> batch = embeddingProvider.embedBatch(texts);
+            for (int i = 0; i < texts.size(); i++) {
+                float[] embedding = batch != null && i < batch.size() ? batch.get(i) : null;
+                embeddings.add(embedding == null ? new float[0] : embedding);
+            }
+        } catch (Exception e) {
+            // Store the memories anyway; missing vectors are backfilled in the background.
+            embeddings.clear();
+            texts.forEach(ignored -> embeddings.add(new float[0]));
         }
-        return Math.max(0.0, dot);
+        return embeddings;
+    }
+
+    private static String embeddingText(String content, List<String> tags) {
+        String joined = (content == null ? "" : content)
+            + " " + String.join(" ", tags == null ? List.of() : tags);
+        return joined.trim();
     }
 
     private static final Set<String> STOP_WORDS = Set.of(
@@ -1,9 +1,7 @@
 package io.cognis.core.memory;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
-import java.util.Set;
 
 /**
  * Deterministic, zero-dependency embedding provider.
@@ -12,6 +10,17 @@ import java.util.Set;
  * {@code hashCode % DIM}, accumulates term-frequency counts, then L2-normalises
  * the result. Produces 256-dimensional unit vectors.
  *
+ * <p>Tokens are runs of ASCII letters and digits, lower-cased, at least two characters long and
+ * not a stop word. The tokenizer walks the {@link CharSequence} directly and hashes each token as
+ * it goes ({@link String#hashCode()} arithmetic over the lower-cased characters), so
+ * {@link #embedInto} allocates nothing and {@link #embed} allocates only the returned vector.
+ *
+ * <p>With character trigrams enabled, each token also contributes the trigrams of
+ * {@code ^token$}, weighted to balance the whole-token feature. Misspellings and inflected forms of
+ * the same word then land on mostly the same dimensions, which helps with transliterated
+ * local-language input. The two modes report different {@link #model()} ids, so their vectors
+ * are never cached together.
+ *
  * <p>This is the default used by {@link FileMemoryStore} when no external
  * embedding provider is configured. It is fast (no I/O) and deterministic, but
  * does not capture semantic similarity across different words. Upgrade to
@@ -21,53 +30,164 @@ public final class HashEmbeddingProvider implements EmbeddingProvider {
 
     public static final int DIM = 256;
 
-    private static final Set<String> STOP_WORDS = Set.of(
+    private static final List<String> STOP_WORDS = List.of(
         "a", "an", "the", "and", "or", "is", "are", "was", "were", "to", "of",
         "in", "for", "on", "with", "at", "by", "from", "it", "this", "that",
         "these", "those", "be", "been", "being", "as", "if", "but", "not", "no",
         "you", "your", "we", "our", "they", "their", "he", "she", "his", "her"
     );
+    /** Open-addressed by {@code String.hashCode}; looked up without materialising the token. */
+    private static final String[] STOP_TABLE = new String[128];
+    private static final int MAX_STOP_LENGTH;
+
+    /** Mixed into trigram hashes so trigrams do not systematically collide with short words. */
+    private static final int TRIGRAM_SEED = 0x9E3779B9;
+    private static final char BOUNDARY = '^';
+    private static final char END = '$';
+
+    static {
+        int longest = 0;
+        for (String word : STOP_WORDS) {
+            int slot = word.hashCode() & (STOP_TABLE.length - 1);
+            while (STOP_TABLE[slot] != null) {
+                slot = (slot + 1) & (STOP_TABLE.length - 1);
+            }
+            STOP_TABLE[slot] = word;
+            longest = Math.max(longest, word.length());
+        }
+        MAX_STOP_LENGTH = longest;
+    }
+
+    private final boolean charTrigrams;
+
+    public HashEmbeddingProvider() {
+        this(false);
+    }
+
+    /**
+     * @param charTrigrams also hash the character trigrams of every token
+     */
+    public HashEmbeddingProvider(boolean charTrigrams) {
+        this.charTrigrams = charTrigrams;
+    }
+
+    @Override
+    public String model() {
+        return charTrigrams ? "cognis-hash-tri-" + DIM : "cognis-hash-" + DIM;
+    }
+
+    @Override
+    public int dimension() {
+        return DIM;
+    }
 
     @Override
-    public List<Double> embed(String text) {
-        double[] vector = new double[DIM];
-        for (String token : tokenize(text)) {
-            int index = Math.floorMod(token.hashCode(), DIM);
-            vector[index] += 1.0;
+    public float[] embed(String text) {
+        float[] vector = new float[DIM];
+        embedInto(text, vector);
+        return vector;
+    }
+
+    /**
+     * Overwrites {@code target} (length {@link #DIM}) with the embedding of {@code text}, without
+     * allocating. A null or token-free text yields the zero vector.
+     */
+    public void embedInto(CharSequence text, float[] target) {
+        if (target.length != DIM) {
+            throw new IllegalArgumentException("target must have length " + DIM + ", was " + target.length);
+        }
+        Arrays.fill(target, 0.0f);
+        int length = text == null ? 0 : text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !isTokenChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            int hash = 0;
+            while (i < length && isTokenChar(text.charAt(i))) {
+                hash = 31 * hash + lower(text.charAt(i));
+                i++;
+            }
+            if (i - start > 1 && !isStopWord(text, start, i, hash)) {
+                target[Math.floorMod(hash, DIM)] += 1.0f;
+                if (charTrigrams) {
+                    addTrigrams(text, start, i, target);
+                }
+            }
+        }
+        normalise(target);
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    /**
+     * Hashes the trigrams of {@code ^token$}. Each weighs {@code 1/sqrt(n)}, so together they add
+     * as much to the vector's squared norm as the whole-token feature does.
+     */
+    private static void addTrigrams(CharSequence text, int start, int end, float[] target) {
+        int padded = end - start + 2;
+        float weight = (float) (1.0 / Math.sqrt(padded - 2));
+        for (int t = 0; t + 3 <= padded; t++) {
+            int hash = TRIGRAM_SEED;
+            for (int k = t; k < t + 3; k++) {
+                char c = k == 0 ? BOUNDARY : k == padded - 1 ? END : lower(text.charAt(start + k - 1));
+                hash = 31 * hash + c;
+            }
+            target[Math.floorMod(mix(hash), DIM)] += weight;
         }
-        return normalise(vector);
     }
 
-    // ── package-private helpers ──────────────────────────────────────────────
+    private static boolean isStopWord(CharSequence text, int start, int end, int hash) {
+        if (end - start > MAX_STOP_LENGTH) {
+            return false;
+        }
+        int slot = hash & (STOP_TABLE.length - 1);
+        for (String word = STOP_TABLE[slot]; word != null; word = STOP_TABLE[slot = (slot + 1) & (STOP_TABLE.length - 1)]) {
+            if (word.length() == end - start && matches(word, text, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-    List<String> tokenize(String text) {
-        String[] raw = (text == null ? "" : text).toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
-        List<String> out = new ArrayList<>();
-        for (String token : raw) {
-            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
-                out.add(token);
+    private static boolean matches(String word, CharSequence text, int start) {
+        for (int k = 0; k < word.length(); k++) {
+            if (word.charAt(k) != lower(text.charAt(start + k))) {
+                return false;
             }
         }
-        return out;
+        return true;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /** Finalisation step of MurmurHash3, so neighbouring trigrams spread over all dimensions. */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
     }
 
-    private List<Double> normalise(double[] vector) {
+    private static void normalise(float[] vector) {
         double norm = 0.0;
-        for (double v : vector) {
+        for (float v : vector) {
             norm += v * v;
         }
         norm = Math.sqrt(norm);
-
-        List<Double> result = new ArrayList<>(DIM);
         if (norm == 0.0) {
-            for (int i = 0; i < DIM; i++) {
-                result.add(0.0);
-            }
-            return result;
+            return;
         }
-        for (double v : vector) {
-            result.add(v / norm);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (vector[i] / norm);
         }
-        return result;
     }
 }
@@ -0,0 +1,528 @@
+package io.cognis.core.memory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov &amp; Yashunin) over the slots of a
+ * {@link VectorFile}. Search visits a few hundred vectors instead of all of them, so recall cost
+ * grows roughly logarithmically with the store.
+ *
+ * <p>The graph is built incrementally: {@link #add} links a slot into every layer up to its random
+ * level, {@link #remove} unlinks it and patches the neighbours it leaves short of links. Vectors
+ * are never copied; distances are read straight from the mapped vector file.
+ *
+ * <p>The graph is persisted to {@code <store>.hnsw} on {@link #save()}, with the generation of
+ * the vector each node was built from. It is a derived structure: if the file is missing, stale or
+ * unreadable, {@link #open} reconciles or rebuilds it from the live slots, so it never needs to be
+ * written in lockstep with the metadata log. A slot that was freed and reused since the save is
+ * live in both, but its generation differs, so it is linked in again for its new vector.
+ *
+ * <p>Not thread-safe; callers serialise access.
+ */
+final class HnswIndex implements VectorIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HnswIndex.class);
+    private static final int MAGIC = 0x4347484E; // "CGHN"
+    private static final int VERSION = 2;
+    private static final int MAX_LEVEL = 16;
+
+    static final int DEFAULT_M = 16;
+    static final int DEFAULT_EF_CONSTRUCTION = 100;
+    static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble(Match::score).reversed();
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingDouble(Match::score);
+
+    private final VectorFile vectors;
+    private final Path path;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    /** Top level of each slot, or -1 if the slot is not in the graph. */
+    private int[] levels = new int[0];
+    /** {@code links[slot][level]}: element 0 is the neighbour count, followed by neighbour slots. */
+    private int[][][] links = new int[0][][];
+    /** Generation of the vector each slot was linked for. */
+    private long[] generations = new long[0];
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int size;
+
+    private int[] visited = new int[0];
+    private int visitEpoch;
+
+    HnswIndex(VectorFile vectors, Path path) {
+        this(vectors, path, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    HnswIndex(VectorFile vectors, Path path, int m, int efConstruction, int efSearch) {
+        this.vectors = vectors;
+        this.path = path;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public long open(BitSet live, long[] liveGenerations) throws IOException {
+        if (!load()) {
+            clearGraph();
+        }
+        long highest = 0;
+        for (int slot = 0; slot < levels.length; slot++) {
+            if (levels[slot] >= 0) {
+                highest = Math.max(highest, generations[slot]);
+            }
+        }
+        for (int slot = 0; slot < levels.length; slot++) {
+            if (levels[slot] >= 0 && !live.get(slot)) {
+                remove(slot);
+            }
+        }
+        int missing = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            long generation = slot < liveGenerations.length ? liveGenerations[slot] : 0;
+            if (slot >= levels.length || levels[slot] < 0 || generations[slot] != generation) {
+                add(slot, generation);
+                missing++;
+            }
+        }
+        if (missing > 1_000) {
+            LOG.info("Indexed {} memory vectors missing from or stale in the HNSW graph", missing);
+        }
+        return highest;
+    }
+
+    @Override
+    public void add(int slot, long generation) {
+        ensureCapacity(slot + 1);
+        if (levels[slot] >= 0) {
+            remove(slot);
+        }
+        int level = randomLevel();
+        levels[slot] = level;
+        generations[slot] = generation;
+        links[slot] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[slot][l] = new int[maxLinks(l) + 1];
+        }
+        size++;
+        if (entryPoint < 0) {
+            entryPoint = slot;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = vectors.read(slot);
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(query, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Match> candidates = searchLayer(query, ep, efConstruction, l, slot);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            int[] selected = selectNeighbours(slot, candidates, m);
+            int[] own = links[slot][l];
+            System.arraycopy(selected, 0, own, 1, selected.length);
+            own[0] = selected.length;
+            for (int neighbour : selected) {
+                connect(neighbour, slot, l);
+            }
+            ep = candidates.getFirst().slot();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = slot;
+        }
+    }
+
+    @Override
+    public void remove(int slot) {
+        if (slot >= levels.length || levels[slot] < 0) {
+            return;
+        }
+        int level = levels[slot];
+        int[][] own = links[slot];
+        levels[slot] = -1;
+        links[slot] = null;
+        size--;
+        for (int l = 0; l <= level; l++) {
+            int[] orphaned = own[l];
+            for (int i = 1; i <= orphaned[0]; i++) {
+                int neighbour = orphaned[i];
+                if (levels[neighbour] >= l) {
+                    unlink(neighbour, slot, l);
+                    repair(neighbour, orphaned, l);
+                }
+            }
+        }
+        // One-directional links to the removed slot may remain; search skips slots not in the graph.
+        if (entryPoint == slot) {
+            entryPoint = -1;
+            maxLevel = -1;
+            for (int candidate = 0; candidate < levels.length; candidate++) {
+                if (levels[candidate] > maxLevel) {
+                    maxLevel = levels[candidate];
+                    entryPoint = candidate;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Match> search(float[] query, int k) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(query, ep, l);
+        }
+        List<Match> results = searchLayer(query, ep, Math.max(efSearch, k), 0, -1);
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    /**
+     * Copies the graph, trimming each neighbour list to its used length. The copy is written by
+     * the returned snapshot, so only the copy runs under the caller's lock, not the file I/O.
+     */
+    @Override
+    public Snapshot snapshot() {
+        int slots = levels.length;
+        while (slots > 0 && levels[slots - 1] < 0) {
+            slots--;
+        }
+        int[] savedLevels = Arrays.copyOf(levels, slots);
+        long[] savedGenerations = Arrays.copyOf(generations, slots);
+        int[][][] savedLinks = new int[slots][][];
+        for (int slot = 0; slot < slots; slot++) {
+            if (levels[slot] < 0) {
+                continue;
+            }
+            savedLinks[slot] = new int[levels[slot] + 1][];
+            for (int l = 0; l <= levels[slot]; l++) {
+                savedLinks[slot][l] = Arrays.copyOf(links[slot][l], links[slot][l][0] + 1);
+            }
+        }
+        int savedEntryPoint = entryPoint;
+        int savedMaxLevel = maxLevel;
+        return () -> write(savedEntryPoint, savedMaxLevel, savedLevels, savedGenerations, savedLinks);
+    }
+
+    private void write(int savedEntryPoint, int savedMaxLevel, int[] savedLevels, long[] savedGenerations,
+                       int[][][] savedLinks) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(m);
+            out.writeInt(savedEntryPoint);
+            out.writeInt(savedMaxLevel);
+            out.writeInt(savedLevels.length);
+            for (int slot = 0; slot < savedLevels.length; slot++) {
+                out.writeInt(savedLevels[slot]);
+                if (savedLevels[slot] >= 0) {
+                    out.writeLong(savedGenerations[slot]);
+                }
+                for (int l = 0; l <= savedLevels[slot]; l++) {
+                    int[] neighbours = savedLinks[slot][l];
+                    out.writeInt(neighbours[0]);
+                    for (int i = 1; i <= neighbours[0]; i++) {
+                        out.writeInt(neighbours[i]);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void clear() throws IOException {
+        clearGraph();
+        Files.deleteIfExists(path);
+    }
+
+    private boolean load() {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != m) {
+                return false;
+            }
+            int storedEntryPoint = in.readInt();
+            int storedMaxLevel = in.readInt();
+            int slots = in.readInt();
+            int[] loadedLevels = new int[slots];
+            long[] loadedGenerations = new long[slots];
+            int[][][] loadedLinks = new int[slots][][];
+            int loadedSize = 0;
+            int highestReference = storedEntryPoint;
+            for (int slot = 0; slot < slots; slot++) {
+                int level = in.readInt();
+                loadedLevels[slot] = level;
+                if (level < 0) {
+                    continue;
+                }
+                loadedSize++;
+                loadedGenerations[slot] = in.readLong();
+                loadedLinks[slot] = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    int count = in.readInt();
+                    int[] neighbours = new int[Math.max(count, maxLinks(l)) + 1];
+                    neighbours[0] = count;
+                    for (int i = 1; i <= count; i++) {
+                        neighbours[i] = in.readInt();
+                        highestReference = Math.max(highestReference, neighbours[i]);
+                    }
+                    loadedLinks[slot][l] = neighbours;
+                }
+            }
+            if (storedEntryPoint >= slots || (storedEntryPoint >= 0 && loadedLevels[storedEntryPoint] != storedMaxLevel)) {
+                return false;
+            }
+            levels = loadedLevels;
+            links = loadedLinks;
+            generations = loadedGenerations;
+            entryPoint = storedEntryPoint;
+            maxLevel = storedMaxLevel;
+            size = loadedSize;
+            // Links may point past the last stored node, at slots that have since been removed.
+            ensureCapacity(highestReference + 1);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring unreadable HNSW graph at {}; rebuilding", path, e);
+            return false;
+        }
+    }
+
+    private void clearGraph() {
+        levels = new int[0];
+        links = new int[0][][];
+        generations = new long[0];
+        entryPoint = -1;
+        maxLevel = -1;
+        size = 0;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double best = vectors.dot(current, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int candidate = neighbours[i];
+                if (levels[candidate] < level) {
+                    continue;
+                }
+                double score = vectors.dot(candidate, query);
+                if (score > best) {
+                    best = score;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /** Beam search on one layer; returns up to {@code ef} matches best first, never {@code exclude}. */
+    private List<Match> searchLayer(float[] query, int start, int ef, int level, int exclude) {
+        int epoch = nextVisitEpoch();
+        PriorityQueue<Match> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Match> results = new PriorityQueue<>(ef + 1, WORST_FIRST);
+
+        Match first = new Match(start, vectors.dot(start, query));
+        visited[start] = epoch;
+        candidates.add(first);
+        if (start != exclude) {
+            results.add(first);
+        }
+        while (!candidates.isEmpty()) {
+            Match current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+            int[] neighbours = links[current.slot()][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int candidate = neighbours[i];
+                if (visited[candidate] == epoch || levels[candidate] < level) {
+                    continue;
+                }
+                visited[candidate] = epoch;
+                double score = vectors.dot(candidate, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Match match = new Match(candidate, score);
+                    candidates.add(match);
+                    if (candidate != exclude) {
+                        results.add(match);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Match> ranked = new ArrayList<>(results);
+        ranked.sort(BEST_FIRST);
+        return ranked;
+    }
+
+    /**
+     * Neighbour-selection heuristic: a candidate is kept only if it is closer to {@code base} than
+     * to every neighbour already kept, which spreads links across directions. Pruned candidates
+     * top up the list if the heuristic alone leaves it short.
+     */
+    private int[] selectNeighbours(int base, List<Match> candidatesBestFirst, int max) {
+        int[] selected = new int[Math.min(max, candidatesBestFirst.size())];
+        int count = 0;
+        List<Integer> pruned = new ArrayList<>();
+        for (Match candidate : candidatesBestFirst) {
+            if (count == selected.length) {
+                break;
+            }
+            if (candidate.slot() == base) {
+                continue;
+            }
+            boolean diverse = true;
+            for (int i = 0; i < count; i++) {
+                if (vectors.dot(candidate.slot(), selected[i]) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate.slot();
+            } else {
+                pruned.add(candidate.slot());
+            }
+        }
+        for (int i = 0; i < pruned.size() && count < selected.length; i++) {
+            selected[count++] = pruned.get(i);
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /** Adds {@code slot} to the neighbours of {@code node}, re-selecting them if the list is full. */
+    private void connect(int node, int slot, int level) {
+        int[] neighbours = links[node][level];
+        int max = maxLinks(level);
+        if (neighbours[0] < max) {
+            neighbours[++neighbours[0]] = slot;
+            return;
+        }
+        List<Match> candidates = new ArrayList<>(neighbours[0] + 1);
+        for (int i = 1; i <= neighbours[0]; i++) {
+            int existing = neighbours[i];
+            if (levels[existing] >= level) {
+                candidates.add(new Match(existing, vectors.dot(node, existing)));
+            }
+        }
+        candidates.add(new Match(slot, vectors.dot(node, slot)));
+        candidates.sort(BEST_FIRST);
+        int[] selected = selectNeighbours(node, candidates, max);
+        System.arraycopy(selected, 0, neighbours, 1, selected.length);
+        neighbours[0] = selected.length;
+    }
+
+    private void unlink(int node, int slot, int level) {
+        int[] neighbours = links[node][level];
+        for (int i = 1; i <= neighbours[0]; i++) {
+            if (neighbours[i] == slot) {
+                neighbours[i] = neighbours[neighbours[0]];
+                neighbours[0]--;
+                return;
+            }
+        }
+    }
+
+    /** Refills {@code node}'s free link capacity from the neighbours of a removed slot, closest first. */
+    private void repair(int node, int[] orphaned, int level) {
+        int[] neighbours = links[node][level];
+        int free = maxLinks(level) - neighbours[0];
+        if (free <= 0) {
+            return;
+        }
+        List<Match> candidates = new ArrayList<>(orphaned[0]);
+        for (int i = 1; i <= orphaned[0]; i++) {
+            int candidate = orphaned[i];
+            if (candidate != node && levels[candidate] >= level && !contains(neighbours, candidate)) {
+                candidates.add(new Match(candidate, vectors.dot(node, candidate)));
+            }
+        }
+        candidates.sort(BEST_FIRST);
+        for (int i = 0; i < candidates.size() && i < free; i++) {
+            neighbours[++neighbours[0]] = candidates.get(i).slot();
+        }
+    }
+
+    private static boolean contains(int[] neighbours, int slot) {
+        for (int i = 1; i <= neighbours[0]; i++) {
+            if (neighbours[i] == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - random.nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(r) * levelMultiplier));
+    }
+
+    private int nextVisitEpoch() {
+        if (visited.length < levels.length) {
+            visited = Arrays.copyOf(visited, levels.length);
+        }
+        if (++visitEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitEpoch = 1;
+        }
+        return visitEpoch;
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= levels.length) {
+            return;
+        }
+        int grown = Math.max(slots, Math.max(16, levels.length * 2));
+        int old = levels.length;
+        levels = Arrays.copyOf(levels, grown);
+        Arrays.fill(levels, old, grown, -1);
+        links = Arrays.copyOf(links, grown);
+        generations = Arrays.copyOf(generations, grown);
+    }
+}
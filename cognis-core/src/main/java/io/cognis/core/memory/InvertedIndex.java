@@ -0,0 +1,99 @@
+package io.cognis.core.memory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incrementally maintained term → postings index with BM25 scoring over two fields:
+ * entry content and entry tags. Tag matches are boosted, mirroring the weight tags carried
+ * in the original term-frequency scorer.
+ *
+ * <p>Query cost is proportional to the postings of the query terms, not to the number of
+ * indexed documents. Documents are keyed by memory id.
+ *
+ * <p>Not thread-safe; {@link FileMemoryStore} guards it with the store lock.
+ */
+final class InvertedIndex {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final double TAG_BOOST = 2.0;
+
+    private final Field content = new Field();
+    private final Field tags = new Field();
+    private int documents;
+
+    void add(String id, List<String> contentTokens, List<String> tagTokens) {
+        content.add(id, contentTokens);
+        tags.add(id, tagTokens);
+        documents++;
+    }
+
+    void remove(String id, List<String> contentTokens, List<String> tagTokens) {
+        if (content.remove(id, contentTokens) | tags.remove(id, tagTokens)) {
+            documents--;
+        }
+    }
+
+    int documents() {
+        return documents;
+    }
+
+    /** Returns BM25 scores for every document matching at least one query term. */
+    Map<String, Double> score(List<String> queryTerms) {
+        Map<String, Double> scores = new HashMap<>();
+        if (documents == 0) {
+            return scores;
+        }
+        for (String term : queryTerms) {
+            content.accumulate(term, documents, 1.0, scores);
+            tags.accumulate(term, documents, TAG_BOOST, scores);
+        }
+        return scores;
+    }
+
+    private static final class Field {
+        private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+        private final Map<String, Integer> lengths = new HashMap<>();
+        private long totalLength;
+
+        void add(String id, List<String> tokens) {
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, ignored -> new HashMap<>()).merge(id, 1, Integer::sum);
+            }
+            lengths.put(id, tokens.size());
+            totalLength += tokens.size();
+        }
+
+        boolean remove(String id, List<String> tokens) {
+            Integer length = lengths.remove(id);
+            if (length == null) {
+                return false;
+            }
+            totalLength -= length;
+            for (String token : tokens) {
+                Map<String, Integer> docs = postings.get(token);
+                if (docs != null && docs.remove(id) != null && docs.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+            return true;
+        }
+
+        void accumulate(String term, int documents, double boost, Map<String, Double> scores) {
+            Map<String, Integer> docs = postings.get(term);
+            if (docs == null || docs.isEmpty()) {
+                return;
+            }
+            double idf = Math.log1p((documents - docs.size() + 0.5) / (docs.size() + 0.5));
+            double avgLength = Math.max(1.0, (double) totalLength / Math.max(1, lengths.size()));
+            for (Map.Entry<String, Integer> posting : docs.entrySet()) {
+                double tf = posting.getValue();
+                double norm = K1 * (1 - B + B * lengths.getOrDefault(posting.getKey(), 0) / avgLength);
+                double termScore = idf * (tf * (K1 + 1)) / (tf + norm);
+                scores.merge(posting.getKey(), boost * termScore, Double::sum);
+            }
+        }
+    }
+}
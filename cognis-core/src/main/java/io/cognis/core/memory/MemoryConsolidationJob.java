@@ -0,0 +1,73 @@
+package io.cognis.core.memory;
+
+import io.cognis.core.heartbeat.HeartbeatJob;
+import io.cognis.core.tool.ToolContext;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HeartbeatJob} that applies a {@link MemoryRetentionPolicy} to a {@link FileMemoryStore}
+ * (or to every partition of a {@link PartitionedMemoryStore}): expires lapsed entries, merges
+ * near-duplicates and enforces the size cap.
+ */
+public final class MemoryConsolidationJob implements HeartbeatJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryConsolidationJob.class);
+
+    /** Daily at 03:17 UTC, off the top of the hour to avoid colliding with vertical jobs. */
+    public static final String DEFAULT_CRON = "17 3 * * *";
+
+    private final Target store;
+    private final MemoryRetentionPolicy policy;
+    private final String cronExpression;
+    private final Clock clock;
+
+    public MemoryConsolidationJob(FileMemoryStore store, MemoryRetentionPolicy policy, String cronExpression) {
+        this(store::consolidate, policy, cronExpression, Clock.systemUTC());
+    }
+
+    /** The policy, including the size cap, applies to each partition separately. */
+    public MemoryConsolidationJob(PartitionedMemoryStore store, MemoryRetentionPolicy policy, String cronExpression) {
+        this(store::consolidate, policy, cronExpression, Clock.systemUTC());
+    }
+
+    MemoryConsolidationJob(FileMemoryStore store, MemoryRetentionPolicy policy, String cronExpression, Clock clock) {
+        this(store::consolidate, policy, cronExpression, clock);
+    }
+
+    private MemoryConsolidationJob(Target store, MemoryRetentionPolicy policy, String cronExpression, Clock clock) {
+        this.store = store;
+        this.policy = policy;
+        this.cronExpression = cronExpression;
+        this.clock = clock;
+    }
+
+    @Override
+    public String name() {
+        return "memory-consolidation";
+    }
+
+    @Override
+    public String cronExpression() {
+        return cronExpression;
+    }
+
+    @FunctionalInterface
+    private interface Target {
+        FileMemoryStore.ConsolidationResult consolidate(MemoryRetentionPolicy policy, Instant now) throws IOException;
+    }
+
+    @Override
+    public void run(ToolContext context) {
+        try {
+            FileMemoryStore.ConsolidationResult result = store.consolidate(policy, clock.instant());
+            LOG.info("Memory consolidation: {} expired, {} merged, {} evicted, {} remaining",
+                result.expired(), result.merged(), result.evicted(), result.remaining());
+        } catch (IOException e) {
+            LOG.warn("Memory consolidation failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,95 @@
 package io.cognis.core.memory;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * A remembered fact.
+ *
+ * <p>{@code embedding} is optional: {@link FileMemoryStore} keeps vectors in a separate mapped
+ * file and returns entries without one, so the JSON form carries metadata only. Older stores
+ * that still have an inline {@code embedding} array are read and migrated transparently.
+ *
+ * <p>{@code recallCount} and {@code lastRecalledAt} record how often, and when last, the entry
+ * was returned by a query recall. They drive retention (see {@link MemoryRetentionPolicy}) and
+ * are absent (0 / {@code null}) in older stores.
+ *
+ * <p>{@link #equals}, {@link #hashCode} and {@link #toString} compare and print the embedding by
+ * content rather than by array identity.
+ */
 public record MemoryEntry(
     String id,
     String content,
     List<String> tags,
-    List<Double> embedding,
+    @JsonInclude(JsonInclude.Include.NON_NULL) float[] embedding,
     String source,
     Instant createdAt,
-    Instant updatedAt
+    Instant updatedAt,
+    int recallCount,
+    @JsonInclude(JsonInclude.Include.NON_NULL) Instant lastRecalledAt
 ) {
+
+    /** A never-recalled entry. */
+    public MemoryEntry(
+        String id,
+        String content,
+        List<String> tags,
+        float[] embedding,
+        String source,
+        Instant createdAt,
+        Instant updatedAt
+    ) {
+        this(id, content, tags, embedding, source, createdAt, updatedAt, 0, null);
+    }
+
+    /** Copy of this entry without an inline vector. */
+    public MemoryEntry withoutEmbedding() {
+        return embedding == null ? this
+            : new MemoryEntry(id, content, tags, null, source, createdAt, updatedAt, recallCount, lastRecalledAt);
+    }
+
+    /** Copy of this entry with one more recall hit at {@code at}. */
+    public MemoryEntry recalledAt(Instant at) {
+        return new MemoryEntry(id, content, tags, embedding, source, createdAt, updatedAt, recallCount + 1, at);
+    }
+
+    /** Most recent of creation, update and last recall: what retention treats as last use. */
+    public Instant lastUsedAt() {
+        Instant last = updatedAt != null ? updatedAt : createdAt;
+        if (lastRecalledAt != null && (last == null || lastRecalledAt.isAfter(last))) {
+            last = lastRecalledAt;
+        }
+        return last == null ? Instant.EPOCH : last;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MemoryEntry other
+            && recallCount == other.recallCount
+            && Objects.equals(id, other.id)
+            && Objects.equals(content, other.content)
+            && Objects.equals(tags, other.tags)
+            && Arrays.equals(embedding, other.embedding)
+            && Objects.equals(source, other.source)
+            && Objects.equals(createdAt, other.createdAt)
+            && Objects.equals(updatedAt, other.updatedAt)
+            && Objects.equals(lastRecalledAt, other.lastRecalledAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(id, content, tags, source, createdAt, updatedAt, recallCount, lastRecalledAt)
+            + Arrays.hashCode(embedding);
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryEntry[id=" + id + ", content=" + content + ", tags=" + tags
+            + ", embedding=" + Arrays.toString(embedding) + ", source=" + source
+            + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt
+            + ", recallCount=" + recallCount + ", lastRecalledAt=" + lastRecalledAt + "]";
+    }
 }
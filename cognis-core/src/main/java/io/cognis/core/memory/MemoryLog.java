@@ -0,0 +1,267 @@
+package io.cognis.core.memory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot + append-only log persistence for {@link FileMemoryStore}.
+ *
+ * <p>On-disk layout, relative to the configured store path (e.g. {@code memory/memories.json}):
+ * <pre>
+ *   memories.json        — snapshot: JSON array of put {@link Record}s
+ *   memories.json.log    — active log: one {@link Record} per line (NDJSON), appended on every mutation
+ *   memories.json.log.1  — rotated log, only present while a compaction is in flight
+ * </pre>
+ *
+ * <p>Records hold metadata only. A put record carries the {@link VectorFile} slot holding the
+ * entry's embedding, if it has one, and the generation of that vector: a number the store never
+ * hands out twice, so derived indexes can tell a reused slot from the vector they were built for.
+ * Snapshots in the legacy whole-file format (a JSON array of {@link MemoryEntry}, possibly with
+ * inline embeddings) are still read.
+ *
+ * <p>State is rebuilt by reading the snapshot and replaying the rotated log and then the active
+ * log on top of it. Replay is idempotent (puts and tombstones are keyed by id and applied in
+ * order), so a crash at any point of a compaction leaves a directory that loads to the same
+ * state. A torn trailing line from a crash mid-append is skipped, and cut off the active log when
+ * it is loaded; an unreadable line anywhere else is skipped with a warning naming the file and
+ * line, since it may be a lost tombstone. A snapshot that cannot be parsed
+ * is moved aside to {@code memories.json.corrupt-<epoch-millis>}, never overwritten, so it can be
+ * recovered by hand; the store then loads from the logs alone.
+ *
+ * <p>Not thread-safe; callers serialise access (see {@link FileMemoryStore}). The one exception is
+ * {@link #writeSnapshot}, which only touches the snapshot and rotated log and may therefore run
+ * while new records are appended to the active log.
+ */
+final class MemoryLog {
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryLog.class);
+
+    static final String PUT = "put";
+    static final String DELETE = "del";
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Record(String op, String id, Integer slot, Long generation, MemoryEntry entry) {
+
+        static Record put(MemoryEntry entry, Integer slot, Long generation) {
+            return new Record(PUT, entry.id(), slot, slot == null ? null : generation, entry);
+        }
+
+        static Record delete(String id) {
+            return new Record(DELETE, id, null, null, null);
+        }
+    }
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final Path rotatedLogPath;
+    private final ObjectMapper mapper;
+    private int records;
+
+    MemoryLog(Path snapshotPath, ObjectMapper mapper) {
+        this.snapshotPath = snapshotPath;
+        this.logPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".log");
+        this.rotatedLogPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".log.1");
+        this.mapper = mapper;
+    }
+
+    /** Reads the snapshot and replays both logs. Live put records are returned in insertion order. */
+    Map<String, Record> load() throws IOException {
+        Map<String, Record> entries = new LinkedHashMap<>();
+        for (Record record : readSnapshot()) {
+            if (record.entry() != null) {
+                entries.put(record.id(), record);
+            }
+        }
+        replay(rotatedLogPath, entries);
+        records = replay(logPath, entries);
+        repairTornTail();
+        return entries;
+    }
+
+    void appendPut(MemoryEntry entry, Integer slot, Long generation) throws IOException {
+        append(Record.put(entry, slot, generation));
+    }
+
+    void appendDelete(String id) throws IOException {
+        append(Record.delete(id));
+    }
+
+    /** Number of records in the active log since the last rotation. */
+    int records() {
+        return records;
+    }
+
+    /** True when a previous compaction did not finish and its rotated log is still on disk. */
+    boolean hasPendingRotation() {
+        return Files.exists(rotatedLogPath);
+    }
+
+    /**
+     * Seals the active log so a snapshot can be written without blocking writers. New records go
+     * to a fresh active log. If an earlier rotation is still pending, the active log is left in
+     * place; the next snapshot covers it too and replaying it on top of that snapshot is harmless.
+     */
+    void rotate() throws IOException {
+        if (Files.exists(logPath) && !Files.exists(rotatedLogPath)) {
+            Files.move(logPath, rotatedLogPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+        records = 0;
+    }
+
+    /**
+     * Atomically replaces the snapshot with {@code entries} and drops the rotated log it supersedes.
+     * {@code entries} must reflect every record written before the matching {@link #rotate()}.
+     */
+    void writeSnapshot(Collection<Record> entries) throws IOException {
+        Files.createDirectories(snapshotPath.getParent());
+        String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(entries);
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        Files.writeString(tmp, json + System.lineSeparator());
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(rotatedLogPath);
+    }
+
+    private void append(Record record) throws IOException {
+        Files.createDirectories(logPath.getParent());
+        try (Writer w = Files.newBufferedWriter(logPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write(mapper.writeValueAsString(record));
+            w.write('\n');
+        }
+        records++;
+    }
+
+    /**
+     * Makes the next append start on a line of its own. A last line without its newline is cut
+     * off if it is torn, or terminated if the record was written whole, so a torn write never
+     * ends up in the middle of the log.
+     */
+    private void repairTornTail() throws IOException {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long lineStart = lastNewlineBefore(channel, size) + 1;
+            if (lineStart == size) {
+                return;
+            }
+            ByteBuffer tail = ByteBuffer.allocate((int) (size - lineStart));
+            while (tail.hasRemaining() && channel.read(tail, lineStart + tail.position()) >= 0) {
+                // read the whole line
+            }
+            try {
+                mapper.readValue(tail.array(), Record.class);
+                channel.write(ByteBuffer.wrap(new byte[] {'\n'}), size);
+            } catch (IOException e) {
+                LOG.warn("Dropping {} bytes of an interrupted write at the end of {}", size - lineStart, logPath);
+                channel.truncate(lineStart);
+            }
+        }
+    }
+
+    /** Position of the last {@code '\n'} before {@code end}, or -1; scans backwards a block at a time. */
+    private static long lastNewlineBefore(FileChannel channel, long end) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(8192);
+        for (long blockEnd = end; blockEnd > 0; ) {
+            long blockStart = Math.max(0, blockEnd - block.capacity());
+            block.clear().limit((int) (blockEnd - blockStart));
+            while (block.hasRemaining() && channel.read(block, blockStart + block.position()) >= 0) {
+                // fill the block
+            }
+            for (int i = (int) (blockEnd - blockStart) - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return blockStart + i;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return -1;
+    }
+
+    private List<Record> readSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return List.of();
+        }
+        try {
+            JsonNode root = mapper.readTree(Files.readString(snapshotPath));
+            if (root.isMissingNode()) {
+                return List.of();
+            }
+            if (!root.isArray()) {
+                throw new IOException("snapshot is not a JSON array");
+            }
+            List<Record> records = new ArrayList<>(root.size());
+            for (JsonNode node : root) {
+                if (node.has("op")) {
+                    records.add(mapper.treeToValue(node, Record.class));
+                } else {
+                    // Legacy whole-file format: a bare MemoryEntry, possibly with an inline embedding.
+                    records.add(Record.put(mapper.treeToValue(node, MemoryEntry.class), null, null));
+                }
+            }
+            return records;
+        } catch (IOException | IllegalArgumentException e) {
+            // Returning empty would let the next compaction overwrite the snapshot for good.
+            Path quarantined = snapshotPath.resolveSibling(
+                snapshotPath.getFileName() + ".corrupt-" + System.currentTimeMillis());
+            Files.move(snapshotPath, quarantined, StandardCopyOption.ATOMIC_MOVE);
+            LOG.error("Unreadable memory snapshot {} moved to {}; loading from the logs only",
+                snapshotPath, quarantined, e);
+            return List.of();
+        }
+    }
+
+    private int replay(Path log, Map<String, Record> entries) throws IOException {
+        if (!Files.exists(log)) {
+            return 0;
+        }
+        int applied = 0;
+        int lineNumber = 0;
+        int unreadableLine = 0;
+        try (BufferedReader reader = Files.newBufferedReader(log)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (unreadableLine > 0) {
+                    // Not the last line, so not a torn append: a record (maybe a tombstone) is lost.
+                    LOG.warn("Skipping unreadable record at {}:{}", log, unreadableLine);
+                    unreadableLine = 0;
+                }
+                Record record;
+                try {
+                    record = mapper.readValue(line, Record.class);
+                } catch (Exception e) {
+                    // Tolerated silently only as the last line: a torn write from a crash mid-append.
+                    unreadableLine = lineNumber;
+                    continue;
+                }
+                if (PUT.equals(record.op()) && record.entry() != null) {
+                    entries.put(record.entry().id(), record);
+                } else if (DELETE.equals(record.op()) && record.id() != null) {
+                    entries.remove(record.id());
+                }
+                applied++;
+            }
+        }
+        return applied;
+    }
+}
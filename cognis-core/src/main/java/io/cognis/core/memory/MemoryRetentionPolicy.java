@@ -0,0 +1,47 @@
+package io.cognis.core.memory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rules applied by {@link FileMemoryStore#consolidate} to keep the long-term store bounded.
+ *
+ * @param ttlByTag       time-to-live per tag, measured from the entry's last use (creation, update
+ *                       or recall). An entry expires once every one of its TTL-bearing tags has
+ *                       lapsed; entries with no TTL-bearing tag never expire.
+ * @param pinnedTags     entries carrying any of these tags are never expired, merged or evicted
+ * @param mergeThreshold cosine similarity at or above which two entries are treated as
+ *                       near-duplicates and merged into the more recent one; above 1 disables merging
+ * @param maxEntries     size cap; beyond it the least recently used entries (see {@link MemoryEntry#lastUsedAt()}) are
+ *                       evicted. 0 disables the cap.
+ */
+public record MemoryRetentionPolicy(
+    Map<String, Duration> ttlByTag,
+    Set<String> pinnedTags,
+    double mergeThreshold,
+    int maxEntries
+) {
+
+    public MemoryRetentionPolicy {
+        ttlByTag = ttlByTag == null ? Map.of() : Map.copyOf(ttlByTag);
+        pinnedTags = pinnedTags == null ? Set.of() : Set.copyOf(pinnedTags);
+    }
+
+    /**
+     * Tasks lapse after 30 days and general facts after 180 days without use; profile details
+     * are pinned, preferences kept until evicted by the 5 000-entry cap.
+     */
+    public static MemoryRetentionPolicy defaults() {
+        return new MemoryRetentionPolicy(
+            Map.of("task", Duration.ofDays(30), "fact", Duration.ofDays(180)),
+            Set.of("profile"),
+            0.92,
+            5_000
+        );
+    }
+
+    public MemoryRetentionPolicy withMaxEntries(int maxEntries) {
+        return new MemoryRetentionPolicy(ttlByTag, pinnedTags, mergeThreshold, maxEntries);
+    }
+}
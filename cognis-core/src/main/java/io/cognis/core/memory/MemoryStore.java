@@ -1,11 +1,26 @@
 package io.cognis.core.memory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface MemoryStore {
     MemoryEntry remember(String content, String source, List<String> tags) throws IOException;
 
+    /**
+     * Stores several memories from one source. Stores that embed content override this to
+     * embed the whole batch in one call.
+     *
+     * @return the stored (or already existing) entry for each memory, in input order
+     */
+    default List<MemoryEntry> rememberAll(List<ExtractedMemory> memories, String source) throws IOException {
+        List<MemoryEntry> stored = new ArrayList<>(memories.size());
+        for (ExtractedMemory memory : memories) {
+            stored.add(remember(memory.content(), source, memory.tags()));
+        }
+        return stored;
+    }
+
     boolean forget(String id) throws IOException;
 
     List<MemoryEntry> recall(String query, int maxResults) throws IOException;
@@ -15,4 +30,12 @@ public interface MemoryStore {
     int count() throws IOException;
 
     String formatContext(int maxEntries) throws IOException;
+
+    /**
+     * Returns the store holding the memories of partition {@code key}, e.g. one client of a
+     * vertical. Stores without partitions ignore the key and return themselves.
+     */
+    default MemoryStore partition(String key) {
+        return this;
+    }
 }
@@ -0,0 +1,237 @@
+package io.cognis.core.memory;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EmbeddingProvider} that runs a sentence-embedding model (e.g.
+ * {@code sentence-transformers/all-MiniLM-L6-v2} exported to ONNX) on the local CPU through
+ * ONNX Runtime — semantic recall with no network round trip, for offline deployments.
+ *
+ * <p>The model directory must contain {@code model.onnx} and the model's WordPiece
+ * {@code vocab.txt}. Inputs are fed as {@code input_ids}, {@code attention_mask} and, when the
+ * model declares it, {@code token_type_ids}. If the model has a {@code sentence_embedding}
+ * output it is used as is; otherwise the first output (token embeddings) is mean-pooled over the
+ * attention mask. Vectors are L2-normalised.
+ *
+ * <p>{@link #model()} names the directory and a digest of {@code model.onnx} and
+ * {@code vocab.txt}, so replacing the files in place, or loading another model from a directory of
+ * the same name, is seen as a model change and stored vectors are re-embedded.
+ *
+ * <p>One session is shared by all callers. ONNX Runtime parallelises each run over
+ * {@code threads} intra-op threads, and at most {@code threads} runs are in flight at once, so
+ * concurrent recalls queue for the CPU instead of oversubscribing it. Concurrent {@link #embed}
+ * calls are coalesced into one batch, as in {@link OpenAiCompatEmbeddingProvider}.
+ */
+public final class OnnxEmbeddingProvider implements EmbeddingProvider, AutoCloseable {
+
+    public static final int DEFAULT_MAX_TOKENS = 256;
+    private static final Duration COALESCE_WINDOW = Duration.ofMillis(1);
+    private static final int MAX_BATCH = 32;
+
+    private final String model;
+    private final WordPieceTokenizer tokenizer;
+    private final int maxTokens;
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final Set<String> inputNames;
+    private final String outputName;
+    private final boolean pooled;
+    private final Semaphore runs;
+    private final EmbeddingCoalescer coalescer;
+    private volatile int dimension;
+
+    /** Loads {@code model.onnx} and {@code vocab.txt} from {@code modelDir}, one inference thread per core. */
+    public OnnxEmbeddingProvider(Path modelDir) throws IOException {
+        this(modelDir, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * @param modelDir  directory with {@code model.onnx} and {@code vocab.txt}
+     * @param threads   intra-op threads per run, and runs allowed in flight at once
+     * @param maxTokens sequence length texts are truncated to, including {@code [CLS]}/{@code [SEP]}
+     */
+    public OnnxEmbeddingProvider(Path modelDir, int threads, int maxTokens) throws IOException {
+        Path modelFile = modelDir.resolve("model.onnx");
+        Path vocabFile = modelDir.resolve("vocab.txt");
+        if (!Files.isRegularFile(modelFile) || !Files.isRegularFile(vocabFile)) {
+            throw new IOException("ONNX embedding model needs model.onnx and vocab.txt in " + modelDir);
+        }
+        this.model = modelId(modelDir, modelFile, vocabFile);
+        this.tokenizer = WordPieceTokenizer.load(vocabFile, true);
+        this.maxTokens = Math.max(3, maxTokens);
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            options.setIntraOpNumThreads(Math.max(1, threads));
+            this.session = environment.createSession(modelFile.toString(), options);
+            this.inputNames = session.getInputNames();
+            this.pooled = session.getOutputNames().contains("sentence_embedding");
+            this.outputName = pooled ? "sentence_embedding" : session.getOutputNames().iterator().next();
+        } catch (OrtException e) {
+            throw new IOException("Failed to load ONNX embedding model " + modelFile + ": " + e.getMessage(), e);
+        }
+        this.runs = new Semaphore(Math.max(1, threads));
+        this.coalescer = new EmbeddingCoalescer(
+            this::embedBatch, COALESCE_WINDOW.toNanos(), TimeUnit.NANOSECONDS, MAX_BATCH);
+    }
+
+    @Override
+    public float[] embed(String text) throws IOException {
+        return coalescer.embed(text);
+    }
+
+    @Override
+    public String model() {
+        return model;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) throws IOException {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += MAX_BATCH) {
+            vectors.addAll(run(texts.subList(from, Math.min(texts.size(), from + MAX_BATCH))));
+        }
+        return vectors;
+    }
+
+    @Override
+    public void close() throws OrtException {
+        session.close();
+    }
+
+    /** {@code onnx:<dir name>:<first 16 hex digits of SHA-256 over model.onnx then vocab.txt>}. */
+    static String modelId(Path modelDir, Path modelFile, Path vocabFile) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[1 << 16];
+        for (Path file : List.of(modelFile, vocabFile)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        String hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+        return "onnx:" + modelDir.toAbsolutePath().normalize().getFileName() + ":" + hash;
+    }
+
+    private List<float[]> run(List<String> texts) throws IOException {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        long[][] ids = new long[texts.size()][];
+        int width = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            ids[i] = tokenizer.encode(texts.get(i), maxTokens);
+            width = Math.max(width, ids[i].length);
+        }
+        // Pad to the longest text of the batch, not to maxTokens.
+        long[][] inputIds = new long[ids.length][width];
+        long[][] mask = new long[ids.length][width];
+        for (int i = 0; i < ids.length; i++) {
+            System.arraycopy(ids[i], 0, inputIds[i], 0, ids[i].length);
+            Arrays.fill(mask[i], 0, ids[i].length, 1L);
+        }
+
+        try {
+            runs.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the embedding model", e);
+        }
+        Map<String, OnnxTensor> inputs = new LinkedHashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, inputIds));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, mask));
+            if (inputNames.contains("token_type_ids")) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, new long[ids.length][width]));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                OnnxValue output = result.get(outputName)
+                    .orElseThrow(() -> new IOException("Embedding model produced no " + outputName + " output"));
+                float[][] vectors = pooled
+                    ? (float[][]) output.getValue()
+                    : meanPool((float[][][]) output.getValue(), mask);
+                List<float[]> out = new ArrayList<>(vectors.length);
+                for (float[] vector : vectors) {
+                    out.add(normalise(vector));
+                }
+                dimension = vectors[0].length;
+                return out;
+            }
+        } catch (OrtException e) {
+            throw new IOException("ONNX embedding failed: " + e.getMessage(), e);
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+            runs.release();
+        }
+    }
+
+    /** Average of the token embeddings whose attention mask is set. */
+    static float[][] meanPool(float[][][] tokens, long[][] mask) {
+        float[][] pooled = new float[tokens.length][];
+        for (int b = 0; b < tokens.length; b++) {
+            int dim = tokens[b][0].length;
+            float[] sum = new float[dim];
+            int count = 0;
+            for (int t = 0; t < tokens[b].length; t++) {
+                if (mask[b][t] == 0) {
+                    continue;
+                }
+                count++;
+                for (int d = 0; d < dim; d++) {
+                    sum[d] += tokens[b][t][d];
+                }
+            }
+            for (int d = 0; count > 0 && d < dim; d++) {
+                sum[d] /= count;
+            }
+            pooled[b] = sum;
+        }
+        return pooled;
+    }
+
+    private static float[] normalise(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0.0) {
+            return vector;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (vector[i] / norm);
+        }
+        return vector;
+    }
+}
@@ -3,8 +3,11 @@ package io.cognis.core.memory;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -19,6 +22,10 @@ import org.slf4j.LoggerFactory;
  * <p>Works with OpenRouter ({@code openai/text-embedding-3-small}), OpenAI, and any other
  * provider that follows the {@code POST /v1/embeddings} spec.
  *
+ * <p>{@link #embedBatch} sends all texts as the array {@code input} of a single request.
+ * Concurrent {@link #embed} calls from different threads (e.g. recall queries from several
+ * sessions) are coalesced: calls arriving within a short window are sent as one batch.
+ *
  * <p>On failure (network error, bad response) it falls back to {@link HashEmbeddingProvider}
  * so recall continues to work without crashing the agent loop.
  *
@@ -36,6 +43,10 @@ public final class OpenAiCompatEmbeddingProvider implements EmbeddingProvider {
     private static final Logger LOG = LoggerFactory.getLogger(OpenAiCompatEmbeddingProvider.class);
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final Duration DEFAULT_COALESCE_WINDOW = Duration.ofMillis(2);
+    private static final int DEFAULT_MAX_BATCH = 64;
+    /** Upper bound on inputs per request; OpenAI accepts 2048, smaller keeps bodies modest. */
+    private static final int MAX_INPUTS_PER_REQUEST = 256;
 
     private final String endpoint;
     private final String apiKey;
@@ -43,19 +54,62 @@ public final class OpenAiCompatEmbeddingProvider implements EmbeddingProvider {
     private final OkHttpClient http;
     private final ObjectMapper mapper;
     private final HashEmbeddingProvider fallback;
+    private final EmbeddingCoalescer coalescer;
+    /** Dimension of the last vector returned by the endpoint itself (not a fallback). */
+    private volatile int dimension;
 
     public OpenAiCompatEmbeddingProvider(String endpoint, String apiKey, String model) {
+        this(endpoint, apiKey, model, DEFAULT_COALESCE_WINDOW, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param coalesceWindow how long the first of several concurrent {@link #embed} calls waits
+     *                       for others to join its batch; zero disables coalescing
+     * @param maxBatch       batch size at which a coalesced batch is sent without waiting further
+     */
+    public OpenAiCompatEmbeddingProvider(
+        String endpoint,
+        String apiKey,
+        String model,
+        Duration coalesceWindow,
+        int maxBatch
+    ) {
         this.endpoint = endpoint;
         this.apiKey   = apiKey;
         this.model    = model;
         this.http     = new OkHttpClient();
         this.mapper   = new ObjectMapper();
         this.fallback = new HashEmbeddingProvider();
+        this.coalescer = new EmbeddingCoalescer(
+            this::embedBatch, coalesceWindow.toNanos(), TimeUnit.NANOSECONDS, maxBatch);
+    }
+
+    @Override
+    public float[] embed(String text) throws IOException {
+        return coalescer.embed(text);
+    }
+
+    @Override
+    public String model() {
+        return model;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
     }
 
     @Override
-    public List<Double> embed(String text) throws IOException {
-        String body = mapper.writeValueAsString(Map.of("model", model, "input", text));
+    public List<float[]> embedBatch(List<String> texts) throws IOException {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += MAX_INPUTS_PER_REQUEST) {
+            vectors.addAll(request(texts.subList(from, Math.min(texts.size(), from + MAX_INPUTS_PER_REQUEST))));
+        }
+        return vectors;
+    }
+
+    private List<float[]> request(List<String> texts) throws IOException {
+        String body = mapper.writeValueAsString(Map.of("model", model, "input", texts));
         Request request = new Request.Builder()
             .url(endpoint)
             .header("Authorization", "Bearer " + apiKey)
@@ -66,35 +120,56 @@ public final class OpenAiCompatEmbeddingProvider implements EmbeddingProvider {
         try (Response response = http.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 LOG.warn("Embedding API returned {}, falling back to hash embedding", response.code());
-                return fallback.embed(text);
+                return fallback(texts);
             }
             String responseBody = response.body() == null ? "" : response.body().string();
-            return parseEmbedding(responseBody, text);
+            return parseEmbeddings(responseBody, texts);
         } catch (Exception e) {
             LOG.warn("Embedding API call failed ({}), falling back to hash embedding", e.getMessage());
-            return fallback.embed(text);
+            return fallback(texts);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Double> parseEmbedding(String responseBody, String originalText) {
+    private List<float[]> parseEmbeddings(String responseBody, List<String> texts) {
+        float[][] vectors = new float[texts.size()][];
         try {
             Map<String, Object> parsed = mapper.readValue(responseBody, MAP_TYPE);
             List<?> data = (List<?>) parsed.get("data");
-            if (data == null || data.isEmpty()) {
-                return fallback.embed(originalText);
+            if (data != null) {
+                for (int position = 0; position < data.size(); position++) {
+                    Map<?, ?> item = (Map<?, ?>) data.get(position);
+                    // Results carry the index of their input; fall back to response order.
+                    int index = item.get("index") instanceof Number n ? n.intValue() : position;
+                    List<?> rawVector = (List<?>) item.get("embedding");
+                    if (index >= 0 && index < vectors.length && rawVector != null && !rawVector.isEmpty()) {
+                        vectors[index] = toVector(rawVector);
+                        dimension = rawVector.size();
+                    }
+                }
             }
-            Map<?, ?> first = (Map<?, ?>) data.get(0);
-            List<?> rawVector = (List<?>) first.get("embedding");
-            if (rawVector == null || rawVector.isEmpty()) {
-                return fallback.embed(originalText);
-            }
-            return rawVector.stream()
-                .map(v -> v instanceof Number n ? n.doubleValue() : 0.0)
-                .toList();
         } catch (Exception e) {
             LOG.warn("Failed to parse embedding response, falling back to hash embedding");
-            return fallback.embed(originalText);
         }
+        List<float[]> out = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            out.add(vectors[i] != null ? vectors[i] : fallback.embed(texts.get(i)));
+        }
+        return out;
+    }
+
+    private static float[] toVector(List<?> rawVector) {
+        float[] vector = new float[rawVector.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = rawVector.get(i) instanceof Number n ? n.floatValue() : 0.0f;
+        }
+        return vector;
+    }
+
+    private List<float[]> fallback(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(fallback.embed(text));
+        }
+        return vectors;
     }
 }
@@ -0,0 +1,354 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link MemoryStore} split into independent partitions, one {@link FileMemoryStore} (snapshot,
+ * log, vectors and index) per partition key — typically {@code <vertical>/<phone number>}.
+ *
+ * <p>The store itself is the root partition, holding memories that belong to no client (the
+ * workspace-wide {@code memories.json}). {@link #partition(String)} returns a view of one client's
+ * partition: recall only scans that client's memories, and writes to different partitions never
+ * contend on the same lock.
+ *
+ * <p>Partitions are opened on first use and kept in an LRU of at most {@code maxOpen} entries.
+ * When a cold partition is evicted it is closed — background work stopped, then compacted (which
+ * also persists its vector index) — and dropped; a partition still in use by another thread is
+ * never evicted, so the limit may be exceeded briefly under load. A partition reopened while it is
+ * being evicted waits for the eviction to finish first.
+ *
+ * <p>Partition directories live under {@code <root dir>/partitions/<encoded key>/memories.json};
+ * keys are encoded reversibly into a single safe path segment.
+ */
+public final class PartitionedMemoryStore implements MemoryStore, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedMemoryStore.class);
+    public static final int DEFAULT_MAX_OPEN = 64;
+    private static final String FILE_NAME = "memories.json";
+
+    private final FileMemoryStore root;
+    private final Path partitionsDir;
+    private final Function<Path, FileMemoryStore> factory;
+    private final int maxOpen;
+    /** Open partitions, least recently used first. Guarded by {@code this}. */
+    private final Map<String, Segment> open = new LinkedHashMap<>(16, 0.75f, true);
+    /** Partitions being compacted after eviction. Guarded by {@code this}. */
+    private final Map<String, Segment> closing = new LinkedHashMap<>();
+
+    /**
+     * @param rootPath snapshot file of the root partition; partitions live in
+     *                 {@code partitions/} next to it
+     * @param factory  opens the store for a partition's snapshot file, with the same embedding
+     *                 provider and index type as the root
+     * @param maxOpen  partitions kept open before the least recently used idle one is evicted
+     */
+    public PartitionedMemoryStore(Path rootPath, Function<Path, FileMemoryStore> factory, int maxOpen) {
+        this.root = factory.apply(rootPath);
+        this.partitionsDir = rootPath.resolveSibling("partitions");
+        this.factory = factory;
+        this.maxOpen = Math.max(1, maxOpen);
+    }
+
+    /** Returns the view of partition {@code key}; a blank key is the root partition. */
+    @Override
+    public MemoryStore partition(String key) {
+        return key == null || key.isBlank() ? this : new Partition(key);
+    }
+
+    @Override
+    public MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
+        return root.remember(content, source, tags);
+    }
+
+    @Override
+    public List<MemoryEntry> rememberAll(List<ExtractedMemory> memories, String source) throws IOException {
+        return root.rememberAll(memories, source);
+    }
+
+    @Override
+    public boolean forget(String id) throws IOException {
+        return root.forget(id);
+    }
+
+    @Override
+    public List<MemoryEntry> recall(String query, int maxResults) throws IOException {
+        return root.recall(query, maxResults);
+    }
+
+    @Override
+    public List<MemoryEntry> list() throws IOException {
+        return root.list();
+    }
+
+    @Override
+    public int count() throws IOException {
+        return root.count();
+    }
+
+    @Override
+    public String formatContext(int maxEntries) throws IOException {
+        return root.formatContext(maxEntries);
+    }
+
+    /** Number of partitions currently open, for tests and diagnostics. */
+    synchronized int openPartitions() {
+        return open.size();
+    }
+
+    /** Keys of every partition on disk, open or not. */
+    public List<String> partitionKeys() throws IOException {
+        if (!Files.isDirectory(partitionsDir)) {
+            return List.of();
+        }
+        try (Stream<Path> dirs = Files.list(partitionsDir)) {
+            return dirs.filter(Files::isDirectory)
+                .map(dir -> decode(dir.getFileName().toString()))
+                .sorted()
+                .toList();
+        }
+    }
+
+    /**
+     * Consolidates the root and then every partition on disk, one at a time, opening cold
+     * partitions through the LRU like any other access.
+     *
+     * @return totals over all partitions
+     */
+    public FileMemoryStore.ConsolidationResult consolidate(MemoryRetentionPolicy policy, Instant now) throws IOException {
+        FileMemoryStore.ConsolidationResult total = root.consolidate(policy, now);
+        for (String key : partitionKeys()) {
+            FileMemoryStore.ConsolidationResult result = withPartition(key, store -> store.consolidate(policy, now));
+            total = new FileMemoryStore.ConsolidationResult(
+                total.expired() + result.expired(),
+                total.merged() + result.merged(),
+                total.evicted() + result.evicted(),
+                total.remaining() + result.remaining()
+            );
+        }
+        return total;
+    }
+
+    /** Compacts the root and every open partition; for shutdown hooks. */
+    public void compact() throws IOException {
+        root.compact();
+        List<String> keys;
+        synchronized (this) {
+            keys = new ArrayList<>(open.keySet());
+        }
+        for (String key : keys) {
+            withPartition(key, store -> {
+                store.compact();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Closes every open partition and then the root, stopping their background work and writing
+     * final snapshots; for shutdown hooks. Partitions opened afterwards are opened afresh.
+     */
+    @Override
+    public void close() throws IOException {
+        List<Segment> segments;
+        synchronized (this) {
+            segments = new ArrayList<>(open.values());
+            open.clear();
+            segments.forEach(segment -> closing.put(segment.key, segment));
+        }
+        for (Segment segment : segments) {
+            segment.close();
+            synchronized (this) {
+                closing.remove(segment.key, segment);
+            }
+        }
+        root.close();
+    }
+
+    // ── partitions ───────────────────────────────────────────────────────────
+
+    private <T> T withPartition(String key, PartitionOperation<T> operation) throws IOException {
+        Segment segment = acquire(key);
+        try {
+            return operation.apply(segment.store());
+        } finally {
+            release(segment);
+        }
+    }
+
+    private synchronized Segment acquire(String key) {
+        Segment segment = open.get(key);
+        if (segment == null) {
+            segment = new Segment(key, closing.get(key));
+            open.put(key, segment);
+        }
+        segment.leases++;
+        return segment;
+    }
+
+    private void release(Segment segment) {
+        List<Segment> evicted = new ArrayList<>();
+        synchronized (this) {
+            segment.leases--;
+            Iterator<Segment> lru = open.values().iterator();
+            while (open.size() > maxOpen && lru.hasNext()) {
+                Segment candidate = lru.next();
+                if (candidate.leases == 0) {
+                    lru.remove();
+                    closing.put(candidate.key, candidate);
+                    evicted.add(candidate);
+                }
+            }
+        }
+        for (Segment candidate : evicted) {
+            candidate.close();
+            synchronized (this) {
+                closing.remove(candidate.key, candidate);
+            }
+        }
+    }
+
+    Path pathFor(String key) {
+        return partitionsDir.resolve(encode(key)).resolve(FILE_NAME);
+    }
+
+    /** Letters, digits, {@code -} and {@code _} are kept; anything else becomes {@code ~xxxx}. */
+    static String encode(String key) {
+        StringBuilder out = new StringBuilder(key.length() + 8);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                out.append(c);
+            } else {
+                out.append('~').append(String.format("%04x", (int) c));
+            }
+        }
+        return out.toString();
+    }
+
+    static String decode(String encoded) {
+        StringBuilder out = new StringBuilder(encoded.length());
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (c == '~' && i + 5 <= encoded.length()) {
+                out.append((char) Integer.parseInt(encoded, i + 1, i + 5, 16));
+                i += 4;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    @FunctionalInterface
+    private interface PartitionOperation<T> {
+        T apply(FileMemoryStore store) throws IOException;
+    }
+
+    /** One partition's store, opened lazily by the first thread that needs it. */
+    private final class Segment {
+        private final String key;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private Segment predecessor;
+        private FileMemoryStore store;
+        /** Threads currently using the segment. Guarded by the enclosing store. */
+        private int leases;
+
+        Segment(String key, Segment predecessor) {
+            this.key = key;
+            this.predecessor = predecessor;
+        }
+
+        synchronized FileMemoryStore store() throws IOException {
+            if (store == null) {
+                if (predecessor != null) {
+                    predecessor.awaitClosed();
+                    predecessor = null;
+                }
+                Path path = pathFor(key);
+                Files.createDirectories(path.getParent());
+                store = factory.apply(path);
+            }
+            return store;
+        }
+
+        synchronized void close() {
+            try {
+                if (store != null) {
+                    store.close();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                LOG.warn("Failed to close memory partition {} on eviction: {}", key, e.getMessage());
+            } finally {
+                store = null;
+                closed.countDown();
+            }
+        }
+
+        private void awaitClosed() throws IOException {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for memory partition " + key + " to close", e);
+            }
+        }
+    }
+
+    /** View of one partition; every call leases the partition so it is not evicted mid-call. */
+    private final class Partition implements MemoryStore {
+        private final String key;
+
+        Partition(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
+            return withPartition(key, store -> store.remember(content, source, tags));
+        }
+
+        @Override
+        public List<MemoryEntry> rememberAll(List<ExtractedMemory> memories, String source) throws IOException {
+            return withPartition(key, store -> store.rememberAll(memories, source));
+        }
+
+        @Override
+        public boolean forget(String id) throws IOException {
+            return withPartition(key, store -> store.forget(id));
+        }
+
+        @Override
+        public List<MemoryEntry> recall(String query, int maxResults) throws IOException {
+            return withPartition(key, store -> store.recall(query, maxResults));
+        }
+
+        @Override
+        public List<MemoryEntry> list() throws IOException {
+            return withPartition(key, FileMemoryStore::list);
+        }
+
+        @Override
+        public int count() throws IOException {
+            return withPartition(key, FileMemoryStore::count);
+        }
+
+        @Override
+        public String formatContext(int maxEntries) throws IOException {
+            return withPartition(key, store -> store.formatContext(maxEntries));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped file of int8 scalar-quantized vectors, addressed by the same slot ordinals as
+ * the {@link VectorFile} they are derived from.
+ *
+ * <p>Each vector is quantized on its own: {@code code[i] = round(v[i] / scale)} with
+ * {@code scale = max|v[i]| / 127}, so a stored vector costs one byte per dimension plus its
+ * scale instead of four bytes per dimension.
+ *
+ * <p>Layout (little-endian):
+ * <pre>
+ *   0   int   magic ("CGQ8")
+ *   4   int   format version
+ *   8   int   dimension (0 until the first vector is written)
+ *   12  int   reserved
+ *   16  per slot: long generation + 1 (0 while the slot holds no codes), float scale,
+ *       byte[dimension] codes, padded to a multiple of 8 bytes
+ * </pre>
+ *
+ * <p>Each slot records the generation of the float vector its codes were quantized from, so the
+ * file can be kept across restarts and only slots rewritten since are quantized again.
+ *
+ * <p>Not thread-safe; callers serialise access.
+ */
+final class QuantizedVectorFile {
+
+    private static final int MAGIC = 0x38514743; // "CGQ8" read as little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final long CHUNK_BYTES = 1L << 28;
+
+    private final Path path;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int chunkSlots;
+    private int stride;
+    private int dimension;
+    private int capacity;
+
+    QuantizedVectorFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Maps an existing file. Returns false, leaving nothing mapped, if there is none or it is
+     * not a quantized vector file of the current version.
+     */
+    boolean open() throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_BYTES) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) <= 0) {
+            return false;
+        }
+        dimension = header.getInt(8);
+        stride = stride(dimension);
+        map((int) ((Files.size(path) - HEADER_BYTES) / stride));
+        return true;
+    }
+
+    /** Vector dimension, or 0 if nothing has been written yet. */
+    int dimension() {
+        return dimension;
+    }
+
+    /** Number of slots currently backed by the file. */
+    int capacity() {
+        return capacity;
+    }
+
+    /** Generation of the vector the codes in {@code slot} came from, or -1 if it holds none. */
+    long generation(int slot) {
+        return slot < capacity ? chunk(slot).getLong(offset(slot)) - 1 : -1;
+    }
+
+    /** Quantizes {@code vector}, of generation {@code generation}, and stores it in {@code slot}. */
+    void write(int slot, float[] vector, long generation) throws IOException {
+        if (dimension == 0) {
+            dimension = vector.length;
+            stride = stride(dimension);
+            map(Math.max(INITIAL_SLOTS, slot + 1));
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                "Vector dimension " + vector.length + " does not match file dimension " + dimension);
+        }
+        if (slot >= capacity) {
+            map(Math.max(capacity * 2, slot + 1));
+        }
+        byte[] codes = new byte[dimension];
+        float scale = quantize(vector, codes);
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        chunk.putFloat(base + Long.BYTES, scale);
+        chunk.put(base + Long.BYTES + Float.BYTES, codes);
+        chunk.putLong(base, generation + 1);
+    }
+
+    /** Copies the codes of {@code slot} into {@code codes} and returns the slot's scale. */
+    float read(int slot, byte[] codes) {
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        chunk.get(base + Long.BYTES + Float.BYTES, codes, 0, dimension);
+        return chunk.getFloat(base + Long.BYTES);
+    }
+
+    /** Drops every stored vector and deletes the file; the next write fixes a new dimension. */
+    void reset() throws IOException {
+        chunks = new ByteBuffer[0];
+        dimension = 0;
+        stride = 0;
+        capacity = 0;
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Symmetric per-vector int8 quantization of {@code vector} into {@code codes}.
+     *
+     * @return the scale that maps codes back to values, or 0 for an all-zero vector
+     */
+    static float quantize(float[] vector, byte[] codes) {
+        float max = 0f;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        if (max == 0f) {
+            Arrays.fill(codes, (byte) 0);
+            return 0f;
+        }
+        float scale = max / 127f;
+        float inverse = 1f / scale;
+        for (int i = 0; i < vector.length; i++) {
+            codes[i] = (byte) Math.round(vector[i] * inverse);
+        }
+        return scale;
+    }
+
+    private static int stride(int dimension) {
+        return (Long.BYTES + Float.BYTES + dimension + 7) & ~7;
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot / chunkSlots];
+    }
+
+    private int offset(int slot) {
+        return (slot % chunkSlots) * stride;
+    }
+
+    private void map(int slots) throws IOException {
+        Files.createDirectories(path.getParent());
+        chunkSlots = (int) Math.max(1, CHUNK_BYTES / stride);
+        int chunkCount = (slots + chunkSlots - 1) / chunkSlots;
+        ByteBuffer[] mapped = new ByteBuffer[chunkCount];
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, dimension);
+            for (int c = 0; c < chunkCount; c++) {
+                int slotsInChunk = Math.min(chunkSlots, slots - c * chunkSlots);
+                long position = HEADER_BYTES + (long) c * chunkSlots * stride;
+                mapped[c] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) slotsInChunk * stride)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        chunks = mapped;
+        capacity = slots;
+    }
+}
@@ -0,0 +1,143 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Two-pass {@link VectorIndex}: an int8 scan over every live slot, then exact float32 re-ranking
+ * of the best candidates.
+ *
+ * <p>The first pass scores the query's int8 codes against the codes in a mapped
+ * {@link QuantizedVectorFile} ({@code <path>.q8}), a quarter of the size of the float vectors,
+ * using integer dot products ({@link VectorMath}, SIMD when available). The top
+ * {@value #RERANK_FACTOR}×k candidates (at least {@value #MIN_RERANK}) are then re-scored against
+ * the float vectors in the {@link VectorFile}, so only those pages of the float file are touched
+ * per query and the returned scores are exact.
+ *
+ * <p>The quantized file is derived data, written slot by slot as vectors are added. It is kept
+ * across restarts: {@link #open} only quantizes live slots whose generation differs from the one
+ * the stored codes came from (new, reused or rewritten since), and drops the file if it is
+ * unreadable or of another dimension. Re-ranking still reads the float file, so its pages for the
+ * candidates stay resident; the codes only spare the scan over everything else.
+ */
+final class QuantizedVectorIndex implements VectorIndex {
+
+    static final int RERANK_FACTOR = 4;
+    static final int MIN_RERANK = 64;
+
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingDouble(Match::score);
+
+    private final VectorFile vectors;
+    private final QuantizedVectorFile codes;
+    private final BitSet live = new BitSet();
+    private byte[] scratch = new byte[0];
+    private byte[] queryCodes = new byte[0];
+
+    QuantizedVectorIndex(VectorFile vectors, Path path) {
+        this.vectors = vectors;
+        this.codes = new QuantizedVectorFile(path);
+    }
+
+    @Override
+    public long open(BitSet liveSlots, long[] generations) throws IOException {
+        live.clear();
+        if (!codes.open() || codes.dimension() != vectors.dimension()) {
+            codes.reset();
+        }
+        long highest = 0;
+        for (int slot = 0; slot < codes.capacity(); slot++) {
+            highest = Math.max(highest, codes.generation(slot));
+        }
+        for (int slot = liveSlots.nextSetBit(0); slot >= 0; slot = liveSlots.nextSetBit(slot + 1)) {
+            long generation = slot < generations.length ? generations[slot] : 0;
+            if (codes.generation(slot) != generation) {
+                codes.write(slot, vectors.read(slot), generation);
+            }
+            live.set(slot);
+        }
+        return highest;
+    }
+
+    @Override
+    public void add(int slot, long generation) throws IOException {
+        if (codes.dimension() != 0 && codes.dimension() != vectors.dimension()) {
+            clear();
+        }
+        codes.write(slot, vectors.read(slot), generation);
+        live.set(slot);
+    }
+
+    @Override
+    public void remove(int slot) {
+        live.clear(slot);
+    }
+
+    @Override
+    public List<Match> search(float[] query, int k) {
+        if (live.isEmpty() || k <= 0 || query.length != codes.dimension()) {
+            return List.of();
+        }
+        PriorityQueue<Match> candidates = scan(query, Math.max(MIN_RERANK, k * RERANK_FACTOR));
+        PriorityQueue<Match> best = new PriorityQueue<>(k + 1, WORST_FIRST);
+        for (Match candidate : candidates) {
+            offer(best, new Match(candidate.slot(), vectors.dot(candidate.slot(), query)), k);
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(WORST_FIRST.reversed());
+        return ranked;
+    }
+
+    /** First pass only: the {@code k} best slots by quantized score, best first. */
+    List<Match> searchQuantized(float[] query, int k) {
+        if (live.isEmpty() || k <= 0 || query.length != codes.dimension()) {
+            return List.of();
+        }
+        List<Match> ranked = new ArrayList<>(scan(query, k));
+        ranked.sort(WORST_FIRST.reversed());
+        return ranked;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        // Codes reach the mapped file as slots are added; nothing else to persist.
+        return () -> { };
+    }
+
+    @Override
+    public void clear() throws IOException {
+        live.clear();
+        codes.reset();
+    }
+
+    private PriorityQueue<Match> scan(float[] query, int k) {
+        int dimension = codes.dimension();
+        if (scratch.length != dimension) {
+            scratch = new byte[dimension];
+            queryCodes = new byte[dimension];
+        }
+        float queryScale = QuantizedVectorFile.quantize(query, queryCodes);
+        PriorityQueue<Match> heap = new PriorityQueue<>(k + 1, WORST_FIRST);
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            float scale = codes.read(slot, scratch);
+            double score = (double) VectorMath.dot(scratch, 0, queryCodes, dimension) * scale * queryScale;
+            if (heap.size() < k || score > heap.peek().score()) {
+                offer(heap, new Match(slot, score), k);
+            }
+        }
+        return heap;
+    }
+
+    private static void offer(PriorityQueue<Match> heap, Match match, int k) {
+        if (heap.size() < k) {
+            heap.offer(match);
+        } else if (match.score() > heap.peek().score()) {
+            heap.poll();
+            heap.offer(match);
+        }
+    }
+}
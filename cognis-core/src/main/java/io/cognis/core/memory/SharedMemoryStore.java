@@ -1,7 +1,17 @@
 package io.cognis.core.memory;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Namespaced facade over an existing {@link MemoryStore} that enables agents within the
@@ -10,6 +20,7 @@ import java.util.List;
  * <strong>Convention:</strong> each entry is tagged {@code "shared:{namespace}:{key}"}.
  * The {@code namespace} is typically a {@code runId} or a logical stage name (e.g.
  * {@code "triage-2024"}) so entries from different workflow executions do not collide.
+ * Namespaces must not contain {@code ':'}.
  * <p>
  * <strong>Typical usage in a multi-agent workflow:</strong>
  * <pre>{@code
@@ -20,13 +31,67 @@ import java.util.List;
  * // via AgentOrchestrator.buildSystemPrompt() calling getSummary(parentRunId)
  * String context = sharedMemory.getSummary("intake-run-123");
  * }</pre>
+ * <p>
+ * <strong>Index:</strong> a namespace → entries index is built from the backing store on first
+ * use and maintained on every write, so namespace reads cost O(entries in the namespace) rather
+ * than a scan of the whole store. Entries removed from the backing store by other means stay
+ * in the index until the namespace is deleted.
+ * <p>
+ * <strong>Lifecycle:</strong> shared facts are scratch state. {@link #deleteNamespace} removes a
+ * whole namespace from the backing store. Runs announced with {@link #onRunStarted} form a tree;
+ * {@link #onRunCompleted} deletes a run's namespace once the run and every descendant started
+ * under it have finished, since those descendants may still read it. Namespaces no run owns —
+ * a top-level run's, or a logical stage name — are deleted by {@link #expireIdle} once nothing
+ * was written to them for the idle TTL. With {@code expireOnRunCompletion = false} nothing is
+ * expired.
  */
 public final class SharedMemoryStore {
 
+    private static final String TAG_PREFIX = "shared:";
+    public static final Duration DEFAULT_IDLE_TTL = Duration.ofHours(24);
+
     private final MemoryStore backing;
+    private final boolean expireOnRunCompletion;
+    private final Duration idleTtl;
+    private final Clock clock;
+    /** namespace → entry id → entry, in write order. */
+    private final Map<String, Map<String, MemoryEntry>> namespaces = new HashMap<>();
+    /** Runs started and not yet released, keyed by runId (= namespace). */
+    private final Map<String, Run> runs = new HashMap<>();
+    private boolean indexed;
+
+    /** A tracked run: its parent, how many of its children are unreleased, whether it finished. */
+    private static final class Run {
+        final String parentRunId;
+        int openChildren;
+        boolean completed;
+
+        Run(String parentRunId) {
+            this.parentRunId = parentRunId;
+        }
+    }
 
     public SharedMemoryStore(MemoryStore backing) {
+        this(backing, true);
+    }
+
+    /**
+     * @param expireOnRunCompletion whether finished runs and idle namespaces are deleted;
+     *                              disable to keep shared facts for later inspection
+     */
+    public SharedMemoryStore(MemoryStore backing, boolean expireOnRunCompletion) {
+        this(backing, expireOnRunCompletion, DEFAULT_IDLE_TTL, Clock.systemUTC());
+    }
+
+    /**
+     * @param idleTtl how long a namespace no run owns may go without writes before
+     *                {@link #expireIdle} deletes it; {@code null} never expires such namespaces
+     */
+    public SharedMemoryStore(MemoryStore backing, boolean expireOnRunCompletion, Duration idleTtl, Clock clock) {
         this.backing = backing;
+        this.expireOnRunCompletion = expireOnRunCompletion;
+        this.idleTtl = idleTtl;
+        this.clock = clock;
     }
 
     /**
@@ -38,7 +103,12 @@ public final class SharedMemoryStore {
      * @param content   the fact to store
      */
     public void write(String namespace, String key, String content) throws IOException {
-        backing.remember(content, "shared", List.of(tag(namespace, key)));
+        // The backing store may embed the content; keep that outside the index lock.
+        MemoryEntry entry = backing.remember(content, "shared", List.of(tag(namespace, key)));
+        synchronized (this) {
+            ensureIndexed();
+            index(entry);
+        }
     }
 
     /**
@@ -48,11 +118,8 @@ public final class SharedMemoryStore {
      * @return empty string if no entries exist for this namespace
      */
     public String getSummary(String namespace) throws IOException {
-        String prefix = "shared:" + namespace + ":";
-        List<MemoryEntry> entries = backing.list().stream()
-            .filter(e -> e.tags() != null && e.tags().stream().anyMatch(t -> t.startsWith(prefix)))
-            .toList();
-
+        String prefix = TAG_PREFIX + namespace + ":";
+        List<MemoryEntry> entries = entries(namespace);
         if (entries.isEmpty()) return "";
 
         StringBuilder sb = new StringBuilder("## Shared context from upstream agents\n");
@@ -72,12 +139,186 @@ public final class SharedMemoryStore {
      */
     public List<MemoryEntry> read(String namespace, String key) throws IOException {
         String fullTag = tag(namespace, key);
-        return backing.list().stream()
-            .filter(e -> e.tags() != null && e.tags().contains(fullTag))
+        return entries(namespace).stream()
+            .filter(e -> e.tags().contains(fullTag))
             .toList();
     }
 
+    /** Namespaces that currently hold at least one entry. */
+    public synchronized Set<String> namespaces() throws IOException {
+        ensureIndexed();
+        return Collections.unmodifiableSet(new TreeSet<>(namespaces.keySet()));
+    }
+
+    /**
+     * Removes every entry of {@code namespace} from the backing store.
+     *
+     * @return number of entries removed
+     */
+    public synchronized int deleteNamespace(String namespace) throws IOException {
+        ensureIndexed();
+        Map<String, MemoryEntry> entries = namespaces.remove(namespace);
+        if (entries == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (MemoryEntry entry : entries.values()) {
+            if (backing.forget(entry.id())) {
+                removed++;
+            }
+            // An entry can carry tags of several namespaces; drop it from all of them.
+            unindex(entry);
+        }
+        return removed;
+    }
+
+    /**
+     * Lifecycle hook for a run being submitted. Until {@code runId} and everything started under
+     * it have completed, {@link #onRunCompleted} of {@code parentRunId} keeps the parent's
+     * namespace. Starting a run again (a steered re-run) reopens it.
+     */
+    public synchronized void onRunStarted(String runId, String parentRunId) {
+        if (runId == null || runId.isBlank()) {
+            return;
+        }
+        Run run = runs.get(runId);
+        if (run != null) {
+            run.completed = false;
+            return;
+        }
+        // A parent that was never started here (e.g. the top-level run) is left to expireIdle.
+        Run parent = parentRunId == null ? null : runs.get(parentRunId);
+        runs.put(runId, new Run(parent == null ? null : parentRunId));
+        if (parent != null) {
+            parent.openChildren++;
+        }
+    }
+
+    /**
+     * Lifecycle hook for the end of an agent run: deletes the namespace keyed by {@code runId}
+     * once no run started under it is still going, then releases ancestors that were only
+     * waiting for it, and finally sweeps idle namespaces. Does nothing if expiry is disabled.
+     */
+    public synchronized void onRunCompleted(String runId) throws IOException {
+        if (!expireOnRunCompletion || runId == null || runId.isBlank()) {
+            return;
+        }
+        Run run = runs.get(runId);
+        if (run == null) {
+            deleteNamespace(runId);
+        } else {
+            run.completed = true;
+            release(runId);
+        }
+        expireIdle();
+    }
+
+    /**
+     * Deletes namespaces that no unfinished run owns and that saw no write for the idle TTL.
+     *
+     * @return number of namespaces deleted
+     */
+    public synchronized int expireIdle() throws IOException {
+        if (!expireOnRunCompletion || idleTtl == null) {
+            return 0;
+        }
+        ensureIndexed();
+        Instant cutoff = clock.instant().minus(idleTtl);
+        List<String> idle = new ArrayList<>();
+        for (Map.Entry<String, Map<String, MemoryEntry>> namespace : namespaces.entrySet()) {
+            if (!runs.containsKey(namespace.getKey()) && lastWrite(namespace.getValue()).isBefore(cutoff)) {
+                idle.add(namespace.getKey());
+            }
+        }
+        for (String namespace : idle) {
+            deleteNamespace(namespace);
+        }
+        return idle.size();
+    }
+
+    /** Deletes {@code runId}'s namespace if it and its descendants are done, walking up the tree. */
+    private void release(String runId) throws IOException {
+        while (runId != null) {
+            Run run = runs.get(runId);
+            if (run == null || !run.completed || run.openChildren > 0) {
+                return;
+            }
+            runs.remove(runId);
+            deleteNamespace(runId);
+            runId = run.parentRunId;
+            Run parent = runId == null ? null : runs.get(runId);
+            if (parent != null) {
+                parent.openChildren--;
+            }
+        }
+    }
+
+    private static Instant lastWrite(Map<String, MemoryEntry> entries) {
+        Instant last = Instant.EPOCH;
+        for (MemoryEntry entry : entries.values()) {
+            Instant at = entry.updatedAt() != null ? entry.updatedAt() : entry.createdAt();
+            if (at != null && at.isAfter(last)) {
+                last = at;
+            }
+        }
+        return last;
+    }
+
+    /** Entries of {@code namespace}, newest first. */
+    private synchronized List<MemoryEntry> entries(String namespace) throws IOException {
+        ensureIndexed();
+        Map<String, MemoryEntry> entries = namespaces.get(namespace);
+        if (entries == null) {
+            return List.of();
+        }
+        List<MemoryEntry> newestFirst = new ArrayList<>(entries.values());
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    private void ensureIndexed() throws IOException {
+        if (indexed) {
+            return;
+        }
+        List<MemoryEntry> all = new ArrayList<>(backing.list());
+        // list() is newest first; index in write order.
+        Collections.reverse(all);
+        for (MemoryEntry entry : all) {
+            index(entry);
+        }
+        indexed = true;
+    }
+
+    private void index(MemoryEntry entry) {
+        for (String namespace : namespacesOf(entry)) {
+            namespaces.computeIfAbsent(namespace, ignored -> new LinkedHashMap<>()).put(entry.id(), entry);
+        }
+    }
+
+    private void unindex(MemoryEntry entry) {
+        for (String namespace : namespacesOf(entry)) {
+            Map<String, MemoryEntry> entries = namespaces.get(namespace);
+            if (entries != null && entries.remove(entry.id()) != null && entries.isEmpty()) {
+                namespaces.remove(namespace);
+            }
+        }
+    }
+
+    private static List<String> namespacesOf(MemoryEntry entry) {
+        if (entry.tags() == null) {
+            return List.of();
+        }
+        List<String> found = new ArrayList<>(1);
+        for (String tag : entry.tags()) {
+            int separator = tag.indexOf(':', TAG_PREFIX.length());
+            if (tag.startsWith(TAG_PREFIX) && separator > TAG_PREFIX.length()) {
+                found.add(tag.substring(TAG_PREFIX.length(), separator));
+            }
+        }
+        return found;
+    }
+
     private static String tag(String namespace, String key) {
-        return "shared:" + namespace + ":" + key;
+        return TAG_PREFIX + namespace + ":" + key;
     }
 }
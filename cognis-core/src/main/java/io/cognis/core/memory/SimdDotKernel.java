@@ -0,0 +1,57 @@
+package io.cognis.core.memory;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorMath.Kernel} on the preferred SIMD species of the running CPU. Only instantiated
+ * by {@link VectorMath} after checking that {@code jdk.incubator.vector} is in the boot layer.
+ */
+final class SimdDotKernel implements VectorMath.Kernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    /** Eight int8 codes per load, widened to one or two int vectors depending on register width. */
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+    private static final VectorSpecies<Integer> INTS =
+        IntVector.SPECIES_PREFERRED.length() >= 8 ? IntVector.SPECIES_256 : IntVector.SPECIES_128;
+    private static final int PARTS = BYTES.length() / INTS.length();
+
+    @Override
+    public double dot(float[] a, int offset, float[] b, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, offset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[offset + i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(byte[] a, int offset, byte[] b, int length) {
+        IntVector acc = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = BYTES.loopBound(length); i < bound; i += BYTES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, offset + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, i);
+            for (int part = 0; part < PARTS; part++) {
+                IntVector wa = (IntVector) va.convertShape(VectorOperators.B2I, INTS, part);
+                IntVector wb = (IntVector) vb.convertShape(VectorOperators.B2I, INTS, part);
+                acc = acc.add(wa.mul(wb));
+            }
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[offset + i] * b[i];
+        }
+        return sum;
+    }
+}
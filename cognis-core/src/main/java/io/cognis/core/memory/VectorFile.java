@@ -0,0 +1,195 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped file of fixed-dimension float32 vectors, addressed by slot ordinal.
+ *
+ * <p>Layout (little-endian):
+ * <pre>
+ *   0   int   magic ("CGVF")
+ *   4   int   format version
+ *   8   int   dimension (0 until the first vector is written)
+ *   12  int   model fingerprint of the embeddings (0 if not recorded)
+ *   16  float[dimension] slot 0, then slot 1, ...
+ * </pre>
+ *
+ * <p>Slots are assigned by the owner ({@link FileMemoryStore}) and recorded in its metadata log;
+ * this class only stores and scores the raw vectors. The file is mapped in chunks of at most
+ * 256 MiB (so stores are not capped by the 2 GiB limit of a single mapping) and grows by
+ * doubling. Reading a vector or scoring a query against it never touches the heap beyond the
+ * query itself.
+ *
+ * <p>Not thread-safe; callers serialise access.
+ */
+final class VectorFile {
+
+    private static final int MAGIC = 0x46564743; // "CGVF" read as little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final long CHUNK_BYTES = 1L << 28;
+
+    private final Path path;
+    private FloatBuffer[] chunks = new FloatBuffer[0];
+    private int chunkSlots;
+    private int dimension;
+    private int model;
+    private int capacity;
+
+    VectorFile(Path path) {
+        this.path = path;
+    }
+
+    /** Maps an existing file, or does nothing if there is none yet. */
+    void open() throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_BYTES) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a vector file: " + path);
+        }
+        model = header.getInt(12);
+        int storedDimension = header.getInt(8);
+        if (storedDimension > 0) {
+            dimension = storedDimension;
+            map((int) ((Files.size(path) - HEADER_BYTES) / ((long) dimension * Float.BYTES)));
+        }
+    }
+
+    /** Vector dimension, or 0 if nothing has been written yet. */
+    int dimension() {
+        return dimension;
+    }
+
+    /** Fingerprint of the embedding model the stored vectors came from, or 0 if not recorded. */
+    int model() {
+        return model;
+    }
+
+    /** Records the embedding model of the stored vectors in the header. */
+    void model(int fingerprint) throws IOException {
+        model = fingerprint;
+        if (capacity == 0) {
+            return; // Written with the header once the first vector maps the file.
+        }
+        ByteBuffer value = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, fingerprint);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(value, 12);
+        }
+    }
+
+    /** Number of slots currently backed by the file. */
+    int capacity() {
+        return capacity;
+    }
+
+    boolean contains(int slot) {
+        return slot >= 0 && slot < capacity;
+    }
+
+    void write(int slot, float[] vector) throws IOException {
+        if (dimension == 0) {
+            dimension = vector.length;
+            map(Math.max(INITIAL_SLOTS, slot + 1));
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                "Vector dimension " + vector.length + " does not match file dimension " + dimension);
+        }
+        if (slot >= capacity) {
+            map(Math.max(capacity * 2, slot + 1));
+        }
+        chunk(slot).put(offset(slot), vector);
+    }
+
+    float[] read(int slot) {
+        float[] vector = new float[dimension];
+        chunk(slot).get(offset(slot), vector);
+        return vector;
+    }
+
+    /** Copies the vector in {@code slot} into {@code target} starting at {@code targetOffset}. */
+    void read(int slot, float[] target, int targetOffset) {
+        chunk(slot).get(offset(slot), target, targetOffset, dimension);
+    }
+
+    /** Dot product of {@code query} with the vector in {@code slot}, read straight from the mapping. */
+    double dot(int slot, float[] query) {
+        FloatBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        int dim = Math.min(dimension, query.length);
+        double sum = 0.0;
+        for (int i = 0; i < dim; i++) {
+            sum += chunk.get(base + i) * query[i];
+        }
+        return sum;
+    }
+
+    /** Dot product of the vectors in slots {@code a} and {@code b}. */
+    double dot(int a, int b) {
+        FloatBuffer chunkA = chunk(a);
+        FloatBuffer chunkB = chunk(b);
+        int baseA = offset(a);
+        int baseB = offset(b);
+        double sum = 0.0;
+        for (int i = 0; i < dimension; i++) {
+            sum += chunkA.get(baseA + i) * chunkB.get(baseB + i);
+        }
+        return sum;
+    }
+
+    /** Drops every stored vector; the next write fixes a new dimension. */
+    void reset() throws IOException {
+        chunks = new FloatBuffer[0];
+        dimension = 0;
+        model = 0;
+        capacity = 0;
+        Files.deleteIfExists(path);
+    }
+
+    private FloatBuffer chunk(int slot) {
+        return chunks[slot / chunkSlots];
+    }
+
+    private int offset(int slot) {
+        return (slot % chunkSlots) * dimension;
+    }
+
+    private void map(int slots) throws IOException {
+        Files.createDirectories(path.getParent());
+        long bytesPerSlot = (long) dimension * Float.BYTES;
+        chunkSlots = (int) Math.max(1, CHUNK_BYTES / bytesPerSlot);
+        int chunkCount = (slots + chunkSlots - 1) / chunkSlots;
+        FloatBuffer[] mapped = new FloatBuffer[chunkCount];
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, dimension);
+            header.putInt(12, model);
+            for (int c = 0; c < chunkCount; c++) {
+                int slotsInChunk = Math.min(chunkSlots, slots - c * chunkSlots);
+                long position = HEADER_BYTES + (long) c * chunkSlots * bytesPerSlot;
+                mapped[c] = channel.map(FileChannel.MapMode.READ_WRITE, position, slotsInChunk * bytesPerSlot)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+            }
+        }
+        chunks = mapped;
+        capacity = slots;
+    }
+}
@@ -0,0 +1,62 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Nearest-neighbour index over the vectors of a {@link VectorFile}, keyed by slot.
+ *
+ * <p>Vectors are normalised, so similarity is the dot product (cosine). Implementations read
+ * vectors from the file they were built over; they never copy them.
+ *
+ * <p>Not thread-safe; {@link FileMemoryStore} guards it with the store lock.
+ */
+interface VectorIndex {
+
+    /** A slot and its similarity to the query. */
+    record Match(int slot, double score) {
+    }
+
+    /**
+     * Loads any persisted state and reconciles it with {@code live}: slots that are no longer
+     * live are dropped, live slots the index does not know yet are added, and live slots whose
+     * persisted state was built for an older vector (another generation) are indexed again.
+     *
+     * @param generations generation of the vector in each live slot, indexed by slot
+     * @return the highest generation in the persisted state, so the store never reissues one
+     */
+    long open(BitSet live, long[] generations) throws IOException;
+
+    /**
+     * Indexes the vector currently stored in {@code slot}, replacing anything indexed there before.
+     * {@code generation} identifies that vector; the store never reuses one for another vector.
+     */
+    void add(int slot, long generation) throws IOException;
+
+    void remove(int slot);
+
+    /** Up to {@code k} slots most similar to {@code query}, best first. */
+    List<Match> search(float[] query, int k);
+
+    /** State captured by {@link #snapshot()}, written to disk later. */
+    @FunctionalInterface
+    interface Snapshot {
+        void write() throws IOException;
+    }
+
+    /**
+     * Captures the state worth persisting next to the store, if the implementation keeps any.
+     * Taken under the store lock; the returned snapshot is independent of later changes and is
+     * written without holding it.
+     */
+    Snapshot snapshot();
+
+    /** Persists the index next to the store right away. */
+    default void save() throws IOException {
+        snapshot().write();
+    }
+
+    /** Drops every indexed slot, in memory and on disk. */
+    void clear() throws IOException;
+}
@@ -0,0 +1,26 @@
+package io.cognis.core.memory;
+
+import java.util.Locale;
+
+/** Vector search strategy used by {@link FileMemoryStore} for the semantic part of recall. */
+public enum VectorIndexType {
+    /** Approximate search over an HNSW graph persisted next to the store. */
+    HNSW,
+    /** Brute-force scan of every stored vector. */
+    EXACT,
+    /** Brute-force scan of int8-quantized vectors, re-ranked on the float vectors. */
+    QUANTIZED;
+
+    /**
+     * Parses {@code hnsw} / {@code exact} / {@code int8} (case-insensitive; {@code quantized} is
+     * accepted for the latter); anything else falls back to {@link #HNSW}.
+     */
+    public static VectorIndexType parse(String value) {
+        String normalized = value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "exact" -> EXACT;
+            case "int8", "quantized" -> QUANTIZED;
+            default -> HNSW;
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package io.cognis.core.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dot-product kernels for exact (float32) and quantized (int8) vector scoring.
+ *
+ * <p>Uses SIMD lanes from {@code jdk.incubator.vector} when the build included the SIMD kernel
+ * ({@code -Psimd}) and the JVM was started with {@code --add-modules jdk.incubator.vector};
+ * otherwise falls back to an unrolled scalar loop. The choice is made once, when the class is
+ * initialised.
+ */
+final class VectorMath {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VectorMath.class);
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    interface Kernel {
+        /** Dot product of {@code a[offset, offset + length)} with {@code b[0, length)}. */
+        double dot(float[] a, int offset, float[] b, int length);
+
+        /** Integer dot product of {@code a[offset, offset + length)} with {@code b[0, length)}. */
+        int dot(byte[] a, int offset, byte[] b, int length);
+    }
+
+    static final Kernel SCALAR = new Kernel() {
+        @Override
+        public double dot(float[] a, int offset, float[] b, int length) {
+            return scalarDot(a, offset, b, length);
+        }
+
+        @Override
+        public int dot(byte[] a, int offset, byte[] b, int length) {
+            return scalarDot(a, offset, b, length);
+        }
+    };
+    private static final Kernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    static double dot(float[] a, int offset, float[] b, int length) {
+        return KERNEL.dot(a, offset, b, length);
+    }
+
+    static int dot(byte[] a, int offset, byte[] b, int length) {
+        return KERNEL.dot(a, offset, b, length);
+    }
+
+    /** True when the SIMD kernel is active. */
+    static boolean simd() {
+        return KERNEL != SCALAR;
+    }
+
+    static double scalarDot(float[] a, int offset, float[] b, int length) {
+        // Four independent accumulators let the JIT pipeline the multiply-adds.
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[offset + i] * b[i];
+            s1 += a[offset + i + 1] * b[i + 1];
+            s2 += a[offset + i + 2] * b[i + 2];
+            s3 += a[offset + i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[offset + i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static int scalarDot(byte[] a, int offset, byte[] b, int length) {
+        int s0 = 0;
+        int s1 = 0;
+        int s2 = 0;
+        int s3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[offset + i] * b[i];
+            s1 += a[offset + i + 1] * b[i + 1];
+            s2 += a[offset + i + 2] * b[i + 2];
+            s3 += a[offset + i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[offset + i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            LOG.debug("{} not enabled; vector scans use the scalar kernel", VECTOR_MODULE);
+            return SCALAR;
+        }
+        try {
+            // Loaded reflectively so that this class never links against the incubator module.
+            return (Kernel) Class.forName("io.cognis.core.memory.SimdDotKernel")
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (ClassNotFoundException e) {
+            LOG.info("{} enabled but this build has no SIMD kernel (build with -Psimd); using the scalar kernel",
+                VECTOR_MODULE);
+            return SCALAR;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOG.warn("SIMD dot-product kernel unavailable; using the scalar kernel", e);
+            return SCALAR;
+        }
+    }
+}
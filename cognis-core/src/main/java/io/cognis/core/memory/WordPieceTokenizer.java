@@ -0,0 +1,177 @@
+package io.cognis.core.memory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * BERT-style tokenizer for the sentence-embedding models run by {@link OnnxEmbeddingProvider}
+ * (MiniLM and friends ship a {@code vocab.txt} with one WordPiece per line).
+ *
+ * <p>Text is cleaned, optionally lower-cased and stripped of accents, split on whitespace and
+ * punctuation (CJK ideographs become single-character words), then each word is split greedily
+ * into the longest vocabulary pieces, continuation pieces carrying the {@code ##} prefix. Words
+ * that cannot be covered become {@code [UNK]}.
+ */
+final class WordPieceTokenizer {
+
+    static final String CLS = "[CLS]";
+    static final String SEP = "[SEP]";
+    static final String UNK = "[UNK]";
+    private static final int MAX_WORD_CHARS = 100;
+
+    private final Map<String, Integer> ids;
+    private final boolean lowerCase;
+    private final int clsId;
+    private final int sepId;
+    private final int unkId;
+
+    WordPieceTokenizer(List<String> vocabulary, boolean lowerCase) {
+        this.ids = new HashMap<>(vocabulary.size() * 2);
+        for (int i = 0; i < vocabulary.size(); i++) {
+            ids.putIfAbsent(vocabulary.get(i), i);
+        }
+        this.lowerCase = lowerCase;
+        this.clsId = required(CLS);
+        this.sepId = required(SEP);
+        this.unkId = required(UNK);
+    }
+
+    /** Reads a {@code vocab.txt}: one token per line, the line number being its id. */
+    static WordPieceTokenizer load(Path vocabFile, boolean lowerCase) throws IOException {
+        return new WordPieceTokenizer(Files.readAllLines(vocabFile, StandardCharsets.UTF_8).stream()
+            .map(String::strip)
+            .toList(), lowerCase);
+    }
+
+    /**
+     * Token ids of {@code text} wrapped in {@code [CLS]} … {@code [SEP]}, truncated so the whole
+     * sequence is at most {@code maxLength} ids long.
+     */
+    long[] encode(String text, int maxLength) {
+        int budget = Math.max(0, maxLength - 2);
+        List<Integer> pieces = new ArrayList<>();
+        for (String word : basicTokens(text == null ? "" : text)) {
+            if (pieces.size() >= budget) {
+                break;
+            }
+            wordPieces(word, pieces);
+        }
+        int length = Math.min(pieces.size(), budget);
+        long[] out = new long[length + 2];
+        out[0] = clsId;
+        for (int i = 0; i < length; i++) {
+            out[i + 1] = pieces.get(i);
+        }
+        out[length + 1] = sepId;
+        return out;
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    List<String> basicTokens(String text) {
+        String normalised = lowerCase
+            ? stripAccents(text.toLowerCase(Locale.ROOT))
+            : text;
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < normalised.length(); ) {
+            int cp = normalised.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp == 0 || cp == 0xFFFD || (Character.isISOControl(cp) && !Character.isWhitespace(cp))) {
+                continue;
+            }
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                flush(current, words);
+            } else if (isPunctuation(cp) || isCjk(cp)) {
+                flush(current, words);
+                words.add(new String(Character.toChars(cp)));
+            } else {
+                current.appendCodePoint(cp);
+            }
+        }
+        flush(current, words);
+        return words;
+    }
+
+    private void wordPieces(String word, List<Integer> out) {
+        if (word.length() > MAX_WORD_CHARS) {
+            out.add(unkId);
+            return;
+        }
+        int mark = out.size();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer id = null;
+            while (start < end) {
+                String piece = start > 0 ? "##" + word.substring(start, end) : word.substring(start, end);
+                id = ids.get(piece);
+                if (id != null) {
+                    break;
+                }
+                end--;
+            }
+            if (id == null) {
+                out.subList(mark, out.size()).clear();
+                out.add(unkId);
+                return;
+            }
+            out.add(id);
+            start = end;
+        }
+    }
+
+    private int required(String token) {
+        Integer id = ids.get(token);
+        if (id == null) {
+            throw new IllegalArgumentException("Vocabulary has no " + token + " token");
+        }
+        return id;
+    }
+
+    private static void flush(StringBuilder current, List<String> words) {
+        if (!current.isEmpty()) {
+            words.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private static String stripAccents(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /** ASCII symbols count as punctuation too, as in the reference BERT tokenizer. */
+    private static boolean isPunctuation(int cp) {
+        if ((cp >= 33 && cp <= 47) || (cp >= 58 && cp <= 64) || (cp >= 91 && cp <= 96) || (cp >= 123 && cp <= 126)) {
+            return true;
+        }
+        return switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION, Character.FINAL_QUOTE_PUNCTUATION,
+                 Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isCjk(int cp) {
+        return (cp >= 0x4E00 && cp <= 0x9FFF) || (cp >= 0x3400 && cp <= 0x4DBF) || (cp >= 0x20000 && cp <= 0x2A6DF)
+            || (cp >= 0x2A700 && cp <= 0x2B73F) || (cp >= 0x2B740 && cp <= 0x2B81F) || (cp >= 0x2B820 && cp <= 0x2CEAF)
+            || (cp >= 0xF900 && cp <= 0xFAFF) || (cp >= 0x2F800 && cp <= 0x2FA1F);
+    }
+}
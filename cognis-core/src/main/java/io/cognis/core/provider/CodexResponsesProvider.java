@@ -51,6 +51,18 @@ public final class CodexResponsesProvider implements LlmProvider {
 
     @Override
     public LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools) {
+        return chat(model, messages, tools, null);
+    }
+
+    /** Streams {@code output_text} deltas and function-call fragments to {@code listener} as they arrive. */
+    @Override
+    public LlmResponse chat(
+        String model,
+        List<ChatMessage> messages,
+        List<Map<String, Object>> tools,
+        LlmStreamListener listener
+    ) {
+        LlmStreamListener sink = listener == null ? delta -> { } : listener;
         if (accessToken.isBlank()) {
             return new LlmResponse("Error calling LLM: missing access token for provider " + name, List.of(), Map.of());
         }
@@ -74,9 +86,13 @@ public final class CodexResponsesProvider implements LlmProvider {
 
                 String contentType = response.header("Content-Type", "");
                 if (contentType.contains("text/event-stream")) {
-                    return parseSse(body.source());
+                    return parseSse(body.source(), sink);
                 }
-                return parseJson(body.string());
+                LlmResponse parsed = parseJson(body.string());
+                if (!parsed.content().isEmpty()) {
+                    sink.onTextDelta(parsed.content());
+                }
+                return parsed;
             }
         } catch (Exception e) {
             return new LlmResponse("Error calling LLM: " + e.getMessage(), List.of(), Map.of());
@@ -180,7 +196,7 @@ public final class CodexResponsesProvider implements LlmProvider {
         return new LlmResponse(content, List.of(), Map.of());
     }
 
-    private LlmResponse parseSse(BufferedSource source) throws IOException {
+    private LlmResponse parseSse(BufferedSource source, LlmStreamListener listener) throws IOException {
         StringBuilder content = new StringBuilder();
         Map<String, ToolCallBuffer> toolCalls = new LinkedHashMap<>();
         Map<String, Object> usage = Map.of();
@@ -202,7 +218,11 @@ public final class CodexResponsesProvider implements LlmProvider {
             String type = event.path("type").asText("");
 
             if (type.contains("output_text.delta")) {
-                content.append(event.path("delta").asText(""));
+                String delta = event.path("delta").asText("");
+                if (!delta.isEmpty()) {
+                    content.append(delta);
+                    listener.onTextDelta(delta);
+                }
             }
 
             if ("response.output_item.added".equals(type)) {
@@ -215,13 +235,18 @@ public final class CodexResponsesProvider implements LlmProvider {
                     if (!args.isBlank()) {
                         buffer.arguments.append(args);
                     }
+                    listener.onToolCallDelta(callId, buffer.name, args);
                 }
             }
 
             if (type.contains("function_call_arguments.delta")) {
                 String callId = event.path("call_id").asText("");
                 ToolCallBuffer buffer = toolCalls.computeIfAbsent(callId, key -> new ToolCallBuffer());
-                buffer.arguments.append(event.path("delta").asText(""));
+                String delta = event.path("delta").asText("");
+                if (!delta.isEmpty()) {
+                    buffer.arguments.append(delta);
+                    listener.onToolCallDelta(callId, "", delta);
+                }
             }
 
             if (event.has("usage")) {
@@ -23,13 +23,32 @@ public final class FallbackLlmProvider implements LlmProvider {
 
     @Override
     public LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools) {
+        return chat(model, messages, tools, null);
+    }
+
+    /**
+     * Streams from whichever provider serves the request. A provider that fails after streaming
+     * part of its reply has that part withdrawn ({@link LlmStreamListener#onDiscard}) before the
+     * next provider is tried, so the listener never sees two replies run together.
+     */
+    @Override
+    public LlmResponse chat(
+        String model,
+        List<ChatMessage> messages,
+        List<Map<String, Object>> tools,
+        LlmStreamListener listener
+    ) {
         LlmResponse last = new LlmResponse("Error calling LLM: no providers in fallback chain", List.of(), Map.of());
+        TrackingListener tracking = listener == null ? null : new TrackingListener(listener);
         for (LlmProvider provider : chain) {
-            last = provider.chat(model, messages, tools);
+            last = tracking == null ? provider.chat(model, messages, tools) : provider.chat(model, messages, tools, tracking);
             if (!isError(last)) {
                 LOG.debug("Provider {} served request for chain {}", provider.name(), name);
                 return last;
             }
+            if (tracking != null && tracking.reported) {
+                tracking.onDiscard();
+            }
             LOG.warn(
                 "Provider {} failed in chain {}: {}",
                 provider.name(),
@@ -40,6 +59,34 @@ public final class FallbackLlmProvider implements LlmProvider {
         return last;
     }
 
+    /** Remembers whether the current provider has reported anything since the last discard. */
+    private static final class TrackingListener implements LlmStreamListener {
+        private final LlmStreamListener delegate;
+        private boolean reported;
+
+        TrackingListener(LlmStreamListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onTextDelta(String delta) {
+            reported = true;
+            delegate.onTextDelta(delta);
+        }
+
+        @Override
+        public void onToolCallDelta(String callId, String name, String argumentsDelta) {
+            reported = true;
+            delegate.onToolCallDelta(callId, name, argumentsDelta);
+        }
+
+        @Override
+        public void onDiscard() {
+            reported = false;
+            delegate.onDiscard();
+        }
+    }
+
     private boolean isError(LlmResponse response) {
         String content = response.content();
         return content != null && content.startsWith("Error calling LLM:");
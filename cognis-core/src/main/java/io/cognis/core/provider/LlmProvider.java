@@ -8,4 +8,23 @@ public interface LlmProvider {
     String name();
 
     LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools);
+
+    /**
+     * Like {@link #chat(String, List, List)}, reporting the reply to {@code listener} as it
+     * arrives. Providers that cannot stream report the whole text once the reply is complete.
+     * Error replies are returned but not reported.
+     */
+    default LlmResponse chat(
+        String model,
+        List<ChatMessage> messages,
+        List<Map<String, Object>> tools,
+        LlmStreamListener listener
+    ) {
+        LlmResponse response = chat(model, messages, tools);
+        String content = response.content();
+        if (listener != null && content != null && !content.isEmpty() && !content.startsWith("Error calling LLM:")) {
+            listener.onTextDelta(content);
+        }
+        return response;
+    }
 }
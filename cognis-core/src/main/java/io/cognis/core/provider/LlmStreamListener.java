@@ -0,0 +1,25 @@
+package io.cognis.core.provider;
+
+/**
+ * Receives a model reply while it is generated. Called on the thread running the request, in
+ * the order the provider produced the pieces; the complete reply is still returned by
+ * {@link LlmProvider#chat}.
+ */
+public interface LlmStreamListener {
+    /** The next piece of the reply text. */
+    void onTextDelta(String delta);
+
+    /**
+     * The next piece of a tool call: {@code name} once known (else empty), and the next fragment
+     * of its JSON arguments (possibly empty).
+     */
+    default void onToolCallDelta(String callId, String name, String argumentsDelta) {
+    }
+
+    /**
+     * Everything reported so far is withdrawn: the provider that produced it failed and the reply
+     * is requested again (e.g. from the next provider of a {@link FallbackLlmProvider}).
+     */
+    default void onDiscard() {
+    }
+}
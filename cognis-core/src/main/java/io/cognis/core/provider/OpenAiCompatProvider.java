@@ -69,10 +69,27 @@ public final class OpenAiCompatProvider implements LlmProvider {
 
     @Override
     public LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools) {
+        return chat(model, messages, tools, null);
+    }
+
+    /**
+     * Requests a streamed completion and reports each content delta and tool-call fragment as its
+     * SSE event arrives. Once something has been reported to {@code listener}, a failure is
+     * returned rather than retried, so the listener never sees a reply twice; without a listener
+     * failures are retried as usual.
+     */
+    @Override
+    public LlmResponse chat(
+        String model,
+        List<ChatMessage> messages,
+        List<Map<String, Object>> tools,
+        LlmStreamListener listener
+    ) {
         if (apiKey.isBlank()) {
             return new LlmResponse("Error calling LLM: missing API key for provider " + name, List.of(), Map.of());
         }
 
+        ReportingListener reporting = new ReportingListener(listener);
         long delayMs = 250;
         for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
@@ -100,12 +117,16 @@ public final class OpenAiCompatProvider implements LlmProvider {
 
                     String contentType = response.header("Content-Type", "");
                     if (contentType.contains("text/event-stream")) {
-                        return parseSse(body.source());
+                        return parseSse(body.source(), reporting);
+                    }
+                    LlmResponse parsed = parseJson(body.string());
+                    if (!parsed.content().isEmpty()) {
+                        reporting.onTextDelta(parsed.content());
                     }
-                    return parseJson(body.string());
+                    return parsed;
                 }
             } catch (IOException ioe) {
-                if (attempt < maxAttempts) {
+                if (attempt < maxAttempts && !reporting.reported) {
                     sleep(delayMs);
                     delayMs = Math.min(delayMs * 2, 2000);
                     continue;
@@ -211,7 +232,7 @@ public final class OpenAiCompatProvider implements LlmProvider {
         return new LlmResponse(content, toolCalls, usage);
     }
 
-    private LlmResponse parseSse(BufferedSource source) throws IOException {
+    private LlmResponse parseSse(BufferedSource source, LlmStreamListener listener) throws IOException {
         StringBuilder content = new StringBuilder();
         Map<String, ToolCallBuffer> toolBuffers = new LinkedHashMap<>();
         Map<Integer, String> toolIdsByIndex = new LinkedHashMap<>();
@@ -239,9 +260,13 @@ public final class OpenAiCompatProvider implements LlmProvider {
             for (JsonNode choice : event.path("choices")) {
                 JsonNode delta = choice.path("delta");
                 if (delta.has("content") && !delta.path("content").isNull()) {
-                    content.append(delta.path("content").asText(""));
+                    String text = delta.path("content").asText("");
+                    if (!text.isEmpty()) {
+                        content.append(text);
+                        listener.onTextDelta(text);
+                    }
                 }
-                collectToolCalls(delta.path("tool_calls"), toolBuffers, toolIdsByIndex);
+                collectToolCalls(delta.path("tool_calls"), toolBuffers, toolIdsByIndex, listener);
             }
         }
 
@@ -281,7 +306,8 @@ public final class OpenAiCompatProvider implements LlmProvider {
     private void collectToolCalls(
         JsonNode toolCallsNode,
         Map<String, ToolCallBuffer> buffers,
-        Map<Integer, String> toolIdsByIndex
+        Map<Integer, String> toolIdsByIndex,
+        LlmStreamListener listener
     ) {
         if (toolCallsNode == null || !toolCallsNode.isArray()) {
             return;
@@ -302,18 +328,23 @@ public final class OpenAiCompatProvider implements LlmProvider {
 
             ToolCallBuffer buffer = buffers.computeIfAbsent(id, ignored -> new ToolCallBuffer());
             JsonNode function = toolCall.path("function");
+            String name = "";
             if (function.has("name")) {
-                String name = function.path("name").asText("");
+                name = function.path("name").asText("");
                 if (!name.isBlank()) {
                     buffer.name = name;
                 }
             }
+            String argChunk = "";
             if (function.has("arguments")) {
-                String argChunk = function.path("arguments").asText("");
+                argChunk = function.path("arguments").asText("");
                 if (!argChunk.isEmpty()) {
                     buffer.arguments.append(argChunk);
                 }
             }
+            if (!name.isBlank() || !argChunk.isEmpty()) {
+                listener.onToolCallDelta(id, name, argChunk);
+            }
         }
     }
 
@@ -342,6 +373,32 @@ public final class OpenAiCompatProvider implements LlmProvider {
         private final StringBuilder arguments = new StringBuilder();
     }
 
+    /** Forwards to the caller's listener, if any, and remembers whether anything was reported. */
+    private static final class ReportingListener implements LlmStreamListener {
+        private final LlmStreamListener delegate;
+        private boolean reported;
+
+        ReportingListener(LlmStreamListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onTextDelta(String delta) {
+            if (delegate != null) {
+                reported = true;
+                delegate.onTextDelta(delta);
+            }
+        }
+
+        @Override
+        public void onToolCallDelta(String callId, String name, String argumentsDelta) {
+            if (delegate != null) {
+                reported = true;
+                delegate.onToolCallDelta(callId, name, argumentsDelta);
+            }
+        }
+    }
+
     private void sleep(long delayMs) {
         try {
             Thread.sleep(delayMs);
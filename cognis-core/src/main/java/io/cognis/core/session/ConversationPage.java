@@ -0,0 +1,16 @@
+package io.cognis.core.session;
+
+import java.util.List;
+
+/**
+ * One page of a listing. Pass {@code nextCursor} back to get the following page; it is
+ * {@code null} on the last page. Cursors are opaque and only valid for the store that issued them.
+ */
+public record ConversationPage<T>(
+    List<T> items,
+    String nextCursor
+) {
+    public ConversationPage {
+        items = items == null ? List.of() : List.copyOf(items);
+    }
+}
@@ -0,0 +1,11 @@
+package io.cognis.core.session;
+
+import java.time.Instant;
+
+/** Metadata of one conversation session, read without loading its turns. */
+public record ConversationSession(
+    String id,
+    int turns,
+    Instant lastUpdated
+) {
+}
@@ -1,10 +1,67 @@
 package io.cognis.core.session;
 
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
 
 public interface ConversationStore {
+    /** Session of turns appended without one, and of callers that do not track sessions. */
+    String DEFAULT_SESSION = "default";
+
     void append(ConversationTurn turn) throws IOException;
 
+    /**
+     * Appends a turn to {@code sessionId}'s history. Stores without sessions ignore the id.
+     */
+    default void append(String sessionId, ConversationTurn turn) throws IOException {
+        append(turn);
+    }
+
+    /** Every stored turn with its full transcript; prefer the paged reads below. */
     List<ConversationTurn> list() throws IOException;
+
+    /**
+     * The last {@code n} turns of {@code sessionId}, oldest first. Stores without sessions return
+     * the last {@code n} turns overall.
+     */
+    default List<ConversationTurn> recentTurns(String sessionId, int n) throws IOException {
+        return turns(sessionId, null, n).items();
+    }
+
+    /** The newest {@code n} turns across every session, oldest first. */
+    default List<ConversationTurn> latestTurns(int n) throws IOException {
+        List<ConversationTurn> all = list().stream().sorted(Comparator.comparing(ConversationTurn::createdAt)).toList();
+        return all.subList(Math.max(0, all.size() - Math.max(0, n)), all.size());
+    }
+
+    /**
+     * A page of {@code sessionId}'s turns. Pages run backwards from the newest turn (a
+     * {@code null} cursor); the turns within a page are oldest first.
+     *
+     * @throws IllegalArgumentException if {@code cursor} was not issued by this store
+     */
+    default ConversationPage<ConversationTurn> turns(String sessionId, String cursor, int limit) throws IOException {
+        List<ConversationTurn> all = list();
+        int end = cursor == null ? all.size() : Math.min(all.size(), parseCursor(cursor));
+        int from = Math.max(0, end - Math.max(0, limit));
+        return new ConversationPage<>(all.subList(from, end), from > 0 ? Integer.toString(from) : null);
+    }
+
+    /** A page of session metadata ordered by session id, without reading any transcript. */
+    default ConversationPage<ConversationSession> sessions(String cursor, int limit) throws IOException {
+        List<ConversationTurn> all = list();
+        if (cursor != null || all.isEmpty() || limit <= 0) {
+            return new ConversationPage<>(List.of(), null);
+        }
+        return new ConversationPage<>(List.of(
+            new ConversationSession(DEFAULT_SESSION, all.size(), all.getLast().createdAt())), null);
+    }
+
+    private static int parseCursor(String cursor) {
+        try {
+            return Math.max(0, Integer.parseInt(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid conversation cursor: " + cursor, e);
+        }
+    }
 }
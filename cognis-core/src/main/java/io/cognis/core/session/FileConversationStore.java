@@ -1,43 +1,527 @@
 package io.cognis.core.session;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.cognis.core.model.ChatMessage;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * File-backed {@link ConversationStore} keeping one append-only log per session.
+ *
+ * <p>For a store at {@code memory/history.json}, session {@code s} lives in
+ * {@code memory/history/<s>.ndjson} (one JSON turn per line) with {@code <s>.idx} next to it: the
+ * byte offset of every line as an 8-byte big-endian long. Appending writes one line and one index
+ * entry, so its cost does not grow with the history; {@link #recentTurns} and {@link #turns} look
+ * up the offsets of the turns they need in the index and read only that range of the log.
+ *
+ * <p>Each session has its own lock, so sessions append in parallel. When a session is first
+ * touched its log is checked: a torn last line (crash mid-append) is cut off, and the index is
+ * rebuilt if it is missing or does not match the log. With a {@code maxTurnsPerSession} cap, a
+ * session that has grown a quarter past the cap is compacted to its last {@code maxTurnsPerSession}
+ * turns.
+ *
+ * <p>Transcripts are stored deflated by {@link TranscriptCodec}, with repeated system-prompt
+ * paragraphs kept once in {@code memory/history/blocks/<sha-256>}. A session log written before
+ * that (plain JSON transcripts) is re-encoded when the session is first touched, and a history
+ * file of the previous single-document format found at {@code path} is imported into
+ * {@link #DEFAULT_SESSION} on first use and renamed to {@code history.json.migrated}.
+ */
 public final class FileConversationStore implements ConversationStore {
+    private static final Logger LOG = LoggerFactory.getLogger(FileConversationStore.class);
+    private static final String LOG_SUFFIX = ".ndjson";
+    private static final String INDEX_SUFFIX = ".idx";
+
     private final Path path;
+    private final Path sessionsDir;
+    private final int maxTurnsPerSession;
     private final ObjectMapper mapper;
+    private final TranscriptCodec codec;
+    private final TranscriptCodec.BlockStore blocks;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private volatile boolean migrated;
 
     public FileConversationStore(Path path) {
+        this(path, 0);
+    }
+
+    /**
+     * @param path               legacy single-file location; session logs live in a directory
+     *                           next to it named after the file without its extension
+     * @param maxTurnsPerSession turns kept per session by compaction, or 0 to keep everything
+     */
+    public FileConversationStore(Path path, int maxTurnsPerSession) {
         this.path = path;
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.sessionsDir = path.resolveSibling(dot > 0 ? name.substring(0, dot) : name + ".d");
+        this.maxTurnsPerSession = Math.max(0, maxTurnsPerSession);
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
+        this.codec = new TranscriptCodec(mapper);
+        this.blocks = new FileBlockStore(sessionsDir.resolve("blocks"));
+    }
+
+    @Override
+    public void append(ConversationTurn turn) throws IOException {
+        append(DEFAULT_SESSION, turn);
+    }
+
+    @Override
+    public void append(String sessionId, ConversationTurn turn) throws IOException {
+        migrateLegacy();
+        byte[] line = line(turn);
+        Session session = session(sessionId);
+        synchronized (session) {
+            session.open();
+            long offset = session.logSize;
+            try (FileChannel log = FileChannel.open(session.log,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writeFully(log, ByteBuffer.wrap(line));
+            }
+            try (FileChannel index = FileChannel.open(session.index,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writeFully(index, ByteBuffer.allocate(Long.BYTES).putLong(0, offset));
+            }
+            session.logSize += line.length;
+            session.turns++;
+            if (maxTurnsPerSession > 0 && session.turns > maxTurnsPerSession + maxTurnsPerSession / 4) {
+                session.compact(maxTurnsPerSession);
+            }
+        }
     }
 
+    /** Every turn of every session, ordered by creation time. */
     @Override
-    public synchronized void append(ConversationTurn turn) throws IOException {
-        List<ConversationTurn> existing = new ArrayList<>(list());
-        existing.add(turn);
-        save(existing);
+    public List<ConversationTurn> list() throws IOException {
+        migrateLegacy();
+        List<ConversationTurn> turns = new ArrayList<>();
+        for (String sessionId : sessionIds()) {
+            Session session = session(sessionId);
+            synchronized (session) {
+                session.open();
+                turns.addAll(session.read(0, session.turns));
+            }
+        }
+        turns.sort(Comparator.comparing(ConversationTurn::createdAt));
+        return turns;
     }
 
+    /** Merges the last {@code n} turns of each session, read from the tail of its log. */
     @Override
-    public synchronized List<ConversationTurn> list() throws IOException {
-        if (!Files.exists(path)) {
+    public List<ConversationTurn> latestTurns(int n) throws IOException {
+        migrateLegacy();
+        if (n <= 0) {
             return List.of();
         }
-        return mapper.readValue(Files.readString(path), new TypeReference<List<ConversationTurn>>() {
-        });
+        List<ConversationTurn> turns = new ArrayList<>();
+        for (String sessionId : sessionIds()) {
+            Session session = session(sessionId);
+            synchronized (session) {
+                session.open();
+                if (session.turns > 0) {
+                    turns.addAll(session.read(Math.max(0, session.turns - n), session.turns));
+                }
+            }
+        }
+        turns.sort(Comparator.comparing(ConversationTurn::createdAt));
+        return turns.subList(Math.max(0, turns.size() - n), turns.size());
+    }
+
+    /**
+     * Reads only the requested turns: their offsets come from the index, so a page costs the size
+     * of the page, not of the session. The cursor is the position of the oldest turn returned and
+     * is invalidated by compaction.
+     */
+    @Override
+    public ConversationPage<ConversationTurn> turns(String sessionId, String cursor, int limit) throws IOException {
+        migrateLegacy();
+        Session session = session(sessionId);
+        synchronized (session) {
+            session.open();
+            int end = cursor == null ? session.turns : Math.min(session.turns, parsePosition(cursor));
+            int from = Math.max(0, end - Math.max(0, limit));
+            List<ConversationTurn> turns = from == end ? List.of() : session.read(from, end);
+            return new ConversationPage<>(turns, from > 0 ? Integer.toString(from) : null);
+        }
+    }
+
+    /** Turn counts come from the index size; the last update is the time of each session's last turn. */
+    @Override
+    public ConversationPage<ConversationSession> sessions(String cursor, int limit) throws IOException {
+        migrateLegacy();
+        List<String> ids = sessionIds().stream()
+            .filter(id -> cursor == null || id.compareTo(cursor) > 0)
+            .toList();
+        List<ConversationSession> page = new ArrayList<>();
+        for (String id : ids.subList(0, Math.min(ids.size(), Math.max(0, limit)))) {
+            Session session = session(id);
+            synchronized (session) {
+                session.open();
+                if (session.turns > 0) {
+                    Instant lastUpdated = session.readStored(session.turns - 1, session.turns).getFirst().createdAt();
+                    page.add(new ConversationSession(id, session.turns, lastUpdated));
+                }
+            }
+        }
+        String next = limit > 0 && ids.size() > limit ? ids.get(limit - 1) : null;
+        return new ConversationPage<>(page, next);
+    }
+
+    /** Ids of all sessions with a log on disk. */
+    public List<String> sessionIds() throws IOException {
+        if (!Files.isDirectory(sessionsDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(sessionsDir)) {
+            return files.map(file -> file.getFileName().toString())
+                .filter(name -> name.endsWith(LOG_SUFFIX))
+                .map(name -> decode(name.substring(0, name.length() - LOG_SUFFIX.length())))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private Session session(String sessionId) {
+        String id = sessionId == null || sessionId.isBlank() ? DEFAULT_SESSION : sessionId;
+        return sessions.computeIfAbsent(id, key -> new Session(
+            sessionsDir.resolve(encode(key) + LOG_SUFFIX),
+            sessionsDir.resolve(encode(key) + INDEX_SUFFIX)));
+    }
+
+    /**
+     * Imports a single-document history file into the default session, once. The session log with
+     * the imported turns is staged next to the log first; renaming the history file to
+     * {@code .migrated} commits the import, and only then is the staged log moved into place. A
+     * restart before the rename stages again from scratch; one after it just finishes the move.
+     */
+    private void migrateLegacy() throws IOException {
+        if (migrated) {
+            return;
+        }
+        synchronized (this) {
+            if (migrated) {
+                return;
+            }
+            Session session = session(DEFAULT_SESSION);
+            Path staged = session.log.resolveSibling(session.log.getFileName() + ".import");
+            if (Files.isRegularFile(path)) {
+                List<ConversationTurn> legacy = mapper.readValue(Files.readString(path),
+                    new TypeReference<List<ConversationTurn>>() {
+                    });
+                synchronized (session) {
+                    session.open();
+                    try (OutputStream out = Files.newOutputStream(staged, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        if (Files.exists(session.log)) {
+                            Files.copy(session.log, out);
+                        }
+                        for (ConversationTurn turn : legacy) {
+                            out.write(line(turn));
+                        }
+                    }
+                }
+                Files.move(path, path.resolveSibling(path.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                LOG.info("Migrated {} conversation turns from {} to {}", legacy.size(), path, sessionsDir);
+            }
+            if (Files.exists(staged)) {
+                synchronized (session) {
+                    Files.deleteIfExists(session.index);
+                    Files.move(staged, session.log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    session.reopen();
+                }
+            }
+            migrated = true;
+        }
+    }
+
+    /** One log line: the turn with its transcript encoded by {@link TranscriptCodec}. */
+    private byte[] line(ConversationTurn turn) throws IOException {
+        StoredTurn stored = new StoredTurn(turn.createdAt(), turn.prompt(), turn.response(),
+            codec.encode(turn.transcript(), blocks), null);
+        return (mapper.writeValueAsString(stored) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ConversationTurn decode(StoredTurn stored) throws IOException {
+        List<ChatMessage> transcript = stored.body() != null
+            ? codec.decode(stored.body(), blocks)
+            : stored.transcript();
+        return new ConversationTurn(stored.createdAt(), stored.prompt(), stored.response(), transcript);
+    }
+
+    private static int parsePosition(String cursor) {
+        try {
+            return Math.max(0, Integer.parseInt(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid conversation cursor: " + cursor, e);
+        }
+    }
+
+    /** Letters, digits, {@code -} and {@code _} are kept; anything else becomes {@code ~xxxx}. */
+    static String encode(String sessionId) {
+        StringBuilder out = new StringBuilder(sessionId.length() + 8);
+        for (int i = 0; i < sessionId.length(); i++) {
+            char c = sessionId.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                out.append(c);
+            } else {
+                out.append('~').append(String.format("%04x", (int) c));
+            }
+        }
+        return out.toString();
+    }
+
+    static String decode(String encoded) {
+        StringBuilder out = new StringBuilder(encoded.length());
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (c == '~' && i + 5 <= encoded.length()) {
+                out.append((char) Integer.parseInt(encoded, i + 1, i + 5, 16));
+                i += 4;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
     }
 
-    private void save(List<ConversationTurn> turns) throws IOException {
-        Files.createDirectories(path.getParent());
-        String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(turns);
-        Files.writeString(path, json + System.lineSeparator());
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** One session's log and index. All access is synchronized on the instance. */
+    private final class Session {
+        private final Path log;
+        private final Path index;
+        private boolean opened;
+        private long logSize;
+        private int turns;
+
+        Session(Path log, Path index) {
+            this.log = log;
+            this.index = index;
+        }
+
+        /** Validates the log and index on first use, repairing them if a write was interrupted. */
+        void open() throws IOException {
+            if (opened) {
+                return;
+            }
+            Files.createDirectories(log.getParent());
+            logSize = Files.exists(log) ? Files.size(log) : 0;
+            long end = lastLineEnd();
+            if (end < logSize) {
+                LOG.warn("Dropping {} bytes of an interrupted write at the end of {}", logSize - end, log);
+                try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+                logSize = end;
+            }
+            if (!indexMatchesLog()) {
+                rebuildIndex();
+            }
+            turns = (int) (Files.exists(index) ? Files.size(index) / Long.BYTES : 0);
+            opened = true;
+            // Logs written before transcripts were encoded start with a plain-JSON turn.
+            if (turns > 0 && readStored(0, 1).getFirst().body() == null) {
+                reencode();
+            }
+        }
+
+        void reopen() throws IOException {
+            opened = false;
+            open();
+        }
+
+        long offsetOf(int turn) throws IOException {
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+                channel.read(buffer, (long) turn * Long.BYTES);
+                return buffer.getLong(0);
+            }
+        }
+
+        /** Turns {@code from} (inclusive) to {@code end} (exclusive), read from their byte range only. */
+        List<ConversationTurn> read(int from, int end) throws IOException {
+            List<ConversationTurn> out = new ArrayList<>(end - from);
+            for (StoredTurn stored : readStored(from, end)) {
+                out.add(decode(stored));
+            }
+            return out;
+        }
+
+        List<StoredTurn> readStored(int from, int end) throws IOException {
+            long start = offsetOf(from);
+            long stop = end >= turns ? logSize : offsetOf(end);
+            byte[] bytes;
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) (stop - start));
+                while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                    // read the whole range
+                }
+                bytes = buffer.array();
+            }
+            List<StoredTurn> out = new ArrayList<>(end - from);
+            int lineStart = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    if (i > lineStart) {
+                        out.add(mapper.readValue(bytes, lineStart, i - lineStart, StoredTurn.class));
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            return out;
+        }
+
+        /** Rewrites the session to its last {@code keep} turns: index removed first, rebuilt last. */
+        void compact(int keep) throws IOException {
+            long from = offsetOf(turns - keep);
+            Path tmp = log.resolveSibling(log.getFileName() + ".tmp");
+            try (FileChannel source = FileChannel.open(log, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = from;
+                while (position < logSize) {
+                    position += source.transferTo(position, logSize - position, target);
+                }
+            }
+            Files.deleteIfExists(index);
+            Files.move(tmp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            reopen();
+        }
+
+        /** Rewrites every turn of the log in the current encoding: index removed first, rebuilt last. */
+        private void reencode() throws IOException {
+            Path tmp = log.resolveSibling(log.getFileName() + ".tmp");
+            long before = logSize;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                for (ConversationTurn turn : read(0, turns)) {
+                    out.write(line(turn));
+                }
+            }
+            Files.deleteIfExists(index);
+            Files.move(tmp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            reopen();
+            LOG.info("Re-encoded {} conversation turns in {} ({} -> {} bytes)", turns, log, before, logSize);
+        }
+
+        private long lastLineEnd() throws IOException {
+            return lastNewlineBefore(logSize) + 1;
+        }
+
+        /** The last indexed offset must be the start of the last line of the log. */
+        private boolean indexMatchesLog() throws IOException {
+            long indexSize = Files.exists(index) ? Files.size(index) : 0;
+            if (indexSize % Long.BYTES != 0 || (indexSize == 0) != (logSize == 0)) {
+                return false;
+            }
+            if (indexSize == 0) {
+                return true;
+            }
+            long last = offsetOf((int) (indexSize / Long.BYTES) - 1);
+            return last == lastNewlineBefore(logSize - 1) + 1;
+        }
+
+        /** Position of the last {@code '\n'} before {@code end}, or -1; scans backwards a block at a time. */
+        private long lastNewlineBefore(long end) throws IOException {
+            if (end <= 0) {
+                return -1;
+            }
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+                ByteBuffer block = ByteBuffer.allocate(8192);
+                for (long blockEnd = end; blockEnd > 0; ) {
+                    long blockStart = Math.max(0, blockEnd - block.capacity());
+                    block.clear().limit((int) (blockEnd - blockStart));
+                    while (block.hasRemaining() && channel.read(block, blockStart + block.position()) >= 0) {
+                        // fill the block
+                    }
+                    for (int i = (int) (blockEnd - blockStart) - 1; i >= 0; i--) {
+                        if (block.get(i) == '\n') {
+                            return blockStart + i;
+                        }
+                    }
+                    blockEnd = blockStart;
+                }
+            }
+            return -1;
+        }
+
+        private void rebuildIndex() throws IOException {
+            List<Long> offsets = new ArrayList<>();
+            if (logSize > 0) {
+                byte[] bytes = Files.readAllBytes(log);
+                long start = 0;
+                for (int i = 0; i < logSize; i++) {
+                    if (bytes[i] == '\n') {
+                        if (i > start) {
+                            offsets.add(start);
+                        }
+                        start = i + 1L;
+                    }
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(offsets.size() * Long.BYTES);
+            offsets.forEach(buffer::putLong);
+            buffer.flip();
+            Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, buffer);
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record StoredTurn(
+        Instant createdAt,
+        String prompt,
+        String response,
+        byte[] body,
+        List<ChatMessage> transcript
+    ) {
+    }
+
+    /** One file per block, named by its hash; written once and never changed. */
+    private record FileBlockStore(Path dir) implements TranscriptCodec.BlockStore {
+        @Override
+        public String get(String hash) throws IOException {
+            Path file = dir.resolve(hash);
+            return Files.exists(file) ? Files.readString(file, StandardCharsets.UTF_8) : null;
+        }
+
+        @Override
+        public void put(String hash, String content) throws IOException {
+            Path file = dir.resolve(hash);
+            if (Files.exists(file)) {
+                return;
+            }
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, hash, ".tmp");
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
     }
 }
@@ -4,38 +4,250 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rolling per-session summaries of recent turns, one text file per session.
+ *
+ * <p>The {@link ConversationStore#DEFAULT_SESSION default} session lives at {@code summaryPath};
+ * other sessions live beside it, for {@code memory/session-summary.txt} in
+ * {@code memory/session-summary/<session>.txt}.
+ *
+ * <p>Summaries are kept in a bounded LRU cache, so building the system prompt for a session seen
+ * recently never reads the disk. A turn appends its snippet to the cached text and trims the
+ * oldest characters past {@code maxChars}; nothing already summarized is re-read or rebuilt.
+ * Changed summaries are written behind: a flusher writes every session changed within a
+ * {@code flushDelay} window once, and sessions that did not change are never rewritten. A crash
+ * loses at most the last window. Only clean summaries are evicted, so a pending change is never
+ * dropped. With a zero delay, and after {@link #close}, every turn is written through.
+ */
+public final class FileSessionSummaryManager implements SessionSummaryManager, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(FileSessionSummaryManager.class);
+    public static final Duration DEFAULT_FLUSH_DELAY = Duration.ofSeconds(2);
+    public static final int DEFAULT_CACHED_SESSIONS = 1_024;
 
-public final class FileSessionSummaryManager implements SessionSummaryManager {
     private final Path summaryPath;
+    private final Path sessionsDir;
     private final int maxChars;
+    private final int maxCachedSessions;
+    private final long flushDelayMillis;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    /** Guards {@link #cache} and every {@link Summary}; a lock rather than a monitor so virtual threads do not pin on a miss. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Serializes flushes, so an older snapshot of a summary never overwrites a newer one. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Map<String, Summary> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private volatile boolean closed;
 
     public FileSessionSummaryManager(Path summaryPath, int maxChars) {
+        this(summaryPath, maxChars, DEFAULT_FLUSH_DELAY, DEFAULT_CACHED_SESSIONS);
+    }
+
+    /**
+     * @param flushDelay        write-behind window; zero writes every turn through
+     * @param maxCachedSessions summaries kept in memory, not counting ones waiting to be written
+     */
+    public FileSessionSummaryManager(Path summaryPath, int maxChars, Duration flushDelay, int maxCachedSessions) {
         this.summaryPath = summaryPath;
+        String fileName = summaryPath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        this.sessionsDir = summaryPath.resolveSibling(dot > 0 ? fileName.substring(0, dot) : fileName + ".d");
         this.maxChars = Math.max(64, maxChars);
+        this.maxCachedSessions = Math.max(1, maxCachedSessions);
+        this.flushDelayMillis = Math.max(0, flushDelay.toMillis());
+        this.flusher = flushDelayMillis == 0 ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-summary-flush");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void recordTurn(String prompt, String response) throws IOException {
+        recordTurn(ConversationStore.DEFAULT_SESSION, prompt, response);
     }
 
     @Override
-    public synchronized void recordTurn(String prompt, String response) throws IOException {
-        String current = currentSummary();
-        String snippet = "User: " + shrink(prompt) + " | Assistant: " + shrink(response);
-        String merged = current.isBlank() ? snippet : current + "\n" + snippet;
-        if (merged.length() > maxChars) {
-            merged = merged.substring(merged.length() - maxChars);
+    public String currentSummary() throws IOException {
+        return currentSummary(ConversationStore.DEFAULT_SESSION);
+    }
+
+    @Override
+    public void recordTurn(String sessionId, String prompt, String response) throws IOException {
+        String shrunkPrompt = shrink(prompt);
+        String shrunkResponse = shrink(response);
+        if (shrunkPrompt.isEmpty() && shrunkResponse.isEmpty()) {
+            return;
+        }
+        String snippet = "User: " + shrunkPrompt + " | Assistant: " + shrunkResponse;
+        String session = normalize(sessionId);
+        lock.lock();
+        try {
+            Summary summary = load(session);
+            StringBuilder text = summary.text;
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+            text.append(snippet);
+            if (text.length() > maxChars) {
+                text.delete(0, text.length() - maxChars);
+            }
+            summary.rendered = null;
+            summary.version++;
+        } finally {
+            lock.unlock();
+        }
+        if (flusher == null || closed) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::scheduledFlush, flushDelayMillis, TimeUnit.MILLISECONDS);
         }
-        save(merged);
     }
 
     @Override
-    public synchronized String currentSummary() throws IOException {
-        if (!Files.exists(summaryPath)) {
-            return "";
+    public String currentSummary(String sessionId) throws IOException {
+        lock.lock();
+        try {
+            Summary summary = load(normalize(sessionId));
+            if (summary.rendered == null) {
+                summary.rendered = summary.text.toString().trim();
+            }
+            return summary.rendered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes every summary changed since its last write now. Called by the flusher and by {@link #close}. */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            List<Snapshot> dirty = new ArrayList<>();
+            lock.lock();
+            try {
+                cache.forEach((session, summary) -> {
+                    if (summary.version != summary.flushedVersion) {
+                        dirty.add(new Snapshot(session, summary, summary.text.toString(), summary.version));
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+            IOException failure = null;
+            for (Snapshot snapshot : dirty) {
+                try {
+                    write(path(snapshot.session()), snapshot.text());
+                    lock.lock();
+                    try {
+                        snapshot.summary().flushedVersion = snapshot.version();
+                    } finally {
+                        lock.unlock();
+                    }
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            lock.lock();
+            try {
+                evictClean(null);
+            } finally {
+                lock.unlock();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Stops the flusher and writes pending summaries; later turns are written through. */
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.warn("Final session summary flush failed: {}", e.getMessage());
         }
-        return Files.readString(summaryPath, StandardCharsets.UTF_8).trim();
     }
 
-    private void save(String summary) throws IOException {
-        Files.createDirectories(summaryPath.getParent());
-        Files.writeString(summaryPath, summary + System.lineSeparator(), StandardCharsets.UTF_8);
+    private void scheduledFlush() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Session summary flush failed; retrying in {} ms: {}", flushDelayMillis, e.getMessage());
+            if (!flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+                flusher.schedule(this::scheduledFlush, flushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** The cached summary of {@code session}, read from disk on a miss. Caller holds {@link #lock}. */
+    private Summary load(String session) throws IOException {
+        Summary summary = cache.get(session);
+        if (summary != null) {
+            return summary;
+        }
+        Path path = path(session);
+        String text = Files.exists(path) ? Files.readString(path, StandardCharsets.UTF_8).trim() : "";
+        summary = new Summary(text);
+        cache.put(session, summary);
+        evictClean(summary);
+        return summary;
+    }
+
+    /**
+     * Drops least recently used summaries with nothing pending, other than {@code keep}, until the
+     * cache fits. Caller holds {@link #lock}.
+     */
+    private void evictClean(Summary keep) {
+        Iterator<Summary> eldestFirst = cache.values().iterator();
+        while (cache.size() > maxCachedSessions && eldestFirst.hasNext()) {
+            Summary summary = eldestFirst.next();
+            if (summary != keep && summary.version == summary.flushedVersion) {
+                eldestFirst.remove();
+            }
+        }
+    }
+
+    private Path path(String session) {
+        return ConversationStore.DEFAULT_SESSION.equals(session)
+            ? summaryPath
+            : sessionsDir.resolve(FileConversationStore.encode(session) + ".txt");
+    }
+
+    private static void write(Path path, String summary) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmp, summary + System.lineSeparator(), StandardCharsets.UTF_8);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String normalize(String sessionId) {
+        return sessionId == null || sessionId.isBlank() ? ConversationStore.DEFAULT_SESSION : sessionId;
     }
 
     private String shrink(String value) {
@@ -45,4 +257,19 @@ public final class FileSessionSummaryManager implements SessionSummaryManager {
         }
         return normalized.substring(0, 177) + "...";
     }
+
+    /** A session's summary text; {@code version} counts turns folded in, {@code flushedVersion} the last written. */
+    private static final class Summary {
+        private final StringBuilder text;
+        private String rendered;
+        private long version;
+        private long flushedVersion;
+
+        Summary(String text) {
+            this.text = new StringBuilder(text);
+        }
+    }
+
+    private record Snapshot(String session, Summary summary, String text, long version) {
+    }
 }
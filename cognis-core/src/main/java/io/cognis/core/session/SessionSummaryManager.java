@@ -6,4 +6,16 @@ public interface SessionSummaryManager {
     void recordTurn(String prompt, String response) throws IOException;
 
     String currentSummary() throws IOException;
+
+    /**
+     * Folds a turn into {@code sessionId}'s summary. Managers without sessions keep one summary.
+     */
+    default void recordTurn(String sessionId, String prompt, String response) throws IOException {
+        recordTurn(prompt, response);
+    }
+
+    /** {@code sessionId}'s summary; managers without sessions return their one summary. */
+    default String currentSummary(String sessionId) throws IOException {
+        return currentSummary();
+    }
 }
@@ -4,119 +4,448 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.cognis.core.model.ChatMessage;
+import io.cognis.core.sqlite.GroupCommitWriter;
+import io.cognis.core.sqlite.SqliteReaderPool;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public final class SqliteConversationStore implements ConversationStore {
+/**
+ * SQLite-backed {@link ConversationStore}.
+ *
+ * <p>Appends go through a {@link GroupCommitWriter}, which puts the database in WAL mode and
+ * commits concurrent appends together in one durable transaction; {@link #append} returns once
+ * its turn is committed. Transcripts are encoded on the caller's thread beforehand. Reads borrow
+ * one of up to {@code readers} read-only connections from a {@link SqliteReaderPool}; in WAL mode
+ * they see the last committed state and never wait for the writer.
+ *
+ * <p>Turns carry their session id (a column added to older databases on open, existing turns
+ * joining {@link #DEFAULT_SESSION}). Paged reads walk the session index and session listings are
+ * answered from it, so neither loads a transcript it does not return.
+ *
+ * <p>Transcripts are stored in {@code transcript_body}, encoded by {@link TranscriptCodec} with
+ * repeated system-prompt paragraphs in {@code conversation_blocks}. Rows from before that, with a
+ * plain JSON {@code transcript_json}, are re-encoded in batches the first time the store is opened.
+ */
+public final class SqliteConversationStore implements ConversationStore, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SqliteConversationStore.class);
+    public static final int DEFAULT_READERS = SqliteReaderPool.DEFAULT_READERS;
     private static final TypeReference<List<ChatMessage>> CHAT_MESSAGES = new TypeReference<>() {
     };
+    private static final String INSERT = """
+        INSERT INTO conversation_turns (id, session_id, created_at, prompt, response, transcript_json, transcript_body)
+        VALUES (?, ?, ?, ?, ?, '', ?)
+        """;
+    private static final String SELECT_ALL = """
+        SELECT created_at, prompt, response, transcript_json, transcript_body
+        FROM conversation_turns
+        ORDER BY created_at ASC
+        """;
+    private static final String SELECT_PAGE = """
+        SELECT rowid, created_at, prompt, response, transcript_json, transcript_body
+        FROM conversation_turns
+        WHERE session_id = ? AND rowid < ?
+        ORDER BY rowid DESC
+        LIMIT ?
+        """;
+    private static final String SELECT_LATEST = """
+        SELECT created_at, prompt, response, transcript_json, transcript_body
+        FROM conversation_turns
+        ORDER BY created_at DESC
+        LIMIT ?
+        """;
+    private static final String SELECT_BLOCK = "SELECT content FROM conversation_blocks WHERE hash = ?";
+    private static final String INSERT_BLOCK = "INSERT OR IGNORE INTO conversation_blocks (hash, content) VALUES (?, ?)";
+    private static final int REENCODE_BATCH = 500;
+    /** {@code PRAGMA user_version} once every legacy transcript has been re-encoded. */
+    private static final int TRANSCRIPTS_ENCODED_VERSION = 1;
+    // Counts come from the session index alone; only the newest row of each session is visited.
+    private static final String SELECT_SESSIONS = """
+        SELECT s.session_id, s.turns, t.created_at
+        FROM (
+            SELECT session_id, COUNT(*) AS turns, MAX(rowid) AS last_row
+            FROM conversation_turns
+            WHERE session_id > ?
+            GROUP BY session_id
+            ORDER BY session_id
+            LIMIT ?
+        ) s
+        JOIN conversation_turns t ON t.rowid = s.last_row
+        ORDER BY s.session_id
+        """;
 
-    private final String jdbcUrl;
     private final ObjectMapper mapper;
+    private final TranscriptCodec codec;
+    private final GroupCommitWriter writer;
+    private final SqliteReaderPool readers;
+    private volatile boolean closed;
 
     public SqliteConversationStore(Path dbPath) throws IOException {
+        this(dbPath, DEFAULT_READERS);
+    }
+
+    /**
+     * @param dbPath  database file, created with its parent directories if missing
+     * @param readers read-only connections kept for concurrent reads
+     */
+    public SqliteConversationStore(Path dbPath, int readers) throws IOException {
         if (dbPath == null) {
             throw new IllegalArgumentException("dbPath must not be null");
         }
-        Files.createDirectories(dbPath.toAbsolutePath().getParent());
-        this.jdbcUrl = "jdbc:sqlite:" + dbPath.toAbsolutePath();
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
-        init();
+        this.codec = new TranscriptCodec(mapper);
+        this.writer = new GroupCommitWriter(dbPath);
+        this.readers = new SqliteReaderPool(dbPath, readers);
+        try {
+            init();
+        } catch (IOException | RuntimeException e) {
+            this.readers.close();
+            writer.close();
+            throw e;
+        }
     }
 
     @Override
-    public synchronized void append(ConversationTurn turn) throws IOException {
-        String sql = """
-            INSERT INTO conversation_turns (id, created_at, prompt, response, transcript_json)
-            VALUES (?, ?, ?, ?, ?)
-            """;
-        try (Connection connection = openConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
+    public void append(ConversationTurn turn) throws IOException {
+        append(DEFAULT_SESSION, turn);
+    }
+
+    @Override
+    public void append(String sessionId, ConversationTurn turn) throws IOException {
+        ensureOpen();
+        String session = sessionId == null || sessionId.isBlank() ? DEFAULT_SESSION : sessionId;
+        PendingBlocks blocks = new PendingBlocks();
+        byte[] body = codec.encode(turn.transcript(), blocks);
+        writer.execute(transaction -> {
+            blocks.insert(transaction);
+            PreparedStatement statement = transaction.prepare(INSERT);
             statement.setString(1, UUID.randomUUID().toString());
-            statement.setString(2, turn.createdAt().toString());
-            statement.setString(3, safe(turn.prompt()));
-            statement.setString(4, safe(turn.response()));
-            statement.setString(5, mapper.writeValueAsString(turn.transcript()));
-            statement.executeUpdate();
-            connection.commit();
+            statement.setString(2, session);
+            statement.setString(3, turn.createdAt().toString());
+            statement.setString(4, safe(turn.prompt()));
+            statement.setString(5, safe(turn.response()));
+            statement.setBytes(6, body);
+            return statement.executeUpdate();
+        });
+    }
+
+    @Override
+    public List<ConversationTurn> list() throws IOException {
+        try {
+            return readers.read(reader -> {
+                try (ResultSet resultSet = reader.prepare(SELECT_ALL).executeQuery()) {
+                    List<ConversationTurn> turns = new ArrayList<>();
+                    while (resultSet.next()) {
+                        turns.add(readTurn(resultSet, reader));
+                    }
+                    return turns;
+                }
+            });
         } catch (SQLException e) {
-            throw new IOException("Failed to append conversation turn", e);
+            throw new IOException("Failed to list conversation turns", e);
         }
     }
 
+    /** One page of the {@code created_at} index, newest first, whatever the session. */
     @Override
-    public synchronized List<ConversationTurn> list() throws IOException {
-        String sql = """
-            SELECT created_at, prompt, response, transcript_json
-            FROM conversation_turns
-            ORDER BY created_at ASC
-            """;
-        try (Connection connection = openConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
-            List<ConversationTurn> turns = new ArrayList<>();
-            while (resultSet.next()) {
-                Instant createdAt = Instant.parse(resultSet.getString("created_at"));
-                String prompt = resultSet.getString("prompt");
-                String response = resultSet.getString("response");
-                List<ChatMessage> transcript = mapper.readValue(
-                    resultSet.getString("transcript_json"),
-                    CHAT_MESSAGES
-                );
-                turns.add(new ConversationTurn(createdAt, prompt, response, transcript));
-            }
-            return turns;
+    public List<ConversationTurn> latestTurns(int n) throws IOException {
+        if (n <= 0) {
+            return List.of();
+        }
+        try {
+            return readers.read(reader -> {
+                PreparedStatement statement = reader.prepare(SELECT_LATEST);
+                statement.setInt(1, n);
+                List<ConversationTurn> newestFirst = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        newestFirst.add(readTurn(resultSet, reader));
+                    }
+                }
+                return newestFirst.reversed();
+            });
         } catch (SQLException e) {
-            throw new IOException("Failed to list conversation turns", e);
+            throw new IOException("Failed to read the latest conversation turns", e);
+        }
+    }
+
+    /** Walks the session index backwards by rowid; the cursor is the rowid of the oldest turn returned. */
+    @Override
+    public ConversationPage<ConversationTurn> turns(String sessionId, String cursor, int limit) throws IOException {
+        if (limit <= 0) {
+            return new ConversationPage<>(List.of(), null);
+        }
+        long before = cursor == null ? Long.MAX_VALUE : parseRowId(cursor);
+        try {
+            return readers.read(reader -> {
+                PreparedStatement statement = reader.prepare(SELECT_PAGE);
+                statement.setString(1, sessionId == null || sessionId.isBlank() ? DEFAULT_SESSION : sessionId);
+                statement.setLong(2, before);
+                statement.setInt(3, limit + 1);
+                List<ConversationTurn> newestFirst = new ArrayList<>();
+                long oldestRow = 0;
+                boolean more = false;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (newestFirst.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        oldestRow = resultSet.getLong("rowid");
+                        newestFirst.add(readTurn(resultSet, reader));
+                    }
+                }
+                return new ConversationPage<>(newestFirst.reversed(), more ? Long.toString(oldestRow) : null);
+            });
+        } catch (SQLException e) {
+            throw new IOException("Failed to page conversation turns", e);
         }
     }
 
-    private Connection openConnection() throws SQLException {
-        Connection connection = DriverManager.getConnection(jdbcUrl);
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("PRAGMA journal_mode=WAL;");
-            statement.execute("PRAGMA synchronous=NORMAL;");
+    @Override
+    public ConversationPage<ConversationSession> sessions(String cursor, int limit) throws IOException {
+        if (limit <= 0) {
+            return new ConversationPage<>(List.of(), null);
+        }
+        try {
+            return readers.read(reader -> {
+                PreparedStatement statement = reader.prepare(SELECT_SESSIONS);
+                statement.setString(1, cursor == null ? "" : cursor);
+                statement.setInt(2, limit + 1);
+                List<ConversationSession> sessions = new ArrayList<>();
+                boolean more = false;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (sessions.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        sessions.add(new ConversationSession(
+                            resultSet.getString(1),
+                            resultSet.getInt(2),
+                            Instant.parse(resultSet.getString(3))
+                        ));
+                    }
+                }
+                return new ConversationPage<>(sessions, more ? sessions.getLast().id() : null);
+            });
+        } catch (SQLException e) {
+            throw new IOException("Failed to list conversation sessions", e);
+        }
+    }
+
+    /** Commits pending appends and closes the writer and the readers. */
+    @Override
+    public void close() {
+        closed = true;
+        writer.close();
+        readers.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("SQLite conversation store is closed");
         }
-        return connection;
     }
 
     private void init() throws IOException {
         String ddl = """
             CREATE TABLE IF NOT EXISTS conversation_turns (
                 id TEXT PRIMARY KEY,
+                session_id TEXT NOT NULL DEFAULT 'default',
                 created_at TEXT NOT NULL,
                 prompt TEXT NOT NULL,
                 response TEXT NOT NULL,
-                transcript_json TEXT NOT NULL
+                transcript_json TEXT NOT NULL,
+                transcript_body BLOB
             )
             """;
+        String blocks = """
+            CREATE TABLE IF NOT EXISTS conversation_blocks (
+                hash TEXT PRIMARY KEY,
+                content TEXT NOT NULL
+            ) WITHOUT ROWID
+            """;
         String idx = """
             CREATE INDEX IF NOT EXISTS idx_conversation_turns_created_at
             ON conversation_turns(created_at DESC)
             """;
-        try (Connection connection = openConnection();
-             Statement statement = connection.createStatement()) {
-            statement.execute(ddl);
-            statement.execute(idx);
-        } catch (SQLException e) {
-            throw new IOException("Failed to initialize SQLite conversation store", e);
+        String sessionIdx = """
+            CREATE INDEX IF NOT EXISTS idx_conversation_turns_session
+            ON conversation_turns(session_id)
+            """;
+        writer.execute(transaction -> {
+            try (Statement statement = transaction.connection().createStatement()) {
+                statement.execute(ddl);
+                if (!hasColumn(statement, "session_id")) {
+                    // Databases created before sessions were tracked: existing turns join the default session.
+                    statement.execute("ALTER TABLE conversation_turns ADD COLUMN session_id TEXT NOT NULL DEFAULT 'default'");
+                }
+                if (!hasColumn(statement, "transcript_body")) {
+                    statement.execute("ALTER TABLE conversation_turns ADD COLUMN transcript_body BLOB");
+                }
+                statement.execute(blocks);
+                statement.execute(idx);
+                statement.execute(sessionIdx);
+            }
+            return null;
+        });
+        reencodeLegacyTranscripts();
+    }
+
+    private static boolean hasColumn(Statement statement, String column) throws SQLException {
+        try (ResultSet columns = statement.executeQuery("PRAGMA table_info(conversation_turns)")) {
+            while (columns.next()) {
+                if (column.equals(columns.getString("name"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private ConversationTurn readTurn(ResultSet resultSet, SqliteReaderPool.Reader reader) throws SQLException, IOException {
+        byte[] body = resultSet.getBytes("transcript_body");
+        return new ConversationTurn(
+            Instant.parse(resultSet.getString("created_at")),
+            resultSet.getString("prompt"),
+            resultSet.getString("response"),
+            body != null
+                ? codec.decode(body, new StoredBlocks(reader))
+                : mapper.readValue(resultSet.getString("transcript_json"), CHAT_MESSAGES)
+        );
+    }
+
+    /**
+     * Moves turns stored as plain JSON (before transcripts were encoded) to the encoded column, a
+     * batch per commit, walking the table by rowid. A row whose JSON cannot be parsed is logged and
+     * left as it is. Completion is recorded in {@code PRAGMA user_version}, so later opens skip the scan.
+     */
+    private void reencodeLegacyTranscripts() throws IOException {
+        int version = writer.execute(transaction -> {
+            try (Statement statement = transaction.connection().createStatement();
+                 ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        });
+        if (version >= TRANSCRIPTS_ENCODED_VERSION) {
+            return;
+        }
+        int total = 0;
+        long after = 0;
+        ReencodedBatch batch;
+        do {
+            long from = after;
+            batch = writer.execute(transaction -> {
+                Map<Long, String> rows = new LinkedHashMap<>();
+                PreparedStatement select = transaction.prepare("""
+                    SELECT rowid, transcript_json FROM conversation_turns
+                    WHERE rowid > ? AND transcript_body IS NULL
+                    ORDER BY rowid
+                    LIMIT ?
+                    """);
+                select.setLong(1, from);
+                select.setInt(2, REENCODE_BATCH);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows.put(resultSet.getLong(1), resultSet.getString(2));
+                    }
+                }
+                PendingBlocks blocks = new PendingBlocks();
+                PreparedStatement update = transaction.prepare(
+                    "UPDATE conversation_turns SET transcript_body = ?, transcript_json = '' WHERE rowid = ?");
+                long last = from;
+                int encoded = 0;
+                for (Map.Entry<Long, String> row : rows.entrySet()) {
+                    last = row.getKey();
+                    List<ChatMessage> transcript;
+                    try {
+                        transcript = mapper.readValue(row.getValue(), CHAT_MESSAGES);
+                    } catch (IOException e) {
+                        LOG.warn("Leaving conversation turn rowid {} unencoded: unreadable transcript ({})",
+                            row.getKey(), e.getMessage());
+                        continue;
+                    }
+                    update.setBytes(1, codec.encode(transcript, blocks));
+                    update.setLong(2, row.getKey());
+                    update.executeUpdate();
+                    encoded++;
+                }
+                blocks.insert(transaction);
+                if (rows.size() < REENCODE_BATCH) {
+                    try (Statement statement = transaction.connection().createStatement()) {
+                        statement.execute("PRAGMA user_version = " + TRANSCRIPTS_ENCODED_VERSION);
+                    }
+                }
+                return new ReencodedBatch(rows.size(), last, encoded);
+            });
+            total += batch.encoded();
+            after = batch.lastRowId();
+        } while (batch.rows() == REENCODE_BATCH);
+        if (total > 0) {
+            LOG.info("Re-encoded {} stored conversation transcripts", total);
+        }
+    }
+
+    private record ReencodedBatch(int rows, long lastRowId, int encoded) {
+    }
+
+    private static long parseRowId(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid conversation cursor: " + cursor, e);
         }
     }
 
     private String safe(String value) {
         return value == null ? "" : value;
     }
+
+    /** Transcript blocks as read through a borrowed reader connection. */
+    private record StoredBlocks(SqliteReaderPool.Reader reader) implements TranscriptCodec.BlockSource {
+        @Override
+        public String get(String hash) throws IOException {
+            try {
+                PreparedStatement statement = reader.prepare(SELECT_BLOCK);
+                statement.setString(1, hash);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getString(1) : null;
+                }
+            } catch (SQLException e) {
+                throw new IOException("Failed to read transcript block " + hash, e);
+            }
+        }
+    }
+
+    /** Blocks referenced by a transcript being encoded, inserted in the same transaction as the turn. */
+    private static final class PendingBlocks implements TranscriptCodec.BlockSink {
+        private final Map<String, String> blocks = new LinkedHashMap<>();
+
+        @Override
+        public void put(String hash, String content) {
+            blocks.putIfAbsent(hash, content);
+        }
+
+        void insert(GroupCommitWriter.Transaction transaction) throws SQLException {
+            PreparedStatement statement = transaction.prepare(INSERT_BLOCK);
+            for (Map.Entry<String, String> block : blocks.entrySet()) {
+                statement.setString(1, block.getKey());
+                statement.setString(2, block.getValue());
+                statement.executeUpdate();
+            }
+        }
+    }
 }
@@ -0,0 +1,191 @@
+package io.cognis.core.session;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cognis.core.model.ChatMessage;
+import io.cognis.core.model.MessageRole;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact storage encoding of a turn's transcript, shared by the conversation stores.
+ *
+ * <p>Every transcript starts with the system prompt, most of which (base prompt, identity policy,
+ * profile) is identical from turn to turn. System messages are split into paragraphs, and a
+ * paragraph of at least {@value #MIN_BLOCK_CHARS} characters seen a second time is stored once as
+ * a content-addressed block (keyed by its SHA-256) and referenced from the transcript by hash.
+ * Paragraphs seen only once, like recalled memories, stay inline, so one-off text does not turn
+ * into blocks. The transcript is then written as compact JSON and deflated.
+ *
+ * <p>An encoded body is a format byte ({@code 1}: deflated JSON) followed by the payload.
+ */
+final class TranscriptCodec {
+
+    /** Where {@link #decode} reads blocks from. */
+    interface BlockSource {
+        /** Content of block {@code hash}, or null if there is none. */
+        String get(String hash) throws IOException;
+    }
+
+    /** Where {@link #encode} writes blocks to; {@link #put} must be cheap and ignore a hash it already has. */
+    interface BlockSink {
+        void put(String hash, String content) throws IOException;
+    }
+
+    /** Both sides, for stores that read and write blocks in the same place. */
+    interface BlockStore extends BlockSource, BlockSink {
+    }
+
+    static final int MIN_BLOCK_CHARS = 256;
+    private static final byte FORMAT_DEFLATE = 1;
+    private static final char REF = '\u0000';
+    private static final String PARAGRAPH = "\n\n";
+    private static final int TRACKED_HASHES = 4096;
+    private static final TypeReference<List<ChatMessage>> CHAT_MESSAGES = new TypeReference<>() {
+    };
+
+    private final ObjectMapper mapper;
+    /** Hashes of recently seen paragraphs. Guarded by itself. */
+    private final Map<String, Boolean> seen = lru(TRACKED_HASHES);
+    /** Block contents by hash; immutable, so any copy is current. Guarded by itself. */
+    private final Map<String, String> blocks = lru(TRACKED_HASHES / 16);
+
+    TranscriptCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    byte[] encode(List<ChatMessage> transcript, BlockSink store) throws IOException {
+        List<ChatMessage> compact = new ArrayList<>(transcript.size());
+        for (ChatMessage message : transcript) {
+            // References are delimited by NUL, which a system prompt has no business containing.
+            compact.add(message.role() == MessageRole.SYSTEM
+                ? new ChatMessage(message.role(), referenceBlocks(message.content().replace(REF, '\uFFFD'), store),
+                    message.toolCallId(), message.toolCalls())
+                : message);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(FORMAT_DEFLATE);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            mapper.writeValue(out, compact);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    List<ChatMessage> decode(byte[] body, BlockSource store) throws IOException {
+        if (body.length == 0 || body[0] != FORMAT_DEFLATE) {
+            throw new IOException("Unknown transcript encoding " + (body.length == 0 ? "(empty)" : body[0]));
+        }
+        List<ChatMessage> compact;
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(body, 1, body.length - 1))) {
+            compact = mapper.readValue(in, CHAT_MESSAGES);
+        }
+        List<ChatMessage> transcript = new ArrayList<>(compact.size());
+        for (ChatMessage message : compact) {
+            transcript.add(message.role() == MessageRole.SYSTEM && message.content().indexOf(REF) >= 0
+                ? new ChatMessage(message.role(), resolveBlocks(message.content(), store), message.toolCallId(), message.toolCalls())
+                : message);
+        }
+        return transcript;
+    }
+
+    private String referenceBlocks(String content, BlockSink store) throws IOException {
+        StringBuilder out = new StringBuilder(content.length());
+        int start = 0;
+        while (start < content.length()) {
+            int end = content.indexOf(PARAGRAPH, start);
+            end = end < 0 ? content.length() : end + PARAGRAPH.length();
+            String paragraph = content.substring(start, end);
+            String hash = paragraph.length() >= MIN_BLOCK_CHARS ? block(paragraph, store) : null;
+            if (hash == null) {
+                out.append(paragraph);
+            } else {
+                out.append(REF).append(hash).append(REF);
+            }
+            start = end;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Hash of {@code paragraph} if it is stored as a block, or null to keep it inline. The block is
+     * put again for every transcript that references it, so a reference is never written without
+     * its block even when the write carrying the first copy failed.
+     */
+    private String block(String paragraph, BlockSink store) throws IOException {
+        String hash = sha256(paragraph);
+        synchronized (seen) {
+            if (seen.put(hash, Boolean.TRUE) == null) {
+                return null;
+            }
+        }
+        store.put(hash, paragraph);
+        return hash;
+    }
+
+    private String resolveBlocks(String content, BlockSource store) throws IOException {
+        StringBuilder out = new StringBuilder(content.length() * 2);
+        int start = 0;
+        int ref;
+        while ((ref = content.indexOf(REF, start)) >= 0) {
+            int close = content.indexOf(REF, ref + 1);
+            if (close < 0) {
+                throw new IOException("Truncated block reference in stored transcript");
+            }
+            out.append(content, start, ref).append(blockContent(content.substring(ref + 1, close), store));
+            start = close + 1;
+        }
+        return out.append(content, start, content.length()).toString();
+    }
+
+    private String blockContent(String hash, BlockSource store) throws IOException {
+        synchronized (blocks) {
+            String cached = blocks.get(hash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String content = store.get(hash);
+        if (content == null) {
+            throw new IOException("Missing transcript block " + hash);
+        }
+        synchronized (blocks) {
+            blocks.put(hash, content);
+        }
+        return content;
+    }
+
+    static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static <V> Map<String, V> lru(int capacity) {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
@@ -0,0 +1,288 @@
+package io.cognis.core.sqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+/**
+ * The single writer of a SQLite database, committing the writes of many callers together.
+ *
+ * <p>Callers {@link #submit} a write and get a future. A dedicated thread takes the first pending
+ * write, waits up to {@code window} for more (at most {@code maxBatch}), runs them all in one
+ * transaction and commits once; every future of the batch completes after that commit. With
+ * {@code synchronous=FULL} a commit is one fsync, so a burst of N writes costs one fsync instead
+ * of N and each completed future means the write is on disk.
+ *
+ * <p>Each write runs inside its own savepoint: a write that throws is rolled back and fails its
+ * own future without affecting the rest of the batch. Writes must only touch the database —
+ * anything slow (serialization, compression) belongs on the caller's thread, before
+ * {@link #submit}.
+ *
+ * <p>The thread is a platform thread because SQLite's busy wait sleeps in native code, which
+ * would pin the carrier of a virtual thread. Callers on virtual threads wait on the future
+ * without pinning.
+ */
+public final class GroupCommitWriter implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(GroupCommitWriter.class);
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+    public static final int DEFAULT_MAX_BATCH = 256;
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+    private static final long MMAP_SIZE = 256L * 1024 * 1024;
+
+    /** A unit of work run on the writer thread inside the batch transaction. */
+    @FunctionalInterface
+    public interface Write<T> {
+        T apply(Transaction transaction) throws SQLException, IOException;
+    }
+
+    /** What a {@link Write} sees: the writer connection and its cached prepared statements. */
+    public interface Transaction {
+        PreparedStatement prepare(String sql) throws SQLException;
+
+        Connection connection();
+    }
+
+    private final String name;
+    private final Connection connection;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final Transaction transaction;
+    private final Thread thread;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private volatile boolean closed;
+
+    public GroupCommitWriter(Path dbPath) throws IOException {
+        this(dbPath, DEFAULT_WINDOW, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * Opens the database (creating it and its parent directories if missing) in WAL mode.
+     *
+     * @param window   how long the first write of a batch waits for company
+     * @param maxBatch writes committed together at most
+     */
+    public GroupCommitWriter(Path dbPath, Duration window, int maxBatch) throws IOException {
+        Files.createDirectories(dbPath.toAbsolutePath().getParent());
+        this.name = dbPath.getFileName().toString();
+        this.windowNanos = Math.max(0, window.toNanos());
+        this.maxBatch = Math.max(1, maxBatch);
+        try {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setBusyTimeout(BUSY_TIMEOUT_MS);
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath.toAbsolutePath(), config.toProperties());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL;");
+                statement.execute("PRAGMA synchronous=FULL;");
+                statement.execute("PRAGMA mmap_size=" + MMAP_SIZE + ";");
+            }
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new IOException("Failed to open SQLite database " + dbPath, e);
+        }
+        this.transaction = new Transaction() {
+            @Override
+            public PreparedStatement prepare(String sql) throws SQLException {
+                PreparedStatement statement = statements.get(sql);
+                if (statement == null) {
+                    statement = connection.prepareStatement(sql);
+                    statements.put(sql, statement);
+                }
+                return statement;
+            }
+
+            @Override
+            public Connection connection() {
+                return connection;
+            }
+        };
+        this.thread = Thread.ofPlatform().daemon().name("sqlite-writer-" + name).start(this::run);
+    }
+
+    /** Queues {@code write}; the future completes once the transaction containing it has committed. */
+    public <T> CompletableFuture<T> submit(Write<T> write) {
+        Pending<T> pending = new Pending<>(write);
+        if (closed) {
+            pending.future.completeExceptionally(new IOException("SQLite writer for " + name + " is closed"));
+            return pending.future;
+        }
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            // Raced with close(): the writer thread may already be gone.
+            pending.future.completeExceptionally(new IOException("SQLite writer for " + name + " is closed"));
+        }
+        return pending.future;
+    }
+
+    /** Submits {@code write} and waits for its commit. */
+    public <T> T execute(Write<T> write) throws IOException {
+        try {
+            return submit(write).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for SQLite commit", e);
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /** Writes committed so far. */
+    public long writes() {
+        return writes.get();
+    }
+
+    /** Transactions committed so far; {@code writes() / commits()} is the average batch size. */
+    public long commits() {
+        return commits.get();
+    }
+
+    /** Commits everything already queued, then stops the thread and closes the connection. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOG.warn("Failed to close SQLite writer for {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                if (!collect(batch)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                if (!closed) {
+                    continue;
+                }
+                // Closing: commit what is still queued, without waiting for more.
+                queue.drainTo(batch, maxBatch - batch.size());
+                if (batch.isEmpty()) {
+                    break;
+                }
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /** Fills {@code batch}; false once closed with nothing left to write. */
+    private boolean collect(List<Pending<?>> batch) throws InterruptedException {
+        Pending<?> first = closed ? queue.poll() : queue.take();
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0 || closed) {
+                break;
+            }
+            Pending<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void commit(List<Pending<?>> batch) {
+        List<Pending<?>> applied = new ArrayList<>(batch.size());
+        try {
+            for (Pending<?> pending : batch) {
+                if (pending.apply(transaction)) {
+                    applied.add(pending);
+                }
+            }
+            connection.commit();
+            commits.incrementAndGet();
+            writes.addAndGet(applied.size());
+            applied.forEach(Pending::complete);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            IOException failure = new IOException("SQLite commit failed for " + name + ": " + e.getMessage(), e);
+            // Writes that already failed in their savepoint keep their own error.
+            batch.forEach(pending -> pending.future.completeExceptionally(failure));
+        }
+    }
+
+    private static final class Pending<T> {
+        private final Write<T> write;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+
+        Pending(Write<T> write) {
+            this.write = write;
+        }
+
+        /** Runs the write inside a savepoint; false (and a failed future) if it threw. */
+        boolean apply(Transaction transaction) throws SQLException {
+            Connection connection = transaction.connection();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SAVEPOINT write");
+            }
+            try {
+                result = write.apply(transaction);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("RELEASE write");
+                }
+                return true;
+            } catch (SQLException | IOException | RuntimeException e) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ROLLBACK TO write");
+                    statement.execute("RELEASE write");
+                }
+                future.completeExceptionally(e);
+                return false;
+            }
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
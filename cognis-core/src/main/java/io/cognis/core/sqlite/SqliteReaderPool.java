@@ -0,0 +1,149 @@
+package io.cognis.core.sqlite;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Read-only connections to a SQLite database, opened on demand and reused.
+ *
+ * <p>At most {@code readers} reads run at once; each borrows a connection together with the
+ * prepared statements it has cached. In WAL mode (set by the database's {@link GroupCommitWriter})
+ * a reader sees the last committed state and never waits for the writer. Waiting for a connection
+ * uses a semaphore rather than a monitor so callers on virtual threads do not pin their carrier.
+ */
+public final class SqliteReaderPool implements AutoCloseable {
+    public static final int DEFAULT_READERS = 4;
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+    private static final long MMAP_SIZE = 256L * 1024 * 1024;
+
+    /** A read run with a borrowed connection. */
+    @FunctionalInterface
+    public interface Read<T> {
+        T apply(Reader reader) throws SQLException, IOException;
+    }
+
+    /** What a {@link Read} sees: the prepared statements of its borrowed connection. */
+    public interface Reader {
+        PreparedStatement prepare(String sql) throws SQLException;
+    }
+
+    private final String name;
+    private final String jdbcUrl;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<PooledReader> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * @param dbPath  an existing database, normally opened first by its {@link GroupCommitWriter}
+     * @param readers connections kept for concurrent reads
+     */
+    public SqliteReaderPool(Path dbPath, int readers) {
+        this.name = dbPath.getFileName().toString();
+        this.jdbcUrl = "jdbc:sqlite:" + dbPath.toAbsolutePath();
+        this.permits = new Semaphore(Math.max(1, readers));
+    }
+
+    /** Runs {@code read} with a connection, waiting for one if all are in use. */
+    public <T> T read(Read<T> read) throws IOException, SQLException {
+        PooledReader reader = acquire();
+        try {
+            return read.apply(reader);
+        } finally {
+            release(reader);
+        }
+    }
+
+    /** Closes every idle connection; connections in use are closed when released. */
+    @Override
+    public void close() {
+        closed = true;
+        PooledReader reader;
+        while ((reader = idle.poll()) != null) {
+            reader.close();
+        }
+    }
+
+    private PooledReader acquire() throws IOException {
+        ensureOpen();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a SQLite reader connection", e);
+        }
+        PooledReader reader = idle.poll();
+        if (reader != null) {
+            return reader;
+        }
+        try {
+            return new PooledReader(open());
+        } catch (SQLException e) {
+            permits.release();
+            throw new IOException("Failed to open SQLite reader connection to " + name, e);
+        }
+    }
+
+    private void release(PooledReader reader) {
+        if (closed) {
+            reader.close();
+        } else {
+            idle.offer(reader);
+        }
+        permits.release();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("SQLite readers for " + name + " are closed");
+        }
+    }
+
+    private Connection open() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        Connection connection = DriverManager.getConnection(jdbcUrl, config.toProperties());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA mmap_size=" + MMAP_SIZE + ";");
+        }
+        return connection;
+    }
+
+    /** A connection and its prepared statements; used by one thread at a time. */
+    private static final class PooledReader implements Reader {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        PooledReader(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        void close() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Closing is best effort; the statements go with the connection.
+            }
+        }
+    }
+}
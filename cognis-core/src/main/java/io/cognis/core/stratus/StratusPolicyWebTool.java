@@ -58,6 +58,11 @@ public final class StratusPolicyWebTool implements Tool {
         );
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext context) {
         String action = String.valueOf(input.getOrDefault("action", "")).trim();
@@ -1,18 +1,31 @@
 package io.cognis.core.stratus;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.cognis.core.memory.MemoryEntry;
 import io.cognis.core.memory.MemoryStore;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * {@link MemoryStore} implementation backed by the StratusOS VFS.
@@ -20,29 +33,103 @@ import java.util.stream.Collectors;
  * <p>Storage layout on the VFS:
  * <pre>
  *   /verticals/{vertical}/memory/entries/{id}.json  — individual memory entries
- *   /verticals/{vertical}/memory/index.json         — lightweight entry list (id+content+tags)
+ *   /verticals/{vertical}/memory/index.json         — full entry list as of the last compaction
+ *   /verticals/{vertical}/memory/index-delta.json   — {"puts":[...],"deletes":[...]} since then
  * </pre>
  *
+ * <p>The index is read once (base plus delta) and then kept resident: {@link #list},
+ * {@link #count}, deduplication and the keyword fallback of {@link #recall} never go back to the
+ * VFS. Mutations are applied in memory and, by default, written behind: a flusher coalesces every
+ * mutation of a {@code flushInterval} window into one write of the new entry bodies and one write
+ * of the small delta document. The delta is folded into a fresh {@code index.json} once it grows
+ * past a quarter of the index. A crash loses at most the last window; deployments that need
+ * synchronous durability use strict mode, where each call writes through before returning.
+ *
+ * <p><strong>Several instances on one vertical:</strong> the VFS has no conditional write, so
+ * every flush first re-reads {@code index-delta.json} (and, before a fold, {@code index.json})
+ * and merges what other instances flushed since into the resident index; the rewritten files
+ * then carry their entries forward instead of erasing them. Two flushes that interleave between
+ * read and write can still drop the other's last window, so a vertical should have one writing
+ * instance; others may read and search it freely.
+ *
+ * <p>Forgetting an entry whose body was already written overwrites the body with an empty
+ * tombstone, so VFS search stops resolving it. Until that write, the id is kept in a bounded set
+ * of forgotten ids that search hits are checked against.
+ *
  * <p>Semantic recall delegates to {@code POST /vfs/search} — StratusOS uses chromem-go
  * under the hood, so vector similarity search is built in with no external embedding API needed.
+ * Hits on this store's entry files are resolved to the stored entry: from the resident index,
+ * else through a bounded read-through cache of entry bodies (entries written by another instance).
+ * Hits on forgotten entries are dropped.
  *
  * <p>Falls back to a simple text-match recall if the VFS search endpoint returns no results,
  * maintaining parity with the local {@link io.cognis.core.memory.FileMemoryStore}.
  */
-public final class StratusVfsMemoryStore implements MemoryStore {
+public final class StratusVfsMemoryStore implements MemoryStore, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StratusVfsMemoryStore.class);
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(2);
+    private static final int DELTA_COMPACTION_MIN = 128;
+    private static final int BODY_CACHE_ENTRIES = 1_024;
+    private static final int FORGOTTEN_MAX = 4_096;
 
     private final StratusClient stratus;
     private final String vfsBase;           // e.g. /verticals/humanitarian/memory
     private final ObjectMapper mapper;
+    private final boolean strict;
+    private final long flushIntervalMillis;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    private final Map<String, MemoryEntry> entries = new LinkedHashMap<>();
+    private final Map<String, String> idsByDedupeKey = new HashMap<>();
+    /** Mutations since the last index.json write: what index-delta.json must contain. */
+    private final Map<String, MemoryEntry> deltaPuts = new LinkedHashMap<>();
+    private final Set<String> deltaDeletes = new LinkedHashSet<>();
+    /** Entry bodies not yet written to the VFS. */
+    private final Map<String, MemoryEntry> unwrittenBodies = new LinkedHashMap<>();
+    /** Forgotten ids whose entry files may still be returned by VFS search; oldest first, capped. */
+    private final Set<String> forgotten = new LinkedHashSet<>();
+    /** Forgotten ids whose written entry body has not been overwritten with a tombstone yet. */
+    private final Set<String> unwrittenTombstones = new LinkedHashSet<>();
+    private final Map<String, MemoryEntry> bodyCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MemoryEntry> eldest) {
+            return size() > BODY_CACHE_ENTRIES;
+        }
+    };
+    /** Incremented by every mutation; {@code flushedVersion} is the last one written out. */
+    private long version;
+    private long flushedVersion;
+    private boolean loaded;
 
     /**
+     * Write-behind store flushing every two seconds.
+     *
      * @param stratus  configured StratusClient
      * @param vertical vertical name used to scope the VFS path (e.g. "humanitarian")
      */
     public StratusVfsMemoryStore(StratusClient stratus, String vertical) {
+        this(stratus, vertical, false, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param strict        write every mutation through to the VFS before returning
+     * @param flushInterval write-behind window; ignored in strict mode
+     */
+    public StratusVfsMemoryStore(StratusClient stratus, String vertical, boolean strict, Duration flushInterval) {
         this.stratus  = stratus;
         this.vfsBase  = "/verticals/" + vertical + "/memory";
-        this.mapper   = new ObjectMapper();
+        this.mapper   = new ObjectMapper().registerModule(new JavaTimeModule());
+        this.strict   = strict;
+        this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+        this.flusher = strict ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stratus-memory-flush");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     // -------------------------------------------------------------------------
@@ -50,51 +137,58 @@ public final class StratusVfsMemoryStore implements MemoryStore {
     // -------------------------------------------------------------------------
 
     @Override
-    public synchronized MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
+    public MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
         String normalized = content == null ? "" : content.trim();
         if (normalized.isBlank()) {
             throw new IllegalArgumentException("content must not be blank");
         }
 
-        // Deduplication: skip if identical content already stored
-        String dedupeKey = normalized.toLowerCase(Locale.ROOT);
-        for (MemoryEntry existing : listInternal()) {
-            if (existing.content().toLowerCase(Locale.ROOT).equals(dedupeKey)) {
-                return existing;
+        MemoryEntry entry;
+        synchronized (this) {
+            ensureLoaded();
+            // Deduplication: skip if identical content already stored
+            String existingId = idsByDedupeKey.get(dedupeKey(normalized));
+            if (existingId != null) {
+                return entries.get(existingId);
             }
+            entry = new MemoryEntry(
+                UUID.randomUUID().toString(),
+                normalized,
+                tags == null ? List.of() : List.copyOf(tags),
+                null,                // embeddings stored server-side in StratusOS VFS
+                source == null ? "cognis" : source,
+                Instant.now(),
+                Instant.now()
+            );
+            index(entry);
+            deltaPuts.put(entry.id(), entry);
+            unwrittenBodies.put(entry.id(), entry);
+            version++;
         }
-
-        MemoryEntry entry = new MemoryEntry(
-            UUID.randomUUID().toString(),
-            normalized,
-            tags == null ? List.of() : List.copyOf(tags),
-            List.of(),           // embeddings stored server-side in StratusOS VFS
-            source == null ? "cognis" : source,
-            Instant.now(),
-            Instant.now()
-        );
-
-        // Write individual entry
-        String entryPath = vfsBase + "/entries/" + entry.id() + ".json";
-        stratus.vfsWrite(entryPath, mapper.writeValueAsString(entry));
-
-        // Update lightweight index
-        List<MemoryEntry> all = new ArrayList<>(listInternal());
-        all.add(entry);
-        stratus.vfsWrite(vfsBase + "/index.json", mapper.writeValueAsString(all));
-
+        afterMutation();
         return entry;
     }
 
     @Override
-    public synchronized boolean forget(String id) throws IOException {
-        List<MemoryEntry> all = new ArrayList<>(listInternal());
-        int before = all.size();
-        all.removeIf(e -> e.id().equals(id));
-        if (all.size() == before) {
-            return false;
-        }
-        stratus.vfsWrite(vfsBase + "/index.json", mapper.writeValueAsString(all));
+    public boolean forget(String id) throws IOException {
+        synchronized (this) {
+            ensureLoaded();
+            MemoryEntry removed = entries.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            idsByDedupeKey.remove(dedupeKey(removed.content()), id);
+            markForgotten(id);
+            deltaPuts.remove(id);
+            if (unwrittenBodies.remove(id) == null) {
+                // Already written, or being written by a flush in progress (which re-checks).
+                unwrittenTombstones.add(id);
+            }
+            // Always recorded: a flush in progress may already be writing the entry out.
+            deltaDeletes.add(id);
+            version++;
+        }
+        afterMutation();
         return true;
     }
 
@@ -111,9 +205,9 @@ public final class StratusVfsMemoryStore implements MemoryStore {
             return semanticResults;
         }
 
-        // Fallback: keyword matching over local index
+        // Fallback: keyword matching over the resident index
         String lower = query.toLowerCase(Locale.ROOT);
-        return listInternal().stream()
+        return list().stream()
             .filter(e -> e.content().toLowerCase(Locale.ROOT).contains(lower)
                 || e.tags().stream().anyMatch(t -> t.toLowerCase(Locale.ROOT).contains(lower)))
             .limit(maxResults)
@@ -121,18 +215,20 @@ public final class StratusVfsMemoryStore implements MemoryStore {
     }
 
     @Override
-    public List<MemoryEntry> list() throws IOException {
-        return Collections.unmodifiableList(listInternal());
+    public synchronized List<MemoryEntry> list() throws IOException {
+        ensureLoaded();
+        return Collections.unmodifiableList(new ArrayList<>(entries.values()));
     }
 
     @Override
-    public int count() throws IOException {
-        return listInternal().size();
+    public synchronized int count() throws IOException {
+        ensureLoaded();
+        return entries.size();
     }
 
     @Override
     public String formatContext(int maxEntries) throws IOException {
-        List<MemoryEntry> entries = listInternal();
+        List<MemoryEntry> entries = list();
         if (entries.isEmpty()) {
             return "";
         }
@@ -149,43 +245,283 @@ public final class StratusVfsMemoryStore implements MemoryStore {
         return sb.toString();
     }
 
+    // -------------------------------------------------------------------------
+    // Write-behind
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes pending entry bodies, tombstones and the index delta to the VFS now, after merging
+     * what other instances flushed since. Called by the flusher, by {@link #close}, and after
+     * every mutation in strict mode. On failure the pending state is kept for the next attempt.
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            boolean fold;
+            synchronized (this) {
+                if (flushedVersion == this.version && unwrittenBodies.isEmpty() && unwrittenTombstones.isEmpty()) {
+                    return;
+                }
+                fold = deltaPuts.size() + deltaDeletes.size() >= Math.max(DELTA_COMPACTION_MIN, entries.size() / 4);
+            }
+            String remoteIndex = fold ? stratus.vfsRead(vfsBase + "/index.json") : null;
+            String remoteDelta = stratus.vfsRead(vfsBase + "/index-delta.json");
+
+            List<MemoryEntry> bodies;
+            List<String> tombstones;
+            Map<String, MemoryEntry> puts;
+            Set<String> deletes;
+            String indexJson = null;
+            long version;
+            synchronized (this) {
+                if (remoteIndex != null) {
+                    applyBase(remoteIndex);
+                }
+                applyDelta(remoteDelta);
+                version = this.version;
+                bodies = new ArrayList<>(unwrittenBodies.values());
+                tombstones = new ArrayList<>(unwrittenTombstones);
+                puts = new LinkedHashMap<>(deltaPuts);
+                deletes = new LinkedHashSet<>(deltaDeletes);
+                if (fold) {
+                    indexJson = mapper.writeValueAsString(entries.values());
+                }
+            }
+            for (MemoryEntry body : bodies) {
+                stratus.vfsWrite(entryPath(body.id()), mapper.writeValueAsString(body));
+            }
+            for (String id : tombstones) {
+                stratus.vfsWrite(entryPath(id), "");
+            }
+            synchronized (this) {
+                for (MemoryEntry body : bodies) {
+                    unwrittenBodies.remove(body.id(), body);
+                    if (!entries.containsKey(body.id())) {
+                        // Forgotten while this flush was writing it out.
+                        unwrittenTombstones.add(body.id());
+                    }
+                }
+                for (String id : tombstones) {
+                    unwrittenTombstones.remove(id);
+                    forgotten.remove(id);
+                }
+            }
+            // Base before delta: a crash in between replays an already-folded delta, which is idempotent.
+            if (indexJson != null) {
+                stratus.vfsWrite(vfsBase + "/index.json", indexJson);
+                stratus.vfsWrite(vfsBase + "/index-delta.json", deltaJson(List.of(), List.of()));
+            } else {
+                stratus.vfsWrite(vfsBase + "/index-delta.json", deltaJson(puts.values(), deletes));
+            }
+            synchronized (this) {
+                if (indexJson != null) {
+                    // Only what was folded into index.json; later mutations stay in the delta.
+                    puts.forEach(deltaPuts::remove);
+                    deltaDeletes.removeAll(deletes);
+                }
+                flushedVersion = version;
+            }
+        }
+    }
+
+    /** Flushes pending writes and stops the flusher; later mutations are written through. */
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.warn("Final Stratus memory flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void afterMutation() throws IOException {
+        if (strict || closed) {
+            flush();
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.schedule(this::scheduledFlush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // close() shut the flusher down after the check above.
+                flushScheduled.set(false);
+                flush();
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Stratus memory flush failed; retrying in {} ms: {}", flushIntervalMillis, e.getMessage());
+            if (!flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+                flusher.schedule(this::scheduledFlush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Helpers
     // -------------------------------------------------------------------------
 
-    private List<MemoryEntry> listInternal() throws IOException {
-        String indexJson = stratus.vfsRead(vfsBase + "/index.json");
-        if (indexJson == null || indexJson.isBlank()) {
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        applyBase(stratus.vfsRead(vfsBase + "/index.json"));
+        applyDelta(stratus.vfsRead(vfsBase + "/index-delta.json"));
+        loaded = true;
+    }
+
+    /** Adds entries of an {@code index.json} that are neither resident nor forgotten here. */
+    private void applyBase(String indexJson) {
+        for (MemoryEntry entry : readEntries(indexJson)) {
+            if (!entries.containsKey(entry.id()) && !forgotten.contains(entry.id())) {
+                index(entry);
+            }
+        }
+    }
+
+    /**
+     * Applies an {@code index-delta.json} on top of the resident index. Its puts and deletes join
+     * the local delta, so the next delta this instance writes still contains them.
+     */
+    private void applyDelta(String deltaJson) {
+        if (deltaJson == null || deltaJson.isBlank()) {
+            return;
+        }
+        try {
+            JsonNode delta = mapper.readTree(deltaJson);
+            for (JsonNode put : delta.path("puts")) {
+                MemoryEntry entry = mapper.treeToValue(put, MemoryEntry.class);
+                if (!entries.containsKey(entry.id()) && !forgotten.contains(entry.id())) {
+                    index(entry);
+                    deltaPuts.put(entry.id(), entry);
+                }
+            }
+            for (JsonNode delete : delta.path("deletes")) {
+                String id = delete.asText();
+                MemoryEntry removed = entries.remove(id);
+                if (removed != null) {
+                    idsByDedupeKey.remove(dedupeKey(removed.content()), id);
+                }
+                deltaPuts.remove(id);
+                deltaDeletes.add(id);
+                markForgotten(id);
+            }
+        } catch (Exception e) {
+            // Delta corrupt — keep the base index rather than crashing
+            LOG.warn("Ignoring unreadable Stratus memory index delta: {}", e.getMessage());
+        }
+    }
+
+    private void markForgotten(String id) {
+        bodyCache.remove(id);
+        forgotten.remove(id);
+        forgotten.add(id);
+        if (forgotten.size() > FORGOTTEN_MAX) {
+            // Oldest first; its body was tombstoned long ago by whichever instance forgot it.
+            String oldest = forgotten.iterator().next();
+            forgotten.remove(oldest);
+        }
+    }
+
+    private List<MemoryEntry> readEntries(String json) {
+        if (json == null || json.isBlank()) {
             return List.of();
         }
         try {
-            return mapper.readValue(indexJson, new TypeReference<List<MemoryEntry>>() {});
+            return List.of(mapper.readValue(json, MemoryEntry[].class));
         } catch (Exception e) {
             // Index corrupt or empty — return empty rather than crashing
             return List.of();
         }
     }
 
-    private List<MemoryEntry> parseSearchResults(String json) {
+    private void index(MemoryEntry entry) {
+        entries.put(entry.id(), entry);
+        idsByDedupeKey.putIfAbsent(dedupeKey(entry.content()), entry.id());
+    }
+
+    private String deltaJson(Iterable<MemoryEntry> puts, Iterable<String> deletes) throws IOException {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("puts", puts);
+        delta.put("deletes", deletes);
+        return mapper.writeValueAsString(delta);
+    }
+
+    private String entryPath(String id) {
+        return vfsBase + "/entries/" + id + ".json";
+    }
+
+    private static String dedupeKey(String content) {
+        return content == null ? "" : content.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private List<MemoryEntry> parseSearchResults(String json) throws IOException {
         if (json == null || json.isBlank() || json.equals("[]")) {
             return List.of();
         }
+        JsonNode root;
         try {
-            JsonNode root = mapper.readTree(json);
-            if (!root.isArray() || root.isEmpty()) {
-                return List.of();
-            }
-            List<MemoryEntry> results = new ArrayList<>();
-            for (JsonNode node : root) {
-                // StratusOS VFS search returns {path, content, score} chunks.
-                // Wrap each chunk as a synthetic MemoryEntry for Cognis.
-                String content = node.has("content") ? node.get("content").asText() : node.toString();
-                String id      = node.has("path")    ? node.get("path").asText()    : UUID.randomUUID().toString();
-                results.add(new MemoryEntry(id, content, List.of(), List.of(), "stratus-vfs", Instant.EPOCH, Instant.EPOCH));
-            }
-            return results;
+            root = mapper.readTree(json);
         } catch (Exception e) {
             return List.of();
         }
+        if (!root.isArray() || root.isEmpty()) {
+            return List.of();
+        }
+        Map<String, MemoryEntry> results = new LinkedHashMap<>();
+        String entriesPrefix = vfsBase + "/entries/";
+        for (JsonNode node : root) {
+            // StratusOS VFS search returns {path, content, score} chunks.
+            String content = node.has("content") ? node.get("content").asText() : node.toString();
+            String path    = node.has("path")    ? node.get("path").asText()    : null;
+            if (path != null && path.startsWith(entriesPrefix) && path.endsWith(".json")) {
+                String id = path.substring(entriesPrefix.length(), path.length() - ".json".length());
+                MemoryEntry stored = storedEntry(id, path);
+                if (stored != null) {
+                    results.putIfAbsent(stored.id(), stored);
+                }
+                continue;
+            }
+            // Any other VFS content: wrap the chunk as a synthetic MemoryEntry for Cognis.
+            String id = path != null ? path : UUID.randomUUID().toString();
+            results.putIfAbsent(id, new MemoryEntry(id, content, List.of(), null, "stratus-vfs", Instant.EPOCH, Instant.EPOCH));
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /** Entry {@code id} from the resident index, else read through the body cache; null if forgotten. */
+    private MemoryEntry storedEntry(String id, String path) throws IOException {
+        synchronized (this) {
+            ensureLoaded();
+            MemoryEntry resident = entries.get(id);
+            if (resident != null || forgotten.contains(id) || unwrittenTombstones.contains(id)) {
+                return resident;
+            }
+            MemoryEntry cached = bodyCache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String body = stratus.vfsRead(path);
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            MemoryEntry entry = mapper.readValue(body, MemoryEntry.class);
+            synchronized (this) {
+                bodyCache.put(id, entry);
+            }
+            return entry;
+        } catch (Exception e) {
+            return null;
+        }
     }
 }
@@ -51,6 +51,15 @@ public class PolicyEnforcedToolRegistry extends ToolRegistry {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Follows the delegate: the policy of this view is fixed, so only registrations in the
+     * delegate change what {@link #all()} returns.
+     */
+    @Override
+    public long version() {
+        return delegate.version();
+    }
+
     /** The vertical name this registry is scoped to — for logging and diagnostics. */
     public String verticalName() {
         return verticalName;
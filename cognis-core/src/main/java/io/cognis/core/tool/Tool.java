@@ -12,4 +12,13 @@ public interface Tool {
     }
 
     String execute(Map<String, Object> input, ToolContext context);
+
+    /**
+     * Whether calls to this tool may run concurrently with each other. Only tools that change
+     * nothing (lookups, fetches) should say yes; a call to any other tool waits for the calls before
+     * it in a model response, and the calls after it wait for it.
+     */
+    default boolean parallelSafe() {
+        return false;
+    }
 }
@@ -0,0 +1,102 @@
+package io.cognis.core.tool;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The function definitions of a registry's tools as sent to providers, frozen at one registry
+ * {@link #version()}.
+ *
+ * <p>The list and every map and list inside it are unmodifiable. The JSON form is rendered once
+ * when the snapshot is built: when Jackson serializes the snapshot as part of a request payload,
+ * it writes that JSON as is instead of walking the schemas again. Providers that reshape the
+ * definitions (Anthropic, Codex) read them like any other list.
+ */
+@JsonSerialize(using = ToolDefinitions.RawJsonSerializer.class)
+public final class ToolDefinitions extends AbstractList<Map<String, Object>> {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final long version;
+    private final List<Map<String, Object>> definitions;
+    private final String json;
+
+    private ToolDefinitions(long version, List<Map<String, Object>> definitions, String json) {
+        this.version = version;
+        this.definitions = definitions;
+        this.json = json;
+    }
+
+    static ToolDefinitions of(long version, Collection<Tool> tools) {
+        List<Map<String, Object>> definitions = new ArrayList<>(tools.size());
+        for (Tool tool : tools) {
+            Map<String, Object> function = new LinkedHashMap<>();
+            function.put("name", tool.name());
+            function.put("description", tool.description());
+            function.put("parameters", tool.schema());
+            Map<String, Object> definition = new LinkedHashMap<>();
+            definition.put("type", "function");
+            definition.put("function", function);
+            definitions.add(definition);
+        }
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> frozen = (List<Map<String, Object>>) freeze(definitions);
+        try {
+            return new ToolDefinitions(version, frozen, MAPPER.writeValueAsString(frozen));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Tool schema is not serializable: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /** The registry version this snapshot was built from. */
+    public long version() {
+        return version;
+    }
+
+    /** The definitions as a JSON array. */
+    public String json() {
+        return json;
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        return definitions.get(index);
+    }
+
+    @Override
+    public int size() {
+        return definitions.size();
+    }
+
+    private static Object freeze(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, nested) -> copy.put(key, freeze(nested)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            collection.forEach(nested -> copy.add(freeze(nested)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    static final class RawJsonSerializer extends JsonSerializer<ToolDefinitions> {
+        @Override
+        public void serialize(ToolDefinitions value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+}
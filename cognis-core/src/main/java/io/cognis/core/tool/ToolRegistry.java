@@ -4,12 +4,16 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ToolRegistry {
     private final Map<String, Tool> tools = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile ToolDefinitions definitions;
 
     public void register(Tool tool) {
         tools.put(tool.name(), tool);
+        version.incrementAndGet();
     }
 
     public Optional<Tool> find(String name) {
@@ -19,4 +23,25 @@ public class ToolRegistry {
     public Collection<Tool> all() {
         return tools.values();
     }
+
+    /** Changes whenever the set of tools visible through {@link #all()} may have changed. */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * The definitions of {@link #all()} for the current {@link #version()}, built once per version
+     * and shared by every run until a tool is registered.
+     */
+    public ToolDefinitions definitions() {
+        long current = version();
+        ToolDefinitions snapshot = definitions;
+        if (snapshot == null || snapshot.version() != current) {
+            // Read the version before the tools: a registration racing with this build leaves the
+            // snapshot one version behind, so the next call rebuilds it rather than missing the tool.
+            snapshot = ToolDefinitions.of(current, all());
+            definitions = snapshot;
+        }
+        return snapshot;
+    }
 }
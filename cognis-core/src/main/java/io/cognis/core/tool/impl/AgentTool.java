@@ -9,11 +9,13 @@ import io.cognis.core.agent.SubagentRegistry;
 import io.cognis.core.agent.SubagentRun;
 import io.cognis.core.agent.SubagentRunHandle;
 import io.cognis.core.agent.TraceContext;
+import io.cognis.core.memory.SharedMemoryStore;
 import io.cognis.core.model.AgentResult;
 import io.cognis.core.model.ChatMessage;
 import io.cognis.core.provider.LlmProvider;
 import io.cognis.core.provider.LlmResponse;
 import io.cognis.core.provider.ProviderRouter;
+import io.cognis.core.session.ConversationStore;
 import io.cognis.core.session.ConversationTurn;
 import io.cognis.core.session.FileConversationStore;
 import io.cognis.core.session.NoOpConversationStore;
@@ -109,7 +111,7 @@ public final class AgentTool implements Tool {
             case "await"     -> handleAwait(input);
             case "await_all" -> handleAwaitAll(input);
             case "steer"     -> handleSteer(input, context);
-            case "kill"      -> handleKill(input);
+            case "kill"      -> handleKill(input, context);
             case "status"    -> handleStatus(input);
             case "create"    -> handleCreate(input, context);
             case "chat"      -> handleChat(input, context);
@@ -161,7 +163,8 @@ public final class AgentTool implements Tool {
 
         AgentSettings settings = new AgentSettings(
             buildSpawnSystemPrompt(role, inputContext),
-            defaultSettings.provider(), resolvedModel, defaultSettings.maxToolIterations()
+            defaultSettings.provider(), resolvedModel, defaultSettings.maxToolIterations(),
+            defaultSettings.maxParallelTools()
         );
         submitChildRun(runId, task, settings, buildChildOrchestrator(tools, context, depth + 1, runId, childTrace), context);
 
@@ -228,17 +231,18 @@ public final class AgentTool implements Tool {
         int depth = (int) context.services().getOrDefault("agentDepth", 0);
         AgentSettings settings = new AgentSettings(
             buildSpawnSystemPrompt(existing.role(), Map.of()),
-            defaultSettings.provider(), existing.model(), defaultSettings.maxToolIterations()
+            defaultSettings.provider(), existing.model(), defaultSettings.maxToolIterations(),
+            defaultSettings.maxParallelTools()
         );
         submitChildRun(runId, newTask, settings, buildChildOrchestrator(null, context, depth + 1, runId, steeredTrace), context);
 
         return toJson(Map.of("runId", runId, "status", "CREATED", "steered", true));
     }
 
-    private String handleKill(Map<String, Object> input) {
+    private String handleKill(Map<String, Object> input, ToolContext context) {
         String runId = str(input.get("runId"));
         if (runId.isBlank()) return toJson(Map.of("error", "runId is required for kill"));
-        return toJson(Map.of("runId", runId, "killed", cascadeKill(runId)));
+        return toJson(Map.of("runId", runId, "killed", cascadeKill(runId, context)));
     }
 
     private String handleStatus(Map<String, Object> input) {
@@ -333,7 +337,8 @@ public final class AgentTool implements Tool {
         );
         AgentResult result = child.run(
             task,
-            new AgentSettings(agent.systemPrompt(), defaultSettings.provider(), resolvedModel, resolvedIterations),
+            new AgentSettings(agent.systemPrompt(), defaultSettings.provider(), resolvedModel, resolvedIterations,
+                defaultSettings.maxParallelTools()),
             context.workspace(),
             priorTurns,
             Map.of("subagent_name", name)
@@ -369,6 +374,11 @@ public final class AgentTool implements Tool {
         String runId, String task, AgentSettings settings,
         AgentOrchestrator child, ToolContext context
     ) {
+        if (context.services().get("sharedMemoryStore") instanceof SharedMemoryStore sharedMemory) {
+            // Before submitting, so the parent cannot finish and expire its namespace first.
+            String parentRunId = subagentRegistry.find(runId).map(SubagentRun::parentRunId).orElse(null);
+            sharedMemory.onRunStarted(runId, parentRunId);
+        }
         Future<AgentResult> future = agentPool.submit(() -> {
             subagentRegistry.markStarted(runId, Thread.currentThread());
             try {
@@ -378,18 +388,44 @@ public final class AgentTool implements Tool {
             } catch (Exception e) {
                 subagentRegistry.markFailed(runId, e.getMessage());
                 throw e;
+            } finally {
+                releaseSharedNamespace(runId, context);
             }
         });
         subagentRegistry.registerHandle(runId, future);
     }
 
-    private int cascadeKill(String runId) {
+    /** Expires the run's shared-memory namespace, unless a steered re-run has taken over the runId. */
+    private void releaseSharedNamespace(String runId, ToolContext context) {
+        SubagentRunHandle handle = subagentRegistry.getHandle(runId);
+        if (handle != null && handle.thread == Thread.currentThread()) {
+            completeSharedNamespace(runId, context);
+        }
+    }
+
+    private void completeSharedNamespace(String runId, ToolContext context) {
+        if (!(context.services().get("sharedMemoryStore") instanceof SharedMemoryStore sharedMemory)) {
+            return;
+        }
+        try {
+            sharedMemory.onRunCompleted(runId);
+        } catch (IOException e) {
+            LOG.warn("Failed to expire shared memory for runId {}: {}", runId, e.getMessage());
+        }
+    }
+
+    private int cascadeKill(String runId, ToolContext context) {
         int count = 0;
         try {
             for (SubagentRun child : subagentRegistry.listByParent(runId)) {
-                count += cascadeKill(child.runId());
+                count += cascadeKill(child.runId(), context);
             }
+            SubagentRunHandle handle = subagentRegistry.getHandle(runId);
             subagentRegistry.markKilled(runId);
+            if (handle != null && handle.thread == null) {
+                // Cancelled before it started: no finally block will complete its namespace.
+                completeSharedNamespace(runId, context);
+            }
             count++;
         } catch (IOException e) {
             LOG.warn("Cascade kill failed for runId {}: {}", runId, e.getMessage());
@@ -448,10 +484,7 @@ public final class AgentTool implements Tool {
     private List<ChatMessage> loadPriorTurns(FileConversationStore store) {
         List<ChatMessage> turns = new ArrayList<>();
         try {
-            List<ConversationTurn> history = store.list();
-            List<ConversationTurn> recent = history.size() > 10
-                ? history.subList(history.size() - 10, history.size()) : history;
-            for (ConversationTurn turn : recent) {
+            for (ConversationTurn turn : store.recentTurns(ConversationStore.DEFAULT_SESSION, 10)) {
                 turns.add(ChatMessage.user(turn.prompt()));
                 turns.add(ChatMessage.assistant(turn.response()));
             }
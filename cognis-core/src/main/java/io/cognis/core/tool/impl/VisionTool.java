@@ -45,6 +45,11 @@ public final class VisionTool implements Tool {
         return "Analyze an image/document file via OpenAI-compatible vision API";
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext context) {
         if (apiUrl.isBlank() || apiKey.isBlank()) {
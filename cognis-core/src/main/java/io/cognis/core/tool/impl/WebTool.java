@@ -39,6 +39,11 @@ public final class WebTool implements Tool {
         return "Web fetch and search with SSRF protections";
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext context) {
         String action = String.valueOf(input.getOrDefault("action", "")).trim();
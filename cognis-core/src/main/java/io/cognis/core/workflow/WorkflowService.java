@@ -231,10 +231,7 @@ public final class WorkflowService {
         if (conversationStore == null) {
             return List.of();
         }
-        return conversationStore.list().stream()
-            .sorted((a, b) -> b.createdAt().compareTo(a.createdAt()))
-            .limit(Math.max(1, max))
-            .toList();
+        return conversationStore.latestTurns(Math.max(1, max)).reversed();
     }
 
     private String pickPerson(UserProfile profile, String personHint) {
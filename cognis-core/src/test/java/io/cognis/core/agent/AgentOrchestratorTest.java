@@ -1,6 +1,7 @@
 package io.cognis.core.agent;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import io.cognis.core.model.ChatMessage;
 import io.cognis.core.model.MessageRole;
@@ -27,6 +28,10 @@ import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.Test;
 
 class AgentOrchestratorTest {
@@ -98,6 +103,74 @@ class AgentOrchestratorTest {
         assertThat(summaryManager.summary).contains("User:");
     }
 
+    @Test
+    void shouldReturnBeforePostTurnWorkAndOrderItPerSession() throws Exception {
+        ProviderRegistry providers = new ProviderRegistry();
+        providers.register(new StubAnswerProvider());
+        CountDownLatch release = new CountDownLatch(1);
+        List<ConversationTurn> turns = new CopyOnWriteArrayList<>();
+        ConversationStore gatedStore = new ConversationStore() {
+            @Override
+            public void append(ConversationTurn turn) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                turns.add(turn);
+            }
+
+            @Override
+            public List<ConversationTurn> list() {
+                return List.copyOf(turns);
+            }
+        };
+        PostTurnQueue queue = new PostTurnQueue();
+        AgentOrchestrator orchestrator = new AgentOrchestrator(
+            new ProviderRouter(providers), new ToolRegistry(), Map.of(), gatedStore, null, queue);
+        AgentSettings settings = new AgentSettings("system", "openrouter", "test-model", 2);
+
+        var result = orchestrator.run("first", settings, Path.of("."), Map.of("client_id", "c1"));
+
+        assertThat(result.content()).isEqualTo("answer");
+        assertThat(turns).isEmpty();
+        assertThat(queue.pending()).isEqualTo(1);
+
+        release.countDown();
+        orchestrator.run("second", settings, Path.of("."), Map.of("client_id", "c1"));
+        queue.close();
+
+        assertThat(turns).extracting(ConversationTurn::prompt).containsExactly("first", "second");
+        assertThat(queue.completed()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldScopeMemoryToTheVerticalClient() {
+        ProviderRegistry providers = new ProviderRegistry();
+        providers.register(new StubAnswerProvider());
+        Map<String, InMemoryMemoryStore> partitions = new java.util.HashMap<>();
+        InMemoryMemoryStore shared = new InMemoryMemoryStore() {
+            @Override
+            public MemoryStore partition(String key) {
+                return partitions.computeIfAbsent(key, ignored -> new InMemoryMemoryStore());
+            }
+        };
+        AgentOrchestrator orchestrator = new AgentOrchestrator(
+            new ProviderRouter(providers), new ToolRegistry(), Map.of("memoryStore", shared));
+        AgentSettings settings = new AgentSettings("system", "openrouter", "test-model", 2);
+
+        orchestrator.run("My name is Thabo.", settings, Path.of("."),
+            Map.of("client_id", "+27820000001", "vertical", "sa-agriculture"));
+        orchestrator.run("My name is Robson.", settings, Path.of("."), Map.of("client_id", "web-1"));
+
+        assertThat(partitions).containsOnlyKeys("sa-agriculture/+27820000001");
+        assertThat(partitions.get("sa-agriculture/+27820000001").entries).extracting(MemoryEntry::content)
+            .anyMatch(content -> content.contains("Thabo"));
+        assertThat(shared.entries).extracting(MemoryEntry::content)
+            .noneMatch(content -> content.contains("Thabo"))
+            .anyMatch(content -> content.contains("Robson"));
+    }
+
     @Test
     void shouldRecordToolEventsWithMcpMetadata() throws Exception {
         ProviderRegistry providers = new ProviderRegistry();
@@ -161,6 +234,247 @@ class AgentOrchestratorTest {
         assertThat(result.content()).contains("could not verify execution");
     }
 
+    @Test
+    void shouldStreamReplyTextAndMarkToolCallsAndRetries() {
+        ProviderRegistry providers = new ProviderRegistry();
+        providers.register(new EchoToolThenAnswerProvider());
+        ToolRegistry tools = new ToolRegistry();
+        tools.register(new EchoTool());
+        AgentOrchestrator orchestrator = new AgentOrchestrator(new ProviderRouter(providers), tools);
+        AgentSettings settings = new AgentSettings("system", "openrouter", "test-model", 4);
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        AgentResult result = orchestrator.run("hello", settings, Path.of("."), Map.of(), recordingListener(events));
+
+        assertThat(result.content()).isEqualTo("final answer");
+        assertThat(events).containsExactly("tools:echo", "delta:final answer");
+
+        ProviderRegistry hallucinating = new ProviderRegistry();
+        hallucinating.register(new HallucinatedActionProvider());
+        events.clear();
+
+        AgentResult guarded = new AgentOrchestrator(new ProviderRouter(hallucinating), new ToolRegistry())
+            .run("Send a text to my wife", settings, Path.of("."), Map.of(), recordingListener(events));
+
+        assertThat(guarded.content()).contains("could not verify execution");
+        assertThat(events).containsExactly(
+            "delta:Done, text sent successfully to your wife.",
+            "discard",
+            "delta:Done, text sent successfully to your wife."
+        );
+    }
+
+    private static AgentStreamListener recordingListener(List<String> events) {
+        return new AgentStreamListener() {
+            @Override
+            public void onTextDelta(String delta) {
+                events.add("delta:" + delta);
+            }
+
+            @Override
+            public void onToolCalls(List<ToolCall> calls) {
+                events.add("tools:" + calls.stream().map(ToolCall::name).reduce((a, b) -> a + "," + b).orElse(""));
+            }
+
+            @Override
+            public void onDiscard() {
+                events.add("discard");
+            }
+        };
+    }
+
+    @Test
+    void shouldRunParallelSafeToolCallsConcurrentlyAndKeepCallOrder() {
+        ProviderRegistry providers = new ProviderRegistry();
+        providers.register(new MultiToolThenAnswerProvider(List.of(
+            new ToolCall("1", "fetch", Map.of("key", "a")),
+            new ToolCall("2", "fetch", Map.of("key", "b")),
+            new ToolCall("3", "write", Map.of("key", "c")),
+            new ToolCall("4", "fetch", Map.of("key", "d")),
+            new ToolCall("5", "fetch", Map.of("key", "e"))
+        )));
+        ToolRegistry tools = new ToolRegistry();
+        SlowTool fetch = new SlowTool("fetch", true);
+        SlowTool write = new SlowTool("write", false);
+        tools.register(fetch);
+        tools.register(write);
+        AgentOrchestrator orchestrator = new AgentOrchestrator(new ProviderRouter(providers), tools);
+
+        long started = System.nanoTime();
+        var result = orchestrator.run("go", new AgentSettings("system", "openrouter", "test-model", 4, 4), Path.of("."));
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(result.transcript()).filteredOn(message -> message.role() == MessageRole.TOOL)
+            .extracting(ChatMessage::content, ChatMessage::toolCallId)
+            .containsExactly(
+                tuple("fetch:a", "1"),
+                tuple("fetch:b", "2"),
+                tuple("write:c", "3"),
+                tuple("fetch:d", "4"),
+                tuple("fetch:e", "5")
+            );
+        // a and b overlap, then the write runs alone, then d and e overlap: three delays, not five.
+        assertThat(fetch.maxConcurrent.get()).isEqualTo(2);
+        assertThat(fetch.order.subList(0, 2)).containsExactlyInAnyOrder("a", "b");
+        assertThat(fetch.order.subList(2, 4)).containsExactlyInAnyOrder("d", "e");
+        assertThat(elapsedMillis).isLessThan(4 * SlowTool.DELAY_MILLIS);
+    }
+
+    @Test
+    void shouldRunAParallelSafeCallOnlyAfterTheSerialCallBeforeIt() {
+        ProviderRegistry providers = new ProviderRegistry();
+        providers.register(new MultiToolThenAnswerProvider(List.of(
+            new ToolCall("1", "save_note", Map.of("key", "pump fixed")),
+            new ToolCall("2", "read_note", Map.of())
+        )));
+        AtomicReference<String> note = new AtomicReference<>("none");
+        ToolRegistry tools = new ToolRegistry();
+        tools.register(new NoteTool("save_note", note));
+        tools.register(new NoteTool("read_note", note));
+        AgentOrchestrator orchestrator = new AgentOrchestrator(new ProviderRouter(providers), tools);
+
+        var result = orchestrator.run("go", new AgentSettings("system", "openrouter", "test-model", 4, 4), Path.of("."));
+
+        assertThat(result.transcript()).filteredOn(message -> message.role() == MessageRole.TOOL)
+            .extracting(ChatMessage::content)
+            .containsExactly("saved", "pump fixed");
+    }
+
+    @Test
+    void shouldRunToolCallsOneAtATimeWithACapOfOne() {
+        ProviderRegistry providers = new ProviderRegistry();
+        providers.register(new MultiToolThenAnswerProvider());
+        ToolRegistry tools = new ToolRegistry();
+        SlowTool fetch = new SlowTool("fetch", true);
+        SlowTool write = new SlowTool("write", false);
+        tools.register(fetch);
+        tools.register(write);
+        AgentOrchestrator orchestrator = new AgentOrchestrator(new ProviderRouter(providers), tools);
+
+        orchestrator.run("go", new AgentSettings("system", "openrouter", "test-model", 4, 1), Path.of("."));
+
+        assertThat(fetch.maxConcurrent.get()).isEqualTo(1);
+        assertThat(fetch.order).containsExactly("a", "c", "e");
+    }
+
+    /** {@code save_note} (serial) stores its key after a delay; {@code read_note} (parallel-safe) returns it. */
+    private static final class NoteTool implements Tool {
+        private final String name;
+        private final AtomicReference<String> note;
+
+        private NoteTool(String name, AtomicReference<String> note) {
+            this.name = name;
+            this.note = note;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String description() {
+            return "Saves or reads a note";
+        }
+
+        @Override
+        public boolean parallelSafe() {
+            return name.startsWith("read");
+        }
+
+        @Override
+        public String execute(Map<String, Object> input, ToolContext context) {
+            if (parallelSafe()) {
+                return note.get();
+            }
+            try {
+                Thread.sleep(SlowTool.DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            note.set(String.valueOf(input.get("key")));
+            return "saved";
+        }
+    }
+
+    private static final class SlowTool implements Tool {
+        static final long DELAY_MILLIS = 200;
+        private final String name;
+        private final boolean parallelSafe;
+        private final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final List<String> order = new CopyOnWriteArrayList<>();
+
+        private SlowTool(String name, boolean parallelSafe) {
+            this.name = name;
+            this.parallelSafe = parallelSafe;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String description() {
+            return "Sleeps, then echoes its key";
+        }
+
+        @Override
+        public boolean parallelSafe() {
+            return parallelSafe;
+        }
+
+        @Override
+        public String execute(Map<String, Object> input, ToolContext context) {
+            String key = String.valueOf(input.get("key"));
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                order.add(key);
+                Thread.sleep(DELAY_MILLIS);
+                return name + ":" + key;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "interrupted";
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class MultiToolThenAnswerProvider implements LlmProvider {
+        private final List<ToolCall> toolCalls;
+        private int calls;
+
+        private MultiToolThenAnswerProvider(List<ToolCall> toolCalls) {
+            this.toolCalls = toolCalls;
+        }
+
+        private MultiToolThenAnswerProvider() {
+            this(List.of(
+                new ToolCall("1", "fetch", Map.of("key", "a")),
+                new ToolCall("2", "write", Map.of("key", "b")),
+                new ToolCall("3", "fetch", Map.of("key", "c")),
+                new ToolCall("4", "write", Map.of("key", "d")),
+                new ToolCall("5", "fetch", Map.of("key", "e"))
+            ));
+        }
+
+        @Override
+        public String name() {
+            return "openrouter";
+        }
+
+        @Override
+        public LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools) {
+            calls++;
+            if (calls == 1) {
+                return new LlmResponse("", toolCalls, Map.of("total_tokens", 12));
+            }
+            return new LlmResponse("done", List.of(), Map.of("total_tokens", 20));
+        }
+    }
+
     private static final class EchoTool implements Tool {
         @Override
         public String name() {
@@ -292,7 +606,7 @@ class AgentOrchestratorTest {
         }
     }
 
-    private static final class InMemoryMemoryStore implements MemoryStore {
+    private static class InMemoryMemoryStore implements MemoryStore {
         private final List<MemoryEntry> entries = new java.util.ArrayList<>();
 
         @Override
@@ -301,7 +615,7 @@ class AgentOrchestratorTest {
                 String.valueOf(entries.size() + 1),
                 content,
                 tags,
-                List.of(),
+                null,
                 source,
                 Instant.now(),
                 Instant.now()
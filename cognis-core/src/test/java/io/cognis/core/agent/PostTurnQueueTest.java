@@ -0,0 +1,129 @@
+package io.cognis.core.agent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PostTurnQueueTest {
+
+    @Test
+    void shouldRunTasksOfOneSessionInOrder() {
+        PostTurnQueue queue = new PostTurnQueue();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            queue.submit("client-1", () -> {
+                if (n % 7 == 0) {
+                    sleep(2);
+                }
+                order.add(n);
+            });
+        }
+        queue.awaitSession("client-1", Duration.ofSeconds(5));
+
+        assertThat(order).hasSize(50).isSorted();
+        queue.close();
+    }
+
+    @Test
+    void shouldNotHoldOneSessionBehindAnother() throws Exception {
+        PostTurnQueue queue = new PostTurnQueue();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        queue.submit("slow", () -> await(release));
+        queue.submit("fast", otherDone::countDown);
+
+        assertThat(otherDone.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        queue.close();
+        assertThat(queue.completed()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBlockSubmittersWhenFull() throws Exception {
+        PostTurnQueue queue = new PostTurnQueue(2);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit("a", () -> await(release));
+        queue.submit("b", () -> await(release));
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> {
+            queue.submit("c", () -> { });
+            submitted.countDown();
+        });
+
+        assertThat(submitted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(queue.pending()).isEqualTo(2);
+        release.countDown();
+        assertThat(submitted.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.close();
+        assertThat(queue.pending()).isZero();
+    }
+
+    @Test
+    void shouldDrainOnCloseAndRunLaterTasksInline() {
+        PostTurnQueue queue = new PostTurnQueue();
+        List<String> done = new CopyOnWriteArrayList<>();
+        queue.submit("a", () -> {
+            sleep(50);
+            done.add("queued");
+        });
+        queue.close(Duration.ofSeconds(5));
+
+        assertThat(done).containsExactly("queued");
+        queue.submit("a", () -> done.add("inline"));
+        assertThat(done).containsExactly("queued", "inline");
+    }
+
+    @Test
+    void shouldTrackQueueLagAndSurviveFailingTasks() {
+        PostTurnQueue queue = new PostTurnQueue();
+        queue.submit("a", () -> sleep(30));
+        queue.submit("a", () -> {
+            throw new IllegalStateException("boom");
+        });
+        queue.submit("a", () -> { });
+        queue.close();
+
+        assertThat(queue.completed()).isEqualTo(3);
+        assertThat(queue.maxLag()).isGreaterThanOrEqualTo(Duration.ofMillis(25));
+        assertThat(queue.maxLag()).isGreaterThanOrEqualTo(queue.lastLag());
+    }
+
+    @Test
+    void shouldKeepRunningASessionAfterATaskThrowsAnError() {
+        PostTurnQueue queue = new PostTurnQueue(2);
+        List<String> done = new CopyOnWriteArrayList<>();
+        queue.submit("a", () -> {
+            throw new LinkageError("native library missing");
+        });
+        for (int i = 0; i < 5; i++) {
+            queue.submit("a", () -> done.add("next"));
+        }
+        queue.awaitSession("a", Duration.ofSeconds(5));
+
+        assertThat(done).hasSize(5);
+        assertThat(queue.pending()).isZero();
+        queue.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.cognis.core.contact;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.cognis.core.model.ChatMessage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SqliteContactStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldKeepTheLastTurnsOfEachContactInARing() throws Exception {
+        Path db = tempDir.resolve(".cognis/contacts.db");
+        try (SqliteContactStore store = new SqliteContactStore(db)) {
+            for (int i = 0; i < 25; i++) {
+                store.appendTurn("+256700000001", ChatMessage.user("q" + i), ChatMessage.assistant("a" + i), 10);
+            }
+            store.appendTurn("+256700000002", ChatMessage.user("hello"), ChatMessage.assistant("hi"), 10);
+
+            assertThat(store.recentHistory("+256700000001", 3)).extracting(ChatMessage::content)
+                .containsExactly("q22", "a22", "q23", "a23", "q24", "a24");
+            assertThat(store.recentHistory("+256700000001", 50)).hasSize(20).first()
+                .extracting(ChatMessage::content).isEqualTo("q15");
+            assertThat(store.recentHistory("+256700000002", 10)).extracting(ChatMessage::content)
+                .containsExactly("hello", "hi");
+            assertThat(store.recentHistory("+256700000003", 10)).isEmpty();
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db);
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM contact_turns WHERE phone = '+256700000001'")) {
+            assertThat(rows.getInt(1)).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void shouldTrackAliasAndChannel() throws Exception {
+        try (SqliteContactStore store = new SqliteContactStore(tempDir.resolve("contacts.db"))) {
+            assertThat(store.findOrCreate("+256700000001").alias()).isEmpty();
+
+            store.updateAlias("+256700000001", "Amara", "whatsapp");
+            store.appendTurn("+256700000001", ChatMessage.user("q"), ChatMessage.assistant("a"), 10);
+
+            Contact contact = store.findOrCreate("+256700000001");
+            assertThat(contact.alias()).isEqualTo("Amara");
+            assertThat(contact.preferredChannel()).isEqualTo("whatsapp");
+            assertThat(contact.history()).extracting(ChatMessage::content).containsExactly("q", "a");
+        }
+    }
+
+    @Test
+    void shouldImportAFileContactStore() throws Exception {
+        Path json = tempDir.resolve("contacts.json");
+        FileContactStore file = new FileContactStore(json);
+        for (int i = 0; i < 15; i++) {
+            file.appendTurn("+256700000001", ChatMessage.user("q" + i), ChatMessage.assistant("a" + i), 12);
+        }
+        file.updateAlias("+256700000001", "Amara", "sms");
+
+        try (SqliteContactStore store = new SqliteContactStore(tempDir.resolve("contacts.db"))) {
+            assertThat(store.importFile(json)).isEqualTo(1);
+            assertThat(json).doesNotExist();
+            assertThat(Files.exists(tempDir.resolve("contacts.json.migrated"))).isTrue();
+            assertThat(store.findOrCreate("+256700000001").alias()).isEqualTo("Amara");
+            assertThat(store.recentHistory("+256700000001", 50)).hasSize(24);
+
+            // A smaller cap applies from the next turn on without losing the newest imported ones.
+            store.appendTurn("+256700000001", ChatMessage.user("q15"), ChatMessage.assistant("a15"), 10);
+            assertThat(store.recentHistory("+256700000001", 50)).extracting(ChatMessage::content)
+                .hasSize(20).startsWith("q6").endsWith("a15");
+        }
+    }
+
+    @Test
+    void concurrentContactsShouldNotLoseTurns() throws Exception {
+        try (SqliteContactStore store = new SqliteContactStore(tempDir.resolve("contacts.db"))) {
+            List<Future<?>> writes = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int contact = 0; contact < 8; contact++) {
+                    String phone = "+25670000000" + contact;
+                    writes.add(executor.submit(() -> {
+                        for (int i = 0; i < 5; i++) {
+                            store.appendTurn(phone, ChatMessage.user("q" + i), ChatMessage.assistant("a" + i), 10);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> write : writes) {
+                    write.get();
+                }
+            }
+            for (int contact = 0; contact < 8; contact++) {
+                assertThat(store.recentHistory("+25670000000" + contact, 10)).hasSize(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CachingEmbeddingProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldServeRepeatsFromMemoryAndCountHitsAndMisses() throws Exception {
+        CountingProvider delegate = new CountingProvider("model-a", 4);
+        CachingEmbeddingProvider cache = new CachingEmbeddingProvider(delegate, tempDir.resolve("cache.bin"));
+
+        float[] first = cache.embed("When should I dip cattle?");
+        float[] second = cache.embed("  When should I   dip cattle? ");
+
+        assertThat(second).containsExactly(first);
+        assertThat(delegate.calls).containsExactly("When should I dip cattle?");
+        assertThat(cache.memoryHits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldReloadVectorsFromDiskTier() throws Exception {
+        Path file = tempDir.resolve("cache.bin");
+        float[] original = new CachingEmbeddingProvider(new CountingProvider("model-a", 4), file).embed("maize price");
+
+        CountingProvider delegate = new CountingProvider("model-a", 4);
+        CachingEmbeddingProvider reopened = new CachingEmbeddingProvider(delegate, file);
+
+        assertThat(reopened.embed("maize price")).containsExactly(original);
+        assertThat(reopened.diskHits()).isEqualTo(1);
+        assertThat(delegate.calls).isEmpty();
+    }
+
+    @Test
+    void shouldKeyByModel() throws Exception {
+        Path file = tempDir.resolve("cache.bin");
+        new CachingEmbeddingProvider(new CountingProvider("model-a", 4), file).embed("rainfall");
+
+        CountingProvider other = new CountingProvider("model-b", 4);
+        new CachingEmbeddingProvider(other, file).embed("rainfall");
+
+        assertThat(other.calls).containsExactly("rainfall");
+    }
+
+    @Test
+    void shouldSendOnlyMissesOfABatchToDelegate() throws Exception {
+        CountingProvider delegate = new CountingProvider("model-a", 4);
+        CachingEmbeddingProvider cache = new CachingEmbeddingProvider(delegate, null, 100, 100);
+        float[] known = cache.embed("goats");
+
+        List<float[]> vectors = cache.embedBatch(List.of("sheep", "goats", "chickens"));
+
+        assertThat(delegate.batches).containsExactly(List.of("sheep", "chickens"));
+        assertThat(vectors.get(1)).containsExactly(known);
+        assertThat(vectors.get(0)).containsExactly(delegate.vectorFor("sheep"));
+    }
+
+    @Test
+    void shouldNotCacheFallbackVectorsOfAnotherDimension() throws Exception {
+        CountingProvider delegate = new CountingProvider("model-a", 4) {
+            @Override
+            public float[] embed(String text) {
+                calls.add(text);
+                return new float[] {1f, 0f};
+            }
+        };
+        CachingEmbeddingProvider cache = new CachingEmbeddingProvider(delegate, tempDir.resolve("cache.bin"));
+
+        cache.embed("offline");
+        cache.embed("offline");
+
+        assertThat(delegate.calls).hasSize(2);
+    }
+
+    @Test
+    void shouldNotCacheAFallbackReturnedBeforeTheDimensionIsKnown() throws Exception {
+        RecoveringProvider delegate = new RecoveringProvider();
+        Path file = tempDir.resolve("cache.bin");
+        CachingEmbeddingProvider cache = new CachingEmbeddingProvider(delegate, file);
+
+        float[] degraded = cache.embed("first answer");
+        delegate.online = true;
+        float[] recovered = cache.embed("first answer");
+        float[] cached = new CachingEmbeddingProvider(delegate, file).embed("first answer");
+
+        assertThat(degraded).hasSize(2);
+        assertThat(recovered).hasSize(4);
+        assertThat(cached).containsExactly(recovered);
+        assertThat(delegate.calls).containsExactly("first answer", "first answer");
+    }
+
+    @Test
+    void shouldEvictOldestDiskEntriesAtTheCap() throws Exception {
+        Path file = tempDir.resolve("cache.bin");
+        CachingEmbeddingProvider cache = new CachingEmbeddingProvider(new CountingProvider("model-a", 4), file, 1, 4);
+        for (String text : List.of("one", "two", "three", "four", "five")) {
+            cache.embed(text);
+        }
+
+        CountingProvider delegate = new CountingProvider("model-a", 4);
+        CachingEmbeddingProvider reopened = new CachingEmbeddingProvider(delegate, file, 10, 4);
+        for (String text : List.of("two", "three", "four", "five", "one")) {
+            assertThat(reopened.embed(text)).containsExactly(delegate.vectorFor(text));
+        }
+
+        assertThat(delegate.calls).containsExactly("one");
+    }
+
+    @Test
+    void shouldDropTornTrailingRecordOnOpen() throws Exception {
+        Path file = tempDir.resolve("cache.bin");
+        new CachingEmbeddingProvider(new CountingProvider("model-a", 4), file).embed("borehole");
+        long intact = Files.size(file);
+        Files.write(file, new byte[] {9, 0, 'm'}, StandardOpenOption.APPEND);
+
+        CountingProvider delegate = new CountingProvider("model-a", 4);
+        CachingEmbeddingProvider reopened = new CachingEmbeddingProvider(delegate, file);
+        reopened.embed("borehole");
+        reopened.embed("windmill");
+
+        assertThat(delegate.calls).containsExactly("windmill");
+        assertThat(Files.size(file)).isGreaterThan(intact);
+        assertThat(new CachingEmbeddingProvider(new CountingProvider("model-a", 4), file).embed("windmill"))
+            .containsExactly(delegate.vectorFor("windmill"));
+    }
+
+    /** Like a remote provider: falls back while offline and learns its dimension from the first answer. */
+    private static final class RecoveringProvider extends CountingProvider {
+        boolean online;
+        private int learned;
+
+        RecoveringProvider() {
+            super("model-a", 4);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            calls.add(text);
+            if (!online) {
+                return new float[] {1f, 0f};
+            }
+            learned = 4;
+            return vectorFor(text);
+        }
+
+        @Override
+        public int dimension() {
+            return learned;
+        }
+    }
+
+    private static class CountingProvider implements EmbeddingProvider {
+        final List<String> calls = new ArrayList<>();
+        final List<List<String>> batches = new ArrayList<>();
+        private final String model;
+        private final int dimension;
+
+        CountingProvider(String model, int dimension) {
+            this.model = model;
+            this.dimension = dimension;
+        }
+
+        @Override
+        public float[] embed(String text) {
+            calls.add(text);
+            return vectorFor(text);
+        }
+
+        @Override
+        public List<float[]> embedBatch(List<String> texts) {
+            batches.add(List.copyOf(texts));
+            return texts.stream().map(this::vectorFor).toList();
+        }
+
+        @Override
+        public String model() {
+            return model;
+        }
+
+        @Override
+        public int dimension() {
+            return dimension;
+        }
+
+        float[] vectorFor(String text) {
+            float[] vector = new float[dimension];
+            vector[Math.floorMod(text.hashCode(), dimension)] = 1f;
+            vector[0] += text.length();
+            return vector;
+        }
+    }
+}
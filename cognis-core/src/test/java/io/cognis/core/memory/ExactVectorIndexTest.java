@@ -0,0 +1,74 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExactVectorIndexTest {
+
+    private static final int DIM = 24;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReturnTrueTopKAcrossParallelScan() throws Exception {
+        int count = ExactVectorIndex.PARALLEL_THRESHOLD + 3 * ExactVectorIndex.BLOCK_SLOTS + 7;
+        Random random = new Random(23);
+        VectorFile vectors = new VectorFile(tempDir.resolve("v.vec"));
+        for (int slot = 0; slot < count; slot++) {
+            vectors.write(slot, randomVector(random));
+        }
+        BitSet live = new BitSet();
+        live.set(0, count);
+        live.clear(1_000, 2_000);
+        ExactVectorIndex index = new ExactVectorIndex(vectors);
+        index.open(live, new long[0]);
+
+        float[] query = randomVector(random);
+        List<VectorIndex.Match> matches = index.search(query, 10);
+
+        List<Integer> expected = IntStream.range(0, count)
+            .filter(live::get)
+            .boxed()
+            .sorted(Comparator.comparingDouble((Integer slot) -> vectors.dot(slot, query)).reversed())
+            .limit(10)
+            .toList();
+        assertThat(matches).extracting(VectorIndex.Match::slot).containsExactlyElementsOf(expected);
+        assertThat(matches.getFirst().score()).isCloseTo(vectors.dot(expected.getFirst(), query), within(1e-4));
+    }
+
+    @Test
+    void shouldSkipRemovedSlotsAndPickUpRewrittenOnes() throws Exception {
+        VectorFile vectors = new VectorFile(tempDir.resolve("v.vec"));
+        vectors.write(0, new float[] {1f, 0f});
+        vectors.write(1, new float[] {0f, 1f});
+        ExactVectorIndex index = new ExactVectorIndex(vectors);
+        index.add(0, 1);
+        index.add(1, 2);
+
+        index.remove(0);
+        assertThat(index.search(new float[] {1f, 0f}, 2)).extracting(VectorIndex.Match::slot).containsExactly(1);
+
+        vectors.write(0, new float[] {0.6f, 0.8f});
+        index.add(0, 3);
+        assertThat(index.search(new float[] {0f, 1f}, 1).getFirst().slot()).isEqualTo(1);
+        assertThat(index.search(new float[] {1f, 0f}, 1).getFirst().slot()).isEqualTo(0);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIM];
+        for (int i = 0; i < DIM; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -1,9 +1,22 @@
 package io.cognis.core.memory;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -26,4 +39,480 @@ class FileMemoryStoreTest {
         assertThat(store.forget(entry.id())).isTrue();
         assertThat(store.count()).isZero();
     }
+
+    @Test
+    void shouldRankTagMatchesAboveContentMatches() throws Exception {
+        FileMemoryStore store = new FileMemoryStore(tempDir.resolve("memories.json"));
+        store.remember("Asked about location of the nearest depot", "agent", List.of("fact"));
+        MemoryEntry tagged = store.remember("Lives near Polokwane", "agent", List.of("profile", "location"));
+
+        var recalled = store.recall("location", 5);
+
+        assertThat(recalled).isNotEmpty();
+        assertThat(recalled.getFirst().id()).isEqualTo(tagged.id());
+    }
+
+    @Test
+    void shouldNotRecallForgottenEntries() throws Exception {
+        FileMemoryStore store = new FileMemoryStore(tempDir.resolve("memories.json"));
+        MemoryEntry entry = store.remember("Borehole pump needs repair", "agent", List.of("task"));
+        store.forget(entry.id());
+
+        assertThat(store.recall("borehole pump", 5)).isEmpty();
+    }
+
+    @Test
+    void shouldAppendToLogAndReplayOnRestart() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        MemoryEntry kept = store.remember("Farm is in Limpopo", "agent", List.of("profile"));
+        MemoryEntry dropped = store.remember("Prefers morning calls", "agent", List.of("preference"));
+        store.forget(dropped.id());
+
+        assertThat(Files.exists(path)).isFalse();
+        assertThat(Files.readAllLines(path.resolveSibling("memories.json.log"))).hasSize(3);
+
+        FileMemoryStore reopened = new FileMemoryStore(path);
+        assertThat(reopened.list()).extracting(MemoryEntry::id).containsExactly(kept.id());
+        assertThat(reopened.remember("farm is in limpopo", "agent", List.of()).id()).isEqualTo(kept.id());
+    }
+
+    @Test
+    void shouldFoldLogIntoSnapshotOnCompaction() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        store.remember("Maize planted in October", "agent", List.of("fact"));
+        MemoryEntry removed = store.remember("Borehole is dry", "agent", List.of("fact"));
+        store.forget(removed.id());
+
+        store.compact();
+
+        assertThat(Files.exists(path)).isTrue();
+        assertThat(Files.exists(path.resolveSibling("memories.json.log"))).isFalse();
+        assertThat(Files.exists(path.resolveSibling("memories.json.log.1"))).isFalse();
+        store.remember("Cattle dipped on Fridays", "agent", List.of("fact"));
+
+        FileMemoryStore reopened = new FileMemoryStore(path);
+        assertThat(reopened.list()).extracting(MemoryEntry::content)
+            .containsExactlyInAnyOrder("Maize planted in October", "Cattle dipped on Fridays");
+    }
+
+    @Test
+    void shouldFinishInterruptedCompactionOnLoad() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        store.remember("Sells milk to the co-op", "agent", List.of("fact"));
+        Files.move(path.resolveSibling("memories.json.log"), path.resolveSibling("memories.json.log.1"));
+
+        FileMemoryStore reopened = new FileMemoryStore(path);
+        assertThat(reopened.count()).isEqualTo(1);
+        reopened.compact();
+        assertThat(Files.exists(path.resolveSibling("memories.json.log.1"))).isFalse();
+        assertThat(new FileMemoryStore(path).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipTornTrailingRecord() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        new FileMemoryStore(path).remember("Uses drip irrigation", "agent", List.of("fact"));
+        Files.writeString(path.resolveSibling("memories.json.log"), "{\"op\":\"put\",\"entry\":{\"id\":",
+            StandardOpenOption.APPEND);
+
+        FileMemoryStore reopened = new FileMemoryStore(path);
+        assertThat(reopened.count()).isEqualTo(1);
+        reopened.remember("Owns two tractors", "agent", List.of("fact"));
+
+        assertThat(new FileMemoryStore(path).count()).isEqualTo(2);
+        assertThat(Files.readString(path.resolveSibling("memories.json.log"))).doesNotContain("{\"id\":\n");
+    }
+
+    @Test
+    void shouldSkipAnUnreadableRecordInTheMiddleOfTheLogAndKeepTheRest() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        Path log = path.resolveSibling("memories.json.log");
+        new FileMemoryStore(path).remember("Uses drip irrigation", "agent", List.of("fact"));
+        Files.writeString(log, "not a record\n", StandardOpenOption.APPEND);
+        new FileMemoryStore(path).remember("Owns two tractors", "agent", List.of("fact"));
+
+        assertThat(new FileMemoryStore(path).list()).extracting(MemoryEntry::content)
+            .containsExactlyInAnyOrder("Uses drip irrigation", "Owns two tractors");
+    }
+
+    @Test
+    void shouldQuarantineAnUnreadableSnapshotInsteadOfOverwritingIt() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        store.remember("Uses drip irrigation", "agent", List.of("fact"));
+        store.compact();
+        store.remember("Owns two tractors", "agent", List.of("fact"));
+        Files.writeString(path, "[{\"op\":\"put\",\"entry\":{\"id\":");
+
+        FileMemoryStore reopened = new FileMemoryStore(path);
+        assertThat(reopened.list()).extracting(MemoryEntry::content).containsExactly("Owns two tractors");
+        reopened.compact();
+
+        try (var siblings = Files.list(tempDir)) {
+            Path quarantined = siblings
+                .filter(p -> p.getFileName().toString().startsWith("memories.json.corrupt-"))
+                .findFirst().orElseThrow();
+            assertThat(Files.readString(quarantined)).startsWith("[{\"op\":\"put\"");
+        }
+    }
+
+    @Test
+    void shouldEmbedRememberAllInOneBatch() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        HashEmbeddingProvider hash = new HashEmbeddingProvider();
+        EmbeddingProvider provider = new EmbeddingProvider() {
+            @Override
+            public float[] embed(String text) {
+                return hash.embed(text);
+            }
+
+            @Override
+            public List<float[]> embedBatch(List<String> texts) throws IOException {
+                batches.incrementAndGet();
+                return EmbeddingProvider.super.embedBatch(texts);
+            }
+        };
+        FileMemoryStore store = new FileMemoryStore(tempDir.resolve("memories.json"), provider);
+        MemoryEntry existing = store.remember("Speaks isiZulu at home", "agent", List.of("profile"));
+
+        List<MemoryEntry> stored = store.rememberAll(List.of(
+            new ExtractedMemory("Has 12 beehives", List.of("fact")),
+            new ExtractedMemory("speaks isizulu at home", List.of()),
+            new ExtractedMemory("Sells honey in Durban", List.of("fact")),
+            new ExtractedMemory("has 12 beehives", List.of())
+        ), "agent_loop");
+
+        assertThat(batches).hasValue(2);
+        assertThat(store.count()).isEqualTo(3);
+        assertThat(stored.get(1).id()).isEqualTo(existing.id());
+        assertThat(stored.get(3).id()).isEqualTo(stored.get(0).id());
+        assertThat(store.recall("honey", 1).getFirst().id()).isEqualTo(stored.get(2).id());
+    }
+
+    @Test
+    void shouldLeaveFallbackVectorsOutInsteadOfResettingTheStore() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        Path vectorPath = tempDir.resolve("memories.json.vec");
+        RemoteLikeProvider provider = new RemoteLikeProvider("remote-a");
+        FileMemoryStore store = new FileMemoryStore(path, provider, VectorIndexType.EXACT);
+        store.remember("Grows sorghum near Gulu", "agent", List.of("fact"));
+        store.remember("Sells honey in Durban", "agent", List.of("fact"));
+        long vectorBytes = Files.size(vectorPath);
+
+        provider.degraded = true;
+        store.remember("Owns two tractors", "agent", List.of("fact"));
+        store.compact();
+
+        assertThat(Files.size(vectorPath)).isEqualTo(vectorBytes);
+        assertThat(Files.readString(path).split("\"slot\"", -1)).hasSize(3);
+        // The failing entry is backed off rather than re-embedded on every attempt.
+        assertThat(store.backfillVectors()).isZero();
+
+        FileMemoryStore reopened = new FileMemoryStore(path, new RemoteLikeProvider("remote-a"), VectorIndexType.EXACT);
+        assertThat(reopened.backfillVectors()).isEqualTo(1);
+        assertThat(reopened.recall("tractors", 1)).extracting(MemoryEntry::content).containsExactly("Owns two tractors");
+    }
+
+    @Test
+    void shouldCancelBackfillAndRejectWritesOnceClosed() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        CountDownLatch backfillStarted = new CountDownLatch(1);
+        CountDownLatch releaseBackfill = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        EmbeddingProvider provider = new EmbeddingProvider() {
+            @Override
+            public float[] embed(String text) throws IOException {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IOException("provider down");
+                }
+                backfillStarted.countDown();
+                try {
+                    releaseBackfill.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return new HashEmbeddingProvider().embed(text);
+            }
+        };
+        FileMemoryStore store = new FileMemoryStore(path, provider, VectorIndexType.EXACT);
+        store.remember("Grows sorghum near Gulu", "agent", List.of("fact"));
+        assertThat(backfillStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        store.close();
+        releaseBackfill.countDown();
+        Thread.sleep(200);
+
+        // The cancelled backfill wrote no slot after the final snapshot.
+        assertThat(Files.readString(path)).doesNotContain("\"slot\"");
+        assertThat(Files.exists(tempDir.resolve("memories.json.log"))).isFalse();
+        assertThatThrownBy(() -> store.remember("Sells honey in Durban", "agent", List.of()))
+            .isInstanceOf(IOException.class);
+        assertThat(store.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotBlockOtherCallersWhileARecallEmbedsItsQuery() throws Exception {
+        CountDownLatch queryEmbedding = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        EmbeddingProvider provider = new EmbeddingProvider() {
+            @Override
+            public float[] embed(String text) throws IOException {
+                if (text.contains("sorghum")) {
+                    queryEmbedding.countDown();
+                    try {
+                        releaseQuery.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return new HashEmbeddingProvider().embed(text);
+            }
+        };
+        FileMemoryStore store = new FileMemoryStore(tempDir.resolve("memories.json"), provider, VectorIndexType.EXACT);
+        store.remember("Sells honey in Durban", "agent", List.of("fact"));
+        Thread recall = Thread.ofVirtual().start(() -> {
+            try {
+                store.recall("who grows sorghum", 5);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(queryEmbedding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CountDownLatch served = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> {
+            try {
+                store.remember("Keeps goats in Mbarara", "agent", List.of("fact"));
+                if (store.recall("honey", 5).size() == 1) {
+                    served.countDown();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(served.await(2, TimeUnit.SECONDS)).isTrue();
+        releaseQuery.countDown();
+        recall.join();
+        assertThat(store.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRebuildVectorsWhenTheRecordedModelChanges() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path, new RemoteLikeProvider("remote-a"), VectorIndexType.EXACT);
+        store.remember("Grows sorghum near Gulu", "agent", List.of("fact"));
+        store.remember("Sells honey in Durban", "agent", List.of("fact"));
+
+        FileMemoryStore switched = new FileMemoryStore(path, new RemoteLikeProvider("remote-b"), VectorIndexType.EXACT);
+
+        assertThat(switched.count()).isEqualTo(2);
+        assertThat(Files.readString(path)).doesNotContain("\"slot\"");
+        assertThat(switched.backfillVectors()).isEqualTo(2);
+        assertThat(new FileMemoryStore(path, new RemoteLikeProvider("remote-b"), VectorIndexType.EXACT).backfillVectors())
+            .isZero();
+    }
+
+    @Test
+    void shouldKeepVectorsOutOfJsonMetadata() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        MemoryEntry entry = store.remember("Grows sorghum near Gulu", "agent", List.of("fact"));
+        store.compact();
+
+        assertThat(entry.embedding()).isNull();
+        assertThat(Files.readString(path)).doesNotContain("embedding").contains("\"slot\"");
+        assertThat(Files.size(path.resolveSibling("memories.json.vec")))
+            .isGreaterThanOrEqualTo(16L + HashEmbeddingProvider.DIM * Float.BYTES);
+        assertThat(new FileMemoryStore(path).recall("sorghum", 5)).extracting(MemoryEntry::id)
+            .containsExactly(entry.id());
+    }
+
+    @Test
+    void shouldPersistVectorIndexAndRecallTheSameWithExactSearch() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        store.remember("Goats kept in the northern kraal", "agent", List.of("fact"));
+        MemoryEntry target = store.remember("Tomato seedlings transplanted last week", "agent", List.of("task"));
+        store.remember("Prefers voice notes over text", "agent", List.of("preference"));
+        store.compact();
+
+        assertThat(Files.exists(path.resolveSibling("memories.json.hnsw"))).isTrue();
+        FileMemoryStore approximate = new FileMemoryStore(path);
+        FileMemoryStore exact = new FileMemoryStore(path, new HashEmbeddingProvider(), VectorIndexType.EXACT);
+        assertThat(approximate.recall("tomato seedlings", 2).getFirst().id()).isEqualTo(target.id());
+        assertThat(exact.recall("tomato seedlings", 2)).extracting(MemoryEntry::id)
+            .containsExactlyElementsOf(approximate.recall("tomato seedlings", 2).stream().map(MemoryEntry::id).toList());
+    }
+
+    @Test
+    void shouldRecallWithQuantizedVectorsAfterRestart() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path, new HashEmbeddingProvider(), VectorIndexType.QUANTIZED);
+        store.remember("Goats kept in the northern kraal", "agent", List.of("fact"));
+        MemoryEntry target = store.remember("Tomato seedlings transplanted last week", "agent", List.of("task"));
+        store.compact();
+
+        assertThat(Files.exists(path.resolveSibling("memories.json.q8"))).isTrue();
+        FileMemoryStore reopened = new FileMemoryStore(path, new HashEmbeddingProvider(), VectorIndexType.QUANTIZED);
+        assertThat(reopened.recall("tomato seedlings", 1)).extracting(MemoryEntry::id).containsExactly(target.id());
+        assertThat(VectorIndexType.parse("int8")).isEqualTo(VectorIndexType.QUANTIZED);
+    }
+
+    @Test
+    void shouldMigrateInlineEmbeddingsIntoVectorFile() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        float[] vector = new HashEmbeddingProvider().embed("Prefers Sesotho replies preference");
+        StringBuilder inline = new StringBuilder();
+        for (float v : vector) {
+            inline.append(inline.isEmpty() ? "" : ",").append(v);
+        }
+        Files.writeString(path, """
+            [ { "id" : "legacy-2", "content" : "Prefers Sesotho replies", "tags" : [ "preference" ],
+                "embedding" : [ %s ], "source" : "agent_loop",
+                "createdAt" : 1700000000.000000000, "updatedAt" : 1700000000.000000000 } ]
+            """.formatted(inline));
+
+        FileMemoryStore store = new FileMemoryStore(path);
+        assertThat(store.recall("Sesotho", 5)).extracting(MemoryEntry::id).containsExactly("legacy-2");
+        store.compact();
+
+        assertThat(Files.readString(path)).doesNotContain("embedding");
+        assertThat(Files.exists(path.resolveSibling("memories.json.vec"))).isTrue();
+        assertThat(new FileMemoryStore(path).list().getFirst().embedding()).isNull();
+    }
+
+    @Test
+    void shouldLoadLegacyWholeFileStore() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        Files.writeString(path, """
+            [ {
+              "id" : "legacy-1",
+              "content" : "User name is Thabo",
+              "tags" : [ "profile", "name" ],
+              "embedding" : [ ],
+              "source" : "agent_loop",
+              "createdAt" : 1700000000.000000000,
+              "updatedAt" : 1700000000.000000000
+            } ]
+            """);
+
+        FileMemoryStore store = new FileMemoryStore(path);
+
+        assertThat(store.recall("Thabo", 5)).extracting(MemoryEntry::id).containsExactly("legacy-1");
+        assertThat(store.forget("legacy-1")).isTrue();
+        assertThat(new FileMemoryStore(path).count()).isZero();
+    }
+
+    @Test
+    void shouldCountRecallHitsAndPersistThemOnCompaction() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        MemoryEntry entry = store.remember("Borehole pump serviced in March", "agent", List.of("fact"));
+
+        store.recall("borehole pump", 5);
+        MemoryEntry recalled = store.recall("borehole", 5).getFirst();
+        store.recall("", 5);
+        store.compact();
+
+        assertThat(recalled.recallCount()).isEqualTo(2);
+        MemoryEntry reloaded = new FileMemoryStore(path).list().getFirst();
+        assertThat(reloaded.id()).isEqualTo(entry.id());
+        assertThat(reloaded.recallCount()).isEqualTo(2);
+        assertThat(reloaded.lastRecalledAt()).isCloseTo(recalled.lastRecalledAt(), within(1, ChronoUnit.MILLIS));
+        assertThat(Files.readString(path)).doesNotContain("lastUsedAt");
+    }
+
+    @Test
+    void shouldExpireLapsedEntriesButKeepPinnedAndUntagged() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        store.remember("Collect vaccine order from the co-op", "agent", List.of("task"));
+        MemoryEntry pinned = store.remember("Name is Thabo", "agent", List.of("profile", "task"));
+        MemoryEntry untagged = store.remember("Farm borders the river", "agent", List.of());
+        store.remember("47 people at site 3", "shared", List.of("shared:run-1:count"));
+
+        var result = store.consolidate(MemoryRetentionPolicy.defaults(), Instant.now().plus(Duration.ofDays(31)));
+
+        assertThat(result.expired()).isEqualTo(1);
+        assertThat(new FileMemoryStore(path).list()).extracting(MemoryEntry::id)
+            .contains(pinned.id(), untagged.id())
+            .hasSize(3);
+    }
+
+    @Test
+    void shouldMergeNearDuplicatesIntoTheNewestEntry() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        // Both phrasings embed identically regardless of their tags.
+        HashEmbeddingProvider hash = new HashEmbeddingProvider();
+        EmbeddingProvider embeddings = text -> hash.embed(text.contains("Sesotho") ? "sesotho replies" : text);
+        FileMemoryStore store = new FileMemoryStore(path, embeddings);
+        MemoryEntry older = store.remember("Prefers replies in Sesotho", "agent", List.of("preference"));
+        store.recall("Sesotho replies", 5);
+        Thread.sleep(5);
+        MemoryEntry newer = store.remember("Prefers replies in Sesotho.", "agent", List.of("language"));
+        MemoryEntry unrelated = store.remember("Herd of 40 Nguni cattle", "agent", List.of("fact"));
+
+        var result = store.consolidate(MemoryRetentionPolicy.defaults(), Instant.now());
+
+        assertThat(result.merged()).isEqualTo(1);
+        List<MemoryEntry> remaining = new FileMemoryStore(path, embeddings).list();
+        assertThat(remaining).extracting(MemoryEntry::id).containsExactlyInAnyOrder(newer.id(), unrelated.id());
+        MemoryEntry merged = remaining.stream().filter(e -> e.id().equals(newer.id())).findFirst().orElseThrow();
+        assertThat(merged.content()).isEqualTo(newer.content());
+        assertThat(merged.tags()).containsExactlyInAnyOrder("language", "preference");
+        assertThat(merged.recallCount()).isEqualTo(1);
+        assertThat(merged.createdAt()).isCloseTo(older.createdAt(), within(1, ChronoUnit.MILLIS));
+        assertThat(new FileMemoryStore(path, embeddings).recall("Sesotho", 5)).extracting(MemoryEntry::id)
+            .containsExactly(newer.id());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntriesBeyondTheCap() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        FileMemoryStore store = new FileMemoryStore(path);
+        MemoryEntry stale = store.remember("Old note about fencing wire", "agent", List.of("preference"));
+        MemoryEntry recalled = store.remember("Dip tank refilled with acaricide", "agent", List.of("preference"));
+        MemoryEntry profile = store.remember("Lives near Polokwane", "agent", List.of("profile"));
+        Thread.sleep(5);
+        store.recall("acaricide dip tank", 1);
+
+        var policy = new MemoryRetentionPolicy(Map.of(), Set.of("profile"), 2.0, 2);
+        var result = store.consolidate(policy, Instant.now());
+
+        assertThat(result.evicted()).isEqualTo(1);
+        assertThat(new FileMemoryStore(path).list()).extracting(MemoryEntry::id)
+            .containsExactlyInAnyOrder(recalled.id(), profile.id())
+            .doesNotContain(stale.id());
+    }
+
+    /** Reports an 8-dimensional model; degraded, it returns 256-dimensional hash vectors instead. */
+    private static final class RemoteLikeProvider implements EmbeddingProvider {
+        private static final int DIM = 8;
+        private final HashEmbeddingProvider hash = new HashEmbeddingProvider();
+        private final String model;
+        private volatile boolean degraded;
+
+        RemoteLikeProvider(String model) {
+            this.model = model;
+        }
+
+        @Override
+        public float[] embed(String text) {
+            float[] full = hash.embed(text);
+            return degraded ? full : java.util.Arrays.copyOf(full, DIM);
+        }
+
+        @Override
+        public String model() {
+            return model;
+        }
+
+        @Override
+        public int dimension() {
+            return DIM;
+        }
+    }
 }
@@ -1,10 +1,13 @@
 package io.cognis.core.memory;
 
-import org.junit.jupiter.api.Test;
-
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class HashEmbeddingProviderTest {
 
@@ -12,36 +15,35 @@ class HashEmbeddingProviderTest {
 
     @Test
     void embeddingHasCorrectDimension() throws Exception {
-        List<Double> embedding = provider.embed("consignment arrived Gulu");
+        float[] embedding = provider.embed("consignment arrived Gulu");
         assertThat(embedding).hasSize(HashEmbeddingProvider.DIM);
     }
 
     @Test
     void embeddingIsNormalised() throws Exception {
-        List<Double> v = provider.embed("supply tracking tool activated");
-        double norm = v.stream().mapToDouble(d -> d * d).sum();
-        assertThat(norm).isCloseTo(1.0, org.assertj.core.data.Offset.offset(1e-9));
+        float[] v = provider.embed("supply tracking tool activated");
+        assertThat(norm(v)).isCloseTo(1.0, org.assertj.core.data.Offset.offset(1e-6));
     }
 
     @Test
     void sameInputProducesSameEmbedding() throws Exception {
-        List<Double> a = provider.embed("morning briefing USAID");
-        List<Double> b = provider.embed("morning briefing USAID");
+        float[] a = provider.embed("morning briefing USAID");
+        float[] b = provider.embed("morning briefing USAID");
         assertThat(a).isEqualTo(b);
     }
 
     @Test
     void differentInputsProduceDifferentEmbeddings() throws Exception {
-        List<Double> a = provider.embed("overdue shipment alert");
-        List<Double> b = provider.embed("payment invoice received");
+        float[] a = provider.embed("overdue shipment alert");
+        float[] b = provider.embed("payment invoice received");
         assertThat(a).isNotEqualTo(b);
     }
 
     @Test
     void similarTextsHaveHigherCosineSimilarityThanDissimilar() throws Exception {
-        List<Double> supply1 = provider.embed("supply consignment dispatched warehouse");
-        List<Double> supply2 = provider.embed("consignment delivered warehouse receipt");
-        List<Double> unrelated = provider.embed("quarterly budget review finance");
+        float[] supply1 = provider.embed("supply consignment dispatched warehouse");
+        float[] supply2 = provider.embed("consignment delivered warehouse receipt");
+        float[] unrelated = provider.embed("quarterly budget review finance");
 
         double simRelated    = cosine(supply1, supply2);
         double simUnrelated  = cosine(supply1, unrelated);
@@ -51,15 +53,116 @@ class HashEmbeddingProviderTest {
 
     @Test
     void emptyStringProducesZeroVector() throws Exception {
-        List<Double> v = provider.embed("");
-        double norm = v.stream().mapToDouble(d -> d * d).sum();
-        assertThat(norm).isCloseTo(0.0, org.assertj.core.data.Offset.offset(1e-9));
+        float[] v = provider.embed("");
+        assertThat(norm(v)).isCloseTo(0.0, org.assertj.core.data.Offset.offset(1e-9));
+    }
+
+    @Test
+    void stopWordsAndSingleCharactersAreIgnoredCaseInsensitively() {
+        assertThat(provider.embed("The Borehole is DRY")).isEqualTo(provider.embed("borehole dry"));
+        assertThat(norm(provider.embed("a I THE of 7"))).isCloseTo(0.0, org.assertj.core.data.Offset.offset(1e-9));
+    }
+
+    @Test
+    void embedIntoOverwritesTargetFromAnyCharSequence() {
+        float[] target = provider.embed("stale vector contents");
+        provider.embedInto(new StringBuilder("morning briefing USAID"), target);
+
+        assertThat(target).isEqualTo(provider.embed("morning briefing USAID"));
+        assertThatThrownBy(() -> provider.embedInto("x", new float[3])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void trigramsBringMisspellingsCloser() {
+        HashEmbeddingProvider trigrams = new HashEmbeddingProvider(true);
+        String written = "Mwalimu ameondoka shuleni Kisumu";
+        String misspelt = "mwalim ameondoka shulen kisumuu";
+
+        assertThat(cosine(trigrams.embed(written), trigrams.embed(misspelt)))
+            .isGreaterThan(cosine(provider.embed(written), provider.embed(misspelt)) + 0.2);
+        assertThat(norm(trigrams.embed(written))).isCloseTo(1.0, org.assertj.core.data.Offset.offset(1e-6));
+        assertThat(trigrams.model()).isNotEqualTo(provider.model());
+    }
+
+    /**
+     * Word-only vectors must stay identical to the original regex tokenizer so existing stores
+     * and caches remain valid.
+     */
+    @Test
+    void matchesRegexTokenizer() {
+        for (String text : TEXTS) {
+            assertThat(provider.embed(text)).as(text).isEqualTo(regexEmbed(text));
+        }
+    }
+
+    /** Timing against the regex tokenizer, printed for comparison; run with {@code -Pbenchmarks}. */
+    @Test
+    @Tag("benchmark")
+    void reportsThroughputAgainstRegexTokenizer() {
+        int iterations = 200_000;
+        float[] target = new float[HashEmbeddingProvider.DIM];
+        long sink = 0;
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long started = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += regexEmbed(TEXTS.get(i % 3)).length;
+            }
+            long regexNanos = System.nanoTime() - started;
+            started = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                provider.embedInto(TEXTS.get(i % 3), target);
+                sink += target.length;
+            }
+            long scanNanos = System.nanoTime() - started;
+            if (warmup == 1) {
+                System.out.printf("hash embed: regex %.0f ops/ms, scanning %.0f ops/ms%n",
+                    iterations / (regexNanos / 1e6), iterations / (scanNanos / 1e6));
+            }
+        }
+        assertThat(sink).isPositive();
+    }
+
+    private static final List<String> TEXTS = List.of(
+        "Consignment #4471 arrived at Gulu warehouse; 12 pallets, 2 damaged.",
+        "My name is Robson and I prefer concise answers in Sesotho.",
+        "Truck-2 delayed by floods near Kisumu -- ETA 14:30, driver: +254 700 000 000",
+        "  ", "UPPER lower MiXeD 42x 0"
+    );
+
+    private static final Set<String> REGEX_STOP_WORDS = Set.of(
+        "a", "an", "the", "and", "or", "is", "are", "was", "were", "to", "of",
+        "in", "for", "on", "with", "at", "by", "from", "it", "this", "that",
+        "these", "those", "be", "been", "being", "as", "if", "but", "not", "no",
+        "you", "your", "we", "our", "they", "their", "he", "she", "his", "her"
+    );
+
+    /** The tokenizer this provider used before it scanned the text in place. */
+    private static float[] regexEmbed(String text) {
+        float[] vector = new float[HashEmbeddingProvider.DIM];
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (token.length() > 1 && !REGEX_STOP_WORDS.contains(token)) {
+                vector[Math.floorMod(token.hashCode(), HashEmbeddingProvider.DIM)] += 1.0f;
+            }
+        }
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; norm > 0 && i < vector.length; i++) {
+            vector[i] = (float) (vector[i] / norm);
+        }
+        return vector;
+    }
+
+    private static double norm(float[] v) {
+        return cosine(v, v);
     }
 
-    private static double cosine(List<Double> a, List<Double> b) {
+    private static double cosine(float[] a, float[] b) {
         double dot = 0.0;
-        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
-            dot += a.get(i) * b.get(i);
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
         }
         return dot;
     }
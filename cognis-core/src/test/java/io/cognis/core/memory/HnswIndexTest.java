@@ -0,0 +1,199 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HnswIndexTest {
+
+    private static final int DIM = 32;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMatchExactSearchOnMostNeighbours() throws Exception {
+        VectorFile vectors = fill(new VectorFile(tempDir.resolve("v.vec")), 3_000, new Random(7));
+        HnswIndex hnsw = new HnswIndex(vectors, tempDir.resolve("v.hnsw"));
+        ExactVectorIndex exact = new ExactVectorIndex(vectors);
+        for (int slot = 0; slot < 3_000; slot++) {
+            hnsw.add(slot, slot);
+            exact.add(slot, slot);
+        }
+
+        assertThat(recallAt10(hnsw, exact, new Random(11))).isGreaterThan(0.9);
+    }
+
+    @Test
+    void shouldNeverReturnRemovedSlots() throws Exception {
+        VectorFile vectors = fill(new VectorFile(tempDir.resolve("v.vec")), 500, new Random(3));
+        HnswIndex index = new HnswIndex(vectors, tempDir.resolve("v.hnsw"));
+        for (int slot = 0; slot < 500; slot++) {
+            index.add(slot, slot);
+        }
+        for (int slot = 0; slot < 500; slot += 2) {
+            index.remove(slot);
+        }
+
+        assertThat(index.size()).isEqualTo(250);
+        Random random = new Random(5);
+        for (int q = 0; q < 50; q++) {
+            List<VectorIndex.Match> matches = index.search(randomUnit(random), 10);
+            assertThat(matches).hasSize(10);
+            assertThat(matches).allSatisfy(match -> assertThat(match.slot() % 2).isEqualTo(1));
+        }
+        // The exact best match of a stored vector is itself.
+        assertThat(index.search(vectors.read(101), 1).getFirst().slot()).isEqualTo(101);
+    }
+
+    @Test
+    void shouldPersistAndReconcileWithLiveSlots() throws Exception {
+        VectorFile vectors = fill(new VectorFile(tempDir.resolve("v.vec")), 400, new Random(9));
+        Path graph = tempDir.resolve("v.hnsw");
+        HnswIndex index = new HnswIndex(vectors, graph);
+        for (int slot = 0; slot < 300; slot++) {
+            index.add(slot, slot);
+        }
+        index.save();
+        assertThat(Files.size(graph)).isPositive();
+
+        BitSet live = new BitSet();
+        live.set(100, 400);
+        HnswIndex reopened = new HnswIndex(vectors, graph);
+        assertThat(reopened.open(live, generations(400))).isEqualTo(299);
+
+        assertThat(reopened.size()).isEqualTo(300);
+        assertThat(reopened.search(vectors.read(350), 1).getFirst().slot()).isEqualTo(350);
+        assertThat(reopened.search(vectors.read(50), 20)).allSatisfy(match -> assertThat(match.slot()).isGreaterThanOrEqualTo(100));
+    }
+
+    @Test
+    void shouldWriteTheGraphAsOfTheSnapshot() throws Exception {
+        VectorFile vectors = fill(new VectorFile(tempDir.resolve("v.vec")), 200, new Random(21));
+        Path graph = tempDir.resolve("v.hnsw");
+        HnswIndex index = new HnswIndex(vectors, graph);
+        for (int slot = 0; slot < 100; slot++) {
+            index.add(slot, slot);
+        }
+        VectorIndex.Snapshot snapshot = index.snapshot();
+        for (int slot = 100; slot < 200; slot++) {
+            index.add(slot, slot);
+        }
+        for (int slot = 0; slot < 50; slot++) {
+            index.remove(slot);
+        }
+        snapshot.write();
+
+        HnswIndex reopened = new HnswIndex(vectors, graph);
+        BitSet live = new BitSet();
+        live.set(0, 100);
+        assertThat(reopened.open(live, generations(100))).isEqualTo(99);
+        assertThat(reopened.size()).isEqualTo(100);
+        assertThat(reopened.search(vectors.read(10), 1).getFirst().slot()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRebuildFromLiveSlotsWhenGraphIsUnreadable() throws Exception {
+        VectorFile vectors = fill(new VectorFile(tempDir.resolve("v.vec")), 100, new Random(1));
+        Path graph = tempDir.resolve("v.hnsw");
+        Files.writeString(graph, "not a graph");
+        BitSet live = new BitSet();
+        live.set(0, 100);
+
+        HnswIndex index = new HnswIndex(vectors, graph);
+        assertThat(index.open(live, generations(100))).isZero();
+
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.search(vectors.read(42), 1).getFirst().slot()).isEqualTo(42);
+    }
+
+    @Test
+    void shouldRelinkSlotsReusedSinceTheGraphWasSaved() throws Exception {
+        Random random = new Random(13);
+        VectorFile vectors = fill(new VectorFile(tempDir.resolve("v.vec")), 2_000, random);
+        Path graph = tempDir.resolve("v.hnsw");
+        HnswIndex index = new HnswIndex(vectors, graph);
+        long[] generations = generations(2_000);
+        for (int slot = 0; slot < 2_000; slot++) {
+            index.add(slot, generations[slot]);
+        }
+        index.save();
+
+        // Freed and refilled after the save: live both times, but now holding other vectors.
+        long next = 2_000;
+        for (int slot = 0; slot < 2_000; slot += 20) {
+            vectors.write(slot, randomUnit(random));
+            generations[slot] = next++;
+        }
+        BitSet live = new BitSet();
+        live.set(0, 2_000);
+        HnswIndex reopened = new HnswIndex(vectors, graph);
+        reopened.open(live, generations);
+
+        for (int slot = 0; slot < 2_000; slot += 20) {
+            assertThat(reopened.search(vectors.read(slot), 1).getFirst().slot()).isEqualTo(slot);
+        }
+        assertThat(recallAt10(reopened, exactOver(vectors, 2_000), new Random(17))).isGreaterThan(0.9);
+    }
+
+    private static long[] generations(int count) {
+        long[] generations = new long[count];
+        for (int slot = 0; slot < count; slot++) {
+            generations[slot] = slot;
+        }
+        return generations;
+    }
+
+    private static ExactVectorIndex exactOver(VectorFile vectors, int count) {
+        ExactVectorIndex exact = new ExactVectorIndex(vectors);
+        for (int slot = 0; slot < count; slot++) {
+            exact.add(slot, slot);
+        }
+        return exact;
+    }
+
+    private static double recallAt10(VectorIndex approximate, VectorIndex exact, Random random) {
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomUnit(random);
+            Set<Integer> truth = new HashSet<>();
+            exact.search(query, 10).forEach(match -> truth.add(match.slot()));
+            for (VectorIndex.Match match : approximate.search(query, 10)) {
+                if (truth.contains(match.slot())) {
+                    found++;
+                }
+            }
+        }
+        return found / (queries * 10.0);
+    }
+
+    private static VectorFile fill(VectorFile vectors, int count, Random random) throws Exception {
+        for (int slot = 0; slot < count; slot++) {
+            vectors.write(slot, randomUnit(random));
+        }
+        return vectors;
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] vector = new float[DIM];
+        double norm = 0;
+        for (int i = 0; i < DIM; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < DIM; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
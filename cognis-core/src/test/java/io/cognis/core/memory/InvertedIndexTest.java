@@ -0,0 +1,58 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InvertedIndexTest {
+
+    @Test
+    void onlyDocumentsWithMatchingPostingsAreScored() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("a", List.of("maize", "planted", "october"), List.of("fact"));
+        index.add("b", List.of("cattle", "dipped", "fridays"), List.of("fact"));
+
+        Map<String, Double> scores = index.score(List.of("maize"));
+
+        assertThat(scores).containsOnlyKeys("a");
+    }
+
+    @Test
+    void rarerTermsScoreHigherThanCommonOnes() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("a", List.of("farmer", "borehole"), List.of());
+        index.add("b", List.of("farmer", "tractor"), List.of());
+        index.add("c", List.of("farmer", "goats"), List.of());
+
+        Map<String, Double> scores = index.score(List.of("farmer", "borehole"));
+
+        assertThat(scores.get("a")).isGreaterThan(scores.get("b"));
+        assertThat(scores.get("b")).isEqualTo(scores.get("c"));
+    }
+
+    @Test
+    void tagMatchesAreBoosted() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("content", List.of("location", "polokwane"), List.of("fact"));
+        index.add("tagged", List.of("lives", "polokwane"), List.of("location"));
+
+        Map<String, Double> scores = index.score(List.of("location"));
+
+        assertThat(scores.get("tagged")).isGreaterThan(scores.get("content"));
+    }
+
+    @Test
+    void removedDocumentsDropOutOfPostings() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("a", List.of("maize", "maize"), List.of("crop"));
+        index.add("b", List.of("maize"), List.of());
+
+        index.remove("a", List.of("maize", "maize"), List.of("crop"));
+
+        assertThat(index.documents()).isEqualTo(1);
+        assertThat(index.score(List.of("maize"))).containsOnlyKeys("b");
+        assertThat(index.score(List.of("crop"))).isEmpty();
+    }
+}
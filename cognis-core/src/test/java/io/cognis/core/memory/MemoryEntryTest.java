@@ -0,0 +1,27 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MemoryEntryTest {
+
+    private static final Instant AT = Instant.parse("2026-03-01T08:00:00Z");
+
+    @Test
+    void shouldCompareEmbeddingsByContent() {
+        MemoryEntry entry = entry(new float[] {0.5f, -1f});
+        MemoryEntry same = entry(new float[] {0.5f, -1f});
+
+        assertThat(entry).isEqualTo(same).hasSameHashCodeAs(same);
+        assertThat(entry).isNotEqualTo(entry(new float[] {0.5f, 1f}));
+        assertThat(entry).isNotEqualTo(entry.withoutEmbedding());
+        assertThat(entry.toString()).contains("embedding=[0.5, -1.0]");
+    }
+
+    private static MemoryEntry entry(float[] embedding) {
+        return new MemoryEntry("m-1", "Dip cattle every 14 days", List.of("livestock"), embedding, "user", AT, AT);
+    }
+}
@@ -0,0 +1,105 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs real inference on two tiny models in {@code src/test/resources/onnx}: a 9-token vocabulary
+ * embedded into 4 dimensions by a single Gather, without and with a ReduceMean that emits a
+ * {@code sentence_embedding}. The {@code [PAD]} row is non-zero, so padding that leaks into the
+ * mean shows up in the vectors.
+ */
+class OnnxEmbeddingProviderTest {
+
+    @Test
+    void shouldTokenizeRunAndPoolOverTheAttentionMask(@TempDir Path dir) throws Exception {
+        Path model = modelDir(dir, "tiny-token-embeddings.onnx");
+        try (OnnxEmbeddingProvider provider = new OnnxEmbeddingProvider(model, 1, 16)) {
+            // [CLS] borehole pump ##s dry [SEP], and [CLS] water [SEP] padded to the same length.
+            List<float[]> vectors = provider.embedBatch(List.of("Borehole pumps DRY", "water"));
+
+            assertThat(vectors.get(0)).containsExactly(unit(7, 3, 4, 4), within(1e-6f));
+            assertThat(vectors.get(1)).containsExactly(unit(1, 5, 0, 0), within(1e-6f));
+            assertThat(provider.dimension()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void shouldUseTheSentenceEmbeddingOutputWhenTheModelHasOne(@TempDir Path dir) throws Exception {
+        Path model = modelDir(dir, "tiny-sentence-embedding.onnx");
+        try (OnnxEmbeddingProvider provider = new OnnxEmbeddingProvider(model, 1, 16)) {
+            // "leaks" is not in the vocabulary: [CLS] borehole [UNK] [SEP].
+            assertThat(provider.embed("borehole leaks")).containsExactly(unit(5, 1, 0, 1), within(1e-6f));
+            assertThat(provider.embed("Borehole pumps dry")).containsExactly(unit(7, 3, 4, 4), within(1e-6f));
+        }
+    }
+
+    @Test
+    void shouldNameTheModelByItsContentNotJustItsDirectory(@TempDir Path dir) throws Exception {
+        Path first = modelDir(Files.createDirectories(dir.resolve("a/minilm")), "tiny-token-embeddings.onnx");
+        Path same = modelDir(Files.createDirectories(dir.resolve("b/minilm")), "tiny-token-embeddings.onnx");
+        Path other = modelDir(Files.createDirectories(dir.resolve("c/minilm")), "tiny-sentence-embedding.onnx");
+
+        try (OnnxEmbeddingProvider a = new OnnxEmbeddingProvider(first, 1, 16);
+             OnnxEmbeddingProvider b = new OnnxEmbeddingProvider(same, 1, 16);
+             OnnxEmbeddingProvider c = new OnnxEmbeddingProvider(other, 1, 16)) {
+            assertThat(a.model()).startsWith("onnx:minilm:").isEqualTo(b.model());
+            assertThat(c.model()).startsWith("onnx:minilm:").isNotEqualTo(a.model());
+        }
+    }
+
+    @Test
+    void shouldMeanPoolOnlyAttendedTokens() {
+        float[][][] tokens = {
+            {{1, 2}, {3, 4}, {100, 100}},
+            {{2, 0}, {0, 2}, {4, 4}}
+        };
+        long[][] mask = {{1, 1, 0}, {1, 1, 1}};
+
+        float[][] pooled = OnnxEmbeddingProvider.meanPool(tokens, mask);
+
+        assertThat(pooled[0]).containsExactly(2, 3);
+        assertThat(pooled[1]).containsExactly(2, 2);
+    }
+
+    @Test
+    void shouldRequireModelAndVocabulary(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("vocab.txt"), "[UNK]\n[CLS]\n[SEP]\n");
+
+        assertThatThrownBy(() -> new OnnxEmbeddingProvider(dir))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("model.onnx");
+    }
+
+    private static Path modelDir(Path dir, String model) throws IOException {
+        try (InputStream onnx = resource(model); InputStream vocab = resource("vocab.txt")) {
+            Files.copy(onnx, dir.resolve("model.onnx"));
+            Files.copy(vocab, dir.resolve("vocab.txt"));
+        }
+        return dir;
+    }
+
+    private static InputStream resource(String name) {
+        return OnnxEmbeddingProviderTest.class.getResourceAsStream("/onnx/" + name);
+    }
+
+    private static float[] unit(float... vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (vector[i] / Math.sqrt(norm));
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,116 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpenAiCompatEmbeddingProviderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<JsonNode> requestBodies = new CopyOnWriteArrayList<>();
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        // Embeds each input as [input length, 1]; results are returned in reverse order.
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    JsonNode body = MAPPER.readTree(request.getBody().readUtf8());
+                    requestBodies.add(body);
+                    JsonNode input = body.get("input");
+                    StringBuilder data = new StringBuilder();
+                    for (int i = input.size() - 1; i >= 0; i--) {
+                        data.append(data.isEmpty() ? "" : ",")
+                            .append("{\"index\":").append(i)
+                            .append(",\"embedding\":[").append(input.get(i).asText().length()).append(",1]}");
+                    }
+                    return new MockResponse().setBody("{\"data\":[" + data + "]}");
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(400);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void shouldEmbedBatchInOneRequestInInputOrder() throws Exception {
+        OpenAiCompatEmbeddingProvider provider = provider(Duration.ZERO, 1);
+
+        List<float[]> vectors = provider.embedBatch(List.of("a", "bbb", "cc"));
+
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(1f, 3f, 2f);
+        assertThat(requestBodies).hasSize(1);
+        assertThat(requestBodies.getFirst().get("model").asText()).isEqualTo("test-embed");
+        assertThat(requestBodies.getFirst().get("input")).hasSize(3);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentSingleEmbedCalls() throws Exception {
+        OpenAiCompatEmbeddingProvider provider = provider(Duration.ofSeconds(5), 8);
+        ConcurrentHashMap<String, Float> results = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(8);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            String text = "x".repeat(i);
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    results.put(text, provider.embed(text)[0]);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        for (int i = 1; i <= 8; i++) {
+            assertThat(results.get("x".repeat(i))).isEqualTo((float) i);
+        }
+    }
+
+    @Test
+    void shouldFallBackToHashEmbeddingWhenEndpointFails() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(503);
+            }
+        });
+        OpenAiCompatEmbeddingProvider provider = provider(Duration.ofMillis(1), 4);
+
+        assertThat(provider.embed("offline")).containsExactly(new HashEmbeddingProvider().embed("offline"));
+    }
+
+    private OpenAiCompatEmbeddingProvider provider(Duration window, int maxBatch) {
+        return new OpenAiCompatEmbeddingProvider(
+            server.url("/v1/embeddings").toString(), "sk-test", "test-embed", window, maxBatch);
+    }
+}
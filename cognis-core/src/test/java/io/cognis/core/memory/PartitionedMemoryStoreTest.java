@@ -0,0 +1,125 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PartitionedMemoryStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PartitionedMemoryStore open(int maxOpen) {
+        return new PartitionedMemoryStore(
+            tempDir.resolve("memory/memories.json"),
+            path -> new FileMemoryStore(path, new HashEmbeddingProvider(), VectorIndexType.EXACT),
+            maxOpen
+        );
+    }
+
+    @Test
+    void shouldKeepClientsApartFromEachOtherAndFromTheRoot() throws Exception {
+        PartitionedMemoryStore store = open(8);
+        store.partition("sa-agriculture/+27820000001").remember("Maize planted on the north field", "agent", List.of("fact"));
+        store.partition("sa-agriculture/+27820000002").remember("Sorghum planted near the river", "agent", List.of("fact"));
+        store.remember("Workspace owner prefers short answers", "agent", List.of("profile"));
+
+        assertThat(store.partition("sa-agriculture/+27820000001").recall("planted field", 5))
+            .extracting(MemoryEntry::content).containsExactly("Maize planted on the north field");
+        assertThat(store.recall("planted", 5)).isEmpty();
+        assertThat(store.count()).isEqualTo(1);
+        assertThat(store.partition(" ")).isSameAs(store);
+        assertThat(store.partitionKeys()).containsExactly("sa-agriculture/+27820000001", "sa-agriculture/+27820000002");
+        assertThat(Files.exists(tempDir.resolve("memory/partitions/sa-agriculture~002f~002b27820000001/memories.json.log"))).isTrue();
+    }
+
+    @Test
+    void shouldEvictColdPartitionsAndReloadThemFromDisk() throws Exception {
+        PartitionedMemoryStore store = open(2);
+        for (int client = 0; client < 5; client++) {
+            store.partition("humanitarian/" + client).remember("Site " + client + " needs water", "agent", List.of());
+        }
+
+        assertThat(store.openPartitions()).isEqualTo(2);
+        assertThat(store.partition("humanitarian/0").list()).extracting(MemoryEntry::content).containsExactly("Site 0 needs water");
+        assertThat(open(2).partition("humanitarian/3").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCloseEveryOpenPartitionIntoItsSnapshot() throws Exception {
+        PartitionedMemoryStore store = open(4);
+        store.partition("humanitarian/0").remember("Site 0 needs water", "agent", List.of());
+        store.remember("Workspace owner prefers short answers", "agent", List.of());
+
+        store.close();
+
+        assertThat(Files.exists(store.pathFor("humanitarian/0"))).isTrue();
+        assertThat(Files.exists(tempDir.resolve("memory/partitions/humanitarian~002f0/memories.json.log"))).isFalse();
+        assertThat(open(4).partition("humanitarian/0").count()).isEqualTo(1);
+        assertThat(open(4).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeManyClientsConcurrently() throws Exception {
+        PartitionedMemoryStore store = open(4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int client = 0; client < 16; client++) {
+                String key = "sa-agriculture/" + client;
+                Callable<Integer> writes = () -> {
+                    MemoryStore partition = store.partition(key);
+                    for (int i = 0; i < 10; i++) {
+                        partition.remember("Client " + key + " reading " + i, "agent", List.of());
+                    }
+                    return partition.count();
+                };
+                results.add(executor.submit(writes));
+            }
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(10);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int client = 0; client < 16; client++) {
+            assertThat(store.partition("sa-agriculture/" + client).count()).isEqualTo(10);
+        }
+        assertThat(store.openPartitions()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void shouldConsolidateEveryPartition() throws Exception {
+        PartitionedMemoryStore store = open(1);
+        store.partition("a").remember("Truck 2 is delayed", "agent", List.of("task"));
+        store.partition("b").remember("Truck 3 is delayed", "agent", List.of("task"));
+        store.partition("b").remember("Clinic opens at eight", "agent", List.of("fact"));
+
+        FileMemoryStore.ConsolidationResult result = store.consolidate(
+            MemoryRetentionPolicy.defaults(), Instant.now().plus(60, ChronoUnit.DAYS));
+
+        assertThat(result.expired()).isEqualTo(2);
+        assertThat(result.remaining()).isEqualTo(1);
+        assertThat(store.partition("a").count()).isZero();
+    }
+
+    @Test
+    void shouldEncodeKeysReversiblyIntoOneSafeSegment() {
+        String key = "sa-agriculture/+27 82/../x";
+        String encoded = PartitionedMemoryStore.encode(key);
+
+        assertThat(encoded).matches("[A-Za-z0-9_~-]+");
+        assertThat(PartitionedMemoryStore.decode(encoded)).isEqualTo(key);
+    }
+}
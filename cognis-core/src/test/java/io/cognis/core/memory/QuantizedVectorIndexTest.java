@@ -0,0 +1,180 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuantizedVectorIndexTest {
+
+    private static final int DIM = 384;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Recall evaluation: embeddings drawn around topic centroids (as real memories cluster by
+     * subject), scored against the exact top 10. Both passes have a floor, so a regression in
+     * either the quantizer or the re-rank depth fails the build.
+     */
+    @Test
+    void shouldKeepRecallWithinReachOfExactSearch() throws Exception {
+        Random random = new Random(29);
+        float[][] centroids = new float[40][];
+        for (int c = 0; c < centroids.length; c++) {
+            centroids[c] = randomUnit(random);
+        }
+        VectorFile vectors = new VectorFile(tempDir.resolve("v.vec"));
+        int count = 5_000;
+        for (int slot = 0; slot < count; slot++) {
+            vectors.write(slot, around(centroids[random.nextInt(centroids.length)], random));
+        }
+        BitSet live = new BitSet();
+        live.set(0, count);
+        ExactVectorIndex exact = new ExactVectorIndex(vectors);
+        exact.open(live, new long[0]);
+        QuantizedVectorIndex quantized = new QuantizedVectorIndex(vectors, tempDir.resolve("v.q8"));
+        quantized.open(live, new long[0]);
+
+        List<float[]> queries = new ArrayList<>();
+        for (int q = 0; q < 100; q++) {
+            queries.add(around(centroids[random.nextInt(centroids.length)], random));
+        }
+        double firstPass = recallAt10(exact, queries, quantized::searchQuantized);
+        double reranked = recallAt10(exact, queries, quantized::search);
+
+        assertThat(firstPass).isGreaterThanOrEqualTo(0.95);
+        assertThat(reranked).isGreaterThanOrEqualTo(0.98).isGreaterThanOrEqualTo(firstPass);
+        assertThat(Files.size(tempDir.resolve("v.q8")) * 3).isLessThan(Files.size(tempDir.resolve("v.vec")));
+    }
+
+    @Test
+    void shouldReturnExactScoresAndSkipRemovedSlots() throws Exception {
+        Random random = new Random(31);
+        VectorFile vectors = new VectorFile(tempDir.resolve("v.vec"));
+        QuantizedVectorIndex index = new QuantizedVectorIndex(vectors, tempDir.resolve("v.q8"));
+        for (int slot = 0; slot < 300; slot++) {
+            vectors.write(slot, randomUnit(random));
+            index.add(slot, slot);
+        }
+        for (int slot = 0; slot < 300; slot += 3) {
+            index.remove(slot);
+        }
+
+        float[] query = vectors.read(100);
+        List<VectorIndex.Match> matches = index.search(query, 10);
+
+        assertThat(matches).hasSize(10);
+        assertThat(matches.getFirst().slot()).isEqualTo(100);
+        assertThat(matches).allSatisfy(match -> {
+            assertThat(match.slot() % 3).isNotZero();
+            assertThat(match.score()).isCloseTo(vectors.dot(match.slot(), query), within(1e-6));
+        });
+    }
+
+    @Test
+    void shouldRebuildCodesOnOpenAndDropThemOnClear() throws Exception {
+        Random random = new Random(37);
+        VectorFile vectors = new VectorFile(tempDir.resolve("v.vec"));
+        for (int slot = 0; slot < 50; slot++) {
+            vectors.write(slot, randomUnit(random));
+        }
+        Path codes = tempDir.resolve("v.q8");
+        Files.writeString(codes, "stale");
+        BitSet live = new BitSet();
+        live.set(10, 50);
+
+        QuantizedVectorIndex index = new QuantizedVectorIndex(vectors, codes);
+        index.open(live, new long[0]);
+
+        assertThat(index.search(vectors.read(42), 1).getFirst().slot()).isEqualTo(42);
+        assertThat(index.search(vectors.read(5), 40)).allSatisfy(match -> assertThat(match.slot()).isGreaterThanOrEqualTo(10));
+        index.clear();
+        assertThat(Files.exists(codes)).isFalse();
+        assertThat(index.search(vectors.read(42), 1)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepCodesAcrossOpensAndRequantizeOnlyChangedGenerations() throws Exception {
+        Random random = new Random(41);
+        VectorFile vectors = new VectorFile(tempDir.resolve("v.vec"));
+        Path codes = tempDir.resolve("v.q8");
+        QuantizedVectorIndex index = new QuantizedVectorIndex(vectors, codes);
+        long[] generations = new long[200];
+        for (int slot = 0; slot < 200; slot++) {
+            vectors.write(slot, randomUnit(random));
+            generations[slot] = slot + 1;
+            index.add(slot, generations[slot]);
+        }
+        BitSet live = new BitSet();
+        live.set(0, 200);
+        // Rewritten behind the index's back: same generation, so the stored codes are trusted.
+        vectors.write(7, randomUnit(random));
+
+        QuantizedVectorIndex kept = new QuantizedVectorIndex(vectors, codes);
+        assertThat(kept.open(live, generations)).isEqualTo(200);
+        assertThat(kept.searchQuantized(vectors.read(7), 1).getFirst().slot()).isNotEqualTo(7);
+
+        generations[7] = 201;
+        QuantizedVectorIndex refreshed = new QuantizedVectorIndex(vectors, codes);
+        refreshed.open(live, generations);
+        assertThat(refreshed.searchQuantized(vectors.read(7), 1).getFirst().slot()).isEqualTo(7);
+        assertThat(new QuantizedVectorIndex(vectors, codes).open(live, generations)).isEqualTo(201);
+    }
+
+    private static double recallAt10(
+        VectorIndex exact,
+        List<float[]> queries,
+        BiFunction<float[], Integer, List<VectorIndex.Match>> search
+    ) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> truth = new HashSet<>();
+            exact.search(query, 10).forEach(match -> truth.add(match.slot()));
+            for (VectorIndex.Match match : search.apply(query, 10)) {
+                if (truth.contains(match.slot())) {
+                    found++;
+                }
+            }
+        }
+        return found / (queries.size() * 10.0);
+    }
+
+    private static float[] around(float[] centroid, Random random) {
+        float[] vector = new float[DIM];
+        for (int i = 0; i < DIM; i++) {
+            vector[i] = centroid[i] + (float) (random.nextGaussian() * 0.06);
+        }
+        return normalize(vector);
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] vector = new float[DIM];
+        for (int i = 0; i < DIM; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return normalize(vector);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,154 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedMemoryStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadNamespaceWithoutListingBackingStoreAgain() throws Exception {
+        CountingStore backing = new CountingStore(new FileMemoryStore(tempDir.resolve("memories.json")));
+        backing.remember("Unrelated long-term fact", "agent", List.of("fact"));
+        SharedMemoryStore shared = new SharedMemoryStore(backing);
+
+        shared.write("run-1", "site", "Juba site 3");
+        shared.write("run-1", "count", "47 people");
+        shared.write("run-2", "site", "Malakal");
+
+        assertThat(shared.getSummary("run-1"))
+            .isEqualTo("## Shared context from upstream agents\n- **count**: 47 people\n- **site**: Juba site 3\n");
+        assertThat(shared.read("run-2", "site")).extracting(MemoryEntry::content).containsExactly("Malakal");
+        assertThat(shared.read("run-1", "missing")).isEmpty();
+        assertThat(shared.getSummary("run-3")).isEmpty();
+        assertThat(backing.lists).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIndexEntriesWrittenBeforeRestart() throws Exception {
+        Path path = tempDir.resolve("memories.json");
+        new SharedMemoryStore(new FileMemoryStore(path)).write("triage", "priority", "Cholera cases first");
+
+        SharedMemoryStore reopened = new SharedMemoryStore(new FileMemoryStore(path));
+
+        assertThat(reopened.namespaces()).containsExactly("triage");
+        assertThat(reopened.read("triage", "priority")).extracting(MemoryEntry::content)
+            .containsExactly("Cholera cases first");
+    }
+
+    @Test
+    void shouldDeleteNamespaceFromBackingStore() throws Exception {
+        FileMemoryStore backing = new FileMemoryStore(tempDir.resolve("memories.json"));
+        backing.remember("Keeps dairy cows", "agent", List.of("fact"));
+        SharedMemoryStore shared = new SharedMemoryStore(backing);
+        shared.write("run-1", "a", "Scratch fact one");
+        shared.write("run-1", "b", "Scratch fact two");
+        shared.write("run-2", "a", "Other run fact");
+
+        assertThat(shared.deleteNamespace("run-1")).isEqualTo(2);
+
+        assertThat(shared.getSummary("run-1")).isEmpty();
+        assertThat(shared.namespaces()).containsExactly("run-2");
+        assertThat(backing.list()).extracting(MemoryEntry::content)
+            .containsExactlyInAnyOrder("Keeps dairy cows", "Other run fact");
+    }
+
+    @Test
+    void shouldExpireRunNamespaceOnCompletionUnlessDisabled() throws Exception {
+        FileMemoryStore backing = new FileMemoryStore(tempDir.resolve("memories.json"));
+        SharedMemoryStore expiring = new SharedMemoryStore(backing);
+        expiring.write("run-1", "a", "Short-lived fact");
+        expiring.onRunCompleted("run-1");
+        assertThat(backing.count()).isZero();
+
+        SharedMemoryStore retaining = new SharedMemoryStore(backing, false);
+        retaining.write("run-2", "a", "Kept for audit");
+        retaining.onRunCompleted("run-2");
+        assertThat(retaining.read("run-2", "a")).hasSize(1);
+    }
+
+    @Test
+    void shouldKeepRunNamespaceUntilItsDescendantsComplete() throws Exception {
+        FileMemoryStore backing = new FileMemoryStore(tempDir.resolve("memories.json"));
+        SharedMemoryStore shared = new SharedMemoryStore(backing);
+        shared.onRunStarted("child", null);
+        shared.onRunStarted("grandchild", "child");
+        shared.write("child", "a", "Read by the grandchild");
+        shared.write("grandchild", "b", "Grandchild scratch");
+
+        shared.onRunCompleted("child");
+        assertThat(shared.read("child", "a")).hasSize(1);
+
+        shared.onRunStarted("grandchild", "child");
+        shared.onRunCompleted("grandchild");
+        assertThat(shared.namespaces()).isEmpty();
+        assertThat(backing.count()).isZero();
+    }
+
+    @Test
+    void shouldExpireNamespacesNoRunOwnsAfterIdleTtl() throws Exception {
+        FileMemoryStore backing = new FileMemoryStore(tempDir.resolve("memories.json"));
+        Clock later = Clock.fixed(Instant.now().plus(Duration.ofHours(2)), ZoneOffset.UTC);
+        SharedMemoryStore shared = new SharedMemoryStore(backing, true, Duration.ofHours(1), later);
+        shared.write("top-level", "a", "Written by the root run");
+        shared.onRunStarted("child", "top-level");
+        shared.write("child", "b", "Child still running");
+
+        assertThat(shared.expireIdle()).isEqualTo(1);
+        assertThat(shared.namespaces()).containsExactly("child");
+
+        SharedMemoryStore retaining = new SharedMemoryStore(backing, false, Duration.ofHours(1), later);
+        assertThat(retaining.expireIdle()).isZero();
+    }
+
+    private static final class CountingStore implements MemoryStore {
+        private final MemoryStore delegate;
+        int lists;
+
+        CountingStore(MemoryStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MemoryEntry remember(String content, String source, List<String> tags) throws IOException {
+            return delegate.remember(content, source, tags);
+        }
+
+        @Override
+        public boolean forget(String id) throws IOException {
+            return delegate.forget(id);
+        }
+
+        @Override
+        public List<MemoryEntry> recall(String query, int maxResults) throws IOException {
+            return delegate.recall(query, maxResults);
+        }
+
+        @Override
+        public List<MemoryEntry> list() throws IOException {
+            lists++;
+            return delegate.list();
+        }
+
+        @Override
+        public int count() throws IOException {
+            return delegate.count();
+        }
+
+        @Override
+        public String formatContext(int maxEntries) throws IOException {
+            return delegate.formatContext(maxEntries);
+        }
+    }
+}
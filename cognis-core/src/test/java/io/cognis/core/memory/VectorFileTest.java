@@ -0,0 +1,58 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VectorFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldPersistLittleEndianVectorsBySlot() throws Exception {
+        Path path = tempDir.resolve("memories.json.vec");
+        VectorFile file = new VectorFile(path);
+        file.write(0, new float[] {1f, 0f, 0f});
+        file.write(2, new float[] {0f, 0.5f, 0.25f});
+
+        VectorFile reopened = new VectorFile(path);
+        reopened.open();
+
+        assertThat(reopened.dimension()).isEqualTo(3);
+        assertThat(reopened.read(2)).containsExactly(0f, 0.5f, 0.25f);
+        assertThat(reopened.dot(0, new float[] {0.5f, 1f, 1f})).isEqualTo(0.5);
+
+        ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(raw.getInt(8)).isEqualTo(3);
+        assertThat(raw.getFloat(16 + 2 * 3 * Float.BYTES + Float.BYTES)).isEqualTo(0.5f);
+    }
+
+    @Test
+    void shouldGrowPastInitialCapacity() throws Exception {
+        VectorFile file = new VectorFile(tempDir.resolve("grow.vec"));
+        file.write(0, new float[] {1f, 2f});
+        int initial = file.capacity();
+
+        file.write(initial + 10, new float[] {3f, 4f});
+
+        assertThat(file.capacity()).isGreaterThan(initial + 10);
+        assertThat(file.read(0)).containsExactly(1f, 2f);
+        assertThat(file.read(initial + 10)).containsExactly(3f, 4f);
+    }
+
+    @Test
+    void shouldRejectVectorsOfAnotherDimension() throws Exception {
+        VectorFile file = new VectorFile(tempDir.resolve("dim.vec"));
+        file.write(0, new float[] {1f, 2f});
+
+        assertThatThrownBy(() -> file.write(1, new float[] {1f, 2f, 3f}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VectorMathTest {
+
+    @Test
+    void shouldAgreeWithScalarKernelForAnyLengthAndOffset() {
+        Random random = new Random(17);
+        for (int length : new int[] {1, 3, 8, 17, 255, 1536}) {
+            float[] a = randomArray(random, length + 5);
+            float[] b = randomArray(random, length);
+            double naive = 0;
+            for (int i = 0; i < length; i++) {
+                naive += a[5 + i] * b[i];
+            }
+
+            assertThat(VectorMath.dot(a, 5, b, length)).isCloseTo(naive, within(1e-3));
+            assertThat(VectorMath.scalarDot(a, 5, b, length)).isCloseTo(naive, within(1e-3));
+        }
+    }
+
+    @Test
+    void shouldComputeExactInt8DotProducts() {
+        Random random = new Random(19);
+        for (int length : new int[] {1, 7, 8, 9, 64, 383, 1536}) {
+            byte[] a = new byte[length + 3];
+            byte[] b = new byte[length];
+            random.nextBytes(a);
+            random.nextBytes(b);
+            a[3] = Byte.MIN_VALUE;
+            b[0] = Byte.MIN_VALUE;
+            int naive = 0;
+            for (int i = 0; i < length; i++) {
+                naive += a[3 + i] * b[i];
+            }
+
+            assertThat(VectorMath.dot(a, 3, b, length)).isEqualTo(naive);
+            assertThat(VectorMath.scalarDot(a, 3, b, length)).isEqualTo(naive);
+        }
+    }
+
+    @Test
+    void shouldUseSimdWhenVectorModuleIsEnabled() {
+        boolean moduleEnabled = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+        assertThat(VectorMath.simd()).isEqualTo(moduleEnabled);
+    }
+
+    private static float[] randomArray(Random random, int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+}
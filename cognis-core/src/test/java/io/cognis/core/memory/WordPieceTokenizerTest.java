@@ -0,0 +1,54 @@
+package io.cognis.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WordPieceTokenizerTest {
+
+    private static final List<String> VOCAB = List.of(
+        "[PAD]", "[UNK]", "[CLS]", "[SEP]", "the", "borehole", "is", "dry", "##s", "bore", "##hole",
+        "cafe", ",", ".", "!", "mai", "##ze", "水"
+    );
+
+    private final WordPieceTokenizer tokenizer = new WordPieceTokenizer(VOCAB, true);
+
+    @Test
+    void shouldWrapPiecesInClsAndSep() {
+        assertThat(tokenizer.encode("The borehole is dry.", 32)).containsExactly(2, 4, 5, 6, 7, 13, 3);
+    }
+
+    @Test
+    void shouldSplitIntoLongestPiecesAndFallBackToUnknown() {
+        assertThat(tokenizer.encode("boreholes maize zebra", 32)).containsExactly(2, 5, 8, 15, 16, 1, 3);
+        assertThat(tokenizer.encode("borexyz", 32)).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    void shouldLowerCaseStripAccentsAndSplitPunctuationAndCjk() {
+        assertThat(tokenizer.basicTokens("CAFÉ,dry!水水")).containsExactly("cafe", ",", "dry", "!", "水", "水");
+        assertThat(tokenizer.basicTokens(" \t\u0000 ")).isEmpty();
+    }
+
+    @Test
+    void shouldTruncateToMaxLength() {
+        assertThat(tokenizer.encode("the the the the the", 4)).containsExactly(2, 4, 4, 3);
+        assertThat(tokenizer.encode("", 4)).containsExactly(2, 3);
+    }
+
+    @Test
+    void shouldLoadVocabFileAndRequireSpecialTokens(@TempDir Path dir) throws Exception {
+        Path vocab = dir.resolve("vocab.txt");
+        Files.write(vocab, VOCAB);
+        assertThat(WordPieceTokenizer.load(vocab, true).encode("dry", 8)).containsExactly(2, 7, 3);
+
+        assertThatThrownBy(() -> new WordPieceTokenizer(List.of("[CLS]", "[SEP]"), true))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("[UNK]");
+    }
+}
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.cognis.core.model.ChatMessage;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -65,4 +66,51 @@ class CodexResponsesProviderTest {
         assertThat(request.getHeader("chatgpt-account-id")).isEqualTo("acct-1");
         assertThat(request.getBody().readUtf8()).contains("\"model\":\"gpt-5-codex\"");
     }
+
+    @Test
+    void shouldReportSseDeltasToListenerAsTheyArrive() {
+        String sse = """
+            data: {"type":"response.output_text.delta","delta":"hel"}
+            
+            data: {"type":"response.output_text.delta","delta":"lo"}
+            
+            data: {"type":"response.output_item.added","item":{"type":"function_call","id":"fc_1","call_id":"call_1","name":"echo","arguments":""}}
+            
+            data: {"type":"response.function_call_arguments.delta","call_id":"call_1","delta":"{\\\"text\\\":\\\"hi\\\"}"}
+            
+            data: [DONE]
+            
+            """;
+
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody(sse));
+
+        CodexResponsesProvider provider = new CodexResponsesProvider(
+            "openai_codex",
+            "token-1",
+            "acct-1",
+            server.url("/backend-api/codex/responses").toString()
+        );
+        List<String> text = new ArrayList<>();
+        List<String> toolFragments = new ArrayList<>();
+        LlmStreamListener listener = new LlmStreamListener() {
+            @Override
+            public void onTextDelta(String delta) {
+                text.add(delta);
+            }
+
+            @Override
+            public void onToolCallDelta(String callId, String name, String argumentsDelta) {
+                toolFragments.add(callId + "|" + name + "|" + argumentsDelta);
+            }
+        };
+
+        LlmResponse response = provider.chat("openai-codex/gpt-5-codex", List.of(ChatMessage.user("hi")), List.of(), listener);
+
+        assertThat(text).containsExactly("hel", "lo");
+        assertThat(toolFragments).containsExactly("call_1|echo|", "call_1||{\"text\":\"hi\"}");
+        assertThat(response.content()).isEqualTo("hello");
+        assertThat(response.toolCalls().getFirst().arguments()).containsEntry("text", "hi");
+    }
 }
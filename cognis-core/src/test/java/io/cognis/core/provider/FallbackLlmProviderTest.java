@@ -3,6 +3,7 @@ package io.cognis.core.provider;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.cognis.core.model.ChatMessage;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -21,6 +22,47 @@ class FallbackLlmProviderTest {
         assertThat(response.content()).isEqualTo("ok");
     }
 
+    @Test
+    void shouldWithdrawAPartialReplyBeforeFallingBack() {
+        LlmProvider primary = new StreamingStubProvider("primary", List.of("Hal"), "Error calling LLM: stream reset");
+        LlmProvider secondary = new StreamingStubProvider("secondary", List.of("He", "llo"), "Hello");
+        FallbackLlmProvider provider = new FallbackLlmProvider("openrouter", List.of(primary, secondary));
+        List<String> events = new ArrayList<>();
+
+        LlmResponse response = provider.chat("model", List.of(ChatMessage.user("hi")), List.of(), new LlmStreamListener() {
+            @Override
+            public void onTextDelta(String delta) {
+                events.add(delta);
+            }
+
+            @Override
+            public void onDiscard() {
+                events.add("<discard>");
+            }
+        });
+
+        assertThat(response.content()).isEqualTo("Hello");
+        assertThat(events).containsExactly("Hal", "<discard>", "He", "llo");
+    }
+
+    private record StreamingStubProvider(String name, List<String> deltas, String content) implements LlmProvider {
+        @Override
+        public LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools) {
+            return new LlmResponse(content, List.of(), Map.of());
+        }
+
+        @Override
+        public LlmResponse chat(
+            String model,
+            List<ChatMessage> messages,
+            List<Map<String, Object>> tools,
+            LlmStreamListener listener
+        ) {
+            deltas.forEach(listener::onTextDelta);
+            return chat(model, messages, tools);
+        }
+    }
+
     private record StubProvider(String name, String content) implements LlmProvider {
         @Override
         public LlmResponse chat(String model, List<ChatMessage> messages, List<Map<String, Object>> tools) {
@@ -4,11 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.cognis.core.model.ChatMessage;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -94,4 +96,78 @@ class OpenAiCompatProviderTest {
         assertThat(response.toolCalls().getFirst().arguments()).containsEntry("text", "hi");
         assertThat(response.usage()).containsEntry("total_tokens", 13);
     }
+
+    @Test
+    void shouldReportSseDeltasToListenerAsTheyArrive() {
+        String sse = """
+            data: {"choices":[{"delta":{"content":"hel"}}]}
+            
+            data: {"choices":[{"delta":{"content":"lo"}}]}
+            
+            data: {"choices":[{"delta":{"tool_calls":[{"id":"call_1","index":0,"function":{"name":"echo","arguments":"{\\\"te"}}]}}]}
+            
+            data: {"choices":[{"delta":{"tool_calls":[{"index":0,"function":{"arguments":"xt\\\":\\\"hi\\\"}"}}]}}]}
+            
+            data: [DONE]
+            
+            """;
+
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody(sse));
+
+        OpenAiCompatProvider provider = new OpenAiCompatProvider(
+            "openrouter",
+            "sk-test",
+            server.url("/v1/").toString(),
+            Map.of()
+        );
+        List<String> text = new ArrayList<>();
+        List<String> toolFragments = new ArrayList<>();
+        LlmStreamListener listener = new LlmStreamListener() {
+            @Override
+            public void onTextDelta(String delta) {
+                text.add(delta);
+            }
+
+            @Override
+            public void onToolCallDelta(String callId, String name, String argumentsDelta) {
+                toolFragments.add(callId + "|" + name + "|" + argumentsDelta);
+            }
+        };
+
+        LlmResponse response = provider.chat("gpt-4.1", List.of(ChatMessage.user("hi")), List.of(), listener);
+
+        assertThat(text).containsExactly("hel", "lo");
+        assertThat(toolFragments).containsExactly("call_1|echo|{\"te", "call_1||xt\":\"hi\"}");
+        assertThat(response.content()).isEqualTo("hello");
+        assertThat(response.toolCalls().getFirst().arguments()).containsEntry("text", "hi");
+    }
+
+    @Test
+    void shouldRetryAStreamCutOffMidwayWhenNoListenerIsAttached() {
+        StringBuilder sse = new StringBuilder("data: {\"choices\":[{\"delta\":{\"content\":\"part\"}}]}\n\n");
+        for (int i = 0; i < 200; i++) {
+            sse.append("data: {\"choices\":[{\"delta\":{\"content\":\".\"}}]}\n\n");
+        }
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody(sse.toString())
+            .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        server.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setBody("data: {\"choices\":[{\"delta\":{\"content\":\"whole\"}}]}\n\ndata: [DONE]\n\n"));
+
+        OpenAiCompatProvider provider = new OpenAiCompatProvider(
+            "openrouter",
+            "sk-test",
+            server.url("/v1/").toString(),
+            Map.of()
+        );
+
+        LlmResponse response = provider.chat("gpt-4.1", List.of(ChatMessage.user("hi")), List.of());
+
+        assertThat(response.content()).isEqualTo("whole");
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
 }
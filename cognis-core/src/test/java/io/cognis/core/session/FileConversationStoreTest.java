@@ -3,9 +3,16 @@ package io.cognis.core.session;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.cognis.core.model.ChatMessage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -31,4 +38,188 @@ class FileConversationStoreTest {
         assertThat(saved.getFirst().prompt()).isEqualTo("hello");
         assertThat(saved.getFirst().response()).isEqualTo("hi");
     }
+
+    @Test
+    void shouldReadRecentTurnsOfOneSessionFromTheTail() throws Exception {
+        FileConversationStore store = new FileConversationStore(tempDir.resolve("memory/history.json"));
+        for (int i = 0; i < 50; i++) {
+            store.append("whatsapp/+27821234567", turn(i, "a" + i));
+            store.append("task-9", turn(i, "b" + i));
+        }
+
+        assertThat(store.recentTurns("whatsapp/+27821234567", 3)).extracting(ConversationTurn::prompt)
+            .containsExactly("a47", "a48", "a49");
+        assertThat(store.recentTurns("task-9", 100)).hasSize(50);
+        assertThat(store.recentTurns("unknown", 5)).isEmpty();
+        assertThat(store.sessionIds()).containsExactly("task-9", "whatsapp/+27821234567");
+        assertThat(store.list()).hasSize(100);
+        assertThat(Files.size(tempDir.resolve("memory/history/task-9.idx"))).isEqualTo(50L * Long.BYTES);
+    }
+
+    @Test
+    void shouldRecoverFromATornWriteAndAMissingIndex() throws Exception {
+        Path path = tempDir.resolve("memory/history.json");
+        FileConversationStore store = new FileConversationStore(path);
+        store.append("s", turn(0, "first"));
+        store.append("s", turn(1, "second"));
+        Path log = tempDir.resolve("memory/history/s.ndjson");
+        Files.writeString(log, "{\"createdAt\":\"2026-01-01T00:", StandardOpenOption.APPEND);
+        Files.delete(tempDir.resolve("memory/history/s.idx"));
+
+        FileConversationStore reopened = new FileConversationStore(path);
+        reopened.append("s", turn(2, "third"));
+
+        assertThat(reopened.recentTurns("s", 2)).extracting(ConversationTurn::prompt).containsExactly("second", "third");
+        assertThat(reopened.list()).extracting(ConversationTurn::prompt).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void shouldCompactSessionsPastTheTurnLimit() throws Exception {
+        FileConversationStore store = new FileConversationStore(tempDir.resolve("memory/history.json"), 8);
+        for (int i = 0; i < 11; i++) {
+            store.append("s", turn(i, "p" + i));
+        }
+
+        // 10 turns is within a quarter of the limit; the 11th triggers compaction down to 8.
+        assertThat(store.recentTurns("s", 100)).extracting(ConversationTurn::prompt)
+            .containsExactly("p3", "p4", "p5", "p6", "p7", "p8", "p9", "p10");
+        store.append("s", turn(11, "p11"));
+        assertThat(new FileConversationStore(tempDir.resolve("memory/history.json"), 8).recentTurns("s", 2))
+            .extracting(ConversationTurn::prompt).containsExactly("p10", "p11");
+    }
+
+    @Test
+    void shouldImportTheLegacySingleFileHistory() throws Exception {
+        Path path = tempDir.resolve("memory/history.json");
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, """
+            [ {
+              "createdAt" : "2026-01-01T00:00:00Z",
+              "prompt" : "old question",
+              "response" : "old answer",
+              "transcript" : [ ]
+            } ]
+            """, StandardCharsets.UTF_8);
+
+        FileConversationStore store = new FileConversationStore(path);
+        store.append(turn(1, "new question"));
+
+        assertThat(store.recentTurns(ConversationStore.DEFAULT_SESSION, 5)).extracting(ConversationTurn::prompt)
+            .containsExactly("old question", "new question");
+        assertThat(path).doesNotExist();
+        assertThat(tempDir.resolve("memory/history.json.migrated")).exists();
+    }
+
+    @Test
+    void shouldImportTheLegacyHistoryOnceAcrossAnInterruptedMigration() throws Exception {
+        Path path = tempDir.resolve("memory/history.json");
+        Path log = tempDir.resolve("memory/history/default.ndjson");
+        Path staged = tempDir.resolve("memory/history/default.ndjson.import");
+        Files.createDirectories(log.getParent());
+        String legacy = """
+            [ { "createdAt" : "2026-01-01T00:00:00Z", "prompt" : "one", "response" : "a", "transcript" : [ ] },
+              { "createdAt" : "2026-01-01T00:00:01Z", "prompt" : "two", "response" : "b", "transcript" : [ ] } ]
+            """;
+        Files.writeString(path, legacy, StandardCharsets.UTF_8);
+        // Crash while staging: the history file was not renamed yet, the staged log is partial.
+        Files.writeString(staged, "{\"prompt\":\"one\"", StandardCharsets.UTF_8);
+
+        assertThat(new FileConversationStore(path).recentTurns(ConversationStore.DEFAULT_SESSION, 5))
+            .extracting(ConversationTurn::prompt).containsExactly("one", "two");
+
+        // Crash after the rename committed the import but before the staged log was moved into place.
+        Files.move(log, staged);
+        Files.delete(tempDir.resolve("memory/history/default.idx"));
+
+        FileConversationStore restarted = new FileConversationStore(path);
+        restarted.append(turn(2, "three"));
+        assertThat(restarted.recentTurns(ConversationStore.DEFAULT_SESSION, 5))
+            .extracting(ConversationTurn::prompt).containsExactly("one", "two", "three");
+        assertThat(staged).doesNotExist();
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void shouldAppendToDifferentSessionsConcurrently() throws Exception {
+        FileConversationStore store = new FileConversationStore(tempDir.resolve("memory/history.json"));
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < 8; s++) {
+                String session = "session-" + s;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        store.append(session, turn(i, session + ":" + i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(store.list()).hasSize(200);
+        assertThat(store.recentTurns("session-3", 1)).extracting(ConversationTurn::prompt).containsExactly("session-3:24");
+    }
+
+    @Test
+    void shouldPageTurnsBackwardsAndListSessionMetadata() throws Exception {
+        FileConversationStore store = new FileConversationStore(tempDir.resolve("memory/history.json"));
+        for (int i = 0; i < 5; i++) {
+            store.append("b", turn(i, "b" + i));
+        }
+        store.append("a", turn(10, "a0"));
+        store.append("c", turn(20, "c0"));
+
+        ConversationPage<ConversationTurn> newest = store.turns("b", null, 2);
+        ConversationPage<ConversationTurn> middle = store.turns("b", newest.nextCursor(), 2);
+        ConversationPage<ConversationTurn> oldest = store.turns("b", middle.nextCursor(), 2);
+        assertThat(newest.items()).extracting(ConversationTurn::prompt).containsExactly("b3", "b4");
+        assertThat(middle.items()).extracting(ConversationTurn::prompt).containsExactly("b1", "b2");
+        assertThat(oldest.items()).extracting(ConversationTurn::prompt).containsExactly("b0");
+        assertThat(oldest.nextCursor()).isNull();
+
+        ConversationPage<ConversationSession> first = store.sessions(null, 2);
+        assertThat(first.items()).containsExactly(
+            new ConversationSession("a", 1, Instant.parse("2026-01-01T00:00:10Z")),
+            new ConversationSession("b", 5, Instant.parse("2026-01-01T00:00:04Z")));
+        ConversationPage<ConversationSession> second = store.sessions(first.nextCursor(), 2);
+        assertThat(second.items()).extracting(ConversationSession::id).containsExactly("c");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldStoreTheRepeatedSystemPromptOnceAndReencodeOlderLogs() throws Exception {
+        Path path = tempDir.resolve("memory/history.json");
+        Path log = tempDir.resolve("memory/history/s.ndjson");
+        Files.createDirectories(log.getParent());
+        // A log written before transcripts were encoded: plain JSON turns.
+        Files.writeString(log, "{\"createdAt\":\"2026-01-01T00:00:00Z\",\"prompt\":\"old\",\"response\":\"r\","
+            + "\"transcript\":[{\"role\":\"USER\",\"content\":\"old\",\"toolCallId\":null,\"toolCalls\":[]}]}\n");
+        String systemPrompt = "You are Cognis. Follow the identity policy at all times. ".repeat(10);
+
+        FileConversationStore store = new FileConversationStore(path);
+        for (int i = 1; i <= 3; i++) {
+            store.append("s", new ConversationTurn(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i), "q" + i, "a" + i,
+                List.of(ChatMessage.system(systemPrompt + "\n\nTurn " + i), ChatMessage.user("q" + i))));
+        }
+
+        assertThat(Files.readAllLines(log)).noneMatch(line -> line.contains("\"transcript\""));
+        try (var blocks = Files.list(tempDir.resolve("memory/history/blocks"))) {
+            assertThat(blocks).hasSize(1);
+        }
+        List<ConversationTurn> turns = new FileConversationStore(path).recentTurns("s", 10);
+        assertThat(turns).extracting(ConversationTurn::prompt).containsExactly("old", "q1", "q2", "q3");
+        assertThat(turns.getFirst().transcript()).containsExactly(ChatMessage.user("old"));
+        assertThat(turns.getLast().transcript().getFirst().content()).isEqualTo(systemPrompt + "\n\nTurn 3");
+    }
+
+    private static ConversationTurn turn(int second, String prompt) {
+        return new ConversationTurn(
+            Instant.parse("2026-01-01T00:00:00Z").plusSeconds(second),
+            prompt,
+            "re: " + prompt,
+            List.of(ChatMessage.user(prompt), ChatMessage.assistant("re: " + prompt))
+        );
+    }
 }
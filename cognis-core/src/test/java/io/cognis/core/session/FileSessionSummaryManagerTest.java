@@ -2,7 +2,10 @@ package io.cognis.core.session;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -23,4 +26,55 @@ class FileSessionSummaryManagerTest {
         assertThat(summary.length()).isLessThanOrEqualTo(120);
         assertThat(summary).contains("Assistant");
     }
+
+    @Test
+    void shouldWriteBehindAndServeRepeatReadsFromMemory() throws Exception {
+        Path path = tempDir.resolve("memory/session-summary.txt");
+        Path session = tempDir.resolve("memory/session-summary/client-1.txt");
+        FileSessionSummaryManager manager = new FileSessionSummaryManager(path, 2_000, Duration.ofHours(1), 16);
+
+        manager.recordTurn("client-1", "Where is my order?", "It ships tomorrow.");
+        manager.recordTurn("client-1", "Thanks", "You are welcome.");
+        assertThat(session).doesNotExist();
+
+        manager.flush();
+        assertThat(Files.readString(session, StandardCharsets.UTF_8))
+            .contains("Where is my order?").contains("You are welcome.");
+        assertThat(path).doesNotExist();
+
+        // The cached summary is served even though the file changed underneath.
+        Files.writeString(session, "edited elsewhere", StandardCharsets.UTF_8);
+        assertThat(manager.currentSummary("client-1")).startsWith("User: Where is my order?");
+
+        // Nothing changed since the last write, so a flush leaves the file alone.
+        manager.flush();
+        assertThat(Files.readString(session, StandardCharsets.UTF_8)).isEqualTo("edited elsewhere");
+        manager.close();
+    }
+
+    @Test
+    void shouldKeepSessionsApartAndEvictOnlyWrittenSummaries() throws Exception {
+        Path path = tempDir.resolve("summary.txt");
+        FileSessionSummaryManager manager = new FileSessionSummaryManager(path, 2_000, Duration.ofHours(1), 2);
+
+        for (int i = 0; i < 5; i++) {
+            manager.recordTurn("client/" + i, "prompt " + i, "response " + i);
+        }
+        manager.recordTurn("prompt default", "response default");
+        // Five sessions are pending past a cache of two: none may be lost before they are written.
+        for (int i = 0; i < 5; i++) {
+            assertThat(manager.currentSummary("client/" + i)).isEqualTo("User: prompt " + i + " | Assistant: response " + i);
+        }
+        manager.close();
+
+        FileSessionSummaryManager reopened = new FileSessionSummaryManager(path, 2_000, Duration.ZERO, 2);
+        for (int i = 0; i < 5; i++) {
+            assertThat(reopened.currentSummary("client/" + i)).isEqualTo("User: prompt " + i + " | Assistant: response " + i);
+        }
+        assertThat(reopened.currentSummary()).isEqualTo("User: prompt default | Assistant: response default");
+
+        reopened.recordTurn("client/0", "again", "again");
+        assertThat(Files.readString(tempDir.resolve("summary/client~002f0.txt"), StandardCharsets.UTF_8))
+            .contains("response 0").contains("User: again");
+    }
 }
@@ -1,11 +1,21 @@
 package io.cognis.core.session;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.cognis.core.model.ChatMessage;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -60,4 +70,156 @@ class SqliteConversationStoreTest {
         SqliteConversationStore store = new SqliteConversationStore(tempDir.resolve("memory/cognis.db"));
         assertThat(store.list()).isEmpty();
     }
+
+    @Test
+    void readersShouldNotBlockOnAnOpenWriteTransaction() throws Exception {
+        Path db = tempDir.resolve("memory/cognis.db");
+        try (SqliteConversationStore store = new SqliteConversationStore(db, 4);
+             Connection other = DriverManager.getConnection("jdbc:sqlite:" + db.toAbsolutePath());
+             ExecutorService writerThread = Executors.newSingleThreadExecutor();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            store.append(turn("committed"));
+
+            // Another process holds the write lock with an uncommitted row.
+            try (Statement statement = other.createStatement()) {
+                statement.execute("BEGIN IMMEDIATE");
+                statement.execute("INSERT INTO conversation_turns (id, created_at, prompt, response, transcript_json) "
+                    + "VALUES ('x', '2026-01-03T00:00:00Z', 'pending', 'r', '[]')");
+            }
+            // The store's own writer now waits for that lock, holding the store's write lock. SQLite's
+            // busy wait sleeps in native code, so it gets a platform thread of its own.
+            CompletableFuture<Void> blockedAppend = CompletableFuture.runAsync(() -> {
+                try {
+                    store.append(turn("queued"));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, writerThread);
+            Thread.sleep(100);
+
+            List<Future<List<ConversationTurn>>> reads = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                reads.add(executor.submit(store::list));
+            }
+            for (Future<List<ConversationTurn>> read : reads) {
+                assertThat(read.get(2, TimeUnit.SECONDS)).extracting(ConversationTurn::prompt).containsExactly("committed");
+            }
+            assertThat(blockedAppend).isNotDone();
+
+            other.createStatement().execute("COMMIT");
+            blockedAppend.get(5, TimeUnit.SECONDS);
+            assertThat(store.list()).extracting(ConversationTurn::prompt).containsExactlyInAnyOrder("committed", "pending", "queued");
+        }
+    }
+
+    @Test
+    void shouldRejectCallsAfterClose() throws Exception {
+        SqliteConversationStore store = new SqliteConversationStore(tempDir.resolve("memory/cognis.db"));
+        store.append(turn("hello"));
+        store.close();
+
+        assertThatThrownBy(store::list).hasMessageContaining("closed");
+        assertThat(new SqliteConversationStore(tempDir.resolve("memory/cognis.db")).list()).hasSize(1);
+    }
+
+    @Test
+    void shouldPageSessionTurnsAndListSessionMetadata() throws Exception {
+        try (SqliteConversationStore store = new SqliteConversationStore(tempDir.resolve("memory/cognis.db"))) {
+            for (int i = 0; i < 5; i++) {
+                store.append("whatsapp/+27821234567", new ConversationTurn(
+                    Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i), "q" + i, "a" + i, List.of()));
+            }
+            store.append("task-1", turn("other"));
+
+            assertThat(store.recentTurns("whatsapp/+27821234567", 2)).extracting(ConversationTurn::prompt)
+                .containsExactly("q3", "q4");
+            ConversationPage<ConversationTurn> newest = store.turns("whatsapp/+27821234567", null, 3);
+            ConversationPage<ConversationTurn> older = store.turns("whatsapp/+27821234567", newest.nextCursor(), 3);
+            assertThat(newest.items()).extracting(ConversationTurn::prompt).containsExactly("q2", "q3", "q4");
+            assertThat(older.items()).extracting(ConversationTurn::prompt).containsExactly("q0", "q1");
+            assertThat(older.nextCursor()).isNull();
+
+            ConversationPage<ConversationSession> first = store.sessions(null, 1);
+            assertThat(first.items()).containsExactly(new ConversationSession("task-1", 1, Instant.parse("2026-01-01T00:00:00Z")));
+            assertThat(store.sessions(first.nextCursor(), 1).items()).containsExactly(
+                new ConversationSession("whatsapp/+27821234567", 5, Instant.parse("2026-01-01T00:00:04Z")));
+            assertThatThrownBy(() -> store.turns("task-1", "not-a-cursor", 5)).isInstanceOf(IllegalArgumentException.class);
+            store.append("task-2", new ConversationTurn(Instant.parse("2026-01-02T00:00:00Z"), "latest", "a", List.of()));
+            assertThat(store.latestTurns(3)).extracting(ConversationTurn::prompt).containsExactly("q3", "q4", "latest");
+        }
+    }
+
+    @Test
+    void shouldMoveTurnsOfAnOlderSchemaIntoTheDefaultSession() throws Exception {
+        Path db = tempDir.resolve("memory/cognis.db");
+        java.nio.file.Files.createDirectories(db.getParent());
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db.toAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE conversation_turns (id TEXT PRIMARY KEY, created_at TEXT NOT NULL, "
+                + "prompt TEXT NOT NULL, response TEXT NOT NULL, transcript_json TEXT NOT NULL)");
+            statement.execute("INSERT INTO conversation_turns VALUES ('1', '2026-01-01T00:00:00Z', 'old', 'reply', '[]')");
+        }
+
+        try (SqliteConversationStore store = new SqliteConversationStore(db)) {
+            store.append(turn("new"));
+
+            assertThat(store.recentTurns(ConversationStore.DEFAULT_SESSION, 5)).extracting(ConversationTurn::prompt)
+                .containsExactly("old", "new");
+        }
+    }
+
+    @Test
+    void shouldStoreTheRepeatedSystemPromptOnceAsABlock() throws Exception {
+        Path db = tempDir.resolve("memory/cognis.db");
+        String systemPrompt = "You are Cognis. Follow the identity policy at all times. ".repeat(10);
+        try (SqliteConversationStore store = new SqliteConversationStore(db)) {
+            for (int i = 0; i < 3; i++) {
+                store.append(new ConversationTurn(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i), "q" + i, "a" + i,
+                    List.of(ChatMessage.system(systemPrompt + "\n\nTurn " + i), ChatMessage.user("q" + i))));
+            }
+
+            assertThat(store.list().getLast().transcript().getFirst().content()).isEqualTo(systemPrompt + "\n\nTurn 2");
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db.toAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            var blocks = statement.executeQuery("SELECT COUNT(*) FROM conversation_blocks");
+            assertThat(blocks.getInt(1)).isEqualTo(1);
+            var plain = statement.executeQuery("SELECT COUNT(*) FROM conversation_turns WHERE transcript_json <> ''");
+            assertThat(plain.getInt(1)).isZero();
+        }
+    }
+
+    @Test
+    void shouldSkipUnreadableLegacyTranscriptsAndReencodeOnlyOnce() throws Exception {
+        Path db = tempDir.resolve("memory/cognis.db");
+        java.nio.file.Files.createDirectories(db.getParent());
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db.toAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE conversation_turns (id TEXT PRIMARY KEY, created_at TEXT NOT NULL, "
+                + "prompt TEXT NOT NULL, response TEXT NOT NULL, transcript_json TEXT NOT NULL)");
+            statement.execute("INSERT INTO conversation_turns VALUES ('1', '2026-01-01T00:00:00Z', 'good', 'reply', '[]')");
+            statement.execute("INSERT INTO conversation_turns VALUES ('2', '2026-01-01T00:00:01Z', 'bad', 'reply', '{oops')");
+        }
+
+        new SqliteConversationStore(db).close();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db.toAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            assertThat(statement.executeQuery("PRAGMA user_version").getInt(1)).isEqualTo(1);
+            assertThat(statement.executeQuery(
+                "SELECT prompt FROM conversation_turns WHERE transcript_body IS NULL").getString(1)).isEqualTo("bad");
+            statement.execute("INSERT INTO conversation_turns (id, created_at, prompt, response, transcript_json) "
+                + "VALUES ('3', '2026-01-01T00:00:02Z', 'late', 'reply', '[]')");
+        }
+        new SqliteConversationStore(db).close();
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db.toAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            assertThat(statement.executeQuery(
+                "SELECT COUNT(*) FROM conversation_turns WHERE transcript_body IS NULL").getInt(1)).isEqualTo(2);
+        }
+    }
+
+    private static ConversationTurn turn(String prompt) {
+        return new ConversationTurn(Instant.parse("2026-01-01T00:00:00Z"), prompt, "reply", List.of(ChatMessage.user(prompt)));
+    }
 }
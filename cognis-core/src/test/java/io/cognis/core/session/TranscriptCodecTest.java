@@ -0,0 +1,96 @@
+package io.cognis.core.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cognis.core.model.ChatMessage;
+import io.cognis.core.model.ToolCall;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TranscriptCodecTest {
+
+    private static final String BASE_PROMPT = basePrompt();
+
+    @Test
+    void shouldRoundTripAndStoreRepeatedSystemParagraphsOnce() throws Exception {
+        MapBlockStore blocks = new MapBlockStore();
+        TranscriptCodec codec = new TranscriptCodec(new ObjectMapper());
+        List<ChatMessage> first = transcript("## Recalled Memories\n\n- plot 4 has maize");
+        List<ChatMessage> second = transcript("## Recalled Memories\n\n- the co-op meets on Friday");
+
+        byte[] firstBody = codec.encode(first, blocks);
+        assertThat(blocks.content).isEmpty();
+        byte[] secondBody = codec.encode(second, blocks);
+
+        assertThat(blocks.content).hasSize(1);
+        assertThat(blocks.content.values().iterator().next()).startsWith("You are Cognis");
+        assertThat(secondBody.length).isLessThan(firstBody.length);
+        assertThat(codec.decode(firstBody, blocks)).isEqualTo(first);
+        assertThat(codec.decode(secondBody, blocks)).isEqualTo(second);
+        // A fresh codec (after a restart) resolves blocks from the store alone.
+        assertThat(new TranscriptCodec(new ObjectMapper()).decode(secondBody, blocks)).isEqualTo(second);
+    }
+
+    @Test
+    void shouldCompressTranscriptsWellBelowTheirJsonSize() throws Exception {
+        List<ChatMessage> transcript = transcript("## Session Summary\n\n" + "Discussed irrigation schedules. ".repeat(40));
+        byte[] json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(transcript);
+
+        byte[] body = new TranscriptCodec(new ObjectMapper()).encode(transcript, new MapBlockStore());
+
+        assertThat(body.length).isLessThan(json.length / 3);
+    }
+
+    @Test
+    void shouldFailOnAMissingBlock() throws Exception {
+        MapBlockStore blocks = new MapBlockStore();
+        TranscriptCodec codec = new TranscriptCodec(new ObjectMapper());
+        codec.encode(transcript(""), blocks);
+        byte[] body = codec.encode(transcript(""), blocks);
+        blocks.content.clear();
+
+        assertThatThrownBy(() -> new TranscriptCodec(new ObjectMapper()).decode(body, blocks))
+            .hasMessageContaining("Missing transcript block");
+    }
+
+    /** A system prompt of varied prose, which deflate alone cannot shrink much. */
+    private static String basePrompt() {
+        String[] words = {"farmer", "maize", "rain", "co-op", "market", "price", "season", "soil", "seed", "loan",
+            "harvest", "storage", "transport", "weather", "advice", "confirm", "never", "always", "ask", "reply"};
+        Random random = new Random(42);
+        StringBuilder prompt = new StringBuilder("You are Cognis.");
+        for (int i = 0; i < 120; i++) {
+            prompt.append(' ').append(words[random.nextInt(words.length)]);
+        }
+        return prompt.toString();
+    }
+
+    private static List<ChatMessage> transcript(String context) {
+        return List.of(
+            ChatMessage.system(BASE_PROMPT + "\n\n" + context),
+            ChatMessage.user("When should I plant?"),
+            ChatMessage.assistantWithToolCalls("", List.of(new ToolCall("call-1", "weather", Map.of("city", "Polokwane")))),
+            ChatMessage.tool("Rain expected Thursday", "call-1"),
+            ChatMessage.assistant("Plant after Thursday's rain.")
+        );
+    }
+
+    private static final class MapBlockStore implements TranscriptCodec.BlockStore {
+        private final Map<String, String> content = new HashMap<>();
+
+        @Override
+        public String get(String hash) {
+            return content.get(hash);
+        }
+
+        @Override
+        public void put(String hash, String value) {
+            content.putIfAbsent(hash, value);
+        }
+    }
+}
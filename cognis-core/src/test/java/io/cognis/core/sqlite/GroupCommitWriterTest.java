@@ -0,0 +1,121 @@
+package io.cognis.core.sqlite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GroupCommitWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldCommitConcurrentWritesTogether() throws Exception {
+        try (GroupCommitWriter writer = new GroupCommitWriter(tempDir.resolve("db/test.db"), Duration.ofMillis(20), 256)) {
+            createTable(writer);
+            long commitsBefore = writer.commits();
+
+            List<Future<Integer>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 200; i++) {
+                    int value = i;
+                    results.add(executor.submit(() -> writer.execute(transaction -> insert(transaction, value))));
+                }
+                for (Future<Integer> result : results) {
+                    assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+                }
+            }
+
+            assertThat(count(writer)).isEqualTo(200);
+            assertThat(writer.writes()).isGreaterThanOrEqualTo(200);
+            assertThat(writer.commits() - commitsBefore).isLessThan(200);
+        }
+    }
+
+    @Test
+    void failingWriteShouldNotAffectTheRestOfItsBatch() throws Exception {
+        try (GroupCommitWriter writer = new GroupCommitWriter(tempDir.resolve("test.db"), Duration.ofMillis(50), 256)) {
+            createTable(writer);
+
+            CompletableFuture<Integer> first = writer.submit(transaction -> insert(transaction, 1));
+            CompletableFuture<Integer> failing = writer.submit(transaction -> {
+                insert(transaction, 2);
+                throw new IOException("boom");
+            });
+            CompletableFuture<Integer> last = writer.submit(transaction -> insert(transaction, 3));
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(last.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("boom");
+            assertThat(values(writer)).containsExactly(1, 3);
+        }
+    }
+
+    @Test
+    void closeShouldCommitQueuedWritesAndRejectLaterOnes() throws Exception {
+        Path db = tempDir.resolve("test.db");
+        GroupCommitWriter writer = new GroupCommitWriter(db, Duration.ofMillis(200), 256);
+        createTable(writer);
+        List<CompletableFuture<Integer>> pending = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            pending.add(writer.submit(transaction -> insert(transaction, value)));
+        }
+
+        writer.close();
+
+        for (CompletableFuture<Integer> future : pending) {
+            assertThat(future).isCompletedWithValue(1);
+        }
+        assertThatThrownBy(() -> writer.execute(transaction -> insert(transaction, 99)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("closed");
+        try (GroupCommitWriter reopened = new GroupCommitWriter(db)) {
+            assertThat(count(reopened)).isEqualTo(10);
+        }
+    }
+
+    private static void createTable(GroupCommitWriter writer) throws IOException {
+        writer.execute(transaction -> transaction.prepare("CREATE TABLE IF NOT EXISTS items (value INTEGER NOT NULL)").executeUpdate());
+    }
+
+    private static int insert(GroupCommitWriter.Transaction transaction, int value) throws SQLException {
+        PreparedStatement statement = transaction.prepare("INSERT INTO items (value) VALUES (?)");
+        statement.setInt(1, value);
+        return statement.executeUpdate();
+    }
+
+    private static int count(GroupCommitWriter writer) throws IOException {
+        return values(writer).size();
+    }
+
+    private static List<Integer> values(GroupCommitWriter writer) throws IOException {
+        return writer.execute(transaction -> {
+            List<Integer> values = new ArrayList<>();
+            try (ResultSet resultSet = transaction.prepare("SELECT value FROM items ORDER BY value").executeQuery()) {
+                while (resultSet.next()) {
+                    values.add(resultSet.getInt(1));
+                }
+            }
+            return values;
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package io.cognis.core.stratus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cognis.core.memory.MemoryEntry;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StratusVfsMemoryStoreTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String BASE = "/verticals/test/memory";
+
+    /** In-memory VFS served by the mock gateway. */
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final List<String> writes = new CopyOnWriteArrayList<>();
+    private final List<String> reads = new CopyOnWriteArrayList<>();
+    private volatile String searchResponse = "[]";
+    private MockWebServer server;
+    private StratusClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    String path = request.getPath();
+                    if (path.startsWith("/vfs/write")) {
+                        JsonNode body = MAPPER.readTree(request.getBody().readUtf8());
+                        files.put(body.get("path").asText(), body.get("content").asText());
+                        writes.add(body.get("path").asText());
+                        return new MockResponse().setResponseCode(204);
+                    }
+                    if (path.startsWith("/vfs/read")) {
+                        String file = URLDecoder.decode(path.substring(path.indexOf("path=") + 5), StandardCharsets.UTF_8);
+                        reads.add(file);
+                        String content = files.get(file);
+                        return content == null
+                            ? new MockResponse().setResponseCode(404)
+                            : new MockResponse().setBody(MAPPER.createObjectNode().put("content", content).toString());
+                    }
+                    return new MockResponse().setBody(searchResponse);
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(400);
+                }
+            }
+        });
+        server.start();
+        client = new StratusClient(server.url("/").toString(), "token", "test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void shouldCoalesceWritesUntilFlushAndReloadFromBasePlusDelta() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        MemoryEntry kept = store.remember("Site 3 has 47 people", "agent", List.of("fact"));
+        MemoryEntry dropped = store.remember("Truck 2 is delayed", "agent", List.of("task"));
+        store.remember("site 3 has 47 people", "agent", List.of("fact"));
+        store.forget(dropped.id());
+
+        assertThat(writes).isEmpty();
+        assertThat(store.list()).extracting(MemoryEntry::id).containsExactly(kept.id());
+        assertThat(reads).hasSize(2);
+
+        store.flush();
+
+        assertThat(writes).containsExactly(BASE + "/entries/" + kept.id() + ".json", BASE + "/index-delta.json");
+        StratusVfsMemoryStore reopened = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        assertThat(reopened.list()).extracting(MemoryEntry::content).containsExactly("Site 3 has 47 people");
+        assertThat(reopened.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWriteThroughInStrictMode() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", true, Duration.ofHours(1));
+        MemoryEntry entry = store.remember("Borehole at site 5 is dry", "agent", List.of("fact"));
+
+        assertThat(writes).containsExactly(BASE + "/entries/" + entry.id() + ".json", BASE + "/index-delta.json");
+        store.forget(entry.id());
+        assertThat(new StratusVfsMemoryStore(client, "test").count()).isZero();
+    }
+
+    @Test
+    void shouldFoldLargeDeltaIntoIndex() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        for (int i = 0; i < 130; i++) {
+            store.remember("Fact number " + i, "agent", List.of());
+        }
+        store.flush();
+
+        assertThat(writes).contains(BASE + "/index.json");
+        assertThat(MAPPER.readTree(files.get(BASE + "/index-delta.json")).get("puts")).isEmpty();
+        store.remember("One more fact", "agent", List.of());
+        store.flush();
+
+        assertThat(MAPPER.readTree(files.get(BASE + "/index-delta.json")).get("puts")).hasSize(1);
+        assertThat(new StratusVfsMemoryStore(client, "test").count()).isEqualTo(131);
+    }
+
+    @Test
+    void shouldFlushInTheBackground() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", false, Duration.ofMillis(20));
+        store.remember("Cold chain fridge repaired", "agent", List.of());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!writes.contains(BASE + "/index-delta.json") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(writes).contains(BASE + "/index-delta.json");
+        store.close();
+    }
+
+    @Test
+    void shouldWriteThroughOnceClosed() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        store.remember("Cold chain fridge repaired", "agent", List.of());
+        store.close();
+
+        MemoryEntry late = store.remember("Generator refuelled", "agent", List.of());
+
+        assertThat(writes).contains(BASE + "/entries/" + late.id() + ".json");
+        assertThat(new StratusVfsMemoryStore(client, "test").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldResolveSearchHitsOnEntryFiles() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        MemoryEntry local = store.remember("Clinic opens at eight", "agent", List.of("fact"));
+        MemoryEntry forgotten = store.remember("Old clinic hours", "agent", List.of("fact"));
+        store.forget(forgotten.id());
+        files.put(BASE + "/entries/foreign-1.json",
+            "{\"id\":\"foreign-1\",\"content\":\"Written by another instance\",\"tags\":[]}");
+        searchResponse = "[" + hit(local.id()) + "," + hit(local.id()) + "," + hit(forgotten.id()) + ","
+            + hit("foreign-1") + ",{\"path\":\"/docs/clinic.md\",\"content\":\"Clinic handbook\"}]";
+
+        List<MemoryEntry> results = store.recall("clinic", 5);
+        store.recall("clinic", 5);
+
+        assertThat(results).extracting(MemoryEntry::content)
+            .containsExactly("Clinic opens at eight", "Written by another instance", "Clinic handbook");
+        assertThat(reads).filteredOn(path -> path.contains("foreign-1")).hasSize(1);
+    }
+
+    @Test
+    void shouldKeepEntriesAnotherInstanceFlushedWhenFolding() throws Exception {
+        StratusVfsMemoryStore first = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        StratusVfsMemoryStore second = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        first.remember("Loaded before the other instance wrote", "agent", List.of());
+        MemoryEntry foreign = second.remember("Written by the second instance", "agent", List.of());
+        second.flush();
+
+        for (int i = 0; i < 130; i++) {
+            first.remember("Fact number " + i, "agent", List.of());
+        }
+        first.flush();
+
+        assertThat(writes).contains(BASE + "/index.json");
+        assertThat(first.list()).extracting(MemoryEntry::id).contains(foreign.id());
+        assertThat(new StratusVfsMemoryStore(client, "test").count()).isEqualTo(132);
+    }
+
+    @Test
+    void shouldCarryAnotherInstancesDeltaForward() throws Exception {
+        StratusVfsMemoryStore first = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        StratusVfsMemoryStore second = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        MemoryEntry gone = first.remember("Removed by the second instance", "agent", List.of());
+        first.flush();
+        second.remember("From the second instance", "agent", List.of());
+        second.forget(gone.id());
+        second.flush();
+
+        first.remember("From the first instance", "agent", List.of());
+        first.flush();
+
+        assertThat(new StratusVfsMemoryStore(client, "test").list()).extracting(MemoryEntry::content)
+            .containsExactlyInAnyOrder("From the second instance", "From the first instance");
+    }
+
+    @Test
+    void shouldTombstoneWrittenBodiesOfForgottenEntries() throws Exception {
+        StratusVfsMemoryStore store = new StratusVfsMemoryStore(client, "test", false, Duration.ofHours(1));
+        MemoryEntry entry = store.remember("Old distribution point", "agent", List.of());
+        store.flush();
+        store.forget(entry.id());
+        store.flush();
+
+        assertThat(files.get(BASE + "/entries/" + entry.id() + ".json")).isEmpty();
+        searchResponse = "[" + hit(entry.id()) + "]";
+        assertThat(new StratusVfsMemoryStore(client, "test").recall("distribution", 5)).isEmpty();
+    }
+
+    private static String hit(String id) {
+        return "{\"path\":\"" + BASE + "/entries/" + id + ".json\",\"content\":\"{}\",\"score\":0.9}";
+    }
+}
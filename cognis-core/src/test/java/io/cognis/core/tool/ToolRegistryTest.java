@@ -1,8 +1,12 @@
 package io.cognis.core.tool;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cognis.core.sandbox.VerticalPolicy;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class ToolRegistryTest {
@@ -17,6 +21,45 @@ class ToolRegistryTest {
             .isEqualTo("ok");
     }
 
+    @Test
+    void shouldReuseDefinitionSnapshotUntilAToolIsRegistered() throws Exception {
+        ToolRegistry registry = new ToolRegistry();
+        registry.register(new EchoTool());
+
+        ToolDefinitions first = registry.definitions();
+
+        assertThat(registry.definitions()).isSameAs(first);
+        assertThat(first).hasSize(1);
+        assertThat(first.getFirst()).containsEntry("type", "function");
+        assertThatThrownBy(() -> first.getFirst().put("type", "other"))
+            .isInstanceOf(UnsupportedOperationException.class);
+
+        ObjectMapper mapper = new ObjectMapper();
+        String payload = mapper.writeValueAsString(Map.of("tools", first));
+        assertThat(payload).isEqualTo("{\"tools\":" + first.json() + "}");
+        assertThat(mapper.readTree(first.json()).get(0).path("function").path("name").asText()).isEqualTo("echo");
+
+        PolicyEnforcedToolRegistry scoped =
+            new PolicyEnforcedToolRegistry(registry, VerticalPolicy.ofTools(Set.of("echo")), "test");
+        ToolDefinitions scopedFirst = scoped.definitions();
+        registry.register(new NamedTool("other"));
+
+        assertThat(registry.definitions()).isNotSameAs(first).hasSize(2);
+        assertThat(scoped.definitions()).isNotSameAs(scopedFirst).hasSize(1);
+    }
+
+    private record NamedTool(String name) implements Tool {
+        @Override
+        public String description() {
+            return name + " tool";
+        }
+
+        @Override
+        public String execute(Map<String, Object> input, ToolContext context) {
+            return "ok";
+        }
+    }
+
     private static final class EchoTool implements Tool {
         @Override
         public String name() {
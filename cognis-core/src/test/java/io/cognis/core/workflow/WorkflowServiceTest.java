@@ -6,6 +6,7 @@ import io.cognis.core.memory.FileMemoryStore;
 import io.cognis.core.profile.FileProfileStore;
 import io.cognis.core.session.ConversationStore;
 import io.cognis.core.session.ConversationTurn;
+import io.cognis.core.session.FileConversationStore;
 import io.cognis.core.session.SessionSummaryManager;
 import java.nio.file.Path;
 import java.time.Clock;
@@ -85,6 +86,25 @@ class WorkflowServiceTest {
         assertThat(nudge).contains("top tier friend");
     }
 
+    @Test
+    void shouldUseTheLatestTurnOfAnySessionForTheGoalCheckIn() throws Exception {
+        FileConversationStore conversations = new FileConversationStore(tempDir.resolve("memory/history.json"));
+        conversations.append(new ConversationTurn(Instant.parse("2026-02-21T08:00:00Z"), "Old default prompt", "ok", List.of()));
+        conversations.append("client-42", new ConversationTurn(
+            Instant.parse("2026-02-21T09:00:00Z"), "Beta testers reported the login bug", "noted", List.of()));
+        WorkflowService service = new WorkflowService(
+            null,
+            null,
+            null,
+            conversations,
+            Clock.fixed(Instant.parse("2026-02-21T10:00:00Z"), ZoneOffset.UTC)
+        );
+
+        String checkIn = service.buildGoalCheckIn("Ship mobile beta");
+
+        assertThat(checkIn).contains("Recent context: Beta testers reported the login bug");
+    }
+
     private static final class StaticSummaryManager implements SessionSummaryManager {
         private final String summary;
 
@@ -142,7 +142,7 @@ public final class HumanitarianVertical implements CognisVertical {
                 agentSettings,
                 workspace,
                 history,
-                Map.of("client_id", phone, "channel", channel)
+                Map.of("client_id", phone, "channel", channel, "vertical", name())
             );
             long durationMs = System.currentTimeMillis() - started;
 
@@ -38,6 +38,11 @@ public final class HerdLocationTool implements Tool {
         );
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext ctx) {
         AnimalStore store = ctx.service("animalStore", AnimalStore.class);
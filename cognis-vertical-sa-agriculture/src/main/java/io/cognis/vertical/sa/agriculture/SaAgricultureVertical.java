@@ -170,7 +170,8 @@ public final class SaAgricultureVertical implements CognisVertical {
             SYSTEM_PROMPT,
             agentSettings.provider(),
             agentSettings.model(),
-            agentSettings.maxToolIterations()
+            agentSettings.maxToolIterations(),
+            agentSettings.maxParallelTools()
         );
 
         String prompt = "[Farmer message via %s from %s]: %s".formatted(channel, phone, text);
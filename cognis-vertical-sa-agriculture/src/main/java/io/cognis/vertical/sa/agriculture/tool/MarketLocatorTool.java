@@ -66,6 +66,11 @@ public final class MarketLocatorTool implements Tool {
         );
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext ctx) {
         String action   = (String) input.get("action");
@@ -69,6 +69,11 @@ public final class SafexPriceTool implements Tool {
         );
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext ctx) {
         String action    = (String) input.get("action");
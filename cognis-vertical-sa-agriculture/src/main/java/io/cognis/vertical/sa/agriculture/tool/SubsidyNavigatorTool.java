@@ -118,6 +118,11 @@ public final class SubsidyNavigatorTool implements Tool {
         );
     }
 
+    @Override
+    public boolean parallelSafe() {
+        return true;
+    }
+
     @Override
     public String execute(Map<String, Object> input, ToolContext ctx) {
         String action      = (String) input.get("action");
@@ -87,5 +87,12 @@ if [ "$#" -eq 0 ]; then
   set -- gateway --port "${COGNIS_GATEWAY_PORT:-8787}"
 fi
 
+# SIMD memory recall is opt-in: the incubating vector module prints a warning at every start
+SIMD_OPTS=""
+if [ "${COGNIS_SIMD:-false}" = "true" ]; then
+  SIMD_OPTS="--add-modules jdk.incubator.vector"
+fi
+
 # Drop privileges to cognis user and exec the JVM
-exec gosu "${COGNIS_USER}" java -cp "/app/cognis-app.jar:/app/lib/*" io.cognis.app.CognisApplication "$@"
+# shellcheck disable=SC2086
+exec gosu "${COGNIS_USER}" java ${SIMD_OPTS} -cp "/app/cognis-app.jar:/app/lib/*" io.cognis.app.CognisApplication "$@"